@@ -0,0 +1,67 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data.filters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import de.erichseifert.gral.data.DataTable;
+
+@State(Scope.Benchmark)
+public class ConvolutionBenchmark {
+	@Param({"100000"})
+	public int rowCount;
+
+	@Param({"17", "65", "257", "1025"})
+	public int kernelSize;
+
+	@Param({"REPEAT"})
+	public Filter2D.Mode mode;
+
+	private Convolution filter;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void createFilter() {
+		DataTable table = new DataTable(Double.class);
+		for (int row = 0; row < rowCount; row++) {
+			table.add(Math.sin(row/100.0) + Math.random());
+		}
+		filter = new Convolution(table, Kernel.getBinomial(kernelSize).normalize(), mode, 0);
+	}
+
+	@Benchmark
+	public double direct() {
+		filter.filterDirect(0, rowCount);
+		return filter.getDouble(0, rowCount/2);
+	}
+
+	@Benchmark
+	public double transformed() {
+		filter.filterTransformed(0, rowCount);
+		return filter.getDouble(0, rowCount/2);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import de.erichseifert.gral.data.DataTable;
+import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.plots.lines.DefaultLineRenderer2D;
+import de.erichseifert.gral.plots.points.PointRenderer;
+
+/**
+ * Benchmark for drawing line plots. Allocations per frame can be measured
+ * by running the benchmark with the GC profiler ({@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+public class XYPlotBenchmark {
+	@Param({"1000", "100000"})
+	public int rowCount;
+
+	private XYPlot plot;
+	private BufferedImage image;
+	private Graphics2D graphics;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void createPlot() {
+		DataTable table = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < rowCount; row++) {
+			table.add((double) row, Math.sin(row/100.0));
+		}
+		plot = new XYPlot(table);
+		plot.setPointRenderers(table, (PointRenderer) null);
+		plot.setLineRenderers(table, new DefaultLineRenderer2D());
+		image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+		graphics = image.createGraphics();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+	}
+
+	@TearDown(Level.Trial)
+	public void disposeGraphics() {
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public void drawLines() {
+		plot.getPlotArea().draw(new DrawingContext(graphics));
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import de.erichseifert.gral.data.DataTable;
+import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.plots.lines.DefaultLineRenderer2D;
+import de.erichseifert.gral.plots.points.PointRenderer;
+
+/**
+ * Benchmark for drawing plots with many series. The series are drawn
+ * sequentially if the thread count is zero, otherwise they are drawn
+ * concurrently by a pool with the specified number of threads.
+ */
+@State(Scope.Benchmark)
+public class XYPlotSeriesBenchmark {
+	@Param({"40"})
+	public int seriesCount;
+
+	@Param({"0", "4", "32"})
+	public int threadCount;
+
+	private XYPlot plot;
+	private ExecutorService executor;
+	private BufferedImage image;
+	private Graphics2D graphics;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void createPlot() {
+		plot = new XYPlot();
+		for (int series = 0; series < seriesCount; series++) {
+			DataTable table = new DataTable(Double.class, Double.class);
+			for (int row = 0; row < 10000; row++) {
+				table.add((double) row, Math.sin(row/100.0 + series));
+			}
+			plot.add(table);
+			plot.setPointRenderers(table, (PointRenderer) null);
+			plot.setLineRenderers(table, new DefaultLineRenderer2D());
+		}
+		if (threadCount > 0) {
+			executor = Executors.newFixedThreadPool(threadCount);
+			plot.getPlotArea().setLayerExecutor(executor);
+		}
+		image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+		graphics = image.createGraphics();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() {
+		graphics.dispose();
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Benchmark
+	public void drawSeries() {
+		plot.getPlotArea().draw(new DrawingContext(graphics));
+	}
+}
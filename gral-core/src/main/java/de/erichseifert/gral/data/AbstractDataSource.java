@@ -26,6 +26,7 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -34,6 +35,7 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
+import de.erichseifert.gral.data.statistics.RunningStatistics;
 import de.erichseifert.gral.data.statistics.Statistics;
 
 
@@ -41,9 +43,12 @@ import de.erichseifert.gral.data.statistics.Statistics;
  * Abstract implementation of the {@code DataSource} interface.
  * This class provides access to statistical information,
  * administration and notification of listeners and supports
- * iteration of data values.
+ * iteration of data values. Numeric access is implemented by
+ * converting the values returned by {@link #get(int, int)}, derived
+ * classes should override these methods if they can provide primitive
+ * values more efficiently.
  */
-public abstract class AbstractDataSource implements DataSource, Serializable {
+public abstract class AbstractDataSource implements NumericDataSource, Serializable {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = 9139975565475816812L;
 
@@ -56,7 +61,17 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 	/** Set of objects that will be notified of changes to the data values. */
 	private transient Set<DataListener> dataListeners;
 	/** Statistical description of the data values. */
-	private transient Statistics statistics;
+	private transient RunningStatistics statistics;
+	/** Statistical description of the values in each column. */
+	private transient RunningStatistics[] columnStatistics;
+	/** Number of batches that have been started but not ended yet. */
+	private transient int batchDepth;
+	/** Change that is held back until the batch ends. */
+	private transient DataRangeEvent pendingEvent;
+	/** Events for single values that are held back until the batch ends. */
+	private transient List<DataChangeEvent> pendingCellEvents;
+	/** Index of the columns whose values are sorted. */
+	private transient SortedColumnIndex sortedColumns;
 
 	/**
 	 * Iterator that returns each row of the DataSource.
@@ -111,6 +126,48 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 		}
 	}
 
+	/**
+	 * Iterable that returns the current values of a single column of the
+	 * DataSource without copying them.
+	 */
+	private class ColumnValues implements Iterable<Comparable<?>> {
+		/** Index of the column. */
+		private final int col;
+
+		/**
+		 * Initializes a new instance for the column with the specified index.
+		 * @param col Index of the column.
+		 */
+		public ColumnValues(int col) {
+			this.col = col;
+		}
+
+		/**
+		 * Returns an iterator over all values of the column.
+		 * @return an Iterator.
+		 */
+		public Iterator<Comparable<?>> iterator() {
+			return new Iterator<Comparable<?>>() {
+				private int row;
+
+				public boolean hasNext() {
+					return row < getRowCount();
+				}
+
+				public Comparable<?> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return get(col, row++);
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
 	public AbstractDataSource() {
 		this(null, new Class[0]);
 	}
@@ -154,19 +211,38 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 	 */
 	public Statistics getStatistics() {
 		if (statistics == null) {
-			statistics = new Statistics(this);
+			statistics = new RunningStatistics(this);
 		}
 		return statistics;
 	}
 
+	/**
+	 * Retrieves a object instance that contains various statistical
+	 * information on the values of the specified column. The statistics
+	 * are kept up to date when the data changes, so the column values don't
+	 * have to be copied for each request.
+	 * @param col index of the column
+	 * @return statistical information
+	 */
+	public Statistics getStatistics(int col) {
+		synchronized (this) {
+			if (columnStatistics == null || columnStatistics.length != getColumnCount()) {
+				columnStatistics = new RunningStatistics[getColumnCount()];
+			}
+			if (columnStatistics[col] == null) {
+				columnStatistics[col] = new RunningStatistics(new ColumnValues(col));
+			}
+			return columnStatistics[col];
+		}
+	}
+
 	public DataSource getColumnStatistics(String key) {
 		Class[] columnTypes = new Class[getColumnCount()];
 		Arrays.fill(columnTypes, Double.class);
 		DataTable statisticsTable = new DataTable(columnTypes);
 		List<Double> colStatistics = new ArrayList<Double>(columnTypes.length);
 		for (int colIndex = 0; colIndex < getColumnCount(); colIndex++) {
-			Column col = getColumn(colIndex);
-			colStatistics.add(col.getStatistics(key));
+			colStatistics.add(getStatistics(colIndex).get(key));
 		}
 		if (!colStatistics.isEmpty()) {
 			statisticsTable.add(colStatistics);
@@ -213,10 +289,7 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 	 * @param events Event objects describing all values that have been added.
 	 */
 	protected void notifyDataAdded(DataChangeEvent... events) {
-		List<DataListener> listeners = new LinkedList<DataListener>(dataListeners);
-		for (DataListener dataListener : listeners) {
-			dataListener.dataAdded(this, events);
-		}
+		notifyDataChanged(DataRangeEvent.of(this, DataRangeEvent.Type.ADDED, events), events);
 	}
 
 	/**
@@ -224,10 +297,7 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 	 * @param events Event objects describing all values that have been removed.
 	 */
 	protected void notifyDataRemoved(DataChangeEvent... events) {
-		List<DataListener> listeners = new LinkedList<DataListener>(dataListeners);
-		for (DataListener dataListener : listeners) {
-			dataListener.dataRemoved(this, events);
-		}
+		notifyDataChanged(DataRangeEvent.of(this, DataRangeEvent.Type.REMOVED, events), events);
 	}
 
 	/**
@@ -235,9 +305,413 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 	 * @param events Event objects describing all values that have changed.
 	 */
 	protected void notifyDataUpdated(DataChangeEvent... events) {
+		notifyDataChanged(DataRangeEvent.of(this, DataRangeEvent.Type.UPDATED, events), events);
+	}
+
+	/**
+	 * Notifies all registered listeners that a range of rows has changed.
+	 * Listeners that don't support range events receive events for the
+	 * single values, which are created from the current values of the
+	 * range.
+	 * @param event Event object describing the changed range.
+	 */
+	protected void notifyDataChanged(DataRangeEvent event) {
+		notifyDataChanged(event, null);
+	}
+
+	/**
+	 * Updates the statistics and notifies all registered listeners of a
+	 * change, unless a batch has been started. In this case, the events are
+	 * held back until the batch ends. Consecutive changes of the same kind
+	 * are delivered together if their ranges can be combined.
+	 * @param event Event object describing the changed range.
+	 * @param cellEvents Event objects describing the changed values, or
+	 *        {@code null} if the values haven't been collected.
+	 */
+	protected void notifyDataChanged(DataRangeEvent event,
+			DataChangeEvent[] cellEvents) {
+		updateStatistics(event, cellEvents);
+		notifyDataChangedWithoutStatistics(event, cellEvents);
+	}
+
+	/**
+	 * Notifies all registered listeners of a change like
+	 * {@link #notifyDataChanged(DataRangeEvent)}, but doesn't update the
+	 * statistics. Derived classes have to do this with
+	 * {@link #updateStatistics(double[], double[])} before.
+	 * @param event Event object describing the changed range.
+	 */
+	protected void notifyDataChangedWithoutStatistics(DataRangeEvent event) {
+		notifyDataChangedWithoutStatistics(event, null);
+	}
+
+	/**
+	 * Updates the index of sorted columns and notifies all registered
+	 * listeners of a change, unless a batch has been started.
+	 * @param event Event object describing the changed range.
+	 * @param cellEvents Event objects describing the changed values, or
+	 *        {@code null} if the values haven't been collected.
+	 */
+	private void notifyDataChangedWithoutStatistics(DataRangeEvent event,
+			DataChangeEvent[] cellEvents) {
+		SortedColumnIndex sortedColumnsIndex;
+		synchronized (this) {
+			sortedColumnsIndex = sortedColumns;
+		}
+		if (sortedColumnsIndex != null) {
+			sortedColumnsIndex.update(event);
+		}
+		queueDataChanged(event, cellEvents);
+	}
+
+	/**
+	 * Notifies all registered listeners that rows have been removed from the
+	 * beginning of the data source and rows have been appended to its end,
+	 * like in a sliding window. Listeners receive a single event that
+	 * describes both changes, so they only have to handle the rows that have
+	 * been removed or added. The statistics are not updated, derived classes
+	 * have to do this with {@link #updateStatistics(double[], double[])}
+	 * before.
+	 * @param removedRows Number of rows that have been removed from the
+	 *        beginning.
+	 * @param addedRows Number of rows that have been appended.
+	 */
+	protected void notifyDataShifted(int removedRows, int addedRows) {
+		if (removedRows == 0 && addedRows == 0) {
+			return;
+		}
+		notifyDataChangedWithoutStatistics(DataRangeEvent.shifted(this,
+			removedRows, getRowCount() - addedRows, addedRows));
+	}
+
+	/**
+	 * Notifies all registered listeners of a change, unless a batch has been
+	 * started. In this case, the events are held back until the batch ends.
+	 * @param event Event object describing the changed range.
+	 * @param cellEvents Event objects describing the changed values, or
+	 *        {@code null} if the values haven't been collected.
+	 */
+	private void queueDataChanged(DataRangeEvent event,
+			DataChangeEvent[] cellEvents) {
+		DataRangeEvent flushedEvent = null;
+		DataChangeEvent[] flushedCellEvents = null;
+		synchronized (this) {
+			if (batchDepth == 0) {
+				flushedEvent = event;
+				flushedCellEvents = cellEvents;
+			} else {
+				// Events for single values are only kept if a listener
+				// needs them
+				if (!isCellEventsRequired()) {
+					cellEvents = null;
+				}
+				DataRangeEvent merged = null;
+				if (pendingEvent != null) {
+					merged = pendingEvent.merge(event);
+					if (merged == null) {
+						flushedEvent = pendingEvent;
+						flushedCellEvents = getPendingCellEvents();
+					}
+				}
+				if (merged == null) {
+					pendingEvent = event;
+					pendingCellEvents = null;
+					if (cellEvents != null) {
+						pendingCellEvents = new ArrayList<DataChangeEvent>(
+							Arrays.asList(cellEvents));
+					}
+				} else {
+					pendingEvent = merged;
+					if (cellEvents == null) {
+						pendingCellEvents = null;
+					} else if (pendingCellEvents != null) {
+						pendingCellEvents.addAll(Arrays.asList(cellEvents));
+					}
+				}
+			}
+		}
+		if (flushedEvent != null) {
+			fireDataChanged(flushedEvent, flushedCellEvents);
+		}
+	}
+
+	/**
+	 * Returns the events for the single values that have been held back, or
+	 * {@code null} if they haven't been collected.
+	 * @return Event objects describing the changed values, or {@code null}.
+	 */
+	private DataChangeEvent[] getPendingCellEvents() {
+		if (pendingCellEvents == null) {
+			return null;
+		}
+		return pendingCellEvents.toArray(new DataChangeEvent[0]);
+	}
+
+	/**
+	 * Passes the specified event to all registered listeners. Listeners that
+	 * don't support range events receive the events for single values. All
+	 * rows have moved if rows have been shifted, so these listeners are
+	 * notified of an update of all rows.
+	 * @param event Event object describing the changed range.
+	 * @param cellEvents Event objects describing the changed values, or
+	 *        {@code null} if they have to be created from the range.
+	 */
+	private void fireDataChanged(DataRangeEvent event,
+			DataChangeEvent[] cellEvents) {
 		List<DataListener> listeners = new LinkedList<DataListener>(dataListeners);
 		for (DataListener dataListener : listeners) {
-			dataListener.dataUpdated(this, events);
+			if (dataListener instanceof DataRangeListener) {
+				((DataRangeListener) dataListener).dataChanged(this, event);
+				continue;
+			}
+			if (cellEvents == null) {
+				cellEvents = createCellEvents(event);
+			}
+			if (event.getType() == DataRangeEvent.Type.ADDED) {
+				dataListener.dataAdded(this, cellEvents);
+			} else if (event.getType() == DataRangeEvent.Type.REMOVED) {
+				dataListener.dataRemoved(this, cellEvents);
+			} else {
+				dataListener.dataUpdated(this, cellEvents);
+			}
+		}
+	}
+
+	/**
+	 * Creates events for all values of the specified range. The new values
+	 * are the current values of the data source. Values that have been
+	 * removed are not available anymore, so their events contain
+	 * {@code null} values. For shifted rows, events for all rows are
+	 * created.
+	 * @param event Event object describing the changed range.
+	 * @return Event objects describing the values of the range.
+	 */
+	private DataChangeEvent[] createCellEvents(DataRangeEvent event) {
+		List<DataChangeEvent> cellEvents = new ArrayList<DataChangeEvent>();
+		boolean removed = event.getType() == DataRangeEvent.Type.REMOVED;
+		boolean shifted = event.getType() == DataRangeEvent.Type.SHIFTED;
+		int firstRow = shifted ? 0 : event.getFirstRow();
+		int endRow = Math.min(event.getEndRow(), removed ? Integer.MAX_VALUE : getRowCount());
+		for (int row = firstRow; row < endRow; row++) {
+			BitSet columns = event.getColumns();
+			for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+				Comparable<?> value = removed ? null : get(col, row);
+				cellEvents.add(new DataChangeEvent(this, col, row, null, value));
+			}
+		}
+		return cellEvents.toArray(new DataChangeEvent[0]);
+	}
+
+	/**
+	 * Returns whether events for single values have to be created for a
+	 * change. This is the case if at least one listener doesn't support range
+	 * events. Derived classes can use this to avoid collecting the values of
+	 * large changes, like removing all rows.
+	 * @return {@code true} if events for single values are required.
+	 */
+	protected boolean isCellEventsRequired() {
+		for (DataListener dataListener : dataListeners) {
+			if (!(dataListener instanceof DataRangeListener)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Starts a batch of changes. Listeners won't be notified of changes until
+	 * the batch is ended with {@link #endBatch()}. Then, consecutive changes
+	 * of the same kind are reported with a single notification. Batches can
+	 * be nested, listeners are notified when the outermost batch ends.
+	 * Statistics are kept up to date during the batch.
+	 */
+	protected void beginBatch() {
+		synchronized (this) {
+			batchDepth++;
+		}
+	}
+
+	/**
+	 * Ends a batch of changes that has been started with
+	 * {@link #beginBatch()} and notifies the listeners of all changes that
+	 * have been held back.
+	 * @throws IllegalStateException if no batch has been started.
+	 */
+	protected void endBatch() {
+		DataRangeEvent flushedEvent = null;
+		DataChangeEvent[] flushedCellEvents = null;
+		synchronized (this) {
+			if (batchDepth == 0) {
+				throw new IllegalStateException("No batch has been started."); //$NON-NLS-1$
+			}
+			batchDepth--;
+			if (batchDepth == 0 && pendingEvent != null) {
+				flushedEvent = pendingEvent;
+				flushedCellEvents = getPendingCellEvents();
+				pendingEvent = null;
+				pendingCellEvents = null;
+			}
+		}
+		if (flushedEvent != null) {
+			fireDataChanged(flushedEvent, flushedCellEvents);
+		}
+	}
+
+	/**
+	 * Returns whether the events of this data source describe each changed
+	 * cell with its old and its new value. In this case statistics can be
+	 * updated incrementally, otherwise they are calculated again after each
+	 * change. The default implementation returns {@code false}, derived
+	 * classes that store their values themselves should override it.
+	 * @return {@code true} if statistics can be updated from the events.
+	 */
+	protected boolean isStatisticsIncremental() {
+		return false;
+	}
+
+	/**
+	 * Updates the statistics of the data source with the specified change.
+	 * Added rows are read from the data source if no events for single values
+	 * are available, other changes without these events cause the statistics
+	 * to be calculated again.
+	 * @param event Event object describing the changed range.
+	 * @param cellEvents Event objects describing the changed values, or
+	 *        {@code null}.
+	 */
+	private void updateStatistics(DataRangeEvent event, DataChangeEvent[] cellEvents) {
+		RunningStatistics tableStatistics;
+		RunningStatistics[] colStatistics;
+		synchronized (this) {
+			tableStatistics = statistics;
+			colStatistics = columnStatistics;
+		}
+		if (tableStatistics == null && colStatistics == null) {
+			return;
+		}
+
+		if (!isStatisticsIncremental() || (cellEvents == null
+				&& event.getType() != DataRangeEvent.Type.ADDED)) {
+			if (tableStatistics != null) {
+				tableStatistics.invalidate();
+			}
+			if (colStatistics != null) {
+				for (RunningStatistics colStats : colStatistics) {
+					if (colStats != null) {
+						colStats.invalidate();
+					}
+				}
+			}
+			return;
+		}
+
+		if (cellEvents == null) {
+			BitSet columns = event.getColumns();
+			for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+				RunningStatistics colStats = null;
+				if (colStatistics != null && col < colStatistics.length) {
+					colStats = colStatistics[col];
+				}
+				for (int row = event.getFirstRow(); row < event.getEndRow(); row++) {
+					double value = getDouble(col, row);
+					if (tableStatistics != null) {
+						tableStatistics.add(value);
+					}
+					if (colStats != null) {
+						colStats.add(value);
+					}
+				}
+			}
+			return;
+		}
+
+		for (DataChangeEvent cellEvent : cellEvents) {
+			double valueOld = toDouble(cellEvent.getOld());
+			double valueNew = toDouble(cellEvent.getNew());
+			if (tableStatistics != null) {
+				tableStatistics.update(valueOld, valueNew);
+			}
+			int col = cellEvent.getCol();
+			if (colStatistics != null && col >= 0 && col < colStatistics.length
+					&& colStatistics[col] != null) {
+				colStatistics[col].update(valueOld, valueNew);
+			}
+		}
+	}
+
+	/**
+	 * Updates the statistics of the data source for values that have been
+	 * removed and added without creating events for single values. The
+	 * values are stored row by row, so the value of column {@code c} in the
+	 * {@code r}-th row is found at index {@code r*getColumnCount() + c}.
+	 * Values that are not numeric must be specified as {@code NaN}.
+	 * @param valuesRemoved Values that have been removed.
+	 * @param valuesAdded Values that have been added.
+	 */
+	protected void updateStatistics(double[] valuesRemoved, double[] valuesAdded) {
+		RunningStatistics tableStatistics;
+		RunningStatistics[] colStatistics;
+		synchronized (this) {
+			tableStatistics = statistics;
+			colStatistics = columnStatistics;
+		}
+		if (tableStatistics == null && colStatistics == null) {
+			return;
+		}
+		int cols = getColumnCount();
+		for (int i = 0; i < valuesRemoved.length; i++) {
+			if (tableStatistics != null) {
+				tableStatistics.remove(valuesRemoved[i]);
+			}
+			int col = i%cols;
+			if (colStatistics != null && col < colStatistics.length
+					&& colStatistics[col] != null) {
+				colStatistics[col].remove(valuesRemoved[i]);
+			}
+		}
+		for (int i = 0; i < valuesAdded.length; i++) {
+			if (tableStatistics != null) {
+				tableStatistics.add(valuesAdded[i]);
+			}
+			int col = i%cols;
+			if (colStatistics != null && col < colStatistics.length
+					&& colStatistics[col] != null) {
+				colStatistics[col].add(valuesAdded[i]);
+			}
+		}
+	}
+
+	/**
+	 * Sets the smallest and the largest value of each column if derived
+	 * classes keep track of them. Then, the statistics don't have to search
+	 * the data values after the current minimum or maximum has been removed.
+	 * @param minima Smallest value of each column, or {@code NaN} if the
+	 *        column doesn't contain numeric values.
+	 * @param maxima Largest value of each column, or {@code NaN} if the
+	 *        column doesn't contain numeric values.
+	 */
+	protected void setExtrema(double[] minima, double[] maxima) {
+		RunningStatistics tableStatistics;
+		RunningStatistics[] colStatistics;
+		synchronized (this) {
+			tableStatistics = statistics;
+			colStatistics = columnStatistics;
+		}
+		double min = Double.NaN;
+		double max = Double.NaN;
+		for (int col = 0; col < minima.length; col++) {
+			if (colStatistics != null && col < colStatistics.length
+					&& colStatistics[col] != null) {
+				colStatistics[col].setExtrema(minima[col], maxima[col]);
+			}
+			if (!Double.isNaN(minima[col]) && !(minima[col] >= min)) {
+				min = minima[col];
+			}
+			if (!Double.isNaN(maxima[col]) && !(maxima[col] <= max)) {
+				max = maxima[col];
+			}
+		}
+		if (tableStatistics != null) {
+			tableStatistics.setExtrema(min, max);
 		}
 	}
 
@@ -257,6 +731,106 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 		return new Column(columnType, columnData.toArray(new Comparable[0]));
 	}
 
+	/**
+	 * Returns the value with the specified column and row index as a
+	 * {@code double} value. Empty cells and cells that don't contain a
+	 * number are returned as {@code NaN}.
+	 * @param col index of the column to return
+	 * @param row index of the row to return
+	 * @return the numeric value of the data cell, or {@code NaN}
+	 */
+	public double getDouble(int col, int row) {
+		return toDouble(get(col, row));
+	}
+
+	/**
+	 * Copies consecutive values of a column into the specified array. Empty
+	 * cells and cells that don't contain a number are copied as {@code NaN}.
+	 * @param col index of the column to copy
+	 * @param fromRow index of the first row to copy
+	 * @param dst array that will receive the values
+	 * @param off position in the array where the first value will be stored
+	 * @param len number of values to copy
+	 */
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		for (int i = 0; i < len; i++) {
+			dst[off + i] = getDouble(col, fromRow + i);
+		}
+	}
+
+	/**
+	 * Returns whether the numeric values of the specified column are sorted
+	 * in ascending order. Columns that contain empty cells or values that
+	 * aren't numbers are not sorted. The sort order is tracked with the
+	 * change events of this data source, so it is only checked completely
+	 * when a column is queried for the first time or after a change that
+	 * might have sorted it.
+	 * @param col index of the column
+	 * @return {@code true} if the values of the column are sorted,
+	 *         {@code false} otherwise
+	 */
+	public boolean isColumnSorted(int col) {
+		SortedColumnIndex sortedColumnsIndex;
+		synchronized (this) {
+			if (sortedColumns == null) {
+				sortedColumns = new SortedColumnIndex(this);
+			}
+			sortedColumnsIndex = sortedColumns;
+		}
+		return sortedColumnsIndex.isSorted(col);
+	}
+
+	/**
+	 * Converts a cell value to a {@code double} value.
+	 * @param value Cell value.
+	 * @return Numeric value, or {@code NaN} if the value is {@code null} or
+	 *         not a number.
+	 */
+	protected static double toDouble(Comparable<?> value) {
+		if (!(value instanceof Number)) {
+			return Double.NaN;
+		}
+		return ((Number) value).doubleValue();
+	}
+
+	/**
+	 * Returns the value of another data source as a {@code double} value.
+	 * Primitive access is used if the data source supports it.
+	 * @param source Data source.
+	 * @param col Column index.
+	 * @param row Row index.
+	 * @return Numeric value, or {@code NaN} if the value is {@code null} or
+	 *         not a number.
+	 */
+	protected static double getDouble(DataSource source, int col, int row) {
+		if (source instanceof NumericDataSource) {
+			return ((NumericDataSource) source).getDouble(col, row);
+		}
+		return toDouble(source.get(col, row));
+	}
+
+	/**
+	 * Copies consecutive values of a column of another data source into the
+	 * specified array. Primitive access is used if the data source supports
+	 * it.
+	 * @param source Data source.
+	 * @param col index of the column to copy
+	 * @param fromRow index of the first row to copy
+	 * @param dst array that will receive the values
+	 * @param off position in the array where the first value will be stored
+	 * @param len number of values to copy
+	 */
+	protected static void copyColumn(DataSource source, int col, int fromRow,
+			double[] dst, int off, int len) {
+		if (source instanceof NumericDataSource) {
+			((NumericDataSource) source).copyColumn(col, fromRow, dst, off, len);
+			return;
+		}
+		for (int i = 0; i < len; i++) {
+			dst[off + i] = toDouble(source.get(col, fromRow + i));
+		}
+	}
+
 	@Override
 	public String getName() {
 		return name;
@@ -312,6 +886,12 @@ public abstract class AbstractDataSource implements DataSource, Serializable {
 	protected void setColumnTypes(Class<? extends Comparable<?>>... types) {
 		this.types = Arrays.copyOf(types, types.length);
 		columnCount = types.length;
+		synchronized (this) {
+			if (statistics != null) {
+				statistics.invalidate();
+			}
+			columnStatistics = null;
+		}
 	}
 
 	/**
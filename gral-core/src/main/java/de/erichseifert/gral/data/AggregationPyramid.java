@@ -0,0 +1,724 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Class that stores aggregates of a column of a data source at several
+ * resolutions. The rows are divided into buckets whose size is a power of
+ * two, and each level of the pyramid contains buckets that are twice as
+ * large as the buckets of the level below. For each bucket the minimum,
+ * maximum, mean and number of the values are stored, as well as the rows
+ * of the minimum and the maximum.</p>
+ * <p>Plots with far more rows than pixels can use the pyramid to get a
+ * reduced view of a range of rows: instead of all rows only the first,
+ * lowest, highest, and last row of each bucket are drawn. This takes time
+ * proportional to the number of buckets, not to the number of rows.</p>
+ * <p>The pyramid has to be registered as a listener of the data source to
+ * be kept up to date. Rows that are added to the end of the data source,
+ * removed from its beginning, or updated are aggregated incrementally;
+ * other changes cause the pyramid to be rebuilt the next time it is
+ * queried. Buckets keep their position if rows are removed from the
+ * beginning, so the first bucket of each level can contain fewer rows than
+ * the other buckets.</p>
+ */
+public class AggregationPyramid implements DataRangeListener {
+	/** Number of rows in the buckets of the lowest level. */
+	public static final int BASE_BUCKET_SIZE = 16;
+
+	/** Data source whose values are aggregated. */
+	private final NumericDataSource source;
+	/** Index of the column whose values are aggregated. */
+	private final int col;
+	/** Levels with increasing bucket size. */
+	private final List<Level> levels;
+	/** Number of rows that have been aggregated. */
+	private int rowCount;
+	/** Number of rows that have been removed from the beginning of the
+	data source since the pyramid has been built. The buckets contain the
+	rows at their positions before the removal. */
+	private int rowOffset;
+	/** Whether the aggregates are consistent with the data source. */
+	private boolean valid;
+
+	/**
+	 * Aggregates of all buckets with the same size.
+	 */
+	private static final class Level {
+		/** Number of rows in each bucket. */
+		private final int bucketSize;
+		/** Number of buckets. */
+		private int size;
+		/** Smallest value of each bucket. */
+		private double[] min;
+		/** Largest value of each bucket. */
+		private double[] max;
+		/** Sum of the values of each bucket. */
+		private double[] sum;
+		/** Number of values of each bucket that can be used for
+		calculations. */
+		private int[] count;
+		/** Position of the smallest value of each bucket. */
+		private int[] minRow;
+		/** Position of the largest value of each bucket. */
+		private int[] maxRow;
+
+		/**
+		 * Initializes a new level with the specified bucket size.
+		 * @param bucketSize Number of rows in each bucket.
+		 */
+		public Level(int bucketSize) {
+			this.bucketSize = bucketSize;
+			min = new double[8];
+			max = new double[8];
+			sum = new double[8];
+			count = new int[8];
+			minRow = new int[8];
+			maxRow = new int[8];
+		}
+
+		/**
+		 * Changes the number of buckets and clears new buckets.
+		 * @param size Number of buckets.
+		 */
+		public void setSize(int size) {
+			if (size > min.length) {
+				int capacity = Math.max(size, 2*min.length);
+				min = Arrays.copyOf(min, capacity);
+				max = Arrays.copyOf(max, capacity);
+				sum = Arrays.copyOf(sum, capacity);
+				count = Arrays.copyOf(count, capacity);
+				minRow = Arrays.copyOf(minRow, capacity);
+				maxRow = Arrays.copyOf(maxRow, capacity);
+			}
+			for (int bucket = this.size; bucket < size; bucket++) {
+				clear(bucket);
+			}
+			this.size = size;
+		}
+
+		/**
+		 * Removes all values from a bucket.
+		 * @param bucket Bucket index.
+		 */
+		public void clear(int bucket) {
+			min[bucket] = Double.NaN;
+			max[bucket] = Double.NaN;
+			sum[bucket] = 0.0;
+			count[bucket] = 0;
+			minRow[bucket] = -1;
+			maxRow[bucket] = -1;
+		}
+
+		/**
+		 * Adds a value to a bucket.
+		 * @param bucket Bucket index.
+		 * @param row Position of the value.
+		 * @param value Value.
+		 */
+		public void add(int bucket, int row, double value) {
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				return;
+			}
+			if (count[bucket] == 0 || value < min[bucket]) {
+				min[bucket] = value;
+				minRow[bucket] = row;
+			}
+			if (count[bucket] == 0 || value > max[bucket]) {
+				max[bucket] = value;
+				maxRow[bucket] = row;
+			}
+			sum[bucket] += value;
+			count[bucket]++;
+		}
+
+		/**
+		 * Adds the aggregates of a bucket of another level to a bucket.
+		 * @param bucket Bucket index.
+		 * @param level Other level.
+		 * @param other Bucket index in the other level.
+		 */
+		public void add(int bucket, Level level, int other) {
+			if (level.count[other] == 0) {
+				return;
+			}
+			if (count[bucket] == 0 || level.min[other] < min[bucket]) {
+				min[bucket] = level.min[other];
+				minRow[bucket] = level.minRow[other];
+			}
+			if (count[bucket] == 0 || level.max[other] > max[bucket]) {
+				max[bucket] = level.max[other];
+				maxRow[bucket] = level.maxRow[other];
+			}
+			sum[bucket] += level.sum[other];
+			count[bucket] += level.count[other];
+		}
+	}
+
+	/**
+	 * Initializes a new pyramid for the specified column of a data source.
+	 * The pyramid is built the first time it is queried.
+	 * @param source Data source whose values are aggregated.
+	 * @param col Index of the column whose values are aggregated.
+	 */
+	public AggregationPyramid(NumericDataSource source, int col) {
+		this.source = source;
+		this.col = col;
+		levels = new ArrayList<Level>();
+	}
+
+	/**
+	 * Returns the data source whose values are aggregated.
+	 * @return Data source.
+	 */
+	public NumericDataSource getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the index of the column whose values are aggregated.
+	 * @return Column index.
+	 */
+	public int getColumn() {
+		return col;
+	}
+
+	/**
+	 * Returns the number of levels.
+	 * @return Number of levels.
+	 */
+	public synchronized int getLevelCount() {
+		validate();
+		return levels.size();
+	}
+
+	/**
+	 * Returns the number of rows in each bucket of the specified level.
+	 * @param level Level index.
+	 * @return Number of rows.
+	 */
+	public synchronized int getBucketSize(int level) {
+		validate();
+		return levels.get(level).bucketSize;
+	}
+
+	/**
+	 * Returns the number of buckets of the specified level.
+	 * @param level Level index.
+	 * @return Number of buckets.
+	 */
+	public synchronized int getBucketCount(int level) {
+		validate();
+		Level l = levels.get(level);
+		return l.size - getFirstBucket(l);
+	}
+
+	/**
+	 * Returns the index of the first row of a bucket. The first bucket of a
+	 * level always starts with the first row, the other buckets start at a
+	 * multiple of the bucket size if no rows have been removed from the
+	 * beginning of the data source.
+	 * @param level Level index.
+	 * @param bucket Bucket index.
+	 * @return Row index.
+	 */
+	public synchronized int getFirstRow(int level, int bucket) {
+		Level l = getLevel(level, bucket);
+		return Math.max((getFirstBucket(l) + bucket)*l.bucketSize - rowOffset, 0);
+	}
+
+	/**
+	 * Returns the smallest value of a bucket, or {@code NaN} if the bucket
+	 * contains no values that can be used for calculations.
+	 * @param level Level index.
+	 * @param bucket Bucket index.
+	 * @return Minimum.
+	 */
+	public synchronized double getMin(int level, int bucket) {
+		Level l = getLevel(level, bucket);
+		return l.min[getFirstBucket(l) + bucket];
+	}
+
+	/**
+	 * Returns the largest value of a bucket, or {@code NaN} if the bucket
+	 * contains no values that can be used for calculations.
+	 * @param level Level index.
+	 * @param bucket Bucket index.
+	 * @return Maximum.
+	 */
+	public synchronized double getMax(int level, int bucket) {
+		Level l = getLevel(level, bucket);
+		return l.max[getFirstBucket(l) + bucket];
+	}
+
+	/**
+	 * Returns the arithmetic mean of the values of a bucket, or {@code NaN}
+	 * if the bucket contains no values that can be used for calculations.
+	 * @param level Level index.
+	 * @param bucket Bucket index.
+	 * @return Mean.
+	 */
+	public synchronized double getMean(int level, int bucket) {
+		Level l = getLevel(level, bucket);
+		int index = getFirstBucket(l) + bucket;
+		if (l.count[index] == 0) {
+			return Double.NaN;
+		}
+		return l.sum[index]/l.count[index];
+	}
+
+	/**
+	 * Returns the number of values of a bucket that can be used for
+	 * calculations.
+	 * @param level Level index.
+	 * @param bucket Bucket index.
+	 * @return Number of values.
+	 */
+	public synchronized int getCount(int level, int bucket) {
+		Level l = getLevel(level, bucket);
+		return l.count[getFirstBucket(l) + bucket];
+	}
+
+	/**
+	 * Returns the level with the specified index after checking the bucket
+	 * index.
+	 * @param level Level index.
+	 * @param bucket Bucket index.
+	 * @return Level.
+	 */
+	private Level getLevel(int level, int bucket) {
+		validate();
+		Level l = levels.get(level);
+		if (bucket < 0 || bucket >= l.size - getFirstBucket(l)) {
+			throw new IndexOutOfBoundsException(MessageFormat.format(
+				"Bucket {0,number,integer} is out of range.", bucket)); //$NON-NLS-1$
+		}
+		return l;
+	}
+
+	/**
+	 * Returns the index of the first bucket of the specified level that
+	 * contains rows of the data source.
+	 * @param level Level.
+	 * @return Bucket index.
+	 */
+	private int getFirstBucket(Level level) {
+		return rowOffset/level.bucketSize;
+	}
+
+	/**
+	 * <p>Returns a reduced view of the specified rows. The rows are divided
+	 * into at most {@code maxBuckets} buckets of the same level, and the
+	 * first, lowest, highest, and last row of each bucket are returned in
+	 * ascending order. Buckets at the border of the range can contain rows
+	 * outside the range.</p>
+	 * <p>If the range is small enough, all of its rows are returned.</p>
+	 * @param fromRow Index of the first row.
+	 * @param toRow Index of the row after the last row.
+	 * @param maxBuckets Maximal number of buckets, e.g. the width of the
+	 *        plot in pixels.
+	 * @return Sorted row indexes.
+	 */
+	public synchronized int[] getRows(int fromRow, int toRow, int maxBuckets) {
+		return getRows(fromRow, toRow, maxBuckets, -1, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * <p>Returns a reduced view of the specified rows like
+	 * {@link #getRows(int, int, int)}, but only reduces buckets whose rows
+	 * are close enough to each other. The column {@code colX} must be sorted
+	 * in ascending order. If the difference of its values in the first and
+	 * the last row of a bucket is larger than {@code maxSpan}, the smaller
+	 * buckets of the level below are used instead, and all rows are returned
+	 * for buckets of the lowest level.</p>
+	 * <p>This keeps the reduced view close to the complete rows if the
+	 * values of {@code colX} are not evenly spaced, for example if
+	 * {@code maxSpan} is the width of a pixel column.</p>
+	 * @param fromRow Index of the first row.
+	 * @param toRow Index of the row after the last row.
+	 * @param maxBuckets Maximal number of buckets, e.g. the width of the
+	 *        plot in pixels.
+	 * @param colX Index of the sorted column that is used to measure the
+	 *        span of a bucket.
+	 * @param maxSpan Maximal difference of the values of {@code colX} in a
+	 *        bucket.
+	 * @return Sorted row indexes.
+	 */
+	public synchronized int[] getRows(int fromRow, int toRow, int maxBuckets,
+			int colX, double maxSpan) {
+		validate();
+		fromRow = Math.max(fromRow, 0);
+		toRow = Math.min(toRow, rowCount);
+		if (fromRow >= toRow) {
+			return new int[0];
+		}
+		maxBuckets = Math.max(maxBuckets, 1);
+
+		int fromPos = fromRow + rowOffset;
+		int toPos = toRow + rowOffset;
+		int levelIndex = -1;
+		for (int i = 0; i < levels.size(); i++) {
+			Level l = levels.get(i);
+			int bucketCount = (toPos - 1)/l.bucketSize - fromPos/l.bucketSize + 1;
+			if (bucketCount <= maxBuckets) {
+				levelIndex = i;
+				break;
+			}
+		}
+		if (levelIndex < 0 || levels.get(levelIndex).bucketSize <= BASE_BUCKET_SIZE
+				&& toRow - fromRow <= 4*maxBuckets) {
+			return getAllRows(fromRow, toRow);
+		}
+
+		Level level = levels.get(levelIndex);
+		int firstBucket = fromPos/level.bucketSize;
+		int lastBucket = (toPos - 1)/level.bucketSize;
+		RowList rows = new RowList(4*(lastBucket - firstBucket + 1));
+		for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+			addRows(rows, levelIndex, bucket, colX, maxSpan);
+		}
+		return rows.toArray();
+	}
+
+	/**
+	 * Growable list of ascending row indexes.
+	 */
+	private static final class RowList {
+		/** Row indexes. */
+		private int[] rows;
+		/** Number of row indexes. */
+		private int size;
+
+		/**
+		 * Initializes a new empty list.
+		 * @param capacity Initial capacity.
+		 */
+		public RowList(int capacity) {
+			rows = new int[Math.max(capacity, 4)];
+		}
+
+		/**
+		 * Appends a row index unless it isn't larger than the last one.
+		 * @param row Row index.
+		 */
+		public void add(int row) {
+			if (row < 0 || (size > 0 && row <= rows[size - 1])) {
+				return;
+			}
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, 2*rows.length);
+			}
+			rows[size++] = row;
+		}
+
+		/**
+		 * Returns the row indexes.
+		 * @return Array of row indexes.
+		 */
+		public int[] toArray() {
+			return Arrays.copyOf(rows, size);
+		}
+	}
+
+	/**
+	 * Returns the indexes of all rows in the specified range.
+	 * @param fromRow Index of the first row.
+	 * @param toRow Index of the row after the last row.
+	 * @return Row indexes.
+	 */
+	private static int[] getAllRows(int fromRow, int toRow) {
+		int[] rows = new int[toRow - fromRow];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = fromRow + i;
+		}
+		return rows;
+	}
+
+	/**
+	 * Adds the first, lowest, highest and last row of a bucket to the
+	 * specified list. If the bucket spans too large a range, the buckets of
+	 * the level below are added instead, or all rows if the bucket belongs
+	 * to the lowest level.
+	 * @param rows List of rows.
+	 * @param levelIndex Level index.
+	 * @param bucket Index of the bucket including removed rows.
+	 * @param colX Index of the column that is used to measure the span, or
+	 *        {@code -1}.
+	 * @param maxSpan Maximal difference of the values of {@code colX}.
+	 */
+	private void addRows(RowList rows, int levelIndex, int bucket, int colX,
+			double maxSpan) {
+		Level level = levels.get(levelIndex);
+		if (bucket >= level.size) {
+			return;
+		}
+		int first = Math.max(bucket*level.bucketSize, rowOffset) - rowOffset;
+		int last = Math.min((bucket + 1)*level.bucketSize, rowOffset + rowCount) - 1 - rowOffset;
+		if (first > last) {
+			return;
+		}
+		if (colX >= 0) {
+			double span = source.getDouble(colX, last) - source.getDouble(colX, first);
+			// Comparisons with NaN are false
+			if (!(span <= maxSpan)) {
+				if (levelIndex > 0) {
+					addRows(rows, levelIndex - 1, 2*bucket, colX, maxSpan);
+					addRows(rows, levelIndex - 1, 2*bucket + 1, colX, maxSpan);
+				} else {
+					for (int row = first; row <= last; row++) {
+						rows.add(row);
+					}
+				}
+				return;
+			}
+		}
+		int[] bucketRows = {
+			first,
+			(level.minRow[bucket] < 0) ? -1 : level.minRow[bucket] - rowOffset,
+			(level.maxRow[bucket] < 0) ? -1 : level.maxRow[bucket] - rowOffset,
+			last
+		};
+		Arrays.sort(bucketRows);
+		for (int row : bucketRows) {
+			rows.add(row);
+		}
+	}
+
+	/**
+	 * Makes sure the aggregates are consistent with the data source.
+	 */
+	private void validate() {
+		if (!valid || rowCount > source.getRowCount()) {
+			rowCount = 0;
+			rowOffset = 0;
+			levels.clear();
+			valid = true;
+			append(source.getRowCount());
+		}
+	}
+
+	/**
+	 * Aggregates the rows from the number of aggregated rows up to the
+	 * specified row.
+	 * @param toRow Index of the row after the last row to be aggregated.
+	 */
+	private void append(int toRow) {
+		if (toRow <= rowCount) {
+			return;
+		}
+		int fromRow = rowCount;
+		rowCount = toRow;
+		if (levels.isEmpty()) {
+			levels.add(new Level(BASE_BUCKET_SIZE));
+		}
+		Level base = levels.get(0);
+		base.setSize((rowOffset + rowCount - 1)/base.bucketSize + 1);
+		aggregateRows(fromRow, toRow);
+		aggregateLevels((rowOffset + fromRow)/base.bucketSize, base.size - 1);
+	}
+
+	/**
+	 * Removes the specified number of rows from the beginning. Only the
+	 * buckets that contained the rows are aggregated again. The pyramid is
+	 * rebuilt the next time it is queried if the removed rows outnumber the
+	 * remaining rows, so the buckets of removed rows don't accumulate.
+	 * @param count Number of rows to be removed.
+	 */
+	private void removeFirst(int count) {
+		int fromPos = rowOffset;
+		rowOffset += count;
+		rowCount -= count;
+		if (rowCount == 0 || rowOffset > rowCount) {
+			valid = false;
+			return;
+		}
+		Level base = levels.get(0);
+		int firstBucket = fromPos/base.bucketSize;
+		int lastBucket = rowOffset/base.bucketSize;
+		for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+			base.clear(bucket);
+		}
+		aggregateRows(0, Math.min(
+			(lastBucket + 1)*base.bucketSize - rowOffset, rowCount));
+		aggregateLevels(firstBucket, lastBucket);
+	}
+
+	/**
+	 * Adds the values of the specified rows to the buckets of the lowest
+	 * level.
+	 * @param fromRow Index of the first row.
+	 * @param toRow Index of the row after the last row.
+	 */
+	private void aggregateRows(int fromRow, int toRow) {
+		if (fromRow >= toRow) {
+			return;
+		}
+		Level base = levels.get(0);
+		double[] values = new double[Math.min(toRow - fromRow, 1024)];
+		for (int start = fromRow; start < toRow; start += values.length) {
+			int len = Math.min(values.length, toRow - start);
+			source.copyColumn(col, start, values, 0, len);
+			for (int i = 0; i < len; i++) {
+				int pos = rowOffset + start + i;
+				base.add(pos/base.bucketSize, pos, values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the buckets of the upper levels from the specified buckets
+	 * of the lowest level.
+	 * @param firstBucket Index of the first changed bucket of the lowest
+	 *        level.
+	 * @param lastBucket Index of the last changed bucket of the lowest
+	 *        level.
+	 */
+	private void aggregateLevels(int firstBucket, int lastBucket) {
+		for (int i = 1; levels.get(i - 1).size > 1; i++) {
+			Level lower = levels.get(i - 1);
+			if (i == levels.size()) {
+				levels.add(new Level(2*lower.bucketSize));
+			}
+			Level level = levels.get(i);
+			level.setSize((lower.size - 1)/2 + 1);
+			firstBucket /= 2;
+			lastBucket /= 2;
+			for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+				level.clear(bucket);
+				level.add(bucket, lower, 2*bucket);
+				if (2*bucket + 1 < lower.size) {
+					level.add(bucket, lower, 2*bucket + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the aggregates of the specified rows.
+	 * @param fromRow Index of the first row.
+	 * @param toRow Index of the row after the last row.
+	 */
+	private void update(int fromRow, int toRow) {
+		Level base = levels.get(0);
+		int firstBucket = (rowOffset + fromRow)/base.bucketSize;
+		int lastBucket = (rowOffset + toRow - 1)/base.bucketSize;
+		for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+			base.clear(bucket);
+		}
+		aggregateRows(Math.max(firstBucket*base.bucketSize - rowOffset, 0),
+			Math.min((lastBucket + 1)*base.bucketSize - rowOffset, rowCount));
+		aggregateLevels(firstBucket, lastBucket);
+	}
+
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	public synchronized void dataChanged(DataSource source, DataRangeEvent event) {
+		if (!valid) {
+			return;
+		}
+		if (event.getType() == DataRangeEvent.Type.ADDED
+				&& event.getFirstRow() == rowCount) {
+			append(event.getEndRow());
+		} else if (event.getType() == DataRangeEvent.Type.UPDATED
+				&& event.getEndRow() <= rowCount) {
+			if (event.isColumnChanged(col) && event.getRowCount() > 0) {
+				update(event.getFirstRow(), event.getEndRow());
+			}
+		} else if (event.getType() == DataRangeEvent.Type.REMOVED
+				&& event.getFirstRow() == 0 && event.getEndRow() <= rowCount) {
+			if (event.getRowCount() > 0) {
+				removeFirst(event.getRowCount());
+			}
+		} else if (event.getType() == DataRangeEvent.Type.SHIFTED
+				&& event.getFirstRow() + event.getRemovedRowCount() == rowCount) {
+			removeFirst(event.getRemovedRowCount());
+			if (valid) {
+				append(event.getEndRow());
+			}
+		} else {
+			// Rows have been shifted, so all buckets have to be rebuilt
+			valid = false;
+		}
+	}
+
+	/**
+	 * Method that is invoked when data has been added.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param events Optional event object describing the data values that
+	 *        have been added.
+	 */
+	public void dataAdded(DataSource source, DataChangeEvent... events) {
+		dataChanged(source, DataRangeEvent.Type.ADDED, events);
+	}
+
+	/**
+	 * Method that is invoked when data has been updated.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param events Optional event object describing the data values that
+	 *        have been updated.
+	 */
+	public void dataUpdated(DataSource source, DataChangeEvent... events) {
+		dataChanged(source, DataRangeEvent.Type.UPDATED, events);
+	}
+
+	/**
+	 * Method that is invoked when data has been removed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param events Optional event object describing the data values that
+	 *        have been removed.
+	 */
+	public void dataRemoved(DataSource source, DataChangeEvent... events) {
+		dataChanged(source, DataRangeEvent.Type.REMOVED, events);
+	}
+
+	/**
+	 * Handles events for single values by converting them to a range event.
+	 * @param source Data source that has been changed.
+	 * @param type Type of the change.
+	 * @param events Event objects describing the changed values.
+	 */
+	private void dataChanged(DataSource source, DataRangeEvent.Type type,
+			DataChangeEvent... events) {
+		if (events == null || events.length == 0) {
+			synchronized (this) {
+				valid = false;
+			}
+			return;
+		}
+		dataChanged(source, DataRangeEvent.of(source, type, events));
+	}
+}
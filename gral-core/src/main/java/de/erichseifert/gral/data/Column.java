@@ -47,6 +47,8 @@ public class Column<T extends Comparable<T>> implements Iterable<T>, Serializabl
 
 	private final Class<T> dataType;
 	private final List<T> data;
+	/** Cached statistical description of the column values. */
+	private transient Statistics statistics;
 
 	public Column(Class<T> dataType, T... data) {
 		this(dataType, Arrays.asList(data));
@@ -81,7 +83,10 @@ public class Column<T extends Comparable<T>> implements Iterable<T>, Serializabl
 	}
 
 	public double getStatistics(String key) {
-		return new Statistics(data).get(key);
+		if (statistics == null) {
+			statistics = new Statistics(data);
+		}
+		return statistics.get(key);
 	}
 
 	@Override
@@ -0,0 +1,584 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Abstract base class for storing the values of a single column of a
+ * table in an array. Numeric values are stored as primitive values.
+ */
+abstract class ColumnStorage implements Serializable {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = 1960829104216329452L;
+
+	/** Data type of the column. */
+	private final Class<? extends Comparable<?>> type;
+
+	/**
+	 * Initializes a new storage for values of the specified type.
+	 * @param type Data type of the column.
+	 */
+	public ColumnStorage(Class<? extends Comparable<?>> type) {
+		this.type = type;
+	}
+
+	/**
+	 * Returns the data type of the column.
+	 * @return Data type.
+	 */
+	public Class<? extends Comparable<?>> getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the value at the specified row as an object of the
+	 * column type.
+	 * @param row Row index.
+	 * @return Stored value or {@code null}.
+	 */
+	public abstract Comparable<?> get(int row);
+
+	/**
+	 * Returns the value at the specified row as a {@code double} value.
+	 * @param row Row index.
+	 * @return Stored value, or {@code NaN} if the value is {@code null}
+	 *         or not numeric.
+	 */
+	public abstract double getDouble(int row);
+
+	/**
+	 * Returns the value at the specified row as a {@code long} value.
+	 * @param row Row index.
+	 * @return Stored value, or {@code 0} if the value is {@code null}
+	 *         or not numeric.
+	 */
+	public abstract long getLong(int row);
+
+	/**
+	 * Copies consecutive values as {@code double} values into the
+	 * specified array.
+	 * @param fromRow Index of the first row to copy.
+	 * @param dst Array that will receive the values.
+	 * @param off Position of the first value in the array.
+	 * @param len Number of values to copy.
+	 */
+	public void copy(int fromRow, double[] dst, int off, int len) {
+		for (int i = 0; i < len; i++) {
+			dst[off + i] = getDouble(fromRow + i);
+		}
+	}
+
+	/**
+	 * Stores the specified value at the specified row.
+	 * @param row Row index.
+	 * @param value Value to be stored.
+	 */
+	public abstract void set(int row, Comparable<?> value);
+
+	/**
+	 * Stores the specified {@code double} value at the specified row. The
+	 * column type must accept {@code Double} values.
+	 * @param row Row index.
+	 * @param value Value to be stored.
+	 */
+	public void setDouble(int row, double value) {
+		checkAssignable(Double.class);
+		set(row, value);
+	}
+
+	/**
+	 * Stores the specified {@code long} value at the specified row. The
+	 * column type must accept {@code Long} values.
+	 * @param row Row index.
+	 * @param value Value to be stored.
+	 */
+	public void setLong(int row, long value) {
+		checkAssignable(Long.class);
+		set(row, value);
+	}
+
+	/**
+	 * Makes sure values of the specified type can be stored.
+	 * @param valueType Type of the values.
+	 */
+	private void checkAssignable(Class<?> valueType) {
+		if (!type.isAssignableFrom(valueType)) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Wrong column type! Expected {0}, got {1}.", //$NON-NLS-1$
+				type, valueType));
+		}
+	}
+
+	/**
+	 * Stores consecutive {@code double} values starting at the specified
+	 * row. The column type must accept {@code Double} values.
+	 * @param fromRow Index of the first row.
+	 * @param src Array containing the values.
+	 * @param off Position of the first value in the array.
+	 * @param len Number of values to store.
+	 */
+	public void set(int fromRow, double[] src, int off, int len) {
+		for (int i = 0; i < len; i++) {
+			set(fromRow + i, src[off + i]);
+		}
+	}
+
+	/**
+	 * Stores the first values of another storage starting at the specified
+	 * row. Both storages must have the same type.
+	 * @param fromRow Index of the first row.
+	 * @param src Storage containing the values.
+	 * @param len Number of values to store.
+	 */
+	public void set(int fromRow, ColumnStorage src, int len) {
+		for (int i = 0; i < len; i++) {
+			set(fromRow + i, src.get(i));
+		}
+	}
+
+	/**
+	 * Changes the number of rows this storage can hold.
+	 * @param capacity New capacity.
+	 */
+	public abstract void resize(int capacity);
+
+	/**
+	 * Removes the specified row by shifting all subsequent rows.
+	 * @param row Index of the row to remove.
+	 * @param rowCount Number of rows before the removal.
+	 */
+	public abstract void remove(int row, int rowCount);
+
+	/**
+	 * Discards all values of the rows.
+	 * @param rowCount Number of rows before clearing.
+	 */
+	public abstract void clear(int rowCount);
+
+	/**
+	 * Reorders the rows.
+	 * @param order Old row index for each new row index.
+	 */
+	public abstract void permute(int[] order);
+
+	/**
+	 * Creates a storage that is suitable for values of the specified type.
+	 * Floating point types are stored as {@code double} values, integer
+	 * types as {@code long} values, and all other types as object
+	 * references.
+	 * @param type Data type of the column.
+	 * @param capacity Initial capacity.
+	 * @return New storage.
+	 */
+	public static ColumnStorage create(Class<? extends Comparable<?>> type, int capacity) {
+		if (type == Double.class || type == Float.class) {
+			return new DoubleColumnStorage(type, capacity);
+		} else if (type == Long.class || type == Integer.class ||
+				type == Short.class || type == Byte.class) {
+			return new LongColumnStorage(type, capacity);
+		}
+		return new ObjectColumnStorage(type, capacity);
+	}
+
+	/**
+	 * Base class for primitive storages, which need to keep track of
+	 * {@code null} values separately.
+	 */
+	private abstract static class PrimitiveColumnStorage extends ColumnStorage {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = -2430196862411924306L;
+
+		/** Rows that contain {@code null}. Only created if necessary. */
+		private BitSet nulls;
+
+		/**
+		 * Initializes a new storage for values of the specified type.
+		 * @param type Data type of the column.
+		 */
+		public PrimitiveColumnStorage(Class<? extends Comparable<?>> type) {
+			super(type);
+		}
+
+		/**
+		 * Returns whether the specified row contains {@code null}.
+		 * @param row Row index.
+		 * @return {@code true} if the value is {@code null}.
+		 */
+		protected boolean isNull(int row) {
+			return nulls != null && nulls.get(row);
+		}
+
+		/**
+		 * Sets whether the specified row contains {@code null}.
+		 * @param row Row index.
+		 * @param isNull {@code true} if the value is {@code null}.
+		 */
+		protected void setNull(int row, boolean isNull) {
+			if (isNull) {
+				if (nulls == null) {
+					nulls = new BitSet();
+				}
+				nulls.set(row);
+			} else if (nulls != null) {
+				nulls.clear(row);
+			}
+		}
+
+		/**
+		 * Marks the specified rows as not containing {@code null}.
+		 * @param fromRow Index of the first row.
+		 * @param toRow Index after the last row.
+		 */
+		protected void clearNulls(int fromRow, int toRow) {
+			if (nulls != null) {
+				nulls.clear(fromRow, toRow);
+			}
+		}
+
+		/**
+		 * Copies the {@code null} flags of the first rows of another
+		 * storage.
+		 * @param fromRow Index of the first row.
+		 * @param src Storage containing the flags.
+		 * @param len Number of rows.
+		 */
+		protected void setNulls(int fromRow, PrimitiveColumnStorage src, int len) {
+			clearNulls(fromRow, fromRow + len);
+			if (src.nulls == null) {
+				return;
+			}
+			for (int i = src.nulls.nextSetBit(0); i >= 0 && i < len; i = src.nulls.nextSetBit(i + 1)) {
+				setNull(fromRow + i, true);
+			}
+		}
+
+		@Override
+		public void remove(int row, int rowCount) {
+			if (nulls == null || nulls.isEmpty()) {
+				return;
+			}
+			BitSet shifted = nulls.get(0, row);
+			for (int i = nulls.nextSetBit(row + 1); i >= 0 && i < rowCount; i = nulls.nextSetBit(i + 1)) {
+				shifted.set(i - 1);
+			}
+			nulls = shifted;
+		}
+
+		@Override
+		public void clear(int rowCount) {
+			nulls = null;
+		}
+
+		@Override
+		public void permute(int[] order) {
+			if (nulls == null || nulls.isEmpty()) {
+				return;
+			}
+			BitSet permuted = new BitSet();
+			for (int row = 0; row < order.length; row++) {
+				if (nulls.get(order[row])) {
+					permuted.set(row);
+				}
+			}
+			nulls = permuted;
+		}
+	}
+
+	/**
+	 * Storage for floating point columns.
+	 */
+	private static final class DoubleColumnStorage extends PrimitiveColumnStorage {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = 5330467262744718539L;
+
+		/** Column values. {@code null} values are stored as {@code NaN}. */
+		private double[] values;
+
+		/**
+		 * Initializes a new storage for values of the specified type.
+		 * @param type Data type of the column.
+		 * @param capacity Initial capacity.
+		 */
+		public DoubleColumnStorage(Class<? extends Comparable<?>> type, int capacity) {
+			super(type);
+			values = new double[capacity];
+		}
+
+		@Override
+		public Comparable<?> get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			if (getType() == Float.class) {
+				return (float) values[row];
+			}
+			return values[row];
+		}
+
+		@Override
+		public double getDouble(int row) {
+			return values[row];
+		}
+
+		@Override
+		public long getLong(int row) {
+			return (long) values[row];
+		}
+
+		@Override
+		public void copy(int fromRow, double[] dst, int off, int len) {
+			System.arraycopy(values, fromRow, dst, off, len);
+		}
+
+		@Override
+		public void set(int row, Comparable<?> value) {
+			setNull(row, value == null);
+			values[row] = (value != null) ? ((Number) value).doubleValue() : Double.NaN;
+		}
+
+		@Override
+		public void setDouble(int row, double value) {
+			setNull(row, false);
+			values[row] = (getType() == Float.class) ? (float) value : value;
+		}
+
+		@Override
+		public void set(int fromRow, double[] src, int off, int len) {
+			System.arraycopy(src, off, values, fromRow, len);
+			clearNulls(fromRow, fromRow + len);
+		}
+
+		@Override
+		public void set(int fromRow, ColumnStorage src, int len) {
+			if (!(src instanceof DoubleColumnStorage)) {
+				super.set(fromRow, src, len);
+				return;
+			}
+			DoubleColumnStorage storage = (DoubleColumnStorage) src;
+			System.arraycopy(storage.values, 0, values, fromRow, len);
+			setNulls(fromRow, storage, len);
+		}
+
+		@Override
+		public void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		public void remove(int row, int rowCount) {
+			System.arraycopy(values, row + 1, values, row, rowCount - row - 1);
+			super.remove(row, rowCount);
+		}
+
+		@Override
+		public void permute(int[] order) {
+			double[] permuted = new double[values.length];
+			for (int row = 0; row < order.length; row++) {
+				permuted[row] = values[order[row]];
+			}
+			values = permuted;
+			super.permute(order);
+		}
+	}
+
+	/**
+	 * Storage for integer columns.
+	 */
+	private static final class LongColumnStorage extends PrimitiveColumnStorage {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = -7937645429283180561L;
+
+		/** Column values. {@code null} values are stored as {@code 0}. */
+		private long[] values;
+
+		/**
+		 * Initializes a new storage for values of the specified type.
+		 * @param type Data type of the column.
+		 * @param capacity Initial capacity.
+		 */
+		public LongColumnStorage(Class<? extends Comparable<?>> type, int capacity) {
+			super(type);
+			values = new long[capacity];
+		}
+
+		@Override
+		public Comparable<?> get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			long value = values[row];
+			Class<?> type = getType();
+			if (type == Integer.class) {
+				return (int) value;
+			} else if (type == Short.class) {
+				return (short) value;
+			} else if (type == Byte.class) {
+				return (byte) value;
+			}
+			return value;
+		}
+
+		@Override
+		public double getDouble(int row) {
+			if (isNull(row)) {
+				return Double.NaN;
+			}
+			return values[row];
+		}
+
+		@Override
+		public long getLong(int row) {
+			return values[row];
+		}
+
+		@Override
+		public void set(int row, Comparable<?> value) {
+			setNull(row, value == null);
+			values[row] = (value != null) ? ((Number) value).longValue() : 0L;
+		}
+
+		@Override
+		public void setLong(int row, long value) {
+			setNull(row, false);
+			values[row] = value;
+		}
+
+		@Override
+		public void set(int fromRow, ColumnStorage src, int len) {
+			if (!(src instanceof LongColumnStorage)) {
+				super.set(fromRow, src, len);
+				return;
+			}
+			LongColumnStorage storage = (LongColumnStorage) src;
+			System.arraycopy(storage.values, 0, values, fromRow, len);
+			setNulls(fromRow, storage, len);
+		}
+
+		@Override
+		public void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		public void remove(int row, int rowCount) {
+			System.arraycopy(values, row + 1, values, row, rowCount - row - 1);
+			super.remove(row, rowCount);
+		}
+
+		@Override
+		public void permute(int[] order) {
+			long[] permuted = new long[values.length];
+			for (int row = 0; row < order.length; row++) {
+				permuted[row] = values[order[row]];
+			}
+			values = permuted;
+			super.permute(order);
+		}
+	}
+
+	/**
+	 * Storage for columns of non-primitive types.
+	 */
+	private static final class ObjectColumnStorage extends ColumnStorage {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = 2468127620435283418L;
+
+		/** Column values. */
+		private Comparable<?>[] values;
+
+		/**
+		 * Initializes a new storage for values of the specified type.
+		 * @param type Data type of the column.
+		 * @param capacity Initial capacity.
+		 */
+		public ObjectColumnStorage(Class<? extends Comparable<?>> type, int capacity) {
+			super(type);
+			values = new Comparable<?>[capacity];
+		}
+
+		@Override
+		public Comparable<?> get(int row) {
+			return values[row];
+		}
+
+		@Override
+		public double getDouble(int row) {
+			Comparable<?> value = values[row];
+			if (!(value instanceof Number)) {
+				return Double.NaN;
+			}
+			return ((Number) value).doubleValue();
+		}
+
+		@Override
+		public long getLong(int row) {
+			Comparable<?> value = values[row];
+			if (!(value instanceof Number)) {
+				return 0L;
+			}
+			return ((Number) value).longValue();
+		}
+
+		@Override
+		public void set(int row, Comparable<?> value) {
+			values[row] = value;
+		}
+
+		@Override
+		public void set(int fromRow, ColumnStorage src, int len) {
+			if (!(src instanceof ObjectColumnStorage)) {
+				super.set(fromRow, src, len);
+				return;
+			}
+			System.arraycopy(((ObjectColumnStorage) src).values, 0, values, fromRow, len);
+		}
+
+		@Override
+		public void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		public void remove(int row, int rowCount) {
+			System.arraycopy(values, row + 1, values, row, rowCount - row - 1);
+			values[rowCount - 1] = null;
+		}
+
+		@Override
+		public void clear(int rowCount) {
+			Arrays.fill(values, 0, rowCount, null);
+		}
+
+		@Override
+		public void permute(int[] order) {
+			Comparable<?>[] permuted = new Comparable<?>[values.length];
+			for (int row = 0; row < order.length; row++) {
+				permuted[row] = values[order[row]];
+			}
+			values = permuted;
+		}
+	}
+}
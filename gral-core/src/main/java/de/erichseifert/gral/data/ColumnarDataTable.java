@@ -0,0 +1,664 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import de.erichseifert.gral.data.comparators.DataComparator;
+
+/**
+ * <p>An in-memory, random access implementation of a mutable data source that
+ * stores its values column by column. Numeric columns are kept in growable
+ * arrays of primitive values, so storing a value doesn't require a boxed
+ * object or a record per row.</p>
+ * <p>Columns of type {@code Double} and {@code Float} are stored as
+ * {@code double} values and columns of type {@code Long}, {@code Integer},
+ * {@code Short}, and {@code Byte} are stored as {@code long} values. All other
+ * column types are stored as object references. Values are converted to the
+ * column type when they are accessed with {@link #get(int, int)}, whereas
+ * the methods {@link #getDouble(int, int)} and {@link #getLong(int, int)}
+ * return the primitive values directly.</p>
+ *
+ * @see DataTable
+ * @see MutableDataSource
+ */
+public class ColumnarDataTable extends AbstractDataSource implements MutableDataSource {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = -3204718836937716153L;
+
+	/** Number of rows that can be stored before the columns have to grow. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** Storage for the values of each column. */
+	private ColumnStorage[] columns;
+	/** Number of rows. */
+	private int rowCount;
+	/** Number of rows the column storages can hold. */
+	private int capacity;
+
+	/**
+	 * Initializes a new instance without columns.
+	 */
+	public ColumnarDataTable() {
+		columns = new ColumnStorage[0];
+		capacity = DEFAULT_CAPACITY;
+	}
+
+	/**
+	 * Initializes a new instance with the specified number of columns and
+	 * column types.
+	 * @param types Type for each column
+	 */
+	public ColumnarDataTable(Class<? extends Comparable<?>>... types) {
+		super(types);
+		capacity = DEFAULT_CAPACITY;
+		createColumns(types);
+	}
+
+	/**
+	 * Initializes a new instance with the specified number of columns and
+	 * a single column type.
+	 * @param cols Number of columns
+	 * @param type Data type for all columns
+	 */
+	@SuppressWarnings("unchecked")
+	public ColumnarDataTable(int cols, Class<? extends Comparable<?>> type) {
+		this();
+		Class<? extends Comparable<?>>[] types = new Class[cols];
+		Arrays.fill(types, type);
+		setColumnTypes(types);
+		createColumns(types);
+	}
+
+	/**
+	 * Initializes a new instance with the column types, and data of another
+	 * data source.
+	 * @param source Data source to clone.
+	 */
+	public ColumnarDataTable(DataSource source) {
+		this(source.getColumnTypes());
+		ensureCapacity(source.getRowCount());
+		for (int rowIndex = 0; rowIndex < source.getRowCount(); rowIndex++) {
+			for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+				columns[colIndex].set(rowCount, source.get(colIndex, rowIndex));
+			}
+			rowCount++;
+		}
+	}
+
+	/**
+	 * Creates the storages for columns of the specified types.
+	 * @param types Type for each column
+	 */
+	private void createColumns(Class<? extends Comparable<?>>[] types) {
+		columns = new ColumnStorage[types.length];
+		for (int colIndex = 0; colIndex < types.length; colIndex++) {
+			columns[colIndex] = ColumnStorage.create(types[colIndex], capacity);
+		}
+	}
+
+	/**
+	 * Makes sure the table can store the specified number of rows without
+	 * growing its columns again.
+	 * @param minCapacity Minimum number of rows.
+	 */
+	public void ensureCapacity(int minCapacity) {
+		synchronized (this) {
+			if (minCapacity <= capacity) {
+				return;
+			}
+			int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+			for (ColumnStorage column : columns) {
+				column.resize(newCapacity);
+			}
+			capacity = newCapacity;
+		}
+	}
+
+	/**
+	 * Adds a row with the specified comparable values to the table.
+	 * The values are added in the order they are specified. If the types of
+	 * the table columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown.
+	 * @param values values to be added as a row
+	 * @return Index of the row that has been added.
+	 */
+	public int add(Comparable<?>... values) {
+		return add(Arrays.asList(values));
+	}
+
+	/**
+	 * Adds a row with the specified container's elements to the table.
+	 * The values are added in the order they are specified. If the types of
+	 * the table columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown.
+	 * @param values values to be added as a row
+	 * @return Index of the row that has been added.
+	 */
+	public int add(List<? extends Comparable<?>> values) {
+		checkValues(values);
+
+		int rowIndex;
+		synchronized (this) {
+			ensureCapacity(rowCount + 1);
+			rowIndex = rowCount;
+			for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+				columns[colIndex].set(rowIndex, values.get(colIndex));
+			}
+			rowCount++;
+		}
+		notifyRowAdded(values, rowIndex);
+		return rowIndex;
+	}
+
+	/**
+	 * Notifies listeners that the specified row has been added. Events for
+	 * the single values are only created if a listener needs them.
+	 * @param values Values of the row that has been added.
+	 * @param rowIndex Index of the row.
+	 */
+	private void notifyRowAdded(List<? extends Comparable<?>> values, int rowIndex) {
+		DataChangeEvent[] events = null;
+		if (isCellEventsRequired()) {
+			events = new DataChangeEvent[values.size()];
+			for (int colIndex = 0; colIndex < values.size(); colIndex++) {
+				Comparable<?> value = values.get(colIndex);
+				events[colIndex] = new DataChangeEvent(this, colIndex, rowIndex, null, value);
+			}
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.ADDED, rowIndex, 1), events);
+	}
+
+	/**
+	 * Adds the specified row to the table.
+	 * The values are added in the order they are specified. If the types of
+	 * the table columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown.
+	 * @param row Row to be added
+	 * @return Index of the row that has been added.
+	 */
+	public int add(Row row) {
+		List<Comparable<?>> values;
+		synchronized (row) {
+			values = new ArrayList<Comparable<?>>(row.size());
+			for (Comparable<?> value : row) {
+				values.add(value);
+			}
+		}
+		return add(values);
+	}
+
+	/**
+	 * Adds rows with the specified containers' elements to the table.
+	 * The types of all values are checked before any row is added. If the
+	 * types of the table columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * for all rows.
+	 * @param rows Values of each row to be added.
+	 */
+	public void addAll(Iterable<? extends List<? extends Comparable<?>>> rows) {
+		List<List<? extends Comparable<?>>> rowList = new ArrayList<List<? extends Comparable<?>>>();
+		for (List<? extends Comparable<?>> values : rows) {
+			checkValues(values);
+			rowList.add(values);
+		}
+		if (rowList.isEmpty()) {
+			return;
+		}
+
+		int cols = columns.length;
+		int rowIndex;
+		synchronized (this) {
+			rowIndex = rowCount;
+			ensureCapacity(rowCount + rowList.size());
+			for (List<? extends Comparable<?>> values : rowList) {
+				for (int colIndex = 0; colIndex < cols; colIndex++) {
+					columns[colIndex].set(rowCount, values.get(colIndex));
+				}
+				rowCount++;
+			}
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.ADDED, rowIndex, rowList.size()));
+	}
+
+	/**
+	 * Adds rows with the specified column values to the table. Each array
+	 * contains the values of one column, the n-th row is built from the
+	 * n-th element of each array. All arrays must have the same length and
+	 * all columns must accept {@code Double} values, otherwise an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * for all rows. Values of {@code Double} columns are copied without
+	 * creating objects.
+	 * @param columns Values of each column.
+	 */
+	public void addColumns(double[]... columns) {
+		int rows = DataTable.checkColumns(getColumnTypes(), columns);
+		if (rows == 0) {
+			return;
+		}
+		int rowIndex;
+		synchronized (this) {
+			rowIndex = rowCount;
+			ensureCapacity(rowCount + rows);
+			for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+				this.columns[colIndex].set(rowCount, columns[colIndex], 0, rows);
+			}
+			rowCount += rows;
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.ADDED, rowIndex, rows));
+	}
+
+	/**
+	 * Adds all rows of another table to this table. The values are copied
+	 * column by column without creating objects. Both tables must have the
+	 * same column types, otherwise an {@code IllegalArgumentException} is
+	 * thrown. Listeners are notified once for all rows. The other table
+	 * must not be changed while its rows are added.
+	 * @param table Table whose rows will be added.
+	 */
+	public void addAll(ColumnarDataTable table) {
+		if (!Arrays.equals(getColumnTypes(), table.getColumnTypes())) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Wrong column types! Expected {0}, got {1}.", //$NON-NLS-1$
+				Arrays.toString(getColumnTypes()), Arrays.toString(table.getColumnTypes())));
+		}
+		int rows = table.getRowCount();
+		if (rows == 0) {
+			return;
+		}
+		int rowIndex;
+		synchronized (this) {
+			rowIndex = rowCount;
+			ensureCapacity(rowCount + rows);
+			for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+				columns[colIndex].set(rowCount, table.columns[colIndex], rows);
+			}
+			rowCount += rows;
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.ADDED, rowIndex, rows));
+	}
+
+	/**
+	 * Returns a new object that adds rows to the end of this table by
+	 * storing their values directly, without creating an object for each
+	 * value.
+	 * @return Object that appends rows to this table.
+	 * @see RowAppender
+	 */
+	public RowAppender createAppender() {
+		return new RowAppender();
+	}
+
+	/**
+	 * <p>Class that adds rows to the end of a {@code ColumnarDataTable}
+	 * value by value. The values of a row are set column by column and the
+	 * row is completed with {@link #endRow()}. Completed rows are added to
+	 * the table when {@link #flush()} is called, and listeners are notified
+	 * once for all of them.</p>
+	 * <p>Every column of a row must be set before the row is completed.
+	 * The table must not be changed in other ways while rows are appended.
+	 * </p>
+	 */
+	public final class RowAppender {
+		/** Number of rows that have been completed but not added to the
+		table yet. */
+		private int pendingRows;
+		/** Index of the row whose values are set. */
+		private int row;
+
+		/**
+		 * Initializes a new instance that appends rows after the last row
+		 * of the table.
+		 */
+		private RowAppender() {
+			synchronized (ColumnarDataTable.this) {
+				row = rowCount;
+				ensureCapacity(row + 1);
+			}
+		}
+
+		/**
+		 * Sets the value of the specified column in the current row. The
+		 * column type must accept {@code Double} values.
+		 * @param col Column index.
+		 * @param value Value.
+		 */
+		public void setDouble(int col, double value) {
+			columns[col].setDouble(row, value);
+		}
+
+		/**
+		 * Sets the value of the specified column in the current row. The
+		 * column type must accept {@code Long} values.
+		 * @param col Column index.
+		 * @param value Value.
+		 */
+		public void setLong(int col, long value) {
+			columns[col].setLong(row, value);
+		}
+
+		/**
+		 * Sets the value of the specified column in the current row. If the
+		 * types of the column and the value do not match, an
+		 * {@code IllegalArgumentException} is thrown.
+		 * @param col Column index.
+		 * @param value Value, or {@code null}.
+		 */
+		public void set(int col, Comparable<?> value) {
+			checkType(col, value);
+			columns[col].set(row, value);
+		}
+
+		/**
+		 * Completes the current row and starts a new one.
+		 */
+		public void endRow() {
+			pendingRows++;
+			row++;
+			if (row >= capacity) {
+				ensureCapacity(row + 1);
+			}
+		}
+
+		/**
+		 * Adds all completed rows to the table and notifies listeners.
+		 */
+		public void flush() {
+			if (pendingRows == 0) {
+				return;
+			}
+			int rowIndex;
+			int rows = pendingRows;
+			synchronized (ColumnarDataTable.this) {
+				rowIndex = rowCount;
+				rowCount += rows;
+				pendingRows = 0;
+			}
+			notifyDataChanged(new DataRangeEvent(ColumnarDataTable.this,
+				DataRangeEvent.Type.ADDED, rowIndex, rows));
+		}
+	}
+
+	/**
+	 * Makes sure the specified values can be added as a row.
+	 * @param values Values of the row.
+	 */
+	private void checkValues(List<? extends Comparable<?>> values) {
+		if (values.size() != getColumnCount()) {
+			throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong number of columns! Expected {0,number,integer}, got {1,number,integer}.", //$NON-NLS-1$
+					getColumnCount(), values.size()));
+		}
+		for (int colIndex = 0; colIndex < values.size(); colIndex++) {
+			checkType(colIndex, values.get(colIndex));
+		}
+	}
+
+	/**
+	 * Makes sure the specified value can be stored in the specified column.
+	 * @param col Column index.
+	 * @param value Value to be checked.
+	 */
+	private void checkType(int col, Comparable<?> value) {
+		Class<? extends Comparable<?>> type = columns[col].getType();
+		if ((value != null) && !(type.isAssignableFrom(value.getClass()))) {
+			throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong column type! Expected {0}, got {1}.", //$NON-NLS-1$
+					type, value.getClass()));
+		}
+	}
+
+	/**
+	 * Removes a specified row from the table.
+	 * @param row Index of the row to remove
+	 */
+	public void remove(int row) {
+		DataChangeEvent[] events;
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				throw new IndexOutOfBoundsException(MessageFormat.format(
+					"Row index {0,number,integer} is out of range.", row)); //$NON-NLS-1$
+			}
+			events = new DataChangeEvent[columns.length];
+			for (int col = 0; col < columns.length; col++) {
+				events[col] = new DataChangeEvent(this, col, row, columns[col].get(row), null);
+				columns[col].remove(row, rowCount);
+			}
+			rowCount--;
+		}
+		notifyDataRemoved(events);
+	}
+
+	/**
+	 * Removes the last row from the table.
+	 */
+	public void removeLast() {
+		synchronized (this) {
+			remove(rowCount - 1);
+		}
+	}
+
+	/**
+	 * Deletes all rows this table contains.
+	 */
+	public void clear() {
+		DataChangeEvent[] events = null;
+		int rows;
+		synchronized (this) {
+			int cols = columns.length;
+			rows = rowCount;
+			if (isCellEventsRequired()) {
+				events = new DataChangeEvent[cols*rowCount];
+				for (int row = 0; row < rowCount; row++) {
+					for (int col = 0; col < cols; col++) {
+						events[col + row*cols] = new DataChangeEvent(
+							this, col, row, columns[col].get(row), null);
+					}
+				}
+			}
+			for (ColumnStorage column : columns) {
+				column.clear(rowCount);
+			}
+			rowCount = 0;
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.REMOVED, 0, rows), events);
+	}
+
+	/**
+	 * Returns the value with the specified row and column index.
+	 * @param col index of the column to return
+	 * @param row index of the row to return
+	 * @return the specified value of the data cell
+	 */
+	public Comparable<?> get(int col, int row) {
+		synchronized (this) {
+			if (row >= rowCount) {
+				return null;
+			}
+			return columns[col].get(row);
+		}
+	}
+
+	@Override
+	public double getDouble(int col, int row) {
+		synchronized (this) {
+			if (row >= rowCount) {
+				return Double.NaN;
+			}
+			return columns[col].getDouble(row);
+		}
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		synchronized (this) {
+			if (fromRow < 0 || fromRow + len > rowCount) {
+				throw new IndexOutOfBoundsException(MessageFormat.format(
+					"Rows {0,number,integer} to {1,number,integer} are out of range.", //$NON-NLS-1$
+					fromRow, fromRow + len - 1));
+			}
+			columns[col].copy(fromRow, dst, off, len);
+		}
+	}
+
+	/**
+	 * Returns the value with the specified row and column index as a
+	 * {@code long} value without creating a boxed object. Floating point
+	 * values are truncated.
+	 * @param col index of the column to return
+	 * @param row index of the row to return
+	 * @return the specified value of the data cell, or {@code 0} if the
+	 *         cell is empty or not numeric
+	 */
+	public long getLong(int col, int row) {
+		synchronized (this) {
+			if (row >= rowCount) {
+				return 0L;
+			}
+			return columns[col].getLong(row);
+		}
+	}
+
+	/**
+	 * Sets the value of a cell specified by its column and row indexes.
+	 * @param <T> Data type of the cell.
+	 * @param col Column of the cell to change.
+	 * @param row Row of the cell to change.
+	 * @param value New value to be set.
+	 * @return Old value that was replaced.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Comparable<T> set(int col, int row, Comparable<T> value) {
+		if (col < 0 || col >= columns.length) {
+			throw new IndexOutOfBoundsException(MessageFormat.format(
+				"Column index {0,number,integer} is out of range.", col)); //$NON-NLS-1$
+		}
+		checkType(col, value);
+		Comparable<T> old;
+		DataChangeEvent event = null;
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				throw new IndexOutOfBoundsException(MessageFormat.format(
+					"Row index {0,number,integer} is out of range.", row)); //$NON-NLS-1$
+			}
+			old = (Comparable<T>) columns[col].get(row);
+			if (old == null || !old.equals(value)) {
+				columns[col].set(row, value);
+				event = new DataChangeEvent(this, col, row, old, value);
+			}
+		}
+		if (event != null) {
+			notifyDataUpdated(event);
+		}
+		return old;
+	}
+
+	/**
+	 * Returns the number of rows of the data source.
+	 * @return number of rows in the data source.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public Column<?> getColumn(int col) {
+		List<Comparable<?>> columnData;
+		synchronized (this) {
+			columnData = new ArrayList<Comparable<?>>(rowCount);
+			for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+				columnData.add(columns[col].get(rowIndex));
+			}
+		}
+		return new Column(columns[col].getType(), columnData);
+	}
+
+	/**
+	 * Sorts the table rows with the specified DataComparators.
+	 * The row values are compared in the way the comparators are specified.
+	 * Listeners are notified about an update of all rows.
+	 * @param comparators comparators used for sorting
+	 */
+	public void sort(final DataComparator... comparators) {
+		synchronized (this) {
+			final Record[] records = new Record[rowCount];
+			List<Integer> order = new ArrayList<Integer>(rowCount);
+			for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+				records[rowIndex] = getRecord(rowIndex);
+				order.add(rowIndex);
+			}
+			Collections.sort(order, new Comparator<Integer>() {
+				public int compare(Integer row1, Integer row2) {
+					for (DataComparator comparator : comparators) {
+						int result = comparator.compare(records[row1], records[row2]);
+						if (result != 0) {
+							return result;
+						}
+					}
+					return 0;
+				}
+			});
+			int[] rowOrder = new int[rowCount];
+			for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+				rowOrder[rowIndex] = order.get(rowIndex);
+			}
+			for (ColumnStorage column : columns) {
+				column.permute(rowOrder);
+			}
+		}
+		if (rowCount > 0) {
+			notifyDataChanged(new DataRangeEvent(
+				this, DataRangeEvent.Type.UPDATED, 0, rowCount));
+		}
+	}
+
+	@Override
+	public void beginBatch() {
+		super.beginBatch();
+	}
+
+	@Override
+	public void endBatch() {
+		super.endBatch();
+	}
+
+	@Override
+	public void setName(String name) {
+		super.setName(name);
+	}
+
+	@Override
+	protected boolean isStatisticsIncremental() {
+		return true;
+	}
+}
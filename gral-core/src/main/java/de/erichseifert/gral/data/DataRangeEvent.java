@@ -0,0 +1,358 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import java.util.BitSet;
+import java.util.EventObject;
+
+/**
+ * Class that stores information on a change of a range of rows in a data
+ * source. In contrast to {@link DataChangeEvent}, the event doesn't describe
+ * single data values, but a block of consecutive rows, the columns that are
+ * affected, and the kind of change. Thus, its size doesn't depend on the
+ * number of changed values.
+ * @see DataRangeListener
+ * @see DataSource
+ */
+public class DataRangeEvent extends EventObject {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = 4917330429312746216L;
+
+	/**
+	 * Kinds of changes that are described by the events.
+	 */
+	public static enum Type {
+		/** Rows have been added. */
+		ADDED,
+		/** Values have been updated. */
+		UPDATED,
+		/** Rows have been removed. */
+		REMOVED,
+		/**
+		 * Rows have been removed from the beginning and rows have been
+		 * appended, like in a sliding window.
+		 */
+		SHIFTED
+	}
+
+	/** Kind of change. */
+	private final Type type;
+	/** Index of the first row that has changed. */
+	private final int firstRow;
+	/** Number of rows that have changed. */
+	private final int rowCount;
+	/** Indexes of the columns that have changed. */
+	private final BitSet columns;
+	/** Number of rows that have been removed from the beginning. */
+	private final int removedRowCount;
+
+	/**
+	 * Initializes a new event with data source, kind of change, range of
+	 * rows, and the affected columns. For removed rows, the range refers to
+	 * the row indexes before the removal.
+	 * @param source Data source.
+	 * @param type Kind of change.
+	 * @param firstRow Index of the first row that has changed.
+	 * @param rowCount Number of rows that have changed.
+	 * @param columns Indexes of the columns that have changed.
+	 */
+	public DataRangeEvent(DataSource source, Type type, int firstRow,
+			int rowCount, BitSet columns) {
+		this(source, type, firstRow, rowCount, columns, 0);
+	}
+
+	/**
+	 * Initializes a new event with data source, kind of change, range of
+	 * rows, the affected columns, and the number of rows that have been
+	 * removed from the beginning.
+	 * @param source Data source.
+	 * @param type Kind of change.
+	 * @param firstRow Index of the first row that has changed.
+	 * @param rowCount Number of rows that have changed.
+	 * @param columns Indexes of the columns that have changed.
+	 * @param removedRowCount Number of rows that have been removed from the
+	 *        beginning.
+	 */
+	private DataRangeEvent(DataSource source, Type type, int firstRow,
+			int rowCount, BitSet columns, int removedRowCount) {
+		super(source);
+		this.type = type;
+		this.firstRow = firstRow;
+		this.rowCount = rowCount;
+		this.columns = (BitSet) columns.clone();
+		this.removedRowCount = removedRowCount;
+	}
+
+	/**
+	 * Initializes a new event with data source, kind of change, and range of
+	 * rows. All columns of the data source are regarded as changed.
+	 * @param source Data source.
+	 * @param type Kind of change.
+	 * @param firstRow Index of the first row that has changed.
+	 * @param rowCount Number of rows that have changed.
+	 */
+	public DataRangeEvent(DataSource source, Type type, int firstRow,
+			int rowCount) {
+		this(source, type, firstRow, rowCount,
+			allColumns(source.getColumnCount()));
+	}
+
+	/**
+	 * Creates a new event that describes the removal of rows from the
+	 * beginning of a data source and the addition of rows to its end. The
+	 * range of the event refers to the added rows after the removal. If no
+	 * rows have been removed or no rows have been added, an event of type
+	 * {@code ADDED} or {@code REMOVED} is returned instead.
+	 * @param source Data source.
+	 * @param removedRowCount Number of rows that have been removed from the
+	 *        beginning.
+	 * @param firstRow Index of the first added row after the removal.
+	 * @param rowCount Number of rows that have been added.
+	 * @param columns Indexes of the columns that have changed.
+	 * @return A new event describing the change.
+	 */
+	public static DataRangeEvent shifted(DataSource source,
+			int removedRowCount, int firstRow, int rowCount, BitSet columns) {
+		if (removedRowCount == 0) {
+			return new DataRangeEvent(source, Type.ADDED, firstRow, rowCount,
+				columns);
+		} else if (rowCount == 0) {
+			return new DataRangeEvent(source, Type.REMOVED, 0, removedRowCount,
+				columns);
+		}
+		return new DataRangeEvent(source, Type.SHIFTED, firstRow, rowCount,
+			columns, removedRowCount);
+	}
+
+	/**
+	 * Creates a new event that describes the removal of rows from the
+	 * beginning of a data source and the addition of rows to its end. All
+	 * columns of the data source are regarded as changed.
+	 * @param source Data source.
+	 * @param removedRowCount Number of rows that have been removed from the
+	 *        beginning.
+	 * @param firstRow Index of the first added row after the removal.
+	 * @param rowCount Number of rows that have been added.
+	 * @return A new event describing the change.
+	 * @see #shifted(DataSource, int, int, int, BitSet)
+	 */
+	public static DataRangeEvent shifted(DataSource source,
+			int removedRowCount, int firstRow, int rowCount) {
+		return shifted(source, removedRowCount, firstRow, rowCount,
+			allColumns(source.getColumnCount()));
+	}
+
+	/**
+	 * Creates a new event that describes the same change as the specified
+	 * single value events. The range of rows spans all rows that are
+	 * referenced by the events.
+	 * @param source Data source.
+	 * @param type Kind of change.
+	 * @param events Event objects describing the changed values.
+	 * @return A new event describing the changed range.
+	 */
+	public static DataRangeEvent of(DataSource source, Type type,
+			DataChangeEvent... events) {
+		int rowMin = Integer.MAX_VALUE;
+		int rowMax = -1;
+		BitSet columns = new BitSet();
+		for (DataChangeEvent event : events) {
+			rowMin = Math.min(rowMin, event.getRow());
+			rowMax = Math.max(rowMax, event.getRow());
+			if (event.getCol() >= 0) {
+				columns.set(event.getCol());
+			}
+		}
+		if (rowMax < 0) {
+			return new DataRangeEvent(source, type, 0, 0, columns);
+		}
+		return new DataRangeEvent(source, type, rowMin, rowMax - rowMin + 1,
+			columns);
+	}
+
+	/**
+	 * Returns a set that contains the indexes of the specified number of
+	 * columns.
+	 * @param columnCount Number of columns.
+	 * @return Set of column indexes.
+	 */
+	public static BitSet allColumns(int columnCount) {
+		BitSet columns = new BitSet(columnCount);
+		columns.set(0, columnCount);
+		return columns;
+	}
+
+	/**
+	 * Returns the kind of change.
+	 * @return Kind of change.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the index of the first row that has changed.
+	 * @return Index of the first changed row.
+	 */
+	public int getFirstRow() {
+		return firstRow;
+	}
+
+	/**
+	 * Returns the number of rows that have changed.
+	 * @return Number of changed rows.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns the index after the last row that has changed.
+	 * @return Index after the last changed row.
+	 */
+	public int getEndRow() {
+		return firstRow + rowCount;
+	}
+
+	/**
+	 * Returns the number of rows that have been removed from the beginning
+	 * of the data source. This is only used by events of type
+	 * {@code SHIFTED}, for all other events {@code 0} is returned.
+	 * @return Number of rows removed from the beginning.
+	 */
+	public int getRemovedRowCount() {
+		return removedRowCount;
+	}
+
+	/**
+	 * Returns an event that describes the same change of rows for another
+	 * data source and other columns. This can be used by data sources that
+	 * pass on the changes of the data source they are based on.
+	 * @param source Data source.
+	 * @param columns Indexes of the columns that have changed.
+	 * @return A new event describing the change.
+	 */
+	public DataRangeEvent derive(DataSource source, BitSet columns) {
+		return new DataRangeEvent(source, type, firstRow, rowCount, columns,
+			removedRowCount);
+	}
+
+	/**
+	 * Returns the indexes of the columns that have changed.
+	 * @return Set of changed column indexes.
+	 */
+	public BitSet getColumns() {
+		return (BitSet) columns.clone();
+	}
+
+	/**
+	 * Returns whether the column with the specified index has changed.
+	 * @param col Column index.
+	 * @return {@code true} if the column has changed, {@code false} otherwise.
+	 */
+	public boolean isColumnChanged(int col) {
+		return col >= 0 && columns.get(col);
+	}
+
+	/**
+	 * Returns an event that describes the changes of this event and the
+	 * specified event together, or {@code null} if the changes can't be
+	 * described by a single range. Updates are always combined to a range
+	 * that spans both ranges, added rows only if they are appended to the
+	 * range, and removed rows only if they are adjacent to the range.
+	 * Shifts are combined with other shifts and with rows that have been
+	 * appended, as long as only rows that existed before are removed.
+	 * @param event Event that describes a later change of the same source.
+	 * @return Combined event, or {@code null}.
+	 */
+	public DataRangeEvent merge(DataRangeEvent event) {
+		if (type == Type.SHIFTED || event.getType() == Type.SHIFTED) {
+			return mergeShifted(event);
+		}
+		if (event.getType() != type) {
+			return null;
+		}
+		int first;
+		int count;
+		if (type == Type.UPDATED) {
+			first = Math.min(firstRow, event.getFirstRow());
+			count = Math.max(getEndRow(), event.getEndRow()) - first;
+		} else if (type == Type.ADDED && event.getFirstRow() == getEndRow()) {
+			first = firstRow;
+			count = rowCount + event.getRowCount();
+		} else if (type == Type.REMOVED && event.getFirstRow() == firstRow) {
+			first = firstRow;
+			count = rowCount + event.getRowCount();
+		} else if (type == Type.REMOVED && event.getEndRow() == firstRow) {
+			first = event.getFirstRow();
+			count = rowCount + event.getRowCount();
+		} else {
+			return null;
+		}
+		return new DataRangeEvent((DataSource) getSource(), type, first, count,
+			mergeColumns(event));
+	}
+
+	/**
+	 * Combines this event and the specified event if at least one of them
+	 * describes a shift. Added rows have to be appended to the end, and
+	 * rows that have been removed by the later event must not include the
+	 * rows that have been added by this event.
+	 * @param event Event that describes a later change of the same source.
+	 * @return Combined event, or {@code null}.
+	 */
+	private DataRangeEvent mergeShifted(DataRangeEvent event) {
+		if ((type != Type.SHIFTED && type != Type.ADDED)
+				|| (event.getType() != Type.SHIFTED && event.getType() != Type.ADDED)) {
+			return null;
+		}
+		// The later change must begin at the end of this change
+		int endRow = getEndRow();
+		int removed = event.getRemovedRowCount();
+		if (event.getFirstRow() + removed != endRow || removed > firstRow) {
+			return null;
+		}
+		return new DataRangeEvent((DataSource) getSource(), Type.SHIFTED,
+			firstRow - removed, rowCount + event.getRowCount(),
+			mergeColumns(event), removedRowCount + removed);
+	}
+
+	/**
+	 * Returns the indexes of the columns that have been changed by this
+	 * event or the specified event.
+	 * @param event Other event.
+	 * @return Set of changed column indexes.
+	 */
+	private BitSet mergeColumns(DataRangeEvent event) {
+		BitSet mergedColumns = (BitSet) columns.clone();
+		mergedColumns.or(event.columns);
+		return mergedColumns;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + "[type=" + type //$NON-NLS-1$
+			+ ",firstRow=" + firstRow + ",rowCount=" + rowCount //$NON-NLS-1$ //$NON-NLS-2$
+			+ ",removedRowCount=" + removedRowCount //$NON-NLS-1$
+			+ ",columns=" + columns + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
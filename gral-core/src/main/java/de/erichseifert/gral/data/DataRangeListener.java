@@ -0,0 +1,44 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+/**
+ * Interface that can be implemented to listen for changes in data sources
+ * that are described by ranges of rows instead of single values. Data
+ * sources that support range events notify these listeners only with
+ * {@link #dataChanged(DataSource, DataRangeEvent)}, so the values of large
+ * changes don't have to be collected. Other data sources call the methods
+ * of {@link DataListener}.
+ * @see DataRangeEvent
+ * @see DataSource
+ */
+public interface DataRangeListener extends DataListener {
+	/**
+	 * Method that is invoked when a range of data has been added, updated or
+	 * removed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	void dataChanged(DataSource source, DataRangeEvent event);
+}
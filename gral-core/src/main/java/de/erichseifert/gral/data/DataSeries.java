@@ -24,13 +24,14 @@ package de.erichseifert.gral.data;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * Class that represents a view on several columns of a {@code DataSource}.
  * @see DataSource
  */
-public class DataSeries extends AbstractDataSource implements DataListener {
+public class DataSeries extends AbstractDataSource implements DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = 5568085894125740972L;
 
@@ -102,6 +103,19 @@ public class DataSeries extends AbstractDataSource implements DataListener {
 		}
 	}
 
+	@Override
+	public double getDouble(int col, int row) {
+		if (col < 0 || col >= cols.size()) {
+			return Double.NaN;
+		}
+		return getDouble(data, cols.get(col), row);
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		copyColumn(data, cols.get(col), fromRow, dst, off, len);
+	}
+
 	@Override
 	public int getColumnCount() {
 		return cols.size();
@@ -151,6 +165,28 @@ public class DataSeries extends AbstractDataSource implements DataListener {
 		notifyDataRemoved(events);
 	}
 
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * The columns of the event are mapped to the columns of the series,
+	 * updates of columns that are not part of the series are ignored.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		BitSet columns = new BitSet(cols.size());
+		for (int col = 0; col < cols.size(); col++) {
+			if (event.isColumnChanged(cols.get(col))) {
+				columns.set(col);
+			}
+		}
+		if (columns.isEmpty() && event.getType() == DataRangeEvent.Type.UPDATED) {
+			return;
+		}
+		notifyDataChanged(event.derive(this, columns));
+	}
+
 	@Override
 	public String toString() {
 		return getName();
@@ -160,15 +160,52 @@ public class DataTable extends AbstractDataSource implements MutableDataSource {
 	 * @return Index of the row that has been added.
 	 */
 	public int add(List<? extends Comparable<?>> values) {
-		DataChangeEvent[] events;
-		if (values.size() != getColumnCount()) {
+		checkValues(getColumnTypes(), values);
+
+		// Add data to row
+		Record row = new Record(values);
+		int rowIndex;
+		synchronized (rows) {
+			rowIndex = rows.size();
+			rows.add(row);
+		}
+		notifyRowAdded(row, rowIndex);
+		return rowIndex;
+	}
+
+	/**
+	 * Notifies listeners that the specified row has been added. Events for
+	 * the single values are only created if a listener needs them.
+	 * @param row Row that has been added.
+	 * @param rowIndex Index of the row.
+	 */
+	private void notifyRowAdded(Record row, int rowIndex) {
+		DataChangeEvent[] events = null;
+		if (isCellEventsRequired()) {
+			events = new DataChangeEvent[row.size()];
+			for (int columnIndex = 0; columnIndex < row.size(); columnIndex++) {
+				Comparable<?> value = row.get(columnIndex);
+				events[columnIndex] = new DataChangeEvent(this, columnIndex, rowIndex, null, value);
+			}
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.ADDED, rowIndex, 1), events);
+	}
+
+	/**
+	 * Makes sure the specified values can be added as a row.
+	 * @param types Data types of all columns.
+	 * @param values Values of the row.
+	 */
+	private static void checkValues(Class<? extends Comparable<?>>[] types,
+			List<? extends Comparable<?>> values) {
+		if (values.size() != types.length) {
 			throw new IllegalArgumentException(MessageFormat.format(
 					"Wrong number of columns! Expected {0,number,integer}, got {1,number,integer}.", //$NON-NLS-1$
-					getColumnCount(), values.size()));
+					types.length, values.size()));
 		}
 
 		// Check row data types
-		Class<? extends Comparable<?>>[] types = getColumnTypes();
 		for (int colIndex = 0; colIndex < values.size(); colIndex++) {
 			Comparable<?> value = values.get(colIndex);
 			if ((value != null)
@@ -178,22 +215,93 @@ public class DataTable extends AbstractDataSource implements MutableDataSource {
 						types[colIndex], value.getClass()));
 			}
 		}
+	}
+
+	/**
+	 * Adds rows with the specified containers' elements to the table.
+	 * The types of all values are checked before any row is added. If the
+	 * types of the table columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * for all rows.
+	 * @param rows Values of each row to be added.
+	 */
+	public void addAll(Iterable<? extends List<? extends Comparable<?>>> rows) {
+		Class<? extends Comparable<?>>[] types = getColumnTypes();
+		List<Record> records = new ArrayList<Record>();
+		for (List<? extends Comparable<?>> values : rows) {
+			checkValues(types, values);
+			records.add(new Record(values));
+		}
+		addRecords(records);
+	}
+
+	/**
+	 * Adds rows with the specified column values to the table. Each array
+	 * contains the values of one column, the n-th row is built from the
+	 * n-th element of each array. All arrays must have the same length and
+	 * all columns must accept {@code Double} values, otherwise an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * for all rows.
+	 * @param columns Values of each column.
+	 */
+	public void addColumns(double[]... columns) {
+		int rowCount = checkColumns(getColumnTypes(), columns);
+		List<Record> records = new ArrayList<Record>(rowCount);
+		Comparable<?>[] values = new Comparable<?>[columns.length];
+		for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+			for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+				values[colIndex] = columns[colIndex][rowIndex];
+			}
+			records.add(new Record(values));
+		}
+		addRecords(records);
+	}
 
-		// Add data to row
-		Record row = new Record(values);
-		events = new DataChangeEvent[row.size()];
-		for (int columnIndex = 0; columnIndex < row.size(); columnIndex++) {
-			Comparable<?> value = values.get(columnIndex);
-			events[columnIndex] = new DataChangeEvent(this, columnIndex, rows.size(), null, value);
+	/**
+	 * Makes sure the specified column values can be added to columns of
+	 * the specified types.
+	 * @param types Data types of all columns.
+	 * @param columns Values of each column.
+	 * @return Number of rows.
+	 */
+	static int checkColumns(Class<? extends Comparable<?>>[] types, double[]... columns) {
+		if (columns.length != types.length) {
+			throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong number of columns! Expected {0,number,integer}, got {1,number,integer}.", //$NON-NLS-1$
+					types.length, columns.length));
+		}
+		int rowCount = (columns.length > 0) ? columns[0].length : 0;
+		for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+			if (!types[colIndex].isAssignableFrom(Double.class)) {
+				throw new IllegalArgumentException(MessageFormat.format(
+						"Wrong column type! Expected {0}, got {1}.", //$NON-NLS-1$
+						types[colIndex], Double.class));
+			}
+			if (columns[colIndex].length != rowCount) {
+				throw new IllegalArgumentException(MessageFormat.format(
+						"Wrong number of rows! Expected {0,number,integer}, got {1,number,integer}.", //$NON-NLS-1$
+						rowCount, columns[colIndex].length));
+			}
 		}
+		return rowCount;
+	}
 
+	/**
+	 * Adds the specified records to the table and notifies listeners once
+	 * for all of them.
+	 * @param records Rows to be added.
+	 */
+	private void addRecords(List<Record> records) {
+		if (records.isEmpty()) {
+			return;
+		}
 		int rowIndex;
 		synchronized (rows) {
-			rows.add(row);
 			rowIndex = rows.size();
+			rows.addAll(records);
 		}
-		notifyDataAdded(events);
-		return rowIndex - 1;
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.ADDED, rowIndex, records.size()));
 	}
 
 	/**
@@ -220,7 +328,12 @@ public class DataTable extends AbstractDataSource implements MutableDataSource {
 			throw new IllegalArgumentException("Invalid element count in Record to be added. " +
 					"Expected: "+getColumnCount()+", got: "+row.size());
 		}
-		rows.add(row);
+		int rowIndex;
+		synchronized (rows) {
+			rowIndex = rows.size();
+			rows.add(row);
+		}
+		notifyRowAdded(row, rowIndex);
 	}
 
 	/**
@@ -261,20 +374,24 @@ public class DataTable extends AbstractDataSource implements MutableDataSource {
 	 * Deletes all rows this table contains.
 	 */
 	public void clear() {
-		DataChangeEvent[] events;
+		DataChangeEvent[] events = null;
+		int rows;
 		synchronized (this) {
 			int cols = getColumnCount();
-			int rows = getRowCount();
-			events = new DataChangeEvent[cols*rows];
-			for (int row = 0; row < rows; row++) {
-				for (int col = 0; col < cols; col++) {
-					events[col + row*cols] = new DataChangeEvent(
-						this, col, row, get(col, row), null);
+			rows = getRowCount();
+			if (isCellEventsRequired()) {
+				events = new DataChangeEvent[cols*rows];
+				for (int row = 0; row < rows; row++) {
+					for (int col = 0; col < cols; col++) {
+						events[col + row*cols] = new DataChangeEvent(
+							this, col, row, get(col, row), null);
+					}
 				}
 			}
 			this.rows.clear();
 		}
-		notifyDataRemoved(events);
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.REMOVED, 0, rows), events);
 	}
 
 	/**
@@ -297,6 +414,31 @@ public class DataTable extends AbstractDataSource implements MutableDataSource {
 		return r.get(col);
 	}
 
+	@Override
+	public double getDouble(int col, int row) {
+		Record r;
+		synchronized (rows) {
+			if (row >= rows.size()) {
+				return Double.NaN;
+			}
+			r = rows.get(row);
+		}
+		if (r == null) {
+			return Double.NaN;
+		}
+		return toDouble(r.<Comparable<?>>get(col));
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		synchronized (rows) {
+			for (int i = 0; i < len; i++) {
+				Record r = rows.get(fromRow + i);
+				dst[off + i] = (r != null) ? toDouble(r.<Comparable<?>>get(col)) : Double.NaN;
+			}
+		}
+	}
+
 	/**
 	 * Sets the value of a cell specified by its column and row indexes.
 	 * @param <T> Data type of the cell.
@@ -340,17 +482,39 @@ public class DataTable extends AbstractDataSource implements MutableDataSource {
 	/**
 	 * Sorts the table rows with the specified DataComparators.
 	 * The row values are compared in the way the comparators are specified.
+	 * Listeners are notified about an update of all rows.
 	 * @param comparators comparators used for sorting
 	 */
 	public void sort(final DataComparator... comparators) {
+		int rowCount;
 		synchronized (rows) {
 			RecordComparator comparator = new RecordComparator(comparators);
 			Collections.sort(rows, comparator);
+			rowCount = rows.size();
 		}
+		if (rowCount > 0) {
+			notifyDataChanged(new DataRangeEvent(
+				this, DataRangeEvent.Type.UPDATED, 0, rowCount));
+		}
+	}
+
+	@Override
+	public void beginBatch() {
+		super.beginBatch();
+	}
+
+	@Override
+	public void endBatch() {
+		super.endBatch();
 	}
 
 	@Override
 	public void setName(String name) {
 		super.setName(name);
 	}
+
+	@Override
+	protected boolean isStatisticsIncremental() {
+		return true;
+	}
 }
@@ -21,6 +21,7 @@
  */
 package de.erichseifert.gral.data;
 
+import java.util.BitSet;
 
 /**
  * <p>Class that creates a new data source which adds a leading column
@@ -36,7 +37,7 @@ package de.erichseifert.gral.data;
  * @see DataSource
  */
 public class EnumeratedData extends AbstractDataSource
-		implements DataListener {
+		implements DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = -4952487410608980063L;
 
@@ -93,6 +94,25 @@ public class EnumeratedData extends AbstractDataSource
 		return original.get(col - 1, row);
 	}
 
+	@Override
+	public double getDouble(int col, int row) {
+		if (col < 1) {
+			return row*steps + offset;
+		}
+		return getDouble(original, col - 1, row);
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		if (col < 1) {
+			for (int i = 0; i < len; i++) {
+				dst[off + i] = (fromRow + i)*steps + offset;
+			}
+			return;
+		}
+		copyColumn(original, col - 1, fromRow, dst, off, len);
+	}
+
 	/**
 	 * Returns the number of rows of the data source.
 	 * @return number of rows in the data source.
@@ -137,6 +157,56 @@ public class EnumeratedData extends AbstractDataSource
 		notifyDataRemoved(takeEvents(events));
 	}
 
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		if (event.getType() == DataRangeEvent.Type.SHIFTED) {
+			// The generated column doesn't move with the rows
+			dataShifted(event);
+			return;
+		}
+		BitSet columns = new BitSet();
+		if (event.getType() != DataRangeEvent.Type.UPDATED) {
+			// Rows have been added or removed, so the generated column changes
+			columns.set(0);
+		}
+		BitSet columnsOrig = event.getColumns();
+		for (int col = columnsOrig.nextSetBit(0); col >= 0; col = columnsOrig.nextSetBit(col + 1)) {
+			columns.set(col + 1);
+		}
+		notifyDataChanged(new DataRangeEvent(this, event.getType(),
+			event.getFirstRow(), event.getRowCount(), columns));
+	}
+
+	/**
+	 * Notifies listeners of a change of the original data source that
+	 * removed rows from its beginning and appended rows to its end. The
+	 * values of the generated column depend on the row index, so the rows
+	 * that are kept are reported as updated.
+	 * @param event Event object describing the shifted rows.
+	 */
+	private void dataShifted(DataRangeEvent event) {
+		int rowCount = getRowCount();
+		int rowCountBefore = rowCount + event.getRemovedRowCount() - event.getRowCount();
+		int rowsUpdated = Math.min(rowCount, rowCountBefore);
+		if (rowsUpdated > 0) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.UPDATED,
+				0, rowsUpdated));
+		}
+		if (rowCount > rowCountBefore) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.ADDED,
+				rowCountBefore, rowCount - rowCountBefore));
+		} else if (rowCount < rowCountBefore) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.REMOVED,
+				rowCount, rowCountBefore - rowCount));
+		}
+	}
+
 	/**
 	 * Changes the source and the columns of the specified event objects to
 	 * make them look as if they originated from this data source.
@@ -63,6 +63,27 @@ public interface MutableDataSource extends DataSource {
 	 */
 	int add(Row row);
 
+	/**
+	 * Adds rows with the specified containers' elements to the data sink.
+	 * The types of all values are checked before any row is added. If the
+	 * types of the data sink columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * for all rows.
+	 * @param rows Values of each row to be added.
+	 */
+	void addAll(Iterable<? extends List<? extends Comparable<?>>> rows);
+
+	/**
+	 * Adds rows with the specified column values to the data sink. Each
+	 * array contains the values of one column, the n-th row is built from the
+	 * n-th element of each array. All arrays must have the same length and
+	 * all columns must accept {@code Double} values, otherwise an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * for all rows.
+	 * @param columns Values of each column.
+	 */
+	void addColumns(double[]... columns);
+
 	/**
 	 * Removes a specified row from the data sink.
 	 * @param row Index of the row to remove.
@@ -96,6 +117,21 @@ public interface MutableDataSource extends DataSource {
 	 */
 	void sort(final DataComparator... comparators);
 
+	/**
+	 * Starts a batch of changes. Listeners won't be notified of changes until
+	 * the batch is ended with {@link #endBatch()}. Then, consecutive changes
+	 * of the same kind are reported with a single notification. Batches can
+	 * be nested, listeners are notified when the outermost batch ends.
+	 */
+	void beginBatch();
+
+	/**
+	 * Ends a batch of changes that has been started with
+	 * {@link #beginBatch()} and notifies the listeners of all changes.
+	 * @throws IllegalStateException if no batch has been started.
+	 */
+	void endBatch();
+
 	/**
 	 * Sets the name of this series.
 	 * @param name name to be set
@@ -0,0 +1,66 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+/**
+ * <p>Interface for data sources that provide access to numeric cell values
+ * as primitive {@code double} values.</p>
+ * <p>Implementations avoid creating {@code Number} objects for every access.
+ * Classes that process many values, like plots, statistics or filters,
+ * check whether a data source implements this interface and prefer the
+ * primitive accessors over {@link DataSource#get(int, int)}.</p>
+ *
+ * @see DataSource
+ */
+public interface NumericDataSource extends DataSource {
+	/**
+	 * Returns the value with the specified column and row index as a
+	 * {@code double} value. Empty cells and cells that don't contain a
+	 * number are returned as {@code NaN}.
+	 * @param col index of the column to return
+	 * @param row index of the row to return
+	 * @return the numeric value of the data cell, or {@code NaN}
+	 */
+	double getDouble(int col, int row);
+
+	/**
+	 * Copies consecutive values of a column into the specified array. Empty
+	 * cells and cells that don't contain a number are copied as {@code NaN}.
+	 * @param col index of the column to copy
+	 * @param fromRow index of the first row to copy
+	 * @param dst array that will receive the values
+	 * @param off position in the array where the first value will be stored
+	 * @param len number of values to copy
+	 */
+	void copyColumn(int col, int fromRow, double[] dst, int off, int len);
+
+	/**
+	 * Returns whether the numeric values of the specified column are sorted
+	 * in ascending order. Columns that contain empty cells or values that
+	 * aren't numbers are not sorted. Sorted columns can be searched with
+	 * binary search.
+	 * @param col index of the column
+	 * @return {@code true} if the values of the column are sorted,
+	 *         {@code false} otherwise
+	 */
+	boolean isColumnSorted(int col);
+}
@@ -0,0 +1,707 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import de.erichseifert.gral.data.comparators.DataComparator;
+
+/**
+ * <p>A mutable data source with a fixed capacity that stores its rows in a
+ * circular buffer. If a row is added to a full table the oldest row is
+ * removed, so the table always contains the most recent rows. This makes
+ * it suitable for live charts of streaming data, for example a sliding time
+ * window.</p>
+ * <p>Adding a row and removing the first or the last row take constant
+ * time. Values are stored column by column like in
+ * {@link ColumnarDataTable}, numeric columns are kept in arrays of primitive
+ * values.</p>
+ * <p>If the oldest rows are discarded while adding new rows, listeners are
+ * notified once with an event of type {@link DataRangeEvent.Type#SHIFTED}
+ * that describes both the removed and the added rows, so they only have to
+ * handle the rows that have changed. The statistics of the table are
+ * updated in constant time for each added row, the minimum and the maximum
+ * of each column are kept in monotonic queues, so they don't have to be
+ * searched when the oldest minimum or maximum is discarded.</p>
+ *
+ * @see ColumnarDataTable
+ * @see MutableDataSource
+ */
+public class RingBufferDataTable extends AbstractDataSource implements MutableDataSource {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = 3925497731585127541L;
+
+	/** Maximum number of rows. */
+	private final int capacity;
+	/** Storage for the values of each column. */
+	private ColumnStorage[] columns;
+	/** Position of the first row in the column storages. */
+	private int head;
+	/** Number of rows. */
+	private int rowCount;
+	/** Queues for the minimum of each column, or {@code null}. */
+	private transient ExtremaQueue[] minQueues;
+	/** Queues for the maximum of each column, or {@code null}. */
+	private transient ExtremaQueue[] maxQueues;
+
+	/**
+	 * Queue of the positions of the rows that can still become the minimum
+	 * or maximum of a column while the oldest rows are discarded. The values
+	 * of the queued rows are monotonic, so the extremum is always the value
+	 * of the first queued row. Adding a row takes amortized constant time.
+	 */
+	private static final class ExtremaQueue {
+		/** Storage that contains the values of the column. */
+		private final ColumnStorage column;
+		/** Whether the queue keeps track of the maximum. */
+		private final boolean max;
+		/** Positions of the queued rows in the column storage. */
+		private final int[] positions;
+		/** Index of the first queued row in {@code positions}. */
+		private int first;
+		/** Number of queued rows. */
+		private int size;
+
+		/**
+		 * Initializes a new empty queue for the specified column.
+		 * @param column Storage that contains the values of the column.
+		 * @param capacity Maximum number of rows.
+		 * @param max {@code true} for the maximum, {@code false} for the
+		 *        minimum.
+		 */
+		public ExtremaQueue(ColumnStorage column, int capacity, boolean max) {
+			this.column = column;
+			this.max = max;
+			positions = new int[capacity];
+		}
+
+		/**
+		 * Appends a row. All rows that can't become the extremum anymore
+		 * are removed from the queue.
+		 * @param position Position of the row in the column storage.
+		 * @param value Value of the row.
+		 */
+		public void add(int position, double value) {
+			if (Double.isNaN(value)) {
+				return;
+			}
+			while (size > 0) {
+				double last = column.getDouble(positions[toIndex(size - 1)]);
+				if (max ? last > value : last < value) {
+					break;
+				}
+				size--;
+			}
+			positions[toIndex(size)] = position;
+			size++;
+		}
+
+		/**
+		 * Removes the oldest row of the table from the queue. This must be
+		 * done before the value of the row is replaced.
+		 * @param position Position of the row in the column storage.
+		 */
+		public void remove(int position) {
+			if (size > 0 && positions[first] == position) {
+				first = toIndex(1);
+				size--;
+			}
+		}
+
+		/**
+		 * Returns the extremum of all queued rows.
+		 * @return Minimum or maximum, or {@code NaN} if the queue is empty.
+		 */
+		public double get() {
+			if (size == 0) {
+				return Double.NaN;
+			}
+			return column.getDouble(positions[first]);
+		}
+
+		/**
+		 * Returns the index in {@code positions} of the specified queued row.
+		 * @param i Index of the queued row.
+		 * @return Index in {@code positions}.
+		 */
+		private int toIndex(int i) {
+			int index = first + i;
+			return (index >= positions.length) ? index - positions.length : index;
+		}
+	}
+
+	/**
+	 * Initializes a new instance with the specified capacity, number of
+	 * columns, and column types.
+	 * @param capacity Maximum number of rows
+	 * @param types Type for each column
+	 */
+	public RingBufferDataTable(int capacity, Class<? extends Comparable<?>>... types) {
+		super(types);
+		if (capacity <= 0) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Capacity must be positive, got {0,number,integer}.", capacity)); //$NON-NLS-1$
+		}
+		this.capacity = capacity;
+		columns = new ColumnStorage[types.length];
+		for (int colIndex = 0; colIndex < types.length; colIndex++) {
+			columns[colIndex] = ColumnStorage.create(types[colIndex], capacity);
+		}
+	}
+
+	/**
+	 * Returns the maximum number of rows this table can contain.
+	 * @return Capacity of the table.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the position of the specified row in the column storages.
+	 * @param row Row index.
+	 * @return Position in the column storages.
+	 */
+	private int toIndex(int row) {
+		int index = head + row;
+		return (index >= capacity) ? index - capacity : index;
+	}
+
+	/**
+	 * Adds a row with the specified comparable values to the table. If the
+	 * table is full, the first row is removed. The values are added in the
+	 * order they are specified. If the types of the table columns and the
+	 * values do not match, an {@code IllegalArgumentException} is thrown.
+	 * @param values values to be added as a row
+	 * @return Index of the row that has been added.
+	 */
+	public int add(Comparable<?>... values) {
+		return add(Arrays.asList(values));
+	}
+
+	/**
+	 * Adds a row with the specified container's elements to the table. If
+	 * the table is full, the first row is removed. The values are added in
+	 * the order they are specified. If the types of the table columns and the
+	 * values do not match, an {@code IllegalArgumentException} is thrown.
+	 * @param values values to be added as a row
+	 * @return Index of the row that has been added.
+	 */
+	public int add(List<? extends Comparable<?>> values) {
+		checkValues(values);
+		return addRows(Collections.<List<? extends Comparable<?>>>singletonList(values));
+	}
+
+	/**
+	 * Adds rows with the specified containers' elements to the table. If the
+	 * table gets full, the first rows are removed. The types of all values
+	 * are checked before any row is added. If the types of the table columns
+	 * and the values do not match, an {@code IllegalArgumentException} is
+	 * thrown. Listeners are notified once about the removed and the added
+	 * rows.
+	 * @param rows Values of each row to be added.
+	 */
+	public void addAll(Iterable<? extends List<? extends Comparable<?>>> rows) {
+		List<List<? extends Comparable<?>>> rowList = new ArrayList<List<? extends Comparable<?>>>();
+		for (List<? extends Comparable<?>> values : rows) {
+			checkValues(values);
+			rowList.add(values);
+		}
+		if (!rowList.isEmpty()) {
+			addRows(rowList);
+		}
+	}
+
+	/**
+	 * Adds rows with the specified column values to the table. If the table
+	 * gets full, the first rows are removed. Each array contains the values
+	 * of one column, the n-th row is built from the n-th element of each
+	 * array. All arrays must have the same length and all columns must
+	 * accept {@code Double} values, otherwise an
+	 * {@code IllegalArgumentException} is thrown. Listeners are notified once
+	 * about the removed and the added rows. Values of {@code Double} columns
+	 * are copied without creating objects.
+	 * @param columns Values of each column.
+	 */
+	public void addColumns(double[]... columns) {
+		int rows = DataTable.checkColumns(getColumnTypes(), columns);
+		if (rows > 0) {
+			addRows(rows, null, columns);
+		}
+	}
+
+	/**
+	 * Adds the specified rows and removes as many of the first rows as
+	 * necessary to stay within the capacity.
+	 * @param rows Values of each row to be added.
+	 * @return Index of the last row that has been added.
+	 */
+	private int addRows(List<List<? extends Comparable<?>>> rows) {
+		return addRows(rows.size(), rows, null);
+	}
+
+	/**
+	 * Adds the specified rows and removes as many of the first rows as
+	 * necessary to stay within the capacity. Rows that would be removed
+	 * immediately are not added at all. The values are either specified row
+	 * by row or column by column. Listeners are notified of the removed and
+	 * the added rows with a single event.
+	 * @param count Number of rows to be added.
+	 * @param rows Values of each row, or {@code null}.
+	 * @param columnValues Values of each column, or {@code null}.
+	 * @return Index of the last row that has been added.
+	 */
+	private int addRows(int count, List<List<? extends Comparable<?>>> rows,
+			double[][] columnValues) {
+		int skipped = Math.max(0, count - capacity);
+		int added = count - skipped;
+		int cols = columns.length;
+		int removed;
+		int rowIndex;
+		double[] valuesRemoved;
+		double[] valuesAdded;
+		double[] minima = new double[cols];
+		double[] maxima = new double[cols];
+		synchronized (this) {
+			if (minQueues == null) {
+				createExtremaQueues();
+			}
+			removed = Math.max(0, rowCount + added - capacity);
+			valuesRemoved = discardFirstRows(removed);
+
+			if (rows != null) {
+				for (int i = 0; i < added; i++) {
+					List<? extends Comparable<?>> values = rows.get(skipped + i);
+					int index = toIndex(rowCount + i);
+					for (int colIndex = 0; colIndex < cols; colIndex++) {
+						columns[colIndex].set(index, values.get(colIndex));
+					}
+				}
+			} else {
+				// The added rows wrap around at most once
+				int index = toIndex(rowCount);
+				int lenFirst = Math.min(added, capacity - index);
+				for (int colIndex = 0; colIndex < cols; colIndex++) {
+					columns[colIndex].set(index, columnValues[colIndex], skipped, lenFirst);
+					if (lenFirst < added) {
+						columns[colIndex].set(0, columnValues[colIndex],
+							skipped + lenFirst, added - lenFirst);
+					}
+				}
+			}
+
+			valuesAdded = new double[cols*added];
+			for (int i = 0; i < added; i++) {
+				int index = toIndex(rowCount);
+				for (int colIndex = 0; colIndex < cols; colIndex++) {
+					double value = columns[colIndex].getDouble(index);
+					valuesAdded[colIndex + i*cols] = value;
+					minQueues[colIndex].add(index, value);
+					maxQueues[colIndex].add(index, value);
+				}
+				rowCount++;
+			}
+			rowIndex = rowCount - 1;
+			getExtrema(minima, maxima);
+		}
+		updateStatistics(valuesRemoved, valuesAdded);
+		setExtrema(minima, maxima);
+		notifyDataShifted(removed, added);
+		return rowIndex;
+	}
+
+	/**
+	 * Discards the specified number of rows at the beginning of the table.
+	 * The extrema queues must exist.
+	 * @param removed Number of rows to be discarded.
+	 * @return Values of the discarded rows, stored row by row.
+	 */
+	private double[] discardFirstRows(int removed) {
+		int cols = columns.length;
+		double[] valuesRemoved = new double[cols*removed];
+		for (int row = 0; row < removed; row++) {
+			int index = toIndex(row);
+			for (int colIndex = 0; colIndex < cols; colIndex++) {
+				valuesRemoved[colIndex + row*cols] = columns[colIndex].getDouble(index);
+				minQueues[colIndex].remove(index);
+				maxQueues[colIndex].remove(index);
+			}
+		}
+		head = toIndex(removed);
+		rowCount -= removed;
+		return valuesRemoved;
+	}
+
+	/**
+	 * Stores the current minimum and maximum of each column in the
+	 * specified arrays. The extrema queues must exist.
+	 * @param minima Array for the minimum of each column.
+	 * @param maxima Array for the maximum of each column.
+	 */
+	private void getExtrema(double[] minima, double[] maxima) {
+		for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+			minima[colIndex] = minQueues[colIndex].get();
+			maxima[colIndex] = maxQueues[colIndex].get();
+		}
+	}
+
+	/**
+	 * Creates the queues that keep track of the minimum and the maximum of
+	 * each column from the current rows.
+	 */
+	private void createExtremaQueues() {
+		minQueues = new ExtremaQueue[columns.length];
+		maxQueues = new ExtremaQueue[columns.length];
+		for (int colIndex = 0; colIndex < columns.length; colIndex++) {
+			ColumnStorage column = columns[colIndex];
+			minQueues[colIndex] = new ExtremaQueue(column, capacity, false);
+			maxQueues[colIndex] = new ExtremaQueue(column, capacity, true);
+			for (int row = 0; row < rowCount; row++) {
+				int index = toIndex(row);
+				double value = column.getDouble(index);
+				minQueues[colIndex].add(index, value);
+				maxQueues[colIndex].add(index, value);
+			}
+		}
+	}
+
+	/**
+	 * Discards the queues that keep track of the minimum and the maximum of
+	 * each column after rows have been changed in another way than
+	 * appending them. They will be created again when rows are added.
+	 */
+	private void invalidateExtremaQueues() {
+		minQueues = null;
+		maxQueues = null;
+	}
+
+	/**
+	 * Adds the specified row to the table. If the table is full, the first
+	 * row is removed. The values are added in the order they are specified.
+	 * If the types of the table columns and the values do not match, an
+	 * {@code IllegalArgumentException} is thrown.
+	 * @param row Row to be added
+	 * @return Index of the row that has been added.
+	 */
+	public int add(Row row) {
+		List<Comparable<?>> values;
+		synchronized (row) {
+			values = new ArrayList<Comparable<?>>(row.size());
+			for (Comparable<?> value : row) {
+				values.add(value);
+			}
+		}
+		return add(values);
+	}
+
+	/**
+	 * Makes sure the specified values can be added as a row.
+	 * @param values Values of the row.
+	 */
+	private void checkValues(List<? extends Comparable<?>> values) {
+		if (values.size() != getColumnCount()) {
+			throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong number of columns! Expected {0,number,integer}, got {1,number,integer}.", //$NON-NLS-1$
+					getColumnCount(), values.size()));
+		}
+		for (int colIndex = 0; colIndex < values.size(); colIndex++) {
+			checkType(colIndex, values.get(colIndex));
+		}
+	}
+
+	/**
+	 * Makes sure the specified value can be stored in the specified column.
+	 * @param col Column index.
+	 * @param value Value to be checked.
+	 */
+	private void checkType(int col, Comparable<?> value) {
+		Class<? extends Comparable<?>> type = columns[col].getType();
+		if ((value != null) && !(type.isAssignableFrom(value.getClass()))) {
+			throw new IllegalArgumentException(MessageFormat.format(
+					"Wrong column type! Expected {0}, got {1}.", //$NON-NLS-1$
+					type, value.getClass()));
+		}
+	}
+
+	/**
+	 * Removes a specified row from the table. Removing the first or the last
+	 * row takes constant time, removing any other row requires the rows to be
+	 * rearranged.
+	 * @param row Index of the row to remove
+	 */
+	public void remove(int row) {
+		DataChangeEvent[] events;
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				throw new IndexOutOfBoundsException(MessageFormat.format(
+					"Row index {0,number,integer} is out of range.", row)); //$NON-NLS-1$
+			}
+			int index = toIndex(row);
+			events = new DataChangeEvent[columns.length];
+			for (int col = 0; col < columns.length; col++) {
+				events[col] = new DataChangeEvent(this, col, row, columns[col].get(index), null);
+			}
+			if (row == 0 || row == rowCount - 1) {
+				for (ColumnStorage column : columns) {
+					column.set(index, null);
+				}
+				if (row == 0) {
+					head = toIndex(1);
+				}
+			} else {
+				int[] order = new int[rowCount - 1];
+				for (int rowIndex = 0; rowIndex < order.length; rowIndex++) {
+					order[rowIndex] = toIndex((rowIndex < row) ? rowIndex : rowIndex + 1);
+				}
+				for (ColumnStorage column : columns) {
+					column.permute(order);
+				}
+				head = 0;
+			}
+			rowCount--;
+			invalidateExtremaQueues();
+		}
+		notifyDataRemoved(events);
+	}
+
+	/**
+	 * Removes the last row from the table.
+	 */
+	public void removeLast() {
+		synchronized (this) {
+			remove(rowCount - 1);
+		}
+	}
+
+	/**
+	 * Deletes all rows this table contains.
+	 */
+	public void clear() {
+		DataChangeEvent[] events = null;
+		int rows;
+		synchronized (this) {
+			int cols = columns.length;
+			rows = rowCount;
+			if (isCellEventsRequired()) {
+				events = new DataChangeEvent[cols*rowCount];
+				for (int row = 0; row < rowCount; row++) {
+					int index = toIndex(row);
+					for (int col = 0; col < cols; col++) {
+						events[col + row*cols] = new DataChangeEvent(
+							this, col, row, columns[col].get(index), null);
+					}
+				}
+			}
+			for (ColumnStorage column : columns) {
+				column.clear(capacity);
+			}
+			head = 0;
+			rowCount = 0;
+			invalidateExtremaQueues();
+		}
+		notifyDataChanged(new DataRangeEvent(
+			this, DataRangeEvent.Type.REMOVED, 0, rows), events);
+	}
+
+	/**
+	 * Returns the value with the specified row and column index.
+	 * @param col index of the column to return
+	 * @param row index of the row to return
+	 * @return the specified value of the data cell
+	 */
+	public Comparable<?> get(int col, int row) {
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				return null;
+			}
+			return columns[col].get(toIndex(row));
+		}
+	}
+
+	@Override
+	public double getDouble(int col, int row) {
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				return Double.NaN;
+			}
+			return columns[col].getDouble(toIndex(row));
+		}
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		synchronized (this) {
+			if (fromRow < 0 || fromRow + len > rowCount) {
+				throw new IndexOutOfBoundsException(MessageFormat.format(
+					"Rows {0,number,integer} to {1,number,integer} are out of range.", //$NON-NLS-1$
+					fromRow, fromRow + len - 1));
+			}
+			int index = toIndex(fromRow);
+			int lenFirst = Math.min(len, capacity - index);
+			columns[col].copy(index, dst, off, lenFirst);
+			if (lenFirst < len) {
+				columns[col].copy(0, dst, off + lenFirst, len - lenFirst);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value with the specified row and column index as a
+	 * {@code long} value without creating a boxed object. Floating point
+	 * values are truncated.
+	 * @param col index of the column to return
+	 * @param row index of the row to return
+	 * @return the specified value of the data cell, or {@code 0} if the
+	 *         cell is empty or not numeric
+	 */
+	public long getLong(int col, int row) {
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				return 0L;
+			}
+			return columns[col].getLong(toIndex(row));
+		}
+	}
+
+	/**
+	 * Sets the value of a cell specified by its column and row indexes.
+	 * @param <T> Data type of the cell.
+	 * @param col Column of the cell to change.
+	 * @param row Row of the cell to change.
+	 * @param value New value to be set.
+	 * @return Old value that was replaced.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Comparable<T> set(int col, int row, Comparable<T> value) {
+		if (col < 0 || col >= columns.length) {
+			throw new IndexOutOfBoundsException(MessageFormat.format(
+				"Column index {0,number,integer} is out of range.", col)); //$NON-NLS-1$
+		}
+		checkType(col, value);
+		Comparable<T> old;
+		DataChangeEvent event = null;
+		synchronized (this) {
+			if (row < 0 || row >= rowCount) {
+				throw new IndexOutOfBoundsException(MessageFormat.format(
+					"Row index {0,number,integer} is out of range.", row)); //$NON-NLS-1$
+			}
+			int index = toIndex(row);
+			old = (Comparable<T>) columns[col].get(index);
+			if (old == null || !old.equals(value)) {
+				columns[col].set(index, value);
+				event = new DataChangeEvent(this, col, row, old, value);
+				invalidateExtremaQueues();
+			}
+		}
+		if (event != null) {
+			notifyDataUpdated(event);
+		}
+		return old;
+	}
+
+	/**
+	 * Returns the number of rows of the data source.
+	 * @return number of rows in the data source.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public Column<?> getColumn(int col) {
+		List<Comparable<?>> columnData;
+		synchronized (this) {
+			columnData = new ArrayList<Comparable<?>>(rowCount);
+			for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+				columnData.add(columns[col].get(toIndex(rowIndex)));
+			}
+		}
+		return new Column(columns[col].getType(), columnData);
+	}
+
+	/**
+	 * Sorts the table rows with the specified DataComparators.
+	 * The row values are compared in the way the comparators are specified.
+	 * Listeners are notified about an update of all rows.
+	 * @param comparators comparators used for sorting
+	 */
+	public void sort(final DataComparator... comparators) {
+		synchronized (this) {
+			final Record[] records = new Record[rowCount];
+			List<Integer> order = new ArrayList<Integer>(rowCount);
+			for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+				records[rowIndex] = getRecord(rowIndex);
+				order.add(rowIndex);
+			}
+			Collections.sort(order, new Comparator<Integer>() {
+				public int compare(Integer row1, Integer row2) {
+					for (DataComparator comparator : comparators) {
+						int result = comparator.compare(records[row1], records[row2]);
+						if (result != 0) {
+							return result;
+						}
+					}
+					return 0;
+				}
+			});
+			int[] indexOrder = new int[rowCount];
+			for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+				indexOrder[rowIndex] = toIndex(order.get(rowIndex));
+			}
+			for (ColumnStorage column : columns) {
+				column.permute(indexOrder);
+			}
+			head = 0;
+			invalidateExtremaQueues();
+		}
+		if (rowCount > 0) {
+			notifyDataChanged(new DataRangeEvent(
+				this, DataRangeEvent.Type.UPDATED, 0, rowCount));
+		}
+	}
+
+	@Override
+	public void beginBatch() {
+		super.beginBatch();
+	}
+
+	@Override
+	public void endBatch() {
+		super.endBatch();
+	}
+
+	@Override
+	public void setName(String name) {
+		super.setName(name);
+	}
+
+	@Override
+	protected boolean isStatisticsIncremental() {
+		return true;
+	}
+}
@@ -23,8 +23,8 @@ package de.erichseifert.gral.data;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * <p>Abstract class that represents a view on several rows of a data source.
@@ -40,16 +40,40 @@ import java.util.List;
  *     }
  * };
  * </pre>
+ *
+ * <p>When rows are added to or removed from the original data source, all
+ * rows are tested again by default. If the result of {@code accept(Row)}
+ * doesn't depend on the index of a row, {@link #isIndexDependent()} can be
+ * overridden to return {@code false}. Then, only the rows that have been
+ * added are tested and the indexes of the following rows are shifted
+ * without testing them:</p>
+ * <pre>
+ * DataSource filtered = new RowSubset() {
+ *     public boolean accept(Row row) {
+ *         return ((Number) row.get(0)).doubleValue() &gt; 0.0;
+ *     }
+ *
+ *     protected boolean isIndexDependent() {
+ *         return false;
+ *     }
+ * };
+ * </pre>
  */
 public abstract class RowSubset extends AbstractDataSource
-		implements DataListener {
+		implements DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = -5396152732545986903L;
 
 	/** Original data source. */
 	private final DataSource original;
-	/** List of row indexes that are stored in this filtered data source. */
-	private transient List<Integer> accepted;
+	/** Sorted indexes of the rows that are stored in this filtered data
+	source. */
+	private transient int[] accepted;
+	/** Number of accepted rows. */
+	private transient int acceptedCount;
+	/** Number of rows of the original data source after the last change
+	that has been handled. */
+	private transient int originalRowCount;
 
 	/**
 	 * Creates a new instance with the specified data source.
@@ -57,7 +81,7 @@ public abstract class RowSubset extends AbstractDataSource
 	 */
 	@SuppressWarnings("unchecked")
 	public RowSubset(DataSource original) {
-		accepted = new ArrayList<Integer>();
+		accepted = new int[0];
 		this.original = original;
 		this.original.addDataListener(this);
 		dataUpdated(this.original);
@@ -65,7 +89,7 @@ public abstract class RowSubset extends AbstractDataSource
 
 	@Override
 	public Row getRow(int row) {
-		int rowOrig = accepted.get(row);
+		int rowOrig = getOriginalIndex(row);
 		return original.getRow(rowOrig);
 	}
 
@@ -76,10 +100,37 @@ public abstract class RowSubset extends AbstractDataSource
 	 * @return the specified value of the data cell
 	 */
 	public Comparable<?> get(int col, int row) {
-		int rowOrig = accepted.get(row);
+		int rowOrig = getOriginalIndex(row);
 		return original.get(col, rowOrig);
 	}
 
+	@Override
+	public double getDouble(int col, int row) {
+		int rowOrig = getOriginalIndex(row);
+		return getDouble(original, col, rowOrig);
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		for (int i = 0; i < len; i++) {
+			int rowOrig = getOriginalIndex(fromRow + i);
+			dst[off + i] = getDouble(original, col, rowOrig);
+		}
+	}
+
+	/**
+	 * Returns the index of the specified row in the original data source.
+	 * @param row Index of the row in this data source.
+	 * @return Index of the row in the original data source.
+	 */
+	private int getOriginalIndex(int row) {
+		if (row < 0 || row >= acceptedCount) {
+			throw new IndexOutOfBoundsException(
+				"Index: " + row + ", Size: " + acceptedCount); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return accepted[row];
+	}
+
 	@Override
 	public int getColumnCount() {
 		return original.getColumnCount();
@@ -90,7 +141,7 @@ public abstract class RowSubset extends AbstractDataSource
 	 * @return number of rows in the data source.
 	 */
 	public int getRowCount() {
-		return accepted.size();
+		return acceptedCount;
 	}
 
 	@Override
@@ -107,8 +158,7 @@ public abstract class RowSubset extends AbstractDataSource
 	 *        have been added.
 	 */
 	public void dataAdded(DataSource source, DataChangeEvent... events) {
-		dataChanged(source, events);
-		notifyDataAdded(events);
+		dataChanged(source, DataRangeEvent.Type.ADDED, events);
 	}
 
 	/**
@@ -120,8 +170,7 @@ public abstract class RowSubset extends AbstractDataSource
 	 *        have been added
 	 */
 	public void dataUpdated(DataSource source, DataChangeEvent... events) {
-		dataChanged(source, events);
-		notifyDataUpdated(events);
+		dataChanged(source, DataRangeEvent.Type.UPDATED, events);
 	}
 
 	/**
@@ -133,33 +182,315 @@ public abstract class RowSubset extends AbstractDataSource
 	 *        have been removed.
 	 */
 	public void dataRemoved(DataSource source, DataChangeEvent... events) {
-		dataChanged(source, events);
-		notifyDataRemoved(events);
+		dataChanged(source, DataRangeEvent.Type.REMOVED, events);
 	}
 
 	/**
 	 * Method that is invoked when data has been added, updated, or removed.
-	 * This method is invoked by objects that provide support for
-	 * {@code DataListener}s and should not be called manually.
+	 * If no events are specified, all rows are tested again.
 	 * @param source Data source that has been changed.
+	 * @param type Kind of change.
 	 * @param events Optional event object describing the data values that
 	 *        have been changed.
 	 */
-	private void dataChanged(DataSource source, DataChangeEvent... events) {
-		update();
+	private void dataChanged(DataSource source, DataRangeEvent.Type type,
+			DataChangeEvent... events) {
+		if (events == null || events.length == 0) {
+			originalRowCount = original.getRowCount();
+			updateAll(new DataRangeEvent(original, DataRangeEvent.Type.UPDATED,
+				0, originalRowCount));
+		} else {
+			dataChanged(source, DataRangeEvent.of(original, type, events));
+		}
 	}
 
 	/**
-	 * Updates the list of accepted rows.
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * Only the rows in the range are tested, the indexes of the following
+	 * rows are shifted. If the test depends on the row index, all rows are
+	 * tested again unless rows have only been added or removed at the end.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
 	 */
-	private void update() {
-		accepted.clear();
-		for (int rowIndex = 0; rowIndex < original.getRowCount(); rowIndex++) {
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		int rowCountBefore = originalRowCount;
+		if (event.getType() == DataRangeEvent.Type.ADDED) {
+			originalRowCount += event.getRowCount();
+		} else if (event.getType() == DataRangeEvent.Type.REMOVED) {
+			originalRowCount -= event.getRowCount();
+		} else if (event.getType() == DataRangeEvent.Type.SHIFTED) {
+			originalRowCount += event.getRowCount() - event.getRemovedRowCount();
+		}
+
+		if (event.getType() == DataRangeEvent.Type.UPDATED) {
+			rowsUpdated(event);
+		} else if (isIndexDependent() && !isAtEnd(event, rowCountBefore)) {
+			updateAll(event);
+		} else if (event.getType() == DataRangeEvent.Type.ADDED) {
+			rowsAdded(event);
+		} else if (event.getType() == DataRangeEvent.Type.SHIFTED) {
+			rowsShifted(event);
+		} else {
+			rowsRemoved(event);
+		}
+	}
+
+	/**
+	 * Returns whether the specified rows have been added to or removed from
+	 * the end of the original data source. In this case, the indexes of all
+	 * other rows stay the same. Shifts never affect only the last rows.
+	 * @param event Event object describing the added or removed rows.
+	 * @param rowCountBefore Number of rows of the original data source
+	 *        before the change.
+	 * @return {@code true} if the change only affects the last rows.
+	 */
+	private static boolean isAtEnd(DataRangeEvent event, int rowCountBefore) {
+		if (event.getType() == DataRangeEvent.Type.ADDED) {
+			return event.getFirstRow() == rowCountBefore;
+		} else if (event.getType() == DataRangeEvent.Type.SHIFTED) {
+			return false;
+		}
+		return event.getEndRow() == rowCountBefore;
+	}
+
+	/**
+	 * Tests the rows that have been added to the original data source and
+	 * inserts the accepted ones.
+	 * @param event Event object describing the added rows.
+	 */
+	private void rowsAdded(DataRangeEvent event) {
+		int pos = lowerBound(accepted, acceptedCount, event.getFirstRow());
+		shift(pos, event.getRowCount());
+		int[] rows = acceptRows(event.getFirstRow(), event.getEndRow());
+		replace(pos, pos, rows);
+		if (rows.length > 0) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.ADDED,
+				pos, rows.length));
+		}
+	}
+
+	/**
+	 * Removes the rows that have been removed from the original data
+	 * source.
+	 * @param event Event object describing the removed rows.
+	 */
+	private void rowsRemoved(DataRangeEvent event) {
+		int from = lowerBound(accepted, acceptedCount, event.getFirstRow());
+		int to = lowerBound(accepted, acceptedCount, event.getEndRow());
+		replace(from, to, new int[0]);
+		shift(from, -event.getRowCount());
+		if (to > from) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.REMOVED,
+				from, to - from));
+		}
+	}
+
+	/**
+	 * Removes the rows that have been removed from the beginning of the
+	 * original data source, tests the rows that have been appended, and
+	 * notifies listeners of both changes at once.
+	 * @param event Event object describing the shifted rows.
+	 */
+	private void rowsShifted(DataRangeEvent event) {
+		int removed = lowerBound(accepted, acceptedCount, event.getRemovedRowCount());
+		replace(0, removed, new int[0]);
+		shift(0, -event.getRemovedRowCount());
+		int pos = lowerBound(accepted, acceptedCount, event.getFirstRow());
+		shift(pos, event.getRowCount());
+		int[] rows = acceptRows(event.getFirstRow(), event.getEndRow());
+		replace(pos, pos, rows);
+		if (removed > 0 || rows.length > 0) {
+			notifyDataChanged(DataRangeEvent.shifted(this, removed, pos, rows.length));
+		}
+	}
+
+	/**
+	 * Tests the rows that have been updated in the original data source
+	 * again.
+	 * @param event Event object describing the updated rows.
+	 */
+	private void rowsUpdated(DataRangeEvent event) {
+		int from = lowerBound(accepted, acceptedCount, event.getFirstRow());
+		int to = lowerBound(accepted, acceptedCount, event.getEndRow());
+		int[] rows = acceptRows(event.getFirstRow(), event.getEndRow());
+		boolean unchanged = rows.length == to - from && Arrays.equals(rows,
+			Arrays.copyOfRange(accepted, from, to));
+		replace(from, to, rows);
+
+		if (rows.length == to - from) {
+			if (rows.length > 0) {
+				BitSet columns = unchanged ? event.getColumns()
+					: DataRangeEvent.allColumns(getColumnCount());
+				notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.UPDATED,
+					from, rows.length, columns));
+			}
+			return;
+		}
+		if (to > from) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.REMOVED,
+				from, to - from));
+		}
+		if (rows.length > 0) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.ADDED,
+				from, rows.length));
+		}
+	}
+
+	/**
+	 * Tests all rows of the original data source again. The accepted rows
+	 * before and after the change are compared to determine the range of
+	 * rows of this data source that has changed.
+	 * @param event Event object describing the changed range.
+	 */
+	private void updateAll(DataRangeEvent event) {
+		int[] acceptedOld = accepted;
+		int sizeOld = acceptedCount;
+		accepted = acceptRows(0, original.getRowCount());
+		acceptedCount = accepted.length;
+
+		// Skip all rows at the beginning and at the end that are unchanged
+		int sizeNew = acceptedCount;
+		int start = 0;
+		while (start < sizeOld && start < sizeNew
+				&& acceptedOld[start] == getRowBefore(event, accepted[start])) {
+			start++;
+		}
+		int endOld = sizeOld;
+		int endNew = sizeNew;
+		while (endOld > start && endNew > start
+				&& acceptedOld[endOld - 1] == getRowBefore(event, accepted[endNew - 1])) {
+			endOld--;
+			endNew--;
+		}
+
+		BitSet columns = DataRangeEvent.allColumns(getColumnCount());
+		if (event.getType() == DataRangeEvent.Type.UPDATED) {
+			// Accepted rows in the range contain changed values
+			int first = lowerBound(accepted, acceptedCount, event.getFirstRow());
+			int end = lowerBound(accepted, acceptedCount, event.getEndRow());
+			if (endOld == start && endNew == start) {
+				columns = event.getColumns();
+				start = first;
+				endOld = end;
+				endNew = end;
+			} else if (first < end) {
+				endOld += Math.max(endNew, end) - endNew;
+				endNew = Math.max(endNew, end);
+				start = Math.min(start, first);
+			}
+		}
+
+		if (endOld - start == endNew - start) {
+			if (endNew > start) {
+				notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.UPDATED,
+					start, endNew - start, columns));
+			}
+			return;
+		}
+		if (endOld > start) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.REMOVED,
+				start, endOld - start));
+		}
+		if (endNew > start) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.ADDED,
+				start, endNew - start));
+		}
+	}
+
+	/**
+	 * Returns the index that the specified row of the original data source
+	 * had before the specified change, or {@code -1} if the row has been
+	 * added.
+	 * @param event Event object describing the changed range.
+	 * @param row Index of the row after the change.
+	 * @return Index of the row before the change, or {@code -1}.
+	 */
+	private static int getRowBefore(DataRangeEvent event, int row) {
+		if (event.getType() == DataRangeEvent.Type.SHIFTED) {
+			return (row < event.getFirstRow()) ? row + event.getRemovedRowCount() : -1;
+		}
+		if (row < event.getFirstRow()) {
+			return row;
+		}
+		if (event.getType() == DataRangeEvent.Type.ADDED) {
+			return (row < event.getEndRow()) ? -1 : row - event.getRowCount();
+		} else if (event.getType() == DataRangeEvent.Type.REMOVED) {
+			return row + event.getRowCount();
+		}
+		return row;
+	}
+
+	/**
+	 * Returns the indexes of all rows of the original data source in the
+	 * specified range that are accepted.
+	 * @param from Index of the first row to be tested.
+	 * @param to Index after the last row to be tested.
+	 * @return Sorted indexes of the accepted rows.
+	 */
+	private int[] acceptRows(int from, int to) {
+		to = Math.min(to, original.getRowCount());
+		int[] rows = new int[Math.max(0, to - from)];
+		int count = 0;
+		for (int rowIndex = from; rowIndex < to; rowIndex++) {
 			Row row = original.getRow(rowIndex);
 			if (accept(row)) {
-				accepted.add(rowIndex);
+				rows[count++] = rowIndex;
+			}
+		}
+		return Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Replaces the accepted rows in the specified range of positions with
+	 * the specified row indexes.
+	 * @param from Position of the first row to be replaced.
+	 * @param to Position after the last row to be replaced.
+	 * @param rows Row indexes to be inserted.
+	 */
+	private void replace(int from, int to, int[] rows) {
+		int size = acceptedCount - (to - from) + rows.length;
+		if (size > accepted.length) {
+			accepted = Arrays.copyOf(accepted, Math.max(size, 2*accepted.length));
+		}
+		System.arraycopy(accepted, to, accepted, from + rows.length, acceptedCount - to);
+		System.arraycopy(rows, 0, accepted, from, rows.length);
+		acceptedCount = size;
+	}
+
+	/**
+	 * Adds the specified offset to the indexes of all accepted rows starting
+	 * at the specified position.
+	 * @param from Position of the first row index to be changed.
+	 * @param offset Offset that will be added to the row indexes.
+	 */
+	private void shift(int from, int offset) {
+		for (int i = from; i < acceptedCount; i++) {
+			accepted[i] += offset;
+		}
+	}
+
+	/**
+	 * Returns the position of the first row index in the specified sorted
+	 * array that is equal to or greater than the specified index.
+	 * @param rows Sorted row indexes.
+	 * @param size Number of valid row indexes in the array.
+	 * @param row Row index.
+	 * @return Position in the array.
+	 */
+	private static int lowerBound(int[] rows, int size, int row) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (rows[mid] < row) {
+				low = mid + 1;
+			} else {
+				high = mid;
 			}
 		}
+		return low;
 	}
 
 	/**
@@ -169,6 +500,20 @@ public abstract class RowSubset extends AbstractDataSource
 	 */
 	public abstract boolean accept(Row row);
 
+	/**
+	 * Returns whether the result of {@link #accept(Row)} depends on the index
+	 * of the row. In this case, all rows are tested again when rows are
+	 * inserted into or removed from the middle of the original data source.
+	 * Rows that are appended are tested on their own. The default
+	 * implementation returns {@code true}, derived classes whose test only
+	 * depends on the values of a row should return {@code false} to test
+	 * only the changed rows.
+	 * @return {@code true} if the index of a row is relevant for the test.
+	 */
+	protected boolean isIndexDependent() {
+		return true;
+	}
+
 	/**
 	 * Custom deserialization method.
 	 * @param in Input stream.
@@ -182,7 +527,7 @@ public abstract class RowSubset extends AbstractDataSource
 		in.defaultReadObject();
 
 		// Handle transient fields
-		accepted = new ArrayList<Integer>();
+		accepted = new int[0];
 
 		// Update caches
 		dataUpdated(original);
@@ -0,0 +1,127 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import java.util.BitSet;
+
+/**
+ * <p>Class that keeps track of the columns of a data source whose numeric
+ * values are sorted in ascending order. Sorted columns allow to find
+ * values with binary search, e.g. to find the rows that are visible in a
+ * plot.</p>
+ * <p>The index is updated with the range events of the data source. As long
+ * as a column is sorted, only the rows next to a changed range have to be
+ * checked. Columns that aren't sorted are checked again completely the
+ * next time they are queried.</p>
+ */
+class SortedColumnIndex {
+	/** Data source whose columns are indexed. */
+	private final NumericDataSource source;
+	/** Columns whose sort order is known. */
+	private final BitSet known;
+	/** Columns that are known to be sorted. */
+	private final BitSet sorted;
+
+	/**
+	 * Initializes a new index for the specified data source.
+	 * @param source Data source whose columns are indexed.
+	 */
+	public SortedColumnIndex(NumericDataSource source) {
+		this.source = source;
+		known = new BitSet();
+		sorted = new BitSet();
+	}
+
+	/**
+	 * Returns whether the numeric values of the specified column are sorted
+	 * in ascending order.
+	 * @param col Column index.
+	 * @return {@code true} if the column is sorted, {@code false} otherwise.
+	 */
+	public synchronized boolean isSorted(int col) {
+		if (!known.get(col)) {
+			sorted.set(col, isSorted(col, 0, source.getRowCount()));
+			known.set(col);
+		}
+		return sorted.get(col);
+	}
+
+	/**
+	 * Updates the index after the specified change of the data source.
+	 * @param event Event object describing the changed range.
+	 */
+	public synchronized void update(DataRangeEvent event) {
+		BitSet columns = event.getColumns();
+		for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+			if (!known.get(col)) {
+				continue;
+			}
+			if (!sorted.get(col)) {
+				// The column might have become sorted
+				known.clear(col);
+				continue;
+			}
+			// Removing values from a sorted column keeps it sorted, so only
+			// the rows next to the changed range have to be checked
+			int from = event.getFirstRow() - 1;
+			int to = event.getFirstRow() + 1;
+			if (event.getType() != DataRangeEvent.Type.REMOVED) {
+				to = event.getEndRow() + 1;
+			}
+			sorted.set(col, isSorted(col, from, to));
+		}
+	}
+
+	/**
+	 * Checks whether the values of the specified column and rows are in
+	 * ascending order. {@code NaN} values are considered unsorted.
+	 * @param col Column index.
+	 * @param fromRow First row to be checked.
+	 * @param toRow Row after the last row to be checked.
+	 * @return {@code true} if the values are sorted.
+	 */
+	private boolean isSorted(int col, int fromRow, int toRow) {
+		int rowCount = source.getRowCount();
+		if (col >= source.getColumnCount()) {
+			return false;
+		}
+		fromRow = Math.max(fromRow, 0);
+		toRow = Math.min(toRow, rowCount);
+		if (fromRow >= toRow) {
+			return true;
+		}
+		double[] values = new double[Math.min(toRow - fromRow, 1024)];
+		double prev = Double.NEGATIVE_INFINITY;
+		for (int start = fromRow; start < toRow; start += values.length) {
+			int len = Math.min(values.length, toRow - start);
+			source.copyColumn(col, start, values, 0, len);
+			for (int i = 0; i < len; i++) {
+				// Comparisons with NaN are false
+				if (!(values[i] >= prev)) {
+					return false;
+				}
+				prev = values[i];
+			}
+		}
+		return true;
+	}
+}
@@ -23,13 +23,20 @@ package de.erichseifert.gral.data.filters;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.Arrays;
 
 import de.erichseifert.gral.data.DataSource;
-import de.erichseifert.gral.util.DataUtils;
+import de.erichseifert.gral.util.FastFourierTransform;
 import de.erichseifert.gral.util.MathUtils;
 
 /**
  * <p>Class that applies a specified kernel to a data source to convolve it.</p>
+ * <p>Large kernels are applied with fast Fourier transforms using the
+ * overlap-add method, which takes {@code O(n log k)} time instead of
+ * {@code O(n k)} time for {@code n} rows and a kernel of size {@code k}.
+ * Rows whose window contains values that can't be used for calculations
+ * are still convolved directly, so both methods produce the same
+ * results.</p>
  * <p>Functionality includes:</p>
  * <ul>
  *   <li>Getting and setting the {@code Kernel} used for convolution</li>
@@ -39,8 +46,19 @@ public class Convolution extends Filter2D {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = 7155205321415314271L;
 
+	/** Minimal kernel size for which fast Fourier transforms are used. */
+	static final int FFT_KERNEL_SIZE = 64;
+
 	/** Kernel that provides the values to convolve the data source. */
 	private final Kernel kernel;
+	/** Transform that is used for large kernels. */
+	private transient FastFourierTransform transform;
+	/** Values of the kernel at the time it was transformed. */
+	private transient double[] transformedKernel;
+	/** Real parts of the transformed kernel. */
+	private transient double[] kernelReal;
+	/** Imaginary parts of the transformed kernel. */
+	private transient double[] kernelImag;
 
 	/**
 	 * Initialized a new instance with the specified data source, convolution
@@ -67,14 +85,181 @@ public class Convolution extends Filter2D {
 	@Override
 	protected void filter() {
 		clear();
+		double[] filteredRow = new double[getColumnCountFiltered()];
 		for (int rowIndex = 0; rowIndex < getRowCount(); rowIndex++) {
-			Double[] filteredRow = new Double[getColumnCountFiltered()];
-			for (int colIndex = 0; colIndex < filteredRow.length; colIndex++) {
-				int colIndexOriginal = getIndexOriginal(colIndex);
-				filteredRow[colIndex] = convolve(colIndexOriginal, rowIndex);
-			}
 			add(filteredRow);
 		}
+		filter(0, getRowCount());
+	}
+
+	@Override
+	protected void filter(int fromRow, int toRow) {
+		Kernel kernel = getKernel();
+		// Transforms only pay off for large kernels and enough rows
+		if (kernel != null && kernel.size() >= FFT_KERNEL_SIZE
+				&& toRow - fromRow >= kernel.size()) {
+			filterTransformed(fromRow, toRow);
+		} else {
+			filterDirect(fromRow, toRow);
+		}
+	}
+
+	/**
+	 * Convolves the specified rows by summing up the weighted values of
+	 * each window.
+	 * @param fromRow Index of the first row to be filtered.
+	 * @param toRow Index of the row after the last row to be filtered.
+	 */
+	void filterDirect(int fromRow, int toRow) {
+		for (int colIndex = 0; colIndex < getColumnCountFiltered(); colIndex++) {
+			int colIndexOriginal = getIndexOriginal(colIndex);
+			for (int rowIndex = fromRow; rowIndex < toRow; rowIndex++) {
+				setFiltered(colIndex, rowIndex, convolve(colIndexOriginal, rowIndex));
+			}
+		}
+	}
+
+	/**
+	 * Convolves the specified rows with fast Fourier transforms using the
+	 * overlap-add method. The values of all windows are read once and split
+	 * into blocks; two blocks are transformed at once as real and imaginary
+	 * parts of the same complex signal.
+	 * @param fromRow Index of the first row to be filtered.
+	 * @param toRow Index of the row after the last row to be filtered.
+	 */
+	void filterTransformed(int fromRow, int toRow) {
+		Kernel kernel = getKernel();
+		int kernelSize = kernel.size();
+		FastFourierTransform transform = getTransform();
+		int size = transform.size();
+		int blockSize = size - kernelSize + 1;
+
+		int inputSize = toRow - fromRow + kernelSize - 1;
+		double[] input = new double[inputSize];
+		int[] invalidCounts = new int[inputSize + 1];
+		double[] output = new double[inputSize + kernelSize - 1];
+		double[] real = new double[size];
+		double[] imag = new double[size];
+
+		for (int colIndex = 0; colIndex < getColumnCountFiltered(); colIndex++) {
+			int colIndexOriginal = getIndexOriginal(colIndex);
+			// Read the values of all windows and count invalid values
+			for (int i = 0; i < inputSize; i++) {
+				double v = getOriginalDouble(colIndexOriginal,
+					fromRow + kernel.getMinIndex() + i);
+				boolean valid = MathUtils.isCalculatable(v);
+				input[i] = valid ? v : 0.0;
+				invalidCounts[i + 1] = invalidCounts[i] + (valid ? 0 : 1);
+			}
+
+			Arrays.fill(output, 0.0);
+			for (int start = 0; start < inputSize; start += 2*blockSize) {
+				int secondStart = start + blockSize;
+				fillBlock(input, start, blockSize, real);
+				fillBlock(input, secondStart, blockSize, imag);
+				transform.transform(real, imag);
+				for (int i = 0; i < size; i++) {
+					double re = real[i]*kernelReal[i] - imag[i]*kernelImag[i];
+					double im = real[i]*kernelImag[i] + imag[i]*kernelReal[i];
+					real[i] = re;
+					imag[i] = im;
+				}
+				transform.inverse(real, imag);
+				addBlock(real, output, start);
+				addBlock(imag, output, secondStart);
+			}
+
+			for (int rowIndex = fromRow; rowIndex < toRow; rowIndex++) {
+				int i = rowIndex - fromRow;
+				double value;
+				if (invalidCounts[i + kernelSize] > invalidCounts[i]) {
+					value = convolve(colIndexOriginal, rowIndex);
+				} else {
+					value = output[i + kernelSize - 1];
+				}
+				setFiltered(colIndex, rowIndex, value);
+			}
+		}
+	}
+
+	/**
+	 * Copies a block of values and pads it with zeros.
+	 * @param values Source values.
+	 * @param start Index of the first value of the block.
+	 * @param length Number of values in the block.
+	 * @param block Destination array.
+	 */
+	private static void fillBlock(double[] values, int start, int length, double[] block) {
+		int count = Math.max(0, Math.min(length, values.length - start));
+		if (count > 0) {
+			System.arraycopy(values, start, block, 0, count);
+		}
+		Arrays.fill(block, count, block.length, 0.0);
+	}
+
+	/**
+	 * Adds the values of a convolved block to the output.
+	 * @param block Values of the block.
+	 * @param output Output values.
+	 * @param start Index of the first output value of the block.
+	 */
+	private static void addBlock(double[] block, double[] output, int start) {
+		int count = Math.min(block.length, output.length - start);
+		for (int i = 0; i < count; i++) {
+			output[start + i] += block[i];
+		}
+	}
+
+	/**
+	 * Returns the transform for the current kernel and makes sure the
+	 * transformed kernel is up to date. Kernels can be changed after they
+	 * have been passed to the filter, so their values are compared with
+	 * the values that have been transformed.
+	 * @return Fourier transform.
+	 */
+	private FastFourierTransform getTransform() {
+		Kernel kernel = getKernel();
+		int kernelSize = kernel.size();
+		// The kernel is reversed, because windows are weighted front to back
+		boolean changed = transformedKernel == null
+			|| transformedKernel.length != kernelSize;
+		for (int i = 0; i < kernelSize && !changed; i++) {
+			changed = transformedKernel[i] != kernel.get(kernel.getMaxIndex() - i);
+		}
+		if (!changed) {
+			return transform;
+		}
+
+		transformedKernel = new double[kernelSize];
+		for (int i = 0; i < kernelSize; i++) {
+			transformedKernel[i] = kernel.get(kernel.getMaxIndex() - i);
+		}
+		int size = FastFourierTransform.getSize(4*kernelSize);
+		if (transform == null || transform.size() != size) {
+			transform = new FastFourierTransform(size);
+		}
+		kernelReal = new double[size];
+		kernelImag = new double[size];
+		System.arraycopy(transformedKernel, 0, kernelReal, 0, kernelSize);
+		transform.transform(kernelReal, kernelImag);
+		return transform;
+	}
+
+	@Override
+	protected boolean isIncremental() {
+		return true;
+	}
+
+	@Override
+	protected int getWindowStart() {
+		Kernel kernel = getKernel();
+		return (kernel != null) ? kernel.getMinIndex() : 0;
+	}
+
+	@Override
+	protected int getWindowEnd() {
+		Kernel kernel = getKernel();
+		return (kernel != null) ? kernel.getMaxIndex() : 0;
 	}
 
 	/**
@@ -87,14 +272,12 @@ public class Convolution extends Filter2D {
 	private double convolve(int col, int row) {
 		Kernel kernel = getKernel();
 		if (kernel == null) {
-			Comparable<?> original = getOriginal(col, row);
-			return DataUtils.getValueOrDefault((Number) original, Double.NaN);
+			return getOriginalDouble(col, row);
 		}
 		double sum = 0.0;
 		for (int k = kernel.getMinIndex(); k <= kernel.getMaxIndex(); k++) {
 			int r = row + k;
-			Comparable<?> original = getOriginal(col, r);
-			double v = DataUtils.getValueOrDefault((Number) original, Double.NaN);
+			double v = getOriginalDouble(col, r);
 			if (!MathUtils.isCalculatable(v)) {
 				return v;
 			}
@@ -24,12 +24,14 @@ package de.erichseifert.gral.data.filters;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 
 import de.erichseifert.gral.data.AbstractDataSource;
 import de.erichseifert.gral.data.DataChangeEvent;
-import de.erichseifert.gral.data.DataListener;
+import de.erichseifert.gral.data.DataRangeEvent;
+import de.erichseifert.gral.data.DataRangeListener;
 import de.erichseifert.gral.data.DataSource;
 import de.erichseifert.gral.util.MathUtils;
 
@@ -49,9 +51,16 @@ import de.erichseifert.gral.util.MathUtils;
  * delegated to the original data source. Derived classes must make sure the
  * caches are updated when deserialization is done. This can be done by calling
  * {@code dataUpdated(this)} in a custom deserialization method.</p>
+ *
+ * <p>Derived classes whose filtered values only depend on a window of
+ * neighboring rows can support incremental filtering by overriding
+ * {@link #isIncremental()}, {@link #getWindowStart()},
+ * {@link #getWindowEnd()} and {@link #filter(int, int)}. In this case, only
+ * the rows whose window touches a change of the original data source are
+ * filtered again.</p>
  */
 public abstract class Filter2D extends AbstractDataSource
-		implements DataListener {
+		implements DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = -5004453681128601437L;
 
@@ -75,8 +84,12 @@ public abstract class Filter2D extends AbstractDataSource
 
 	/** Columns that should be filtered. */
 	private final int[] cols;
-	/** Data that was produced by the filter. */
-	private transient ArrayList<Double[]> rows;
+	/** Data that was produced by the filter, stored row by row. */
+	private transient double[] data;
+	/** Number of values in each row of the filtered data. */
+	private transient int dataWidth;
+	/** Number of rows of the filtered data. */
+	private transient int dataRows;
 	/** Mode for handling. */
 	private Mode mode;
 
@@ -90,7 +103,7 @@ public abstract class Filter2D extends AbstractDataSource
 	 */
 	@SuppressWarnings("unchecked")
 	public Filter2D(DataSource original, Mode mode, int... cols) {
-		this.rows = new ArrayList<Double[]>(original.getRowCount());
+		this.data = new double[0];
 		this.original = original;
 		this.mode = mode;
 
@@ -141,32 +154,68 @@ public abstract class Filter2D extends AbstractDataSource
 				return Double.NaN;
 			} else if (getMode() == Mode.ZERO) {
 				return 0.0;
-			} else if (getMode() == Mode.REPEAT) {
-				row = MathUtils.limit(row, 0, rowLast);
-			} else if (getMode() == Mode.MIRROR) {
-				int rem = Math.abs(row) / rowLast;
-				int mod = Math.abs(row) % rowLast;
-				if ((rem & 1) == 0) {
-					row = mod;
-				} else {
-					row = rowLast - mod;
-				}
-			} else if (getMode() == Mode.CIRCULAR) {
-				if (row >= 0) {
-					row = row % (rowLast + 1);
-				} else {
-					row = (row + 1) % (rowLast + 1) + rowLast;
-				}
 			}
+			row = getBorderRow(row, rowLast);
 		}
 		return original.get(col, row);
 	}
 
+	/**
+	 * Returns the value of the original data source at the specified column
+	 * and row as a {@code double} value. Rows outside the original data
+	 * source are handled like in {@link #getOriginal(int, int)}.
+	 * @param col Column index.
+	 * @param row Row index.
+	 * @return Original value, or {@code NaN} if the value is empty or not a
+	 *         number.
+	 */
+	protected double getOriginalDouble(int col, int row) {
+		int rowLast = original.getRowCount() - 1;
+		if (row < 0 || row > rowLast) {
+			if (getMode() == Mode.OMIT) {
+				return Double.NaN;
+			} else if (getMode() == Mode.ZERO) {
+				return 0.0;
+			}
+			row = getBorderRow(row, rowLast);
+		}
+		return getDouble(original, col, row);
+	}
+
+	/**
+	 * Maps a row index outside the original data source to a row inside
+	 * the data source according to the current mode.
+	 * @param row Row index outside the data source.
+	 * @param rowLast Index of the last row of the original data source.
+	 * @return Row index inside the original data source.
+	 */
+	private int getBorderRow(int row, int rowLast) {
+		if (getMode() == Mode.REPEAT) {
+			row = MathUtils.limit(row, 0, rowLast);
+		} else if (getMode() == Mode.MIRROR) {
+			int rem = Math.abs(row) / rowLast;
+			int mod = Math.abs(row) % rowLast;
+			if ((rem & 1) == 0) {
+				row = mod;
+			} else {
+				row = rowLast - mod;
+			}
+		} else if (getMode() == Mode.CIRCULAR) {
+			if (row >= 0) {
+				row = row % (rowLast + 1);
+			} else {
+				row = (row + 1) % (rowLast + 1) + rowLast;
+			}
+		}
+		return row;
+	}
+
 	/**
 	 * Clears this Filter2D.
 	 */
 	protected void clear() {
-		rows.clear();
+		dataRows = 0;
+		dataWidth = getColumnCountFiltered();
 	}
 
 	/**
@@ -174,7 +223,10 @@ public abstract class Filter2D extends AbstractDataSource
 	 * @param rowData Row data to be added.
 	 */
 	protected void add(Double[] rowData) {
-		rows.add(rowData);
+		int row = addRow(rowData.length);
+		for (int colPos = 0; colPos < rowData.length; colPos++) {
+			data[row*dataWidth + colPos] = toDouble(rowData[colPos]);
+		}
 	}
 
 	/**
@@ -182,12 +234,86 @@ public abstract class Filter2D extends AbstractDataSource
 	 * @param rowData Row to be added.
 	 */
 	protected void add(Number[] rowData) {
-		Double[] doubleData = new Double[rowData.length];
-		int i = 0;
-		for (Number value : rowData) {
-			doubleData[i++] = value.doubleValue();
+		int row = addRow(rowData.length);
+		for (int colPos = 0; colPos < rowData.length; colPos++) {
+			data[row*dataWidth + colPos] = rowData[colPos].doubleValue();
+		}
+	}
+
+	/**
+	 * Adds the specified row data to this Filter2D.
+	 * @param rowData Row to be added.
+	 */
+	protected void add(double[] rowData) {
+		int row = addRow(rowData.length);
+		System.arraycopy(rowData, 0, data, row*dataWidth, rowData.length);
+	}
+
+	/**
+	 * Appends an empty row with the specified number of values to the
+	 * filtered data.
+	 * @param width Number of values in the row.
+	 * @return Index of the new row.
+	 */
+	private int addRow(int width) {
+		if (dataRows == 0) {
+			dataWidth = width;
+		} else if (width != dataWidth) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Wrong number of values! Expected {0,number,integer}, got {1,number,integer}.", //$NON-NLS-1$
+				dataWidth, width));
 		}
-		rows.add(doubleData);
+		ensureCapacity((dataRows + 1)*dataWidth);
+		return dataRows++;
+	}
+
+	/**
+	 * Makes sure the filtered data can store the specified number of values.
+	 * @param size Number of values.
+	 */
+	private void ensureCapacity(int size) {
+		if (size > data.length) {
+			data = Arrays.copyOf(data, Math.max(size, 2*data.length));
+		}
+	}
+
+	/**
+	 * Inserts empty rows into the filtered data.
+	 * @param row Index of the first row to be inserted.
+	 * @param count Number of rows to be inserted.
+	 */
+	private void insertRows(int row, int count) {
+		ensureCapacity((dataRows + count)*dataWidth);
+		System.arraycopy(data, row*dataWidth, data, (row + count)*dataWidth,
+			(dataRows - row)*dataWidth);
+		Arrays.fill(data, row*dataWidth, (row + count)*dataWidth, Double.NaN);
+		dataRows += count;
+	}
+
+	/**
+	 * Removes rows from the filtered data.
+	 * @param row Index of the first row to be removed.
+	 * @param count Number of rows to be removed.
+	 */
+	private void removeRows(int row, int count) {
+		System.arraycopy(data, (row + count)*dataWidth, data, row*dataWidth,
+			(dataRows - row - count)*dataWidth);
+		dataRows -= count;
+	}
+
+	/**
+	 * Returns the index of the value with the specified filtered column and
+	 * row in the filtered data.
+	 * @param colPos Index of the filtered column.
+	 * @param row Row index.
+	 * @return Position in the filtered data.
+	 */
+	private int getDataIndex(int colPos, int row) {
+		if (row < 0 || row >= dataRows) {
+			throw new IndexOutOfBoundsException(
+				"Index: " + row + ", Size: " + dataRows); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return row*dataWidth + colPos;
 	}
 
 	/**
@@ -201,7 +327,39 @@ public abstract class Filter2D extends AbstractDataSource
 		if (colPos < 0) {
 			return original.get(col, row);
 		}
-		return rows.get(row)[colPos];
+		return data[getDataIndex(colPos, row)];
+	}
+
+	@Override
+	public double getDouble(int col, int row) {
+		int colPos = getIndex(col);
+		if (colPos < 0) {
+			return getDouble(original, col, row);
+		}
+		return data[getDataIndex(colPos, row)];
+	}
+
+	@Override
+	public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+		int colPos = getIndex(col);
+		if (colPos < 0) {
+			copyColumn(original, col, fromRow, dst, off, len);
+			return;
+		}
+		for (int i = 0; i < len; i++) {
+			dst[off + i] = data[getDataIndex(colPos, fromRow + i)];
+		}
+	}
+
+	/**
+	 * Sets the filtered value of the specified cell without notifying
+	 * listeners. This is meant to be used by {@link #filter(int, int)}.
+	 * @param colPos Index of the filtered column.
+	 * @param row Row index.
+	 * @param value Filtered value.
+	 */
+	protected void setFiltered(int colPos, int row, double value) {
+		data[getDataIndex(colPos, row)] = value;
 	}
 
 	/**
@@ -217,8 +375,9 @@ public abstract class Filter2D extends AbstractDataSource
 			throw new IllegalArgumentException(
 				"Can't set value in unfiltered column."); //$NON-NLS-1$
 		}
-		Double old = rows.get(row)[colPos];
-		rows.get(row)[colPos] = value;
+		int index = getDataIndex(colPos, row);
+		Double old = data[index];
+		data[index] = toDouble(value);
 		notifyDataUpdated(new DataChangeEvent(this, col, row, old, value));
 		return old;
 	}
@@ -264,8 +423,7 @@ public abstract class Filter2D extends AbstractDataSource
 	 *        have been added.
 	 */
 	public void dataAdded(DataSource source, DataChangeEvent... events) {
-		dataChanged(source, events);
-		notifyDataAdded(events);
+		dataChanged(source, DataRangeEvent.Type.ADDED, events);
 	}
 
 	/**
@@ -277,8 +435,7 @@ public abstract class Filter2D extends AbstractDataSource
 	 *        have been updated.
 	 */
 	public void dataUpdated(DataSource source, DataChangeEvent... events) {
-		dataChanged(source, events);
-		notifyDataUpdated(events);
+		dataChanged(source, DataRangeEvent.Type.UPDATED, events);
 	}
 
 	/**
@@ -290,20 +447,191 @@ public abstract class Filter2D extends AbstractDataSource
 	 *        have been removed.
 	 */
 	public void dataRemoved(DataSource source, DataChangeEvent... events) {
-		dataChanged(source, events);
-		notifyDataRemoved(events);
+		dataChanged(source, DataRangeEvent.Type.REMOVED, events);
 	}
 
 	/**
 	 * Method that is invoked when data has been added, updated, or removed.
-	 * This method is invoked by objects that provide support for
-	 * {@code DataListener}s and should not be called manually.
+	 * If no events are specified, all rows are filtered again.
 	 * @param source Data source that has been changed
+	 * @param type Kind of change.
 	 * @param events Optional event object describing the data values that
-	 *        have been removed.
+	 *        have been changed.
+	 */
+	private void dataChanged(DataSource source, DataRangeEvent.Type type,
+			DataChangeEvent... events) {
+		if (source != original || events == null || events.length == 0) {
+			filterAll();
+		} else {
+			dataChanged(source, DataRangeEvent.of(original, type, events));
+		}
+	}
+
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * Incremental filters only filter the rows again whose window touches
+	 * the changed range, other filters filter all rows again.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
 	 */
-	private void dataChanged(DataSource source, DataChangeEvent... events) {
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		int rowCountOld = dataRows;
+		int first = event.getFirstRow();
+		int count = event.getRowCount();
+		int rowCount = original.getRowCount();
+		boolean shifted = event.getType() == DataRangeEvent.Type.SHIFTED;
+		boolean added = shifted || event.getType() == DataRangeEvent.Type.ADDED;
+		boolean removed = event.getType() == DataRangeEvent.Type.REMOVED;
+		int removedFirst = event.getRemovedRowCount();
+		int rowCountExpected = rowCountOld + (added ? count : 0) - (removed ? count : 0)
+			- removedFirst;
+		if (!isIncremental() || rowCount != rowCountExpected || dataWidth != getColumnCountFiltered()) {
+			filterAll();
+			return;
+		}
+
+		BitSet columns = getFilteredColumns();
+		if (!added && !removed && !columns.intersects(event.getColumns())) {
+			// Only unfiltered columns have changed
+			notifyDataChanged(new DataRangeEvent(this, event.getType(),
+				first, count, event.getColumns()));
+			return;
+		}
+		columns.or(event.getColumns());
+
+		// Collect the rows whose window touches the change. The changed rows
+		// are included as well, because the window doesn't have to contain
+		// the current row.
+		int windowStart = getWindowStart();
+		int windowEnd = getWindowEnd();
+		int[] ranges;
+		if (removed) {
+			removeRows(first, count);
+			ranges = new int[] {
+				Math.min(first, first - windowEnd),
+				Math.max(first, first - windowStart)
+			};
+		} else {
+			if (shifted) {
+				removeRows(0, removedFirst);
+			}
+			if (added) {
+				insertRows(first, count);
+			}
+			ranges = new int[] {
+				Math.min(first, first - windowEnd),
+				Math.max(first + count, first + count - windowStart)
+			};
+		}
+		if (shifted || (getMode() != Mode.OMIT && getMode() != Mode.ZERO)) {
+			// Rows at the borders depend on other rows of the data source,
+			// and the first rows lost the rows that have been removed
+			ranges = Arrays.copyOf(ranges, 6);
+			ranges[2] = 0;
+			ranges[3] = -windowStart;
+			ranges[4] = rowCount - windowEnd;
+			ranges[5] = rowCount;
+		}
+		ranges = mergeRanges(ranges, rowCount);
+
+		for (int i = 0; i < ranges.length; i += 2) {
+			filter(ranges[i], ranges[i + 1]);
+		}
+
+		if (shifted) {
+			notifyDataChanged(DataRangeEvent.shifted(this, removedFirst, first, count));
+		} else if (added || removed) {
+			notifyDataChanged(new DataRangeEvent(this, event.getType(), first, count));
+		}
+		for (int i = 0; i < ranges.length; i += 2) {
+			int from = ranges[i];
+			int to = ranges[i + 1];
+			if (added && from < first + count && to > first) {
+				// Added rows are reported separately
+				if (from < first) {
+					notifyDataChanged(new DataRangeEvent(this,
+						DataRangeEvent.Type.UPDATED, from, first - from, columns));
+				}
+				from = first + count;
+			}
+			if (from < to) {
+				notifyDataChanged(new DataRangeEvent(this,
+					DataRangeEvent.Type.UPDATED, from, to - from, columns));
+			}
+		}
+	}
+
+	/**
+	 * Filters all rows again and notifies listeners of the change.
+	 */
+	private void filterAll() {
+		int rowCountOld = dataRows;
 		filter();
+		int rowCount = getRowCount();
+		int rowsUpdated = Math.min(rowCountOld, rowCount);
+		if (rowCount < rowCountOld) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.REMOVED,
+				rowCount, rowCountOld - rowCount));
+		}
+		notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.UPDATED,
+			0, rowsUpdated));
+		if (rowCount > rowCountOld) {
+			notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.ADDED,
+				rowCountOld, rowCount - rowCountOld));
+		}
+	}
+
+	/**
+	 * Sorts the specified ranges of rows, limits them to the specified number
+	 * of rows and combines overlapping ranges.
+	 * @param ranges Pairs of start and end indexes.
+	 * @param rowCount Number of rows.
+	 * @return Sorted pairs of start and end indexes that don't overlap.
+	 */
+	private static int[] mergeRanges(int[] ranges, int rowCount) {
+		int[][] pairs = new int[ranges.length/2][];
+		for (int i = 0; i < pairs.length; i++) {
+			pairs[i] = new int[] {
+				MathUtils.limit(ranges[2*i], 0, rowCount),
+				MathUtils.limit(ranges[2*i + 1], 0, rowCount)
+			};
+		}
+		Arrays.sort(pairs, new Comparator<int[]>() {
+			public int compare(int[] a, int[] b) {
+				return (a[0] < b[0]) ? -1 : ((a[0] == b[0]) ? 0 : 1);
+			}
+		});
+		int[] merged = new int[ranges.length];
+		int count = 0;
+		for (int[] pair : pairs) {
+			if (pair[0] >= pair[1]) {
+				continue;
+			}
+			if (count > 0 && pair[0] <= merged[count - 1]) {
+				merged[count - 1] = Math.max(merged[count - 1], pair[1]);
+			} else {
+				merged[count++] = pair[0];
+				merged[count++] = pair[1];
+			}
+		}
+		return Arrays.copyOf(merged, count);
+	}
+
+	/**
+	 * Returns the indexes of all filtered columns.
+	 * @return Set of column indexes.
+	 */
+	private BitSet getFilteredColumns() {
+		if (cols.length == 0) {
+			return DataRangeEvent.allColumns(getColumnCount());
+		}
+		BitSet columns = new BitSet();
+		for (int col : cols) {
+			columns.set(col);
+		}
+		return columns;
 	}
 
 	/**
@@ -346,6 +674,47 @@ public abstract class Filter2D extends AbstractDataSource
 	 */
 	protected abstract void filter();
 
+	/**
+	 * Filters the rows in the specified range again. The rows have already
+	 * been allocated, their values have to be set with
+	 * {@link #setFiltered(int, int, double)}. This method is only invoked if
+	 * {@link #isIncremental()} returns {@code true}. The default
+	 * implementation filters all rows.
+	 * @param fromRow Index of the first row to be filtered.
+	 * @param toRow Index after the last row to be filtered.
+	 */
+	protected void filter(int fromRow, int toRow) {
+		filter();
+	}
+
+	/**
+	 * Returns whether single rows can be filtered with
+	 * {@link #filter(int, int)}. The default implementation returns
+	 * {@code false}.
+	 * @return {@code true} if rows can be filtered incrementally.
+	 */
+	protected boolean isIncremental() {
+		return false;
+	}
+
+	/**
+	 * Returns the offset of the first original row that is used to
+	 * calculate a filtered row, relative to the index of the filtered row.
+	 * @return Offset of the first row of the window.
+	 */
+	protected int getWindowStart() {
+		return 0;
+	}
+
+	/**
+	 * Returns the offset of the last original row that is used to calculate
+	 * a filtered row, relative to the index of the filtered row.
+	 * @return Offset of the last row of the window.
+	 */
+	protected int getWindowEnd() {
+		return 0;
+	}
+
 	/**
 	 * Returns the Mode of this Filter2D.
 	 * @return Mode of filtering.
@@ -376,7 +745,7 @@ public abstract class Filter2D extends AbstractDataSource
 		in.defaultReadObject();
 
 		// Handle transient fields
-		rows = new ArrayList<Double[]>();
+		data = new double[0];
 
 		// Update caches
 		original.addDataListener(this);
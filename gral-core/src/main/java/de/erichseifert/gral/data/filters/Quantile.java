@@ -0,0 +1,257 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data.filters;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.text.MessageFormat;
+
+import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.util.SlidingQuantile;
+
+
+/**
+ * <p>Class that calculates a quantile of a sliding window over a data
+ * sequence. The window is moved row by row, so each filtered value only
+ * takes logarithmic time in the size of the window.</p>
+ * <ul>
+ *   <li>Setting and getting offset</li>
+ *   <li>Setting and getting window size</li>
+ *   <li>Setting and getting quantile</li>
+ * </ul>
+ */
+public class Quantile extends Filter2D {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = 4416712338513384871L;
+
+	/** Number of values in the window that will be used to calculate the
+	quantile. */
+	private int windowSize;
+	/** Start of the window. */
+	private int offset;
+	/** Quantile that will be calculated. */
+	private double quantile;
+
+	/**
+	 * Creates a new Quantile object with the specified DataSource, window
+	 * size, offset, quantile, Mode, and columns.
+	 * @param original DataSource to be filtered.
+	 * @param windowSize Number of rows to be used for the calculation of the
+	 *        quantile.
+	 * @param offset Offset from the current filtered value to the last value
+	 *        of the window.
+	 * @param quantile Quantile between {@code 0.0} and {@code 1.0}.
+	 * @param mode Mode of filtering.
+	 * @param cols Column indexes.
+	 */
+	public Quantile(DataSource original, int windowSize, int offset,
+			double quantile, Mode mode, int... cols) {
+		super(original, mode, cols);
+		checkQuantile(quantile);
+		this.windowSize = windowSize;
+		this.offset = offset;
+		this.quantile = quantile;
+		filter();
+	}
+
+	@Override
+	protected void filter() {
+		clear();
+		if (getWindowSize() <= 0) {
+			return;
+		}
+		double[] filteredRow = new double[getColumnCountFiltered()];
+		for (int rowIndex = 0; rowIndex < getRowCount(); rowIndex++) {
+			add(filteredRow);
+		}
+		filter(0, getRowCount());
+	}
+
+	@Override
+	protected void filter(int fromRow, int toRow) {
+		if (fromRow >= toRow) {
+			return;
+		}
+		int prefill = getPrefillSize();
+		SlidingQuantile window = new SlidingQuantile(
+			getMaxWindowSize(), getQuantile());
+		for (int colIndex = 0; colIndex < getColumnCountFiltered(); colIndex++) {
+			int colIndexOriginal = getIndexOriginal(colIndex);
+			// The window contains the last values of a sequence that
+			// starts with the values before the first row
+			window.clear();
+			int last = prefill + fromRow;
+			for (int i = last - getSize(fromRow) + 1; i <= last; i++) {
+				window.add(getOriginalDouble(colIndexOriginal, getSequenceRow(i)));
+			}
+			setFiltered(colIndex, fromRow, window.get());
+			// The window grows until it reaches its capacity; afterwards
+			// each new value replaces the oldest one
+			for (int rowIndex = fromRow + 1; rowIndex < toRow; rowIndex++) {
+				last = prefill + rowIndex;
+				window.add(getOriginalDouble(colIndexOriginal, getSequenceRow(last)));
+				setFiltered(colIndex, rowIndex, window.get());
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of values in the window of the specified row.
+	 * @param rowIndex Index of the filtered row.
+	 * @return Number of values.
+	 */
+	private int getSize(int rowIndex) {
+		if (getPrefillSize() < getWindowSize()) {
+			return Math.min(getPrefillSize() + rowIndex + 1, getWindowSize());
+		}
+		return getMaxWindowSize();
+	}
+
+	/**
+	 * Returns the original row of a value in the sequence of window values.
+	 * @param i Index in the sequence.
+	 * @return Row index in the original data source.
+	 */
+	private int getSequenceRow(int i) {
+		int prefill = getPrefillSize();
+		if (i < prefill) {
+			return getOffset() - getWindowSize() + i;
+		}
+		return i - prefill - getOffset() + getWindowSize();
+	}
+
+	/**
+	 * Returns the number of values before the first row that are used to
+	 * fill the window initially.
+	 * @return Number of values before the first row.
+	 */
+	private int getPrefillSize() {
+		return Math.max(0, getWindowSize() - getOffset());
+	}
+
+	/**
+	 * Returns the maximal number of values in the window.
+	 * @return Maximal number of values.
+	 */
+	private int getMaxWindowSize() {
+		return Math.max(getWindowSize(), getPrefillSize());
+	}
+
+	@Override
+	protected boolean isIncremental() {
+		return getWindowSize() > 0;
+	}
+
+	@Override
+	protected int getWindowStart() {
+		// Rows at the beginning also use the values before the first row
+		return Math.min(getOffset() - getWindowSize() - getMaxWindowSize(),
+			getWindowEnd() - getMaxWindowSize() + 1);
+	}
+
+	@Override
+	protected int getWindowEnd() {
+		return getWindowSize() - getOffset();
+	}
+
+	/**
+	 * Throws an exception if the specified quantile is invalid.
+	 * @param quantile Quantile.
+	 */
+	private static void checkQuantile(double quantile) {
+		if (!(quantile >= 0.0 && quantile <= 1.0)) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Invalid quantile: {0}", quantile)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the size of the window which is used to calculate the
+	 * quantile.
+	 * @return Number of rows used.
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Set the size of the window which is used to calculate the quantile.
+	 * @param windowSize Number of rows used.
+	 */
+	public void setWindowSize(int windowSize) {
+		this.windowSize = windowSize;
+		dataUpdated(this);
+	}
+
+	/**
+	 * Returns the offset from the current value used to calculate the
+	 * quantile to the last value of the window.
+	 * @return Offset.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Sets the offset from the current value used to calculate the
+	 * quantile to the last value of the window.
+	 * @param offset Offset.
+	 */
+	public void setOffset(int offset) {
+		this.offset = offset;
+		dataUpdated(this);
+	}
+
+	/**
+	 * Returns the quantile that is calculated for each window.
+	 * @return Quantile between {@code 0.0} and {@code 1.0}.
+	 */
+	public double getQuantile() {
+		return quantile;
+	}
+
+	/**
+	 * Sets the quantile that is calculated for each window.
+	 * @param quantile Quantile between {@code 0.0} and {@code 1.0}.
+	 */
+	public void setQuantile(double quantile) {
+		checkQuantile(quantile);
+		this.quantile = quantile;
+		dataUpdated(this);
+	}
+
+	/**
+	 * Custom deserialization method.
+	 * @param in Input stream.
+	 * @throws ClassNotFoundException if a serialized class doesn't exist anymore.
+	 * @throws IOException if there is an error while reading data from the
+	 *         input stream.
+	 */
+	private void readObject(ObjectInputStream in)
+			throws ClassNotFoundException, IOException {
+		// Normal deserialization
+		in.defaultReadObject();
+
+		// Update caches
+		dataUpdated(this);
+	}
+}
@@ -84,6 +84,15 @@ public class Resize extends Filter2D {
 		return super.get(col, row);
 	}
 
+	@Override
+	public double getDouble(int col, int row) {
+		if ((cols <= 0 || cols == getOriginal().getColumnCount()) &&
+			(rows <= 0 || rows == getOriginal().getRowCount())) {
+			return getOriginalDouble(col, row);
+		}
+		return super.getDouble(col, row);
+	}
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
 	protected void filter() {
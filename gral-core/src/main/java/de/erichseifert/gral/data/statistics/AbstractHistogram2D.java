@@ -26,7 +26,8 @@ import java.io.ObjectInputStream;
 
 import de.erichseifert.gral.data.AbstractDataSource;
 import de.erichseifert.gral.data.DataChangeEvent;
-import de.erichseifert.gral.data.DataListener;
+import de.erichseifert.gral.data.DataRangeEvent;
+import de.erichseifert.gral.data.DataRangeListener;
 import de.erichseifert.gral.data.DataSource;
 
 /**
@@ -36,7 +37,7 @@ import de.erichseifert.gral.data.DataSource;
  * @see AbstractDataSource#setColumnTypes(Class...)
  */
 public abstract class AbstractHistogram2D extends AbstractDataSource
-		implements DataListener {
+		implements DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = 5031290498142366257L;
 
@@ -109,6 +110,21 @@ public abstract class AbstractHistogram2D extends AbstractDataSource
 		rebuildCells();
 	}
 
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * As each cell of the histogram can be affected by the change, all cells
+	 * are reported as updated.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		rebuildCells();
+		notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.UPDATED,
+			0, getRowCount()));
+	}
+
 	/**
 	 * Returns the data source associated to this histogram.
 	 * @return Data source
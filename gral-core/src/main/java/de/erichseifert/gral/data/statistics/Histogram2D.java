@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 
 import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.data.NumericDataSource;
 import de.erichseifert.gral.graphics.Orientation;
 
 
@@ -144,25 +145,18 @@ public class Histogram2D extends AbstractHistogram2D {
 			long colMin = Long.MAX_VALUE;
 			long colMax = Long.MIN_VALUE;
 
-			Iterable<? extends Comparable<?>> data;
-			if (orientation == Orientation.VERTICAL) {
-				data = getData().getColumn(breakIndex);
-			} else {
-				data = getData().getRecord(breakIndex);
+			double[] values = getValues(breakIndex);
+			double[] bounds = new double[brk.length];
+			for (int i = 0; i < brk.length; i++) {
+				bounds[i] = brk[i].doubleValue();
 			}
 
 			// Iterate over data cells
-			for (Comparable<?> cell : data) {
-				if (!(cell instanceof Number)) {
-					continue;
-				}
-				Number numericCell = (Number) cell;
-				double val = numericCell.doubleValue();
+			for (double val : values) {
 				// Iterate over histogram rows
-				for (int i = 0; i < brk.length - 1; i++) {
+				for (int i = 0; i < bounds.length - 1; i++) {
 					// Put the value into corresponding class
-					if ((val >= brk[i].doubleValue())
-							&& (val < brk[i + 1].doubleValue())) {
+					if ((val >= bounds[i]) && (val < bounds[i + 1])) {
 						cells[i]++;
 						if (cells[i] > colMax) {
 							colMax = cells[i];
@@ -181,6 +175,47 @@ public class Histogram2D extends AbstractHistogram2D {
 		}
 	}
 
+	/**
+	 * Returns the numeric values of the column or row with the specified
+	 * index, depending on the orientation of the histogram. Values that are
+	 * not numeric are returned as {@code NaN}.
+	 * @param index Index of the column or row.
+	 * @return Values as primitive {@code double} array.
+	 */
+	private double[] getValues(int index) {
+		DataSource data = getData();
+		if (data instanceof NumericDataSource) {
+			NumericDataSource numericData = (NumericDataSource) data;
+			if (orientation == Orientation.VERTICAL) {
+				double[] values = new double[numericData.getRowCount()];
+				numericData.copyColumn(index, 0, values, 0, values.length);
+				return values;
+			}
+			double[] values = new double[numericData.getColumnCount()];
+			for (int col = 0; col < values.length; col++) {
+				values[col] = numericData.getDouble(col, index);
+			}
+			return values;
+		}
+
+		Iterable<? extends Comparable<?>> cells;
+		int count;
+		if (orientation == Orientation.VERTICAL) {
+			cells = data.getColumn(index);
+			count = data.getRowCount();
+		} else {
+			cells = data.getRecord(index);
+			count = data.getColumnCount();
+		}
+		double[] values = new double[count];
+		int i = 0;
+		for (Comparable<?> cell : cells) {
+			values[i++] = (cell instanceof Number) ?
+				((Number) cell).doubleValue() : Double.NaN;
+		}
+		return values;
+	}
+
 	/**
 	 * Returns the direction in which the histogram values will be accumulated.
 	 * @return Horizontal or vertical orientation.
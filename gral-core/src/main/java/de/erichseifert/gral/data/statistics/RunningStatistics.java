@@ -0,0 +1,128 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data.statistics;
+
+/**
+ * <p>Class that keeps statistical information on a sequence of data values
+ * up to date while values are added, removed or changed.</p>
+ *
+ * <p>Count, sums, mean, and the central moments are updated in constant time
+ * for each change. The minimum and the maximum are only determined again
+ * from the data values if the current minimum or maximum has been removed.
+ * Quantiles are calculated from the data values on request and are cached
+ * until the next change.</p>
+ *
+ * <p>The data values passed to the constructor are used to calculate the
+ * initial statistics and must reflect all changes that have been reported to
+ * this object.</p>
+ */
+public class RunningStatistics extends Statistics {
+	/** Accumulated moments of all data values. */
+	private final Moments moments;
+	/** Whether the moments reflect the current data values. */
+	private boolean valid;
+
+	/**
+	 * Initializes a new object with the specified data values.
+	 * @param data Data to be analyzed.
+	 */
+	public RunningStatistics(Iterable<? extends Comparable<?>> data) {
+		super(data);
+		moments = new Moments();
+	}
+
+	/**
+	 * Updates the statistics for a value that has been added to the data.
+	 * Values that are not numeric are ignored.
+	 * @param value Value that has been added.
+	 */
+	public synchronized void add(double value) {
+		super.invalidate();
+		if (valid) {
+			moments.add(value);
+		}
+	}
+
+	/**
+	 * Updates the statistics for a value that has been removed from the
+	 * data. Values that are not numeric are ignored.
+	 * @param value Value that has been removed.
+	 */
+	public synchronized void remove(double value) {
+		super.invalidate();
+		if (valid) {
+			moments.remove(value);
+		}
+	}
+
+	/**
+	 * Updates the statistics for a value of the data that has been replaced
+	 * by another value.
+	 * @param oldValue Value before the change.
+	 * @param newValue Value after the change.
+	 */
+	public synchronized void update(double oldValue, double newValue) {
+		remove(oldValue);
+		add(newValue);
+	}
+
+	/**
+	 * Sets the smallest and the largest data value if they are tracked
+	 * elsewhere, so they don't have to be determined again from the data
+	 * values after the current minimum or maximum has been removed.
+	 * @param min Smallest data value.
+	 * @param max Largest data value.
+	 */
+	public synchronized void setExtrema(double min, double max) {
+		super.invalidate();
+		if (valid) {
+			moments.setExtrema(min, max);
+		}
+	}
+
+	/**
+	 * Discards all statistics that have been calculated so far. They will
+	 * be calculated again from the data values on the next request. This
+	 * can be used if changes of the data cannot be described by single
+	 * values.
+	 */
+	@Override
+	public synchronized void invalidate() {
+		super.invalidate();
+		valid = false;
+	}
+
+	@Override
+	public synchronized double get(String key) {
+		if (MEDIAN.equals(key) || QUARTILE_1.equals(key) ||
+				QUARTILE_2.equals(key) || QUARTILE_3.equals(key)) {
+			return super.get(key);
+		}
+		if (!valid || ((MIN.equals(key) || MAX.equals(key)) &&
+				moments.isExtremaStale())) {
+			moments.clear();
+			accumulate(getData(), moments);
+			valid = true;
+		}
+		return moments.get(key);
+	}
+}
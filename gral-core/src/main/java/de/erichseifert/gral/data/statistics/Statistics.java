@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import de.erichseifert.gral.data.NumericDataSource;
 import de.erichseifert.gral.util.DataUtils;
 import de.erichseifert.gral.util.MathUtils;
 import de.erichseifert.gral.util.SortedList;
@@ -84,6 +85,14 @@ public class Statistics {
 	/** Key for specifying the 3rd quartile (or 75th quantile). */
 	public static final String QUARTILE_3 = "quantile75"; //$NON-NLS-1$
 
+	/** Keys of all statistics that are calculated from the moments of the
+	data values, except for the extrema. */
+	private static final String[] BASIC_KEYS = {
+		N, SUM, SUM2, SUM3, SUM4, MEAN,
+		SUM_OF_DIFF_QUADS, SUM_OF_DIFF_CUBICS, SUM_OF_DIFF_SQUARES,
+		VARIANCE, POPULATION_VARIANCE, SKEWNESS, KURTOSIS
+	};
+
 	/** Data values that are used to build statistical aggregates. */
 	private final Iterable<? extends Comparable<?>> data;
 	/** Table statistics stored by key. */
@@ -99,41 +108,73 @@ public class Statistics {
 	}
 
 	/**
-	 * Utility method that calculates basic statistics like element count, sum,
-	 * or mean.
+	 * Accumulator for the moments of a sequence of values. Values can be
+	 * added and removed in any order.
 	 *
 	 * Notes: Calculation of higher order statistics is based on formulas from
 	 * http://people.xiph.org/~tterribe/notes/homs.html
-	 *
-	 * @param data Data values used to calculate statistics
-	 * @param stats A {@code Map} that should store the new statistics.
 	 */
-	private void createBasicStats(Iterable<? extends Comparable<?>> data, Map<String, Double> stats) {
-		double n = 0.0;
-		double sum = 0.0;
-		double sum2 = 0.0;
-		double sum3 = 0.0;
-		double sum4 = 0.0;
-		double mean = 0.0;
-		double sumOfDiffSquares = 0.0;
-		double sumOfDiffCubics = 0.0;
-		double sumOfDiffQuads = 0.0;
+	static final class Moments {
+		/** Number of values. */
+		private double n;
+		/** Sum of all values. */
+		private double sum;
+		/** Sum of all value squares. */
+		private double sum2;
+		/** Sum of all value cubics. */
+		private double sum3;
+		/** Sum of all value quads. */
+		private double sum4;
+		/** Arithmetic mean. */
+		private double mean;
+		/** Sum of squared differences from the mean. */
+		private double sumOfDiffSquares;
+		/** Sum of cubed differences from the mean. */
+		private double sumOfDiffCubics;
+		/** Sum of differences from the mean raised to the fourth power. */
+		private double sumOfDiffQuads;
+		/** Smallest value. */
+		private double min = Double.NaN;
+		/** Largest value. */
+		private double max = Double.NaN;
+		/** Whether {@code min} and {@code max} must be determined again. */
+		private boolean extremaStale;
 
-		for (Comparable<?> cell : data) {
-			if (!(cell instanceof Number)) {
-				continue;
-			}
-			Number numericCell = (Number) cell;
-			if (!MathUtils.isCalculatable(numericCell)) {
-				continue;
-			}
-			double val = numericCell.doubleValue();
+		/**
+		 * Resets all moments to the state of an empty sequence.
+		 */
+		public void clear() {
+			n = 0.0;
+			sum = 0.0;
+			sum2 = 0.0;
+			sum3 = 0.0;
+			sum4 = 0.0;
+			mean = 0.0;
+			sumOfDiffSquares = 0.0;
+			sumOfDiffCubics = 0.0;
+			sumOfDiffQuads = 0.0;
+			min = Double.NaN;
+			max = Double.NaN;
+			extremaStale = false;
+		}
 
-			if (!stats.containsKey(MIN) || val < stats.get(MIN)) {
-				stats.put(MIN, val);
+		/**
+		 * Adds the specified value to the accumulated moments. Values that
+		 * are not calculatable are ignored.
+		 * @param val Value to be added.
+		 */
+		public void add(double val) {
+			if (!MathUtils.isCalculatable(val)) {
+				return;
 			}
-			if (!stats.containsKey(MAX) || val > stats.get(MAX)) {
-				stats.put(MAX, val);
+
+			if (!extremaStale) {
+				if (!(val >= min)) {
+					min = val;
+				}
+				if (!(val <= max)) {
+					max = val;
+				}
 			}
 
 			n++;
@@ -156,22 +197,168 @@ public class Statistics {
 			sumOfDiffSquares += term1;
 		}
 
-		stats.put(N, n);
-		stats.put(SUM,  sum);
-		stats.put(SUM2, sum2);
-		stats.put(SUM3, sum3);
-		stats.put(SUM4, sum4);
-		stats.put(MEAN, mean);
-		stats.put(SUM_OF_DIFF_QUADS, sumOfDiffQuads);
-		stats.put(SUM_OF_DIFF_CUBICS, sumOfDiffCubics);
-		stats.put(SUM_OF_DIFF_SQUARES, sumOfDiffSquares);
-
-		stats.put(VARIANCE, sumOfDiffSquares/(n - 1.0));
-		stats.put(POPULATION_VARIANCE, sumOfDiffSquares/n);
-		stats.put(SKEWNESS,
-			(sumOfDiffCubics/n)/Math.pow(sumOfDiffSquares/n, 3.0/2.0) - 3.0);
-		stats.put(KURTOSIS,
-			(n*sumOfDiffQuads)/(sumOfDiffSquares*sumOfDiffSquares) - 3.0);
+		/**
+		 * Removes the specified value from the accumulated moments. The value
+		 * must have been added before. Values that are not calculatable are
+		 * ignored. If the value was the smallest or the largest value, the
+		 * extrema have to be determined again.
+		 * @param val Value to be removed.
+		 * @see #isExtremaStale()
+		 */
+		public void remove(double val) {
+			if (!MathUtils.isCalculatable(val) || n <= 0.0) {
+				return;
+			}
+			if (n <= 1.0) {
+				clear();
+				return;
+			}
+
+			if (val <= min || val >= max) {
+				extremaStale = true;
+			}
+
+			// Reverse the combination of the remaining values with the
+			// removed value
+			double nRest = n - 1.0;
+			double meanRest = (n*mean - val)/nRest;
+			double delta = val - meanRest;
+			double delta2 = delta*delta;
+			double m2Rest = sumOfDiffSquares - delta2*nRest/n;
+			double m3Rest = sumOfDiffCubics -
+				delta2*delta*nRest*(nRest - 1.0)/(n*n) +
+				3.0*delta*m2Rest/n;
+			double m4Rest = sumOfDiffQuads -
+				delta2*delta2*nRest*(nRest*nRest - nRest + 1.0)/(n*n*n) -
+				6.0*delta2*m2Rest/(n*n) +
+				4.0*delta*m3Rest/n;
+
+			double val2 = val*val;
+			n = nRest;
+			sum -= val;
+			sum2 -= val2;
+			sum3 -= val2*val;
+			sum4 -= val2*val2;
+			mean = meanRest;
+			sumOfDiffSquares = Math.max(m2Rest, 0.0);
+			sumOfDiffCubics = m3Rest;
+			sumOfDiffQuads = Math.max(m4Rest, 0.0);
+		}
+
+		/**
+		 * Sets the smallest and the largest value if they are known from
+		 * another source.
+		 * @param min Smallest value.
+		 * @param max Largest value.
+		 */
+		public void setExtrema(double min, double max) {
+			this.min = min;
+			this.max = max;
+			extremaStale = false;
+		}
+
+		/**
+		 * Returns whether the smallest or the largest value has been removed
+		 * so that the extrema are unknown.
+		 * @return {@code true} if the extrema have to be determined again.
+		 */
+		public boolean isExtremaStale() {
+			return extremaStale;
+		}
+
+		/**
+		 * Returns the value of the specified statistics.
+		 * @param key Requested information.
+		 * @return The value for the specified key, or <i>NaN</i> if the
+		 *         specified statistical value does not exist.
+		 */
+		public double get(String key) {
+			if (N.equals(key)) {
+				return n;
+			} else if (SUM.equals(key)) {
+				return sum;
+			} else if (SUM2.equals(key)) {
+				return sum2;
+			} else if (SUM3.equals(key)) {
+				return sum3;
+			} else if (SUM4.equals(key)) {
+				return sum4;
+			} else if (MIN.equals(key)) {
+				return (n > 0.0) ? min : Double.NaN;
+			} else if (MAX.equals(key)) {
+				return (n > 0.0) ? max : Double.NaN;
+			} else if (MEAN.equals(key)) {
+				return mean;
+			} else if (SUM_OF_DIFF_SQUARES.equals(key)) {
+				return sumOfDiffSquares;
+			} else if (SUM_OF_DIFF_CUBICS.equals(key)) {
+				return sumOfDiffCubics;
+			} else if (SUM_OF_DIFF_QUADS.equals(key)) {
+				return sumOfDiffQuads;
+			} else if (VARIANCE.equals(key)) {
+				return sumOfDiffSquares/(n - 1.0);
+			} else if (POPULATION_VARIANCE.equals(key)) {
+				return sumOfDiffSquares/n;
+			} else if (SKEWNESS.equals(key)) {
+				return (sumOfDiffCubics/n)/Math.pow(sumOfDiffSquares/n, 3.0/2.0) - 3.0;
+			} else if (KURTOSIS.equals(key)) {
+				return (n*sumOfDiffQuads)/(sumOfDiffSquares*sumOfDiffSquares) - 3.0;
+			}
+			return Double.NaN;
+		}
+
+		/**
+		 * Stores the accumulated moments in the specified map.
+		 * @param stats A {@code Map} that should store the statistics.
+		 */
+		public void store(Map<String, Double> stats) {
+			if (n > 0.0) {
+				stats.put(MIN, min);
+				stats.put(MAX, max);
+			}
+			for (String key : BASIC_KEYS) {
+				stats.put(key, get(key));
+			}
+		}
+	}
+
+	/**
+	 * Utility method that calculates basic statistics like element count, sum,
+	 * or mean. Numeric data sources are read as primitive values without
+	 * creating {@code Number} objects.
+	 *
+	 * @param data Data values used to calculate statistics
+	 * @param stats A {@code Map} that should store the new statistics.
+	 */
+	private void createBasicStats(Iterable<? extends Comparable<?>> data, Map<String, Double> stats) {
+		Moments moments = new Moments();
+		accumulate(data, moments);
+		moments.store(stats);
+	}
+
+	/**
+	 * Adds all numeric values of the specified data to the moments.
+	 * @param data Data values.
+	 * @param moments Accumulator for the moments.
+	 */
+	static void accumulate(Iterable<? extends Comparable<?>> data, Moments moments) {
+		if (data instanceof NumericDataSource) {
+			NumericDataSource source = (NumericDataSource) data;
+			int colCount = source.getColumnCount();
+			int rowCount = source.getRowCount();
+			for (int row = 0; row < rowCount; row++) {
+				for (int col = 0; col < colCount; col++) {
+					moments.add(source.getDouble(col, row));
+				}
+			}
+		} else {
+			for (Comparable<?> cell : data) {
+				if (!(cell instanceof Number)) {
+					continue;
+				}
+				moments.add(((Number) cell).doubleValue());
+			}
+		}
 	}
 
 	/**
@@ -204,6 +391,22 @@ public class Statistics {
 		stats.put(MEDIAN, stats.get(QUARTILE_2));
 	}
 
+	/**
+	 * Returns the data values that are used to build statistical aggregates.
+	 * @return Data values.
+	 */
+	protected Iterable<? extends Comparable<?>> getData() {
+		return data;
+	}
+
+	/**
+	 * Discards all statistics that have been calculated so far. They will
+	 * be calculated again from the data values on the next request.
+	 */
+	protected void invalidate() {
+		statistics.clear();
+	}
+
 	/**
 	 * Returns the specified statistics value.
 	 * @param key Requested information.
@@ -0,0 +1,386 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import de.erichseifert.gral.graphics.DrawingContext.Target;
+
+/**
+ * Class that keeps the contents of drawing layers as images. A layer is
+ * identified by an arbitrary key object. Its contents are only drawn again
+ * if the layer has been invalidated or if the size, position, or rendering
+ * settings of the drawing target have changed. Otherwise, the stored image
+ * is copied to the target. The contents of several layers can be drawn
+ * concurrently.
+ * Layers are only stored for bitmap targets whose transformation is a
+ * translation; all other targets are drawn directly.
+ */
+public class LayerCache {
+	/** Transformation that maps user space to device space directly. */
+	private static final AffineTransform IDENTITY = new AffineTransform();
+
+	/** Stored layers. Layers of keys that are no longer referenced
+	elsewhere are discarded automatically. */
+	private final Map<Object, Layer> layers;
+
+	/**
+	 * Creates an empty cache.
+	 */
+	public LayerCache() {
+		layers = new WeakHashMap<Object, Layer>();
+	}
+
+	/**
+	 * Returns whether layers can be stored for the specified drawing
+	 * context. This is the case for bitmap targets whose transformation is
+	 * a translation and whose graphics are composited normally.
+	 * @param context Environment used for drawing.
+	 * @return {@code true} if layers can be stored, {@code false} otherwise.
+	 */
+	public static boolean isApplicable(DrawingContext context) {
+		if (context.getTarget() != Target.BITMAP) {
+			return false;
+		}
+		Graphics2D graphics = context.getGraphics();
+		AffineTransform tx = graphics.getTransform();
+		if ((tx.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0) {
+			return false;
+		}
+		Composite composite = graphics.getComposite();
+		if (!(composite instanceof AlphaComposite)) {
+			return false;
+		}
+		AlphaComposite alphaComposite = (AlphaComposite) composite;
+		return alphaComposite.getRule() == AlphaComposite.SRC_OVER
+			&& alphaComposite.getAlpha() == 1f;
+	}
+
+	/**
+	 * Draws a layer with the specified drawing context. The contents of
+	 * the layer are drawn into a new image if necessary.
+	 * @param context Environment used for drawing.
+	 * @param key Object that identifies the layer.
+	 * @param bounds Area in user space that is covered by the layer.
+	 * @param content Drawable that draws the contents of the layer.
+	 */
+	public void draw(DrawingContext context, Object key,
+			Rectangle2D bounds, Drawable content) {
+		draw(context, Collections.singletonList(key), bounds,
+			Collections.singletonList(content), null);
+	}
+
+	/**
+	 * Draws several layers in the specified order with the specified
+	 * drawing context. The contents of outdated layers are drawn into new
+	 * images first. If an executor is specified, these images are drawn
+	 * concurrently and the calling thread waits until all of them are
+	 * finished. The drawables must not share any state in this case.
+	 * @param context Environment used for drawing.
+	 * @param keys Objects that identify the layers.
+	 * @param bounds Area in user space that is covered by the layers.
+	 * @param contents Drawables that draw the contents of the layers.
+	 * @param executor Executor used to draw the contents of the layers
+	 *        concurrently, or {@code null} to draw them with the calling
+	 *        thread.
+	 */
+	public synchronized void draw(DrawingContext context, List<?> keys,
+			Rectangle2D bounds, List<? extends Drawable> contents,
+			ExecutorService executor) {
+		if (!isApplicable(context)) {
+			for (Drawable content : contents) {
+				content.draw(context);
+			}
+			return;
+		}
+
+		Graphics2D graphics = context.getGraphics();
+		AffineTransform txOrig = graphics.getTransform();
+		double x = txOrig.getTranslateX();
+		double y = txOrig.getTranslateY();
+		int pixelX = (int) Math.floor(x);
+		int pixelY = (int) Math.floor(y);
+		double offsetX = x - pixelX;
+		double offsetY = y - pixelY;
+		int left = (int) Math.floor(bounds.getMinX() + offsetX);
+		int top = (int) Math.floor(bounds.getMinY() + offsetY);
+		int width = (int) Math.ceil(bounds.getMaxX() + offsetX) - left;
+		int height = (int) Math.ceil(bounds.getMaxY() + offsetY) - top;
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+
+		RenderingHints hints = graphics.getRenderingHints();
+		Layer[] frameLayers = new Layer[keys.size()];
+		List<LayerTask> tasks = new ArrayList<LayerTask>(keys.size());
+		for (int i = 0; i < frameLayers.length; i++) {
+			Object key = keys.get(i);
+			Layer layer = layers.get(key);
+			if (layer == null || !layer.isValid(context, offsetX, offsetY,
+					left, top, width, height, hints)) {
+				BufferedImage image;
+				if (layer != null && layer.image.getWidth() == width &&
+						layer.image.getHeight() == height) {
+					// Reuse the image of the outdated layer
+					image = layer.image;
+					Graphics2D imageGraphics = image.createGraphics();
+					imageGraphics.setComposite(AlphaComposite.Clear);
+					imageGraphics.fillRect(0, 0, width, height);
+					imageGraphics.dispose();
+				} else {
+					image = new BufferedImage(width, height,
+						BufferedImage.TYPE_INT_ARGB_PRE);
+				}
+				layer = new Layer(image, context, offsetX, offsetY, left, top,
+					hints);
+				tasks.add(new LayerTask(key, layer, context, contents.get(i)));
+			}
+			frameLayers[i] = layer;
+		}
+
+		run(tasks, executor);
+		for (LayerTask task : tasks) {
+			layers.put(task.key, task.layer);
+		}
+
+		graphics.setTransform(IDENTITY);
+		for (Layer layer : frameLayers) {
+			graphics.drawImage(layer.image, pixelX + left, pixelY + top, null);
+		}
+		graphics.setTransform(txOrig);
+	}
+
+	/**
+	 * Draws the contents of layers into their images. All tasks except the
+	 * last one are passed to the executor, the last one is run by the
+	 * calling thread. The method returns when all tasks have finished.
+	 * @param tasks Tasks that draw the contents of layers.
+	 * @param executor Executor, or {@code null} to run all tasks with the
+	 *        calling thread.
+	 */
+	private static void run(List<LayerTask> tasks, ExecutorService executor) {
+		List<Future<?>> futures = new LinkedList<Future<?>>();
+		try {
+			for (int i = 0; i < tasks.size(); i++) {
+				LayerTask task = tasks.get(i);
+				if (executor != null && i < tasks.size() - 1) {
+					try {
+						futures.add(executor.submit(task));
+						continue;
+					} catch (RejectedExecutionException e) {
+						// The executor has been shut down
+					}
+				}
+				task.run();
+			}
+		} finally {
+			// Images must not be used before all tasks have finished
+			Throwable error = null;
+			boolean interrupted = false;
+			for (Future<?> future : futures) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					} catch (ExecutionException e) {
+						if (error == null) {
+							error = e.getCause();
+						}
+						break;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			} else if (error instanceof Error) {
+				throw (Error) error;
+			} else if (error != null) {
+				throw new IllegalStateException(error);
+			}
+		}
+	}
+
+	/**
+	 * Marks the layer with the specified key as outdated. Its contents will
+	 * be drawn again the next time it is drawn.
+	 * @param key Object that identifies the layer.
+	 */
+	public synchronized void invalidate(Object key) {
+		Layer layer = layers.get(key);
+		if (layer != null) {
+			layer.valid = false;
+		}
+	}
+
+	/**
+	 * Marks all layers as outdated.
+	 */
+	public synchronized void invalidateAll() {
+		for (Layer layer : layers.values()) {
+			layer.valid = false;
+		}
+	}
+
+	/**
+	 * Removes all layers and their images.
+	 */
+	public synchronized void clear() {
+		layers.clear();
+	}
+
+	/**
+	 * Task that draws the contents of a layer into its image.
+	 */
+	private static final class LayerTask implements Runnable {
+		/** Object that identifies the layer. */
+		private final Object key;
+		/** Layer whose image is drawn. */
+		private final Layer layer;
+		/** Environment used for drawing the layer. */
+		private final DrawingContext context;
+		/** Drawable that draws the contents of the layer. */
+		private final Drawable content;
+
+		/**
+		 * Initializes a new task.
+		 * @param key Object that identifies the layer.
+		 * @param layer Layer whose image is drawn.
+		 * @param context Environment used for drawing the layer.
+		 * @param content Drawable that draws the contents of the layer.
+		 */
+		public LayerTask(Object key, Layer layer, DrawingContext context,
+				Drawable content) {
+			this.key = key;
+			this.layer = layer;
+			this.context = context;
+			this.content = content;
+		}
+
+		/**
+		 * Draws the contents of the layer.
+		 */
+		public void run() {
+			Graphics2D imageGraphics = layer.image.createGraphics();
+			imageGraphics.setRenderingHints(layer.hints);
+			imageGraphics.translate(layer.offsetX - layer.left,
+				layer.offsetY - layer.top);
+			try {
+				content.draw(new DrawingContext(imageGraphics,
+					context.getQuality(), context.getTarget()));
+			} finally {
+				imageGraphics.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Image of a layer and the settings it has been drawn with.
+	 */
+	private static final class Layer {
+		/** Contents of the layer. */
+		private final BufferedImage image;
+		/** Quality the contents have been drawn with. */
+		private final DrawingContext.Quality quality;
+		/** Horizontal sub-pixel offset of the user space. */
+		private final double offsetX;
+		/** Vertical sub-pixel offset of the user space. */
+		private final double offsetY;
+		/** Horizontal position of the image relative to the user space
+		origin. */
+		private final int left;
+		/** Vertical position of the image relative to the user space
+		origin. */
+		private final int top;
+		/** Rendering hints the contents have been drawn with. */
+		private final RenderingHints hints;
+		/** Decides whether the contents are up to date. */
+		private boolean valid;
+
+		/**
+		 * Initializes a new layer.
+		 * @param image Contents of the layer.
+		 * @param context Environment the contents have been drawn with.
+		 * @param offsetX Horizontal sub-pixel offset of the user space.
+		 * @param offsetY Vertical sub-pixel offset of the user space.
+		 * @param left Horizontal position of the image.
+		 * @param top Vertical position of the image.
+		 * @param hints Rendering hints the contents have been drawn with.
+		 */
+		public Layer(BufferedImage image, DrawingContext context,
+				double offsetX, double offsetY, int left, int top,
+				RenderingHints hints) {
+			this.image = image;
+			this.quality = context.getQuality();
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+			this.left = left;
+			this.top = top;
+			this.hints = hints;
+			valid = true;
+		}
+
+		/**
+		 * Returns whether the image can be used for the specified drawing
+		 * settings.
+		 * @param context Environment used for drawing.
+		 * @param offsetX Horizontal sub-pixel offset of the user space.
+		 * @param offsetY Vertical sub-pixel offset of the user space.
+		 * @param left Horizontal position of the image.
+		 * @param top Vertical position of the image.
+		 * @param width Width of the image.
+		 * @param height Height of the image.
+		 * @param hints Rendering hints.
+		 * @return {@code true} if the layer is up to date, otherwise
+		 *         {@code false}.
+		 */
+		public boolean isValid(DrawingContext context, double offsetX,
+				double offsetY, int left, int top, int width, int height,
+				RenderingHints hints) {
+			return valid && quality == context.getQuality()
+				&& this.offsetX == offsetX && this.offsetY == offsetY
+				&& this.left == left && this.top == top
+				&& image.getWidth() == width && image.getHeight() == height
+				&& this.hints.equals(hints);
+		}
+	}
+}
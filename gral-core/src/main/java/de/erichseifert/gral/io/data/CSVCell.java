@@ -0,0 +1,344 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Text of a single CSV cell that can be converted to numbers without
+ * creating intermediate strings. The cell is reused for all cells of a file.
+ */
+final class CSVCell {
+	/** Exact powers of ten that can be represented as {@code double}
+	values. */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	/** Maximal number of significant digits whose value can be
+	represented exactly as {@code double} value. */
+	private static final int MAX_EXACT_DIGITS = 15;
+	/** Maximal number of digits that can be parsed to a {@code long}
+	value without overflow. */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	/** Characters of the cell. */
+	private char[] chars;
+	/** Number of characters in the cell. */
+	private int length;
+	/** Value of the last number that has been parsed. */
+	private double doubleValue;
+	/** Value of the last integer that has been parsed. */
+	private long longValue;
+
+	/**
+	 * Initializes a new empty cell.
+	 */
+	public CSVCell() {
+		chars = new char[64];
+	}
+
+	/**
+	 * Adds a character to the cell.
+	 * @param c Character.
+	 */
+	public void append(char c) {
+		if (length == chars.length) {
+			chars = Arrays.copyOf(chars, 2*chars.length);
+		}
+		chars[length++] = c;
+	}
+
+	/**
+	 * Removes all characters from the cell.
+	 */
+	public void clear() {
+		length = 0;
+	}
+
+	/**
+	 * Returns the number of characters in the cell.
+	 * @return Number of characters.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Returns the index of the first character that isn't white space.
+	 * @return Index of the first character.
+	 */
+	public int trimmedStart() {
+		int start = 0;
+		while (start < length && chars[start] <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * Returns the index after the last character that isn't white space.
+	 * @param start Index of the first character.
+	 * @return Index after the last character.
+	 */
+	public int trimmedEnd(int start) {
+		int end = length;
+		while (end > start && chars[end - 1] <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Returns the specified part of the cell as a string.
+	 * @param start Index of the first character.
+	 * @param end Index after the last character.
+	 * @return Text of the cell.
+	 */
+	public String toString(int start, int end) {
+		return new String(chars, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return toString(0, length);
+	}
+
+	/**
+	 * Returns the value of the last number that has been parsed with
+	 * {@link #parseDouble(int, int)}.
+	 * @return Numeric value.
+	 */
+	public double getDouble() {
+		return doubleValue;
+	}
+
+	/**
+	 * Returns the value of the last integer that has been parsed with
+	 * {@link #parseLong(int, int, Class)}.
+	 * @return Integer value.
+	 */
+	public long getLong() {
+		return longValue;
+	}
+
+	/**
+	 * Parses a decimal number like {@code -12.5e3} in the specified part of
+	 * the cell. Only numbers that can be converted exactly with a single
+	 * multiplication or division are handled, all other input has to be
+	 * parsed with {@link Double#parseDouble(String)}.
+	 * @param start Index of the first character.
+	 * @param end Index after the last character.
+	 * @return {@code true} if the number could be parsed, {@code false}
+	 *         otherwise.
+	 */
+	public boolean parseDouble(int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0L;
+		int digits = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		boolean fraction = false;
+		for (; i < end; i++) {
+			char c = chars[i];
+			if (c >= '0' && c <= '9') {
+				hasDigits = true;
+				if (mantissa > 0L || c != '0') {
+					if (++digits > MAX_EXACT_DIGITS) {
+						return false;
+					}
+					mantissa = 10L*mantissa + (c - '0');
+				}
+				if (fraction) {
+					exponent--;
+				}
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+				break;
+			}
+		}
+		if (!hasDigits) {
+			return false;
+		}
+
+		if (i < end) {
+			if (chars[i] != 'e' && chars[i] != 'E') {
+				return false;
+			}
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+				negativeExponent = chars[i] == '-';
+				i++;
+			}
+			if (i == end) {
+				return false;
+			}
+			int exponentValue = 0;
+			for (; i < end; i++) {
+				char c = chars[i];
+				if (c < '0' || c > '9' || exponentValue > 1000) {
+					return false;
+				}
+				exponentValue = 10*exponentValue + (c - '0');
+			}
+			exponent += negativeExponent ? -exponentValue : exponentValue;
+		}
+
+		double value;
+		if (mantissa == 0L) {
+			value = 0.0;
+		} else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+			value = mantissa*POWERS_OF_TEN[exponent];
+		} else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+			value = mantissa/POWERS_OF_TEN[-exponent];
+		} else {
+			return false;
+		}
+		doubleValue = negative ? -value : value;
+		return true;
+	}
+
+	/**
+	 * Parses a decimal integer in the specified part of the cell. Input
+	 * that is too long or that exceeds the range of the specified type has
+	 * to be parsed with the parse method of the type.
+	 * @param start Index of the first character.
+	 * @param end Index after the last character.
+	 * @param type Integer type.
+	 * @return {@code true} if the number could be parsed, {@code false}
+	 *         otherwise.
+	 */
+	public boolean parseLong(int start, int end, Class<?> type) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		if (i == end || end - i > MAX_LONG_DIGITS) {
+			return false;
+		}
+		long value = 0L;
+		for (; i < end; i++) {
+			char c = chars[i];
+			if (c < '0' || c > '9') {
+				return false;
+			}
+			value = 10L*value + (c - '0');
+		}
+		if (negative) {
+			value = -value;
+		}
+
+		long min = Long.MIN_VALUE;
+		long max = Long.MAX_VALUE;
+		if (type == Integer.class) {
+			min = Integer.MIN_VALUE;
+			max = Integer.MAX_VALUE;
+		} else if (type == Short.class) {
+			min = Short.MIN_VALUE;
+			max = Short.MAX_VALUE;
+		} else if (type == Byte.class) {
+			min = Byte.MIN_VALUE;
+			max = Byte.MAX_VALUE;
+		}
+		if (value < min || value > max) {
+			return false;
+		}
+		longValue = value;
+		return true;
+	}
+
+	/**
+	 * Returns whether values of the specified type can be parsed with
+	 * {@link #parseLong(int, int, Class)}.
+	 * @param type Column type.
+	 * @return {@code true} for integer types, {@code false} otherwise.
+	 */
+	public static boolean isIntegerType(Class<?> type) {
+		return type == Long.class || type == Integer.class ||
+			type == Short.class || type == Byte.class;
+	}
+
+	/**
+	 * Converts an integer value to an object of the specified integer type.
+	 * @param value Integer value.
+	 * @param type Integer type.
+	 * @return Object of the specified type.
+	 */
+	public static Comparable<?> valueOf(long value, Class<?> type) {
+		if (type == Integer.class) {
+			return Integer.valueOf((int) value);
+		} else if (type == Short.class) {
+			return Short.valueOf((short) value);
+		} else if (type == Byte.class) {
+			return Byte.valueOf((byte) value);
+		}
+		return Long.valueOf(value);
+	}
+
+	/**
+	 * Returns a method that can return a parsed value of the specified type.
+	 * @param c Desired type.
+	 * @return Method that parses a data type.
+	 */
+	public static Method getParseMethod(Class<?> c) {
+		Method parse = null;
+
+		if (String.class.isAssignableFrom(c)) {
+			try {
+				parse = String.class.getMethod("valueOf", Object.class);
+			} catch (NoSuchMethodException e) {
+			}
+		} else {
+			for (Method m : c.getMethods()) {
+				boolean isStatic = m.toString().contains("static"); //$NON-NLS-1$
+				if (!isStatic) {
+					continue;
+				}
+				Class<?>[] types = m.getParameterTypes();
+				boolean hasStringParameter =
+					(types.length == 1) && String.class.equals(types[0]);
+				if (!hasStringParameter) {
+					continue;
+				}
+				// Check method name for a pattern like "parseInt*" for Integer or
+				// "parseSho*" for Short to avoid collisions
+				if (!m.getName().startsWith("parse" + c.getSimpleName().substring(0, 3))) {  //$NON-NLS-1$
+					continue;
+				}
+				parse = m;
+			}
+		}
+
+		return parse;
+	}
+}
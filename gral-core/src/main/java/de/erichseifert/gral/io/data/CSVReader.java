@@ -21,24 +21,38 @@
  */
 package de.erichseifert.gral.io.data;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.text.MessageFormat;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.ListIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
+import de.erichseifert.gral.data.ColumnarDataTable;
+import de.erichseifert.gral.data.ColumnarDataTable.RowAppender;
 import de.erichseifert.gral.data.DataSource;
-import de.erichseifert.gral.data.DataTable;
 import de.erichseifert.gral.io.IOCapabilities;
 import de.erichseifert.gral.util.Messages;
-import de.erichseifert.gral.util.StatefulTokenizer;
-import de.erichseifert.gral.util.StatefulTokenizer.Token;
 
 
 /**
@@ -46,6 +60,11 @@ import de.erichseifert.gral.util.StatefulTokenizer.Token;
  * separated by a certain delimiter character. The delimiter is chosen based on
  * the file type but can also be set manually. By default the comma character
  * will be used as a delimiter for separating columns.</p>
+ * <p>The input is decoded and parsed in chunks of fixed size, so the whole
+ * file is never held in memory. Numeric values are parsed without creating
+ * intermediate strings and stored in a {@link ColumnarDataTable}. Large
+ * inputs can be parsed by several threads by setting an executor with the
+ * {@link #EXECUTOR} setting.</p>
  * <p>{@code CSVReader} instances should be obtained by the
  * {@link DataReaderFactory} rather than being created manually:</p>
  * <pre>
@@ -60,6 +79,20 @@ public class CSVReader extends AbstractDataReader {
 	delimiting character used to separate columns. */
 	public static final String SEPARATOR_CHAR = "separator"; //$NON-NLS-1$
 
+	/** Key for specifying an {@link ExecutorService} that parses parts of
+	the input concurrently. By default, the input is parsed by the calling
+	thread. */
+	public static final String EXECUTOR = "executor"; //$NON-NLS-1$
+
+	/** Number of bytes and characters that are processed at once. */
+	private static final int BUFFER_SIZE = 64*1024;
+	/** Number of bytes that are parsed by a single task if an executor is
+	used. */
+	private static final int CHUNK_SIZE = 4*1024*1024;
+	/** Maximal number of chunks that are buffered before the oldest chunk
+	is joined with the result. */
+	private static final int MAX_PENDING_CHUNKS = 16;
+
 	static {
 		addCapabilities(new IOCapabilities(
 			"CSV", //$NON-NLS-1$
@@ -77,54 +110,6 @@ public class CSVReader extends AbstractDataReader {
 		));
 	}
 
-	/**
-	 * Token types for analyzing CSV or TSV input.
-	 */
-	private static enum CSVTokenType {
-		/** Type for text tokens containing empty content. */
-		EMPTY_SPACE,
-		/** Type for text tokens containing value content. */
-		TEXT,
-		/** Type for quotes that may wrap value content. */
-		QUOTE,
-		/** Type for row separators. */
-		ROW_SEPARATOR,
-		/** Type for column separators. */
-		COLUMN_SEPARATOR,
-	}
-
-	/**
-	 *
-	 */
-	private static final class CSVTokenizer extends StatefulTokenizer {
-		/**
-		 * Initializes a new tokenizer instance with a grammar to analyze CSV
-		 * or TSV content. The character that separates columns must be
-		 * provided.
-		 * @param separator Column separator character.
-		 */
-		public CSVTokenizer(char separator) {
-			addJoinedType(CSVTokenType.TEXT);
-			addIgnoredType(CSVTokenType.QUOTE);
-
-			// Basic Set of rules for analyzing CSV content
-			putRules(
-				new Rule("\n|\r\n|\r", CSVTokenType.ROW_SEPARATOR),
-				new Rule(Pattern.quote(String.valueOf(separator)),
-						CSVTokenType.COLUMN_SEPARATOR),
-				new Rule("\"", CSVTokenType.QUOTE, "quoted"),
-				new Rule("[ \t]+", CSVTokenType.EMPTY_SPACE),
-				new Rule(".", CSVTokenType.TEXT)
-			);
-			// Set of rules that is valid inside quoted content
-			putRules("quoted",
-				new Rule("(\")\"", CSVTokenType.TEXT),
-				new Rule("\"", CSVTokenType.QUOTE, "#pop"),
-				new Rule(".", CSVTokenType.TEXT)
-			);
-		}
-	}
-
 	/**
 	 * Creates a new instance with the specified MIME type. The delimiter is
 	 * set depending on the MIME type parameter. By default a comma is used as
@@ -150,141 +135,558 @@ public class CSVReader extends AbstractDataReader {
 	 */
 	public DataSource read(InputStream input, Class<? extends Comparable<?>>... types)
 			throws IOException {
-		// Read all contents from the input stream
-		Scanner scanner = new Scanner(input).useDelimiter("\\Z");
-		String content = scanner.next();
+		return read(Channels.newChannel(input), types);
+	}
 
-		// Tokenize the string
+	/**
+	 * Returns a DataSource that was imported from a channel. The bytes are
+	 * decoded with the default character set of the platform. If an
+	 * executor has been set with the {@link #EXECUTOR} setting, the input
+	 * is split into chunks at row boundaries which are parsed concurrently.
+	 * @param input Channel to be read.
+	 * @param types Number types for the columns of the DataSource.
+	 * @return DataSource Imported data.
+	 * @throws IOException when the file format is not valid or when
+	 *         experiencing an error during file operations.
+	 */
+	public DataSource read(ReadableByteChannel input, Class<? extends Comparable<?>>... types)
+			throws IOException {
 		Character separator = getSetting(SEPARATOR_CHAR);
-		CSVTokenizer tokenizer = new CSVTokenizer(separator);
-		List<Token> tokens = tokenizer.tokenize(content);
-
-		// Add row token if there was no trailing line break
-		Token lastToken = tokens.get(tokens.size() - 1);
-		if (lastToken.getType() != CSVTokenType.ROW_SEPARATOR) {
-			Token eof = new Token(lastToken.getEnd(), lastToken.getEnd(),
-				CSVTokenType.ROW_SEPARATOR, "");
-			tokens.add(eof);
+		Method[] parseMethods = getParseMethods(types);
+		ExecutorService executor = getSetting(EXECUTOR);
+		if (executor != null && isAsciiCompatible(Charset.defaultCharset())) {
+			return readParallel(input, separator, types, parseMethods, executor);
 		}
 
-		// Find methods for all column data types that can be used to convert
-		// the text to the column data type
-		Map<Class<? extends Comparable<?>>, Method> parseMethods =
-			new HashMap<Class<? extends Comparable<?>>, Method>();
-		for (Class<? extends Comparable<?>> type : types) {
-			if (parseMethods.containsKey(type)) {
-				continue;
-			}
-			Method parseMethod = getParseMethod(type);
-			if (parseMethod != null) {
-				parseMethods.put(type, parseMethod);
-			}
+		CharsetDecoder decoder = createDecoder();
+		ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+		CSVParser parser = new CSVParser(separator, types, parseMethods, 0);
+
+		boolean endOfInput = false;
+		while (!endOfInput) {
+			endOfInput = input.read(bytes) < 0;
+			bytes.flip();
+			decode(decoder, bytes, chars, endOfInput, parser);
+			bytes.compact();
 		}
+		flush(decoder, chars, parser);
 
-		// Process the data and store the data.
-		DataTable data = new DataTable(types);
-		List<Comparable<?>> row = new LinkedList<Comparable<?>>();
-		int rowIndex = 0;
-		int colIndex = 0;
-		String cellContent = "";
-		for (Token token : tokens) {
-			if (token.getType() == CSVTokenType.TEXT ||
-					token.getType() == CSVTokenType.EMPTY_SPACE) {
-				// Store the token text
-				cellContent += token.getContent();
-			} else if (token.getType() == CSVTokenType.COLUMN_SEPARATOR ||
-					token.getType() == CSVTokenType.ROW_SEPARATOR) {
-				// Check for a valid number of columns
-				if (colIndex >= types.length) {
-					throw new IllegalArgumentException(MessageFormat.format(
-						"Too many columns in line {0,number,integer}: got {1,number,integer}, but expected {2,number,integer}.", //$NON-NLS-1$
-						rowIndex + 1, colIndex + 1, types.length));
+		return parser.finish();
+	}
+
+	/**
+	 * Reads the input in chunks that end at row boundaries and parses the
+	 * chunks concurrently. The resulting tables are joined in the order of
+	 * the input.
+	 * @param input Channel to be read.
+	 * @param separator Character that separates columns.
+	 * @param types Number types for the columns of the DataSource.
+	 * @param parseMethods Methods that parse the values of each column.
+	 * @param executor Service that parses the chunks.
+	 * @return DataSource Imported data.
+	 * @throws IOException when the file format is not valid or when
+	 *         experiencing an error during file operations.
+	 */
+	private static DataSource readParallel(ReadableByteChannel input,
+			char separator, Class<? extends Comparable<?>>[] types,
+			Method[] parseMethods, ExecutorService executor) throws IOException {
+		LinkedList<Future<ColumnarDataTable>> chunks =
+			new LinkedList<Future<ColumnarDataTable>>();
+		List<ColumnarDataTable> chunkData = new ArrayList<ColumnarDataTable>();
+		try {
+			byte[] chunk = new byte[CHUNK_SIZE];
+			// Number of bytes in the chunk
+			int length = 0;
+			// Number of bytes that have been checked for row boundaries
+			int scanned = 0;
+			// Position after the last complete row of the chunk
+			int boundary = 0;
+			// Number of rows before the boundary and in the whole chunk
+			int boundaryRows = 0;
+			int chunkRows = 0;
+			// Index of the first row of the chunk
+			int firstRow = 0;
+			boolean quoted = false;
+			boolean carriageReturn = false;
+			boolean endOfInput = false;
+			while (!endOfInput) {
+				int count = input.read(ByteBuffer.wrap(chunk, length, chunk.length - length));
+				if (count < 0) {
+					endOfInput = true;
+				} else {
+					length += count;
 				}
 
-				// We need to add the cell to the row in both cases because
-				// rows don't have a trailing column token
-				Class<? extends Comparable<?>> colType = types[colIndex];
-				Method parseMethod = parseMethods.get(colType);
-				Comparable<?> cell = null;
-				try {
-					cell = (Comparable<?>) parseMethod.invoke(
-						null, cellContent.trim());
-
-				} catch (IllegalArgumentException e) {
-					throw new RuntimeException(MessageFormat.format(
-						"Could not invoke method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
-						types[colIndex].getSimpleName(), colIndex));
-				} catch (IllegalAccessException e) {
-					throw new RuntimeException(MessageFormat.format(
-						"Could not access method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
-						types[colIndex].getSimpleName(), colIndex));
-				} catch (InvocationTargetException e) {
-					if (!cellContent.isEmpty()) {
-						throw new IOException(MessageFormat.format(
-							"Type mismatch in line {0,number,integer}, column {1,number,integer}: got \"{2}\", but expected {3} value.", //$NON-NLS-1$
-							rowIndex + 1, colIndex + 1, cellContent, colType.getSimpleName()));
+				// Only line feeds are used as boundaries, because a carriage
+				// return could be followed by a line feed in the next chunk
+				for (; scanned < length; scanned++) {
+					byte b = chunk[scanned];
+					boolean lineFeedSkipped = carriageReturn;
+					carriageReturn = false;
+					if (quoted) {
+						if (b == '"') {
+							quoted = false;
+						}
+					} else if (b == '"') {
+						quoted = true;
+					} else if (b == '\n') {
+						if (!lineFeedSkipped) {
+							chunkRows++;
+						}
+						boundary = scanned + 1;
+						boundaryRows = chunkRows;
+					} else if (b == '\r') {
+						chunkRows++;
+						carriageReturn = true;
 					}
 				}
-				row.add(cell);
-				colIndex++;
-
-				if (token.getType() == CSVTokenType.ROW_SEPARATOR) {
-					// Check for a valid number of columns
-					if (row.size() < types.length) {
-						throw new IllegalArgumentException(MessageFormat.format(
-							"Not enough columns in line {0,number,integer}: got {1,number,integer}, but expected {2,number,integer}.", //$NON-NLS-1$
-							rowIndex + 1, row.size(), types.length));
+
+				if (endOfInput) {
+					chunks.add(submit(executor, chunk, length, separator,
+						types, parseMethods, firstRow, chunkRows + 1));
+				} else if (length == chunk.length) {
+					if (boundary == 0) {
+						// The chunk doesn't contain a complete row
+						chunk = Arrays.copyOf(chunk, 2*chunk.length);
+						continue;
 					}
+					chunks.add(submit(executor, chunk, boundary, separator,
+						types, parseMethods, firstRow, boundaryRows));
 
-					// Add the row to the table
-					data.add(row);
-					rowIndex++;
+					// Move the incomplete row to a new chunk
+					byte[] next = new byte[Math.max(CHUNK_SIZE, 2*(length - boundary))];
+					System.arraycopy(chunk, boundary, next, 0, length - boundary);
+					chunk = next;
+					length -= boundary;
+					scanned -= boundary;
+					chunkRows -= boundaryRows;
+					firstRow += boundaryRows;
+					boundary = 0;
+					boundaryRows = 0;
+				}
 
-					// Start a new row
-					row.clear();
-					colIndex = 0;
+				// Wait for the oldest chunks to limit the amount of buffered input
+				while (chunks.size() > MAX_PENDING_CHUNKS || (endOfInput && !chunks.isEmpty())) {
+					chunkData.add(getResult(chunks.removeFirst()));
 				}
-				cellContent = "";
+			}
+		} finally {
+			for (Future<ColumnarDataTable> chunk : chunks) {
+				chunk.cancel(false);
 			}
 		}
 
+		// Join the chunks in a table of the final size
+		int rowCount = 0;
+		for (ColumnarDataTable table : chunkData) {
+			rowCount += table.getRowCount();
+		}
+		ColumnarDataTable data = new ColumnarDataTable(types);
+		data.ensureCapacity(rowCount);
+		for (ListIterator<ColumnarDataTable> i = chunkData.listIterator(); i.hasNext();) {
+			data.addAll(i.next());
+			i.set(null);
+		}
 		return data;
 	}
 
 	/**
-	 * Returns a method that can return a parsed value of the specified type.
-	 * @param c Desired type.
-	 * @return Method that parses a data type.
+	 * Starts parsing a chunk of the input. The chunk is parsed by the
+	 * calling thread if the executor doesn't accept it.
+	 * @param executor Service that parses the chunk.
+	 * @param chunk Bytes of the chunk.
+	 * @param length Number of bytes of the chunk.
+	 * @param separator Character that separates columns.
+	 * @param types Number types for the columns of the DataSource.
+	 * @param parseMethods Methods that parse the values of each column.
+	 * @param firstRow Index of the first row of the chunk.
+	 * @param rowCount Expected number of rows of the chunk.
+	 * @return Object that provides the parsed values of the chunk.
 	 */
-	private static Method getParseMethod(Class<?> c) {
-		Method parse = null;
+	private static Future<ColumnarDataTable> submit(ExecutorService executor,
+			final byte[] chunk, final int length, final char separator,
+			final Class<? extends Comparable<?>>[] types,
+			final Method[] parseMethods, final int firstRow, final int rowCount) {
+		FutureTask<ColumnarDataTable> task = new FutureTask<ColumnarDataTable>(
+				new Callable<ColumnarDataTable>() {
+			public ColumnarDataTable call() throws IOException {
+				CharsetDecoder decoder = createDecoder();
+				CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+				CSVParser parser = new CSVParser(separator, types, parseMethods, firstRow);
+				parser.ensureCapacity(rowCount);
+				decode(decoder, ByteBuffer.wrap(chunk, 0, length), chars, true, parser);
+				flush(decoder, chars, parser);
+				return parser.finish();
+			}
+		});
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+		return task;
+	}
 
-		if (String.class.isAssignableFrom(c)) {
-			try {
-				parse = String.class.getMethod("valueOf", Object.class);
-			} catch (NoSuchMethodException e) {
+	/**
+	 * Waits until a chunk has been parsed and returns its values.
+	 * @param chunk Object that provides the parsed values of the chunk.
+	 * @return Table containing the values of the chunk.
+	 * @throws IOException if the chunk could not be parsed.
+	 */
+	private static ColumnarDataTable getResult(Future<ColumnarDataTable> chunk)
+			throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+				"Interrupted while waiting for parsed values."); //$NON-NLS-1$
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
 			}
-		} else {
-			for (Method m : c.getMethods()) {
-				boolean isStatic = m.toString().contains("static"); //$NON-NLS-1$
-				if (!isStatic) {
-					continue;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Returns a decoder for the default character set of the platform that
+	 * replaces invalid input.
+	 * @return Decoder.
+	 */
+	private static CharsetDecoder createDecoder() {
+		return Charset.defaultCharset().newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Decodes the remaining bytes of a buffer and passes the characters to
+	 * the parser.
+	 * @param decoder Decoder.
+	 * @param bytes Bytes to be decoded.
+	 * @param chars Buffer for the decoded characters.
+	 * @param endOfInput {@code true} if there are no more bytes.
+	 * @param parser Parser.
+	 * @throws IOException if a value doesn't match the column type.
+	 */
+	private static void decode(CharsetDecoder decoder, ByteBuffer bytes,
+			CharBuffer chars, boolean endOfInput, CSVParser parser) throws IOException {
+		CoderResult result;
+		do {
+			result = decoder.decode(bytes, chars, endOfInput);
+			chars.flip();
+			parser.parse(chars);
+			chars.clear();
+		} while (result.isOverflow());
+	}
+
+	/**
+	 * Passes the characters that are still held by the decoder to the
+	 * parser.
+	 * @param decoder Decoder.
+	 * @param chars Buffer for the decoded characters.
+	 * @param parser Parser.
+	 * @throws IOException if a value doesn't match the column type.
+	 */
+	private static void flush(CharsetDecoder decoder, CharBuffer chars,
+			CSVParser parser) throws IOException {
+		CoderResult result;
+		do {
+			result = decoder.flush(chars);
+			chars.flip();
+			parser.parse(chars);
+			chars.clear();
+		} while (result.isOverflow());
+	}
+
+	/**
+	 * Returns whether line breaks and quotes are encoded as single ASCII
+	 * bytes in the specified character set, so the input can be split at
+	 * row boundaries before it is decoded.
+	 * @param charset Character set.
+	 * @return {@code true} if the input can be split, {@code false}
+	 *         otherwise.
+	 */
+	private static boolean isAsciiCompatible(Charset charset) {
+		return Arrays.equals("\r\n\"".getBytes(charset), //$NON-NLS-1$
+			new byte[] {'\r', '\n', '"'});
+	}
+
+	/**
+	 * Returns the methods that parse the text of a cell for each column.
+	 * @param types Types of the columns.
+	 * @return Parse methods.
+	 */
+	private static Method[] getParseMethods(Class<? extends Comparable<?>>[] types) {
+		Method[] parseMethods = new Method[types.length];
+		for (int col = 0; col < types.length; col++) {
+			parseMethods[col] = CSVCell.getParseMethod(types[col]);
+			if (parseMethods[col] == null) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Could not find method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
+					types[col].getSimpleName(), col));
+			}
+		}
+		return parseMethods;
+	}
+
+	/**
+	 * Returns a data source that reads the values of a file on demand
+	 * instead of importing them. The separator setting of this reader is
+	 * used to split the rows.
+	 * @param file File to be read.
+	 * @param types Types of the columns.
+	 * @return Data source that is backed by the file.
+	 * @throws IOException if the file cannot be mapped.
+	 * @see MappedCSVData
+	 */
+	public MappedCSVData map(File file, Class<? extends Comparable<?>>... types)
+			throws IOException {
+		Character separator = getSetting(SEPARATOR_CHAR);
+		return new MappedCSVData(file, separator, types);
+	}
+
+	/**
+	 * Returns a data source that reads the values of a file on demand
+	 * instead of importing them. The row index is stored in the specified
+	 * index file, so it doesn't have to be built again the next time.
+	 * @param file File to be read.
+	 * @param indexFile File that stores the row index.
+	 * @param types Types of the columns.
+	 * @return Data source that is backed by the file.
+	 * @throws IOException if the file cannot be mapped.
+	 * @see MappedCSVData
+	 */
+	public MappedCSVData map(File file, File indexFile,
+			Class<? extends Comparable<?>>... types) throws IOException {
+		Character separator = getSetting(SEPARATOR_CHAR);
+		return new MappedCSVData(file, indexFile, separator, types);
+	}
+
+	/**
+	 * Parser that reads CSV or TSV content character by character and
+	 * stores the values of each row in a table. The content can be passed
+	 * in arbitrary chunks.
+	 */
+	private static final class CSVParser {
+		/** Character that separates columns. */
+		private final char separator;
+		/** Types of the columns. */
+		private final Class<? extends Comparable<?>>[] types;
+		/** Methods that parse the text of a cell for each column. */
+		private final Method[] parseMethods;
+		/** Table that stores the values. */
+		private final ColumnarDataTable data;
+		/** Object that adds the rows to the table. */
+		private final RowAppender appender;
+
+		/** Text of the current cell. */
+		private final CSVCell cell;
+		/** Decides whether the parser is inside a quoted section. */
+		private boolean quoted;
+		/** Decides whether the last character was a quote inside a quoted
+		section. */
+		private boolean quotePending;
+		/** Decides whether the last row was terminated by a carriage
+		return, which may be followed by a line feed. */
+		private boolean carriageReturn;
+		/** Decides whether any content of the current row has been read. */
+		private boolean rowStarted;
+		/** Index of the current row. */
+		private int rowIndex;
+		/** Index of the current column. */
+		private int colIndex;
+
+		/**
+		 * Initializes a new parser.
+		 * @param separator Character that separates columns.
+		 * @param types Types of the columns.
+		 * @param parseMethods Methods that parse the text of a cell for
+		 *        each column.
+		 * @param firstRow Index of the first row in the input, which is
+		 *        used in error messages.
+		 */
+		public CSVParser(char separator, Class<? extends Comparable<?>>[] types,
+				Method[] parseMethods, int firstRow) {
+			this.separator = separator;
+			this.types = types;
+			this.parseMethods = parseMethods;
+			rowIndex = firstRow;
+			data = new ColumnarDataTable(types);
+			appender = data.createAppender();
+			cell = new CSVCell();
+		}
+
+		/**
+		 * Makes sure the table can store the specified number of rows
+		 * without growing its columns again.
+		 * @param rowCount Expected number of rows.
+		 */
+		public void ensureCapacity(int rowCount) {
+			data.ensureCapacity(rowCount);
+		}
+
+		/**
+		 * Processes all remaining characters of the specified buffer.
+		 * @param chars Characters to be processed.
+		 * @throws IOException if a value doesn't match the column type.
+		 */
+		public void parse(CharBuffer chars) throws IOException {
+			char[] array = chars.array();
+			int end = chars.arrayOffset() + chars.limit();
+			for (int i = chars.arrayOffset() + chars.position(); i < end; i++) {
+				char c = array[i];
+				if (carriageReturn) {
+					carriageReturn = false;
+					if (c == '\n') {
+						continue;
+					}
 				}
-				Class<?>[] types = m.getParameterTypes();
-				boolean hasStringParameter =
-					(types.length == 1) && String.class.equals(types[0]);
-				if (!hasStringParameter) {
-					continue;
+				if (quoted) {
+					if (quotePending) {
+						quotePending = false;
+						if (c == '"') {
+							// Two quotes are an escaped quote character
+							append(c);
+							continue;
+						}
+						quoted = false;
+					} else {
+						if (c == '"') {
+							quotePending = true;
+						} else {
+							append(c);
+						}
+						continue;
+					}
 				}
-				// Check method name for a pattern like "parseInt*" for Integer or
-				// "parseSho*" for Short to avoid collisions
-				if (!m.getName().startsWith("parse" + c.getSimpleName().substring(0, 3))) {  //$NON-NLS-1$
-					continue;
+				if (c == '\n' || c == '\r') {
+					endCell();
+					endRow();
+					carriageReturn = c == '\r';
+				} else if (c == separator) {
+					rowStarted = true;
+					endCell();
+				} else if (c == '"') {
+					rowStarted = true;
+					quoted = true;
+				} else {
+					append(c);
 				}
-				parse = m;
 			}
+			chars.position(chars.limit());
+		}
+
+		/**
+		 * Processes the end of the content and returns the table.
+		 * @return Table containing all values that have been read.
+		 * @throws IOException if a value doesn't match the column type.
+		 */
+		public ColumnarDataTable finish() throws IOException {
+			// Add the last row if there was no trailing line break
+			if (rowStarted) {
+				endCell();
+				endRow();
+			}
+			appender.flush();
+			return data;
+		}
+
+		/**
+		 * Adds a character to the current cell.
+		 * @param c Character.
+		 */
+		private void append(char c) {
+			cell.append(c);
+			rowStarted = true;
 		}
 
-		return parse;
+		/**
+		 * Stores the value of the current cell and starts a new cell.
+		 * @throws IOException if the value doesn't match the column type.
+		 */
+		private void endCell() throws IOException {
+			// Check for a valid number of columns
+			if (colIndex >= types.length) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Too many columns in line {0,number,integer}: got {1,number,integer}, but expected {2,number,integer}.", //$NON-NLS-1$
+					rowIndex + 1, colIndex + 1, types.length));
+			}
+
+			// Ignore leading and trailing white space
+			int start = cell.trimmedStart();
+			int end = cell.trimmedEnd(start);
+
+			Class<? extends Comparable<?>> colType = types[colIndex];
+			if (cell.length() == 0 && Number.class.isAssignableFrom(colType)) {
+				appender.set(colIndex, null);
+			} else if (colType == Double.class && cell.parseDouble(start, end)) {
+				appender.setDouble(colIndex, cell.getDouble());
+			} else if (CSVCell.isIntegerType(colType) &&
+					cell.parseLong(start, end, colType)) {
+				appender.setLong(colIndex, cell.getLong());
+			} else {
+				appender.set(colIndex, parse(start, end));
+			}
+
+			colIndex++;
+			cell.clear();
+		}
+
+		/**
+		 * Completes the current row.
+		 */
+		private void endRow() {
+			// Check for a valid number of columns
+			if (colIndex < types.length) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Not enough columns in line {0,number,integer}: got {1,number,integer}, but expected {2,number,integer}.", //$NON-NLS-1$
+					rowIndex + 1, colIndex, types.length));
+			}
+			appender.endRow();
+			rowIndex++;
+			colIndex = 0;
+			rowStarted = false;
+		}
+
+		/**
+		 * Parses the specified part of the current cell with the parse
+		 * method of the column type.
+		 * @param start Index of the first character.
+		 * @param end Index after the last character.
+		 * @return Parsed value, or {@code null} if the cell is empty and
+		 *         cannot be parsed.
+		 * @throws IOException if the value doesn't match the column type.
+		 */
+		private Comparable<?> parse(int start, int end) throws IOException {
+			String text = cell.toString(start, end);
+			Class<? extends Comparable<?>> colType = types[colIndex];
+			try {
+				return (Comparable<?>) parseMethods[colIndex].invoke(null, text);
+			} catch (IllegalArgumentException e) {
+				throw new RuntimeException(MessageFormat.format(
+					"Could not invoke method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
+					colType.getSimpleName(), colIndex));
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(MessageFormat.format(
+					"Could not access method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
+					colType.getSimpleName(), colIndex));
+			} catch (InvocationTargetException e) {
+				if (cell.length() > 0) {
+					throw new IOException(MessageFormat.format(
+						"Type mismatch in line {0,number,integer}, column {1,number,integer}: got \"{2}\", but expected {3} value.", //$NON-NLS-1$
+						rowIndex + 1, colIndex + 1, cell.toString(),
+						colType.getSimpleName()));
+				}
+				return null;
+			}
+		}
 	}
 }
@@ -23,9 +23,18 @@ package de.erichseifert.gral.io.data;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.Format;
 
 import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.data.NumericDataSource;
 import de.erichseifert.gral.io.IOCapabilities;
 import de.erichseifert.gral.util.Messages;
 
@@ -37,6 +46,10 @@ import de.erichseifert.gral.util.Messages;
  * also be set manually. By default the comma character will be used as a
  * delimiter for separating columns. Lines end with a carriage return and a
  * line feed character.</p>
+ * <p>The text is encoded in large blocks with the character set of the
+ * {@link #CHARSET} setting. Numbers are converted to text without creating
+ * intermediate strings, and the values of each column can be formatted with
+ * the {@link #COLUMN_FORMATS} setting.</p>
  * <p>{@code CSVWriter} instances should be obtained by the
  * {@link DataWriterFactory} rather than being created manually:</p>
  * <pre>
@@ -50,6 +63,18 @@ public class CSVWriter extends AbstractDataWriter {
 	/** Key for specifying a {@link Character} value that defines the
 	delimiting character used to separate columns. */
 	public static final String SEPARATOR_CHAR = CSVReader.SEPARATOR_CHAR;
+	/** Key for specifying the {@link Charset} that is used to encode the
+	text. By default, the character set of the platform is used. */
+	public static final String CHARSET = "charset"; //$NON-NLS-1$
+	/** Key for specifying an array of {@link Format} objects that convert
+	the values of each column to text. Values of columns without a format
+	are converted like {@link String#valueOf(Object)}. */
+	public static final String COLUMN_FORMATS = "columnFormats"; //$NON-NLS-1$
+
+	/** Number of characters that are encoded at once. */
+	private static final int BUFFER_SIZE = 64*1024;
+	/** Number of rows whose numbers are copied at once. */
+	private static final int BLOCK_ROWS = 1024;
 
 	static {
 		addCapabilities(new IOCapabilities(
@@ -81,6 +106,7 @@ public class CSVWriter extends AbstractDataWriter {
 		} else {
 			setDefault(SEPARATOR_CHAR, ','); //$NON-NLS-1$
 		}
+		setDefault(CHARSET, Charset.defaultCharset());
 	}
 
 	/**
@@ -91,23 +117,279 @@ public class CSVWriter extends AbstractDataWriter {
 	 */
 	public void write(DataSource data, OutputStream output) throws IOException {
 		Character separator = getSetting(SEPARATOR_CHAR);
-		OutputStreamWriter writer = new OutputStreamWriter(output);
-
-		int i = 0;
-		int colCount = data.getColumnCount();
-		for (Comparable<?> cell : data) {
-			writer.write(String.valueOf(cell));
-
-			int col = i % colCount;
-			if (col < colCount - 1) {
-				writer.write(separator);
-			} else {
-				writer.write("\r\n"); //$NON-NLS-1$
+		Charset charset = getSetting(CHARSET);
+		Format[] formats = getSetting(COLUMN_FORMATS);
+
+		Class<? extends Comparable<?>>[] types = data.getColumnTypes();
+		int cols = types.length;
+		int rows = data.getRowCount();
+		NumericDataSource numericData = null;
+		if (data instanceof NumericDataSource) {
+			numericData = (NumericDataSource) data;
+		}
+
+		// Double values are copied in blocks if no other format has been set
+		double[][] values = new double[cols][];
+		Format[] columnFormats = new Format[cols];
+		for (int col = 0; col < cols; col++) {
+			if (formats != null && col < formats.length) {
+				columnFormats[col] = formats[col];
+			}
+			if (columnFormats[col] == null && types[col] == Double.class &&
+					numericData != null) {
+				values[col] = new double[Math.min(BLOCK_ROWS, rows)];
 			}
-			i++;
 		}
 
-		writer.close();
+		CSVOutput out = new CSVOutput(Channels.newChannel(output), charset);
+		for (int fromRow = 0; fromRow < rows; fromRow += BLOCK_ROWS) {
+			int len = Math.min(BLOCK_ROWS, rows - fromRow);
+			for (int col = 0; col < cols; col++) {
+				if (values[col] != null) {
+					numericData.copyColumn(col, fromRow, values[col], 0, len);
+				}
+			}
+			for (int i = 0; i < len; i++) {
+				int row = fromRow + i;
+				for (int col = 0; col < cols; col++) {
+					if (col > 0) {
+						out.write(separator);
+					}
+					if (values[col] != null) {
+						double value = values[col][i];
+						// Only empty cells have to be distinguished from NaN values
+						if (Double.isNaN(value) && data.get(col, row) == null) {
+							out.write("null"); //$NON-NLS-1$
+						} else {
+							out.writeDouble(value);
+						}
+						continue;
+					}
+					Comparable<?> cell = data.get(col, row);
+					if (cell == null) {
+						out.write("null"); //$NON-NLS-1$
+					} else if (columnFormats[col] != null) {
+						out.write(columnFormats[col].format(cell));
+					} else if (cell instanceof Double) {
+						out.writeDouble((Double) cell);
+					} else if (cell instanceof Long || cell instanceof Integer ||
+							cell instanceof Short || cell instanceof Byte) {
+						out.writeLong(((Number) cell).longValue());
+					} else {
+						out.write(String.valueOf(cell));
+					}
+				}
+				out.write("\r\n"); //$NON-NLS-1$
+			}
+		}
+		out.flush();
+
+		output.close();
 	}
 
+	/**
+	 * Class that converts values to text and writes the encoded text in
+	 * large blocks to a channel. Numbers are converted without creating
+	 * intermediate strings.
+	 */
+	private static final class CSVOutput {
+		/** Exact powers of ten that can be represented as {@code double}
+		values. */
+		private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+		};
+		/** Smallest integer that cannot be represented exactly as
+		{@code double} value. */
+		private static final double MAX_EXACT_INTEGER = 9007199254740992.0;
+		/** Number of characters that are reserved for a single number. */
+		private static final int MAX_NUMBER_LENGTH = 32;
+
+		/** Channel that receives the bytes. */
+		private final WritableByteChannel channel;
+		/** Encoder of the text. */
+		private final CharsetEncoder encoder;
+		/** Characters that haven't been encoded yet. */
+		private final char[] chars;
+		/** Number of characters in the buffer. */
+		private int length;
+		/** Encoded bytes. */
+		private final ByteBuffer bytes;
+
+		/**
+		 * Initializes a new instance.
+		 * @param channel Channel that receives the bytes.
+		 * @param charset Character set of the text.
+		 */
+		public CSVOutput(WritableByteChannel channel, Charset charset) {
+			this.channel = channel;
+			encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			chars = new char[BUFFER_SIZE];
+			bytes = ByteBuffer.allocate(
+				(int) Math.ceil(BUFFER_SIZE*encoder.maxBytesPerChar()));
+		}
+
+		/**
+		 * Adds a character to the output.
+		 * @param c Character.
+		 * @throws IOException if writing the data failed.
+		 */
+		public void write(char c) throws IOException {
+			if (length == chars.length) {
+				encode(false);
+			}
+			chars[length++] = c;
+		}
+
+		/**
+		 * Adds a text to the output.
+		 * @param text Text.
+		 * @throws IOException if writing the data failed.
+		 */
+		public void write(String text) throws IOException {
+			int offset = 0;
+			while (offset < text.length()) {
+				if (length == chars.length) {
+					encode(false);
+				}
+				int count = Math.min(text.length() - offset, chars.length - length);
+				text.getChars(offset, offset + count, chars, length);
+				length += count;
+				offset += count;
+			}
+		}
+
+		/**
+		 * Adds the decimal representation of an integer to the output.
+		 * @param value Integer value.
+		 * @throws IOException if writing the data failed.
+		 */
+		public void writeLong(long value) throws IOException {
+			if (value == Long.MIN_VALUE) {
+				write(String.valueOf(value));
+				return;
+			}
+			reserve();
+			if (value < 0L) {
+				chars[length++] = '-';
+				value = -value;
+			}
+			appendDigits(value, 0);
+		}
+
+		/**
+		 * Adds the text of a {@code double} value to the output. The text
+		 * is the same as the text of {@link Double#toString(double)}.
+		 * Numbers between {@code 1e-3} and {@code 1e7} that can be
+		 * represented exactly with less than 16 digits are converted
+		 * directly, by finding the smallest number of fraction digits
+		 * that restores the same value.
+		 * @param value Value.
+		 * @throws IOException if writing the data failed.
+		 */
+		public void writeDouble(double value) throws IOException {
+			double abs = Math.abs(value);
+			if (abs >= 1e-3 && abs < 1e7) {
+				for (int digits = 0; digits < POWERS_OF_TEN.length; digits++) {
+					double scaled = abs*POWERS_OF_TEN[digits];
+					if (scaled >= MAX_EXACT_INTEGER) {
+						break;
+					}
+					double mantissa = Math.rint(scaled);
+					if (mantissa/POWERS_OF_TEN[digits] == abs) {
+						reserve();
+						if (value < 0.0) {
+							chars[length++] = '-';
+						}
+						long unit = (long) POWERS_OF_TEN[digits];
+						appendDigits((long) mantissa/unit, 0);
+						chars[length++] = '.';
+						if (digits == 0) {
+							chars[length++] = '0';
+						} else {
+							appendDigits((long) mantissa % unit, digits);
+						}
+						return;
+					}
+				}
+			}
+			write(Double.toString(value));
+		}
+
+		/**
+		 * Makes sure the buffer can store a number.
+		 * @throws IOException if writing the data failed.
+		 */
+		private void reserve() throws IOException {
+			if (chars.length - length < MAX_NUMBER_LENGTH) {
+				encode(false);
+			}
+		}
+
+		/**
+		 * Adds the decimal digits of a positive integer to the buffer.
+		 * @param value Positive integer.
+		 * @param minDigits Minimal number of digits. Leading zeros are
+		 *        added if the integer has fewer digits.
+		 */
+		private void appendDigits(long value, int minDigits) {
+			int digits = 1;
+			for (long v = value/10L; v > 0L; v /= 10L) {
+				digits++;
+			}
+			digits = Math.max(digits, minDigits);
+			int end = length + digits;
+			for (int i = end - 1; i >= length; i--) {
+				chars[i] = (char) ('0' + value % 10L);
+				value /= 10L;
+			}
+			length = end;
+		}
+
+		/**
+		 * Writes all remaining text to the channel.
+		 * @throws IOException if writing the data failed.
+		 */
+		public void flush() throws IOException {
+			encode(true);
+			CoderResult result;
+			do {
+				result = encoder.flush(bytes);
+				drain();
+			} while (result.isOverflow());
+		}
+
+		/**
+		 * Encodes the characters in the buffer and writes the bytes to the
+		 * channel.
+		 * @param endOfInput {@code true} if there are no more characters.
+		 * @throws IOException if writing the data failed.
+		 */
+		private void encode(boolean endOfInput) throws IOException {
+			CharBuffer buffer = CharBuffer.wrap(chars, 0, length);
+			CoderResult result;
+			do {
+				result = encoder.encode(buffer, bytes, endOfInput);
+				drain();
+			} while (result.isOverflow());
+			// Keep incomplete surrogate pairs for the next call
+			int remaining = buffer.remaining();
+			System.arraycopy(chars, buffer.position(), chars, 0, remaining);
+			length = remaining;
+		}
+
+		/**
+		 * Writes all encoded bytes to the channel.
+		 * @throws IOException if writing the data failed.
+		 */
+		private void drain() throws IOException {
+			bytes.flip();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			bytes.clear();
+		}
+	}
 }
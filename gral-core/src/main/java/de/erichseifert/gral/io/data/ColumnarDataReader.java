@@ -0,0 +1,325 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import de.erichseifert.gral.data.ColumnarDataTable;
+import de.erichseifert.gral.data.ColumnarDataTable.RowAppender;
+import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.io.IOCapabilities;
+import de.erichseifert.gral.util.Messages;
+
+
+/**
+ * <p>Class that reads a {@code DataSource} from a binary columnar file that
+ * has been written by {@link ColumnarDataWriter}. The column types are
+ * stored in the file and the values are read as blocks of primitive values
+ * without parsing them. The values are stored in a
+ * {@link ColumnarDataTable}.</p>
+ * <p>{@code ColumnarDataReader} instances should be obtained by the
+ * {@link DataReaderFactory} rather than being created manually:</p>
+ * <pre>
+ * DataReaderFactory factory = DataReaderFactory.getInstance();
+ * DataReader reader = factory.get("application/x-gral-columns");
+ * reader.read(new FileInputStream(filename));
+ * </pre>
+ * @see ColumnarDataWriter
+ */
+public class ColumnarDataReader extends AbstractDataReader {
+	/** Character set of strings. */
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	static {
+		addCapabilities(new IOCapabilities(
+			"GRAL", //$NON-NLS-1$
+			Messages.getString("DataIO.columnarDescription"), //$NON-NLS-1$
+			"application/x-gral-columns", //$NON-NLS-1$
+			new String[] {"gral"} //$NON-NLS-1$
+		));
+	}
+
+	/**
+	 * Creates a new instance with the specified MIME type.
+	 * @param mimeType MIME type of the file format to be read.
+	 */
+	public ColumnarDataReader(String mimeType) {
+		super(mimeType);
+	}
+
+	/**
+	 * Returns a DataSource that was imported. The column types are read
+	 * from the file. If column types are specified, they must match the
+	 * stored types, otherwise an {@code IllegalArgumentException} is
+	 * thrown.
+	 * @param input Input to be read.
+	 * @param types Expected types of the columns, or no types to accept
+	 *        all stored types.
+	 * @return DataSource Imported data.
+	 * @throws IOException when the file format is not valid or when
+	 *         experiencing an error during file operations.
+	 */
+	public DataSource read(InputStream input, Class<? extends Comparable<?>>... types)
+			throws IOException {
+		DataInputStream in = new DataInputStream(input);
+
+		byte[] headerBytes = new byte[ColumnarFormat.HEADER_SIZE];
+		in.readFully(headerBytes);
+		ByteBuffer header = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+		header.get(magic);
+		if (!Arrays.equals(magic, ColumnarFormat.MAGIC)) {
+			throw new IOException("Invalid file format."); //$NON-NLS-1$
+		}
+		short version = header.getShort();
+		if (version != ColumnarFormat.VERSION) {
+			throw new IOException(MessageFormat.format(
+				"Unsupported format version {0,number,integer}.", version)); //$NON-NLS-1$
+		}
+		header.getShort();
+		int cols = header.getInt();
+		int rows = header.getInt();
+		int blockRows = header.getInt();
+		if (cols < 0 || rows < 0 || blockRows <= 0) {
+			throw new IOException("Invalid file header."); //$NON-NLS-1$
+		}
+
+		int[] typeCodes = new int[cols];
+		Class<? extends Comparable<?>>[] columnTypes = new Class[cols];
+		for (int col = 0; col < cols; col++) {
+			typeCodes[col] = in.readUnsignedByte();
+			columnTypes[col] = ColumnarFormat.getType(typeCodes[col]);
+			if (columnTypes[col] == null) {
+				throw new IOException(MessageFormat.format(
+					"Unknown data type {0,number,integer} in column {1,number,integer}.", //$NON-NLS-1$
+					typeCodes[col], col));
+			}
+		}
+		if (types.length > 0 && !Arrays.equals(types, columnTypes)) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Wrong column types! Expected {0}, got {1}.", //$NON-NLS-1$
+				Arrays.toString(types), Arrays.toString(columnTypes)));
+		}
+
+		ColumnarDataTable data = new ColumnarDataTable(columnTypes);
+		data.ensureCapacity(rows);
+		RowAppender appender = data.createAppender();
+		BlockDecoder[] decoders = new BlockDecoder[cols];
+		for (int col = 0; col < cols; col++) {
+			decoders[col] = new BlockDecoder(typeCodes[col], Math.min(blockRows, rows));
+		}
+		Inflater inflater = new Inflater();
+		try {
+			for (int fromRow = 0; fromRow < rows; fromRow += blockRows) {
+				int len = Math.min(blockRows, rows - fromRow);
+				for (BlockDecoder decoder : decoders) {
+					decoder.read(in, inflater, len);
+				}
+				for (int i = 0; i < len; i++) {
+					for (int col = 0; col < cols; col++) {
+						decoders[col].store(appender, col, i);
+					}
+					appender.endRow();
+				}
+			}
+		} finally {
+			inflater.end();
+		}
+		appender.flush();
+		return data;
+	}
+
+	/**
+	 * Class that reads the blocks of a column. The buffers are reused for
+	 * all blocks.
+	 */
+	private static final class BlockDecoder {
+		/** Type code of the column. */
+		private final int typeCode;
+		/** Type of the column. */
+		private final Class<? extends Comparable<?>> type;
+		/** Floating point values of the current block. */
+		private double[] doubles;
+		/** Integer values of the current block. */
+		private long[] longs;
+		/** Strings of the current block. */
+		private String[] strings;
+		/** Rows of the current block that contain {@code null}. */
+		private byte[] nulls;
+		/** Decides whether the current block contains {@code null}. */
+		private boolean hasNulls;
+		/** Stored content of the current block. */
+		private byte[] stored;
+		/** Decoded content of the current block. */
+		private byte[] content;
+
+		/**
+		 * Initializes a new decoder.
+		 * @param typeCode Type code of the column.
+		 * @param blockRows Maximal number of rows of a block.
+		 */
+		public BlockDecoder(int typeCode, int blockRows) {
+			this.typeCode = typeCode;
+			type = ColumnarFormat.getType(typeCode);
+			if (type == Double.class || type == Float.class) {
+				doubles = new double[blockRows];
+			} else if (type == String.class) {
+				strings = new String[blockRows];
+			} else {
+				longs = new long[blockRows];
+			}
+			nulls = new byte[ColumnarFormat.getBitSetSize(blockRows)];
+			stored = new byte[0];
+			content = new byte[0];
+		}
+
+		/**
+		 * Reads the next block of the column.
+		 * @param in Input stream.
+		 * @param inflater Decompressor.
+		 * @param len Number of rows in the block.
+		 * @throws IOException if the block cannot be read.
+		 */
+		public void read(DataInputStream in, Inflater inflater, int len)
+				throws IOException {
+			byte[] headerBytes = new byte[ColumnarFormat.BLOCK_HEADER_SIZE];
+			in.readFully(headerBytes);
+			ByteBuffer header = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+			byte encoding = header.get();
+			int length = header.getInt();
+			int rawLength = header.getInt();
+			if (length < 0 || rawLength < 0) {
+				throw new IOException("Invalid block header."); //$NON-NLS-1$
+			}
+
+			if (stored.length < length) {
+				stored = new byte[length];
+			}
+			in.readFully(stored, 0, length);
+			byte[] raw = stored;
+			if (encoding == ColumnarFormat.ENCODING_DEFLATE) {
+				if (content.length < rawLength) {
+					content = new byte[rawLength];
+				}
+				inflater.reset();
+				inflater.setInput(stored, 0, length);
+				try {
+					if (inflater.inflate(content, 0, rawLength) != rawLength) {
+						throw new IOException("Invalid compressed block."); //$NON-NLS-1$
+					}
+				} catch (DataFormatException e) {
+					throw new IOException("Invalid compressed block."); //$NON-NLS-1$
+				}
+				raw = content;
+			} else if (encoding != ColumnarFormat.ENCODING_RAW || length != rawLength) {
+				throw new IOException(MessageFormat.format(
+					"Unknown block encoding {0,number,integer}.", encoding)); //$NON-NLS-1$
+			}
+
+			try {
+				decode(ByteBuffer.wrap(raw, 0, rawLength).order(ByteOrder.LITTLE_ENDIAN), len);
+			} catch (BufferUnderflowException e) {
+				throw new IOException("Block is too short."); //$NON-NLS-1$
+			}
+		}
+
+		/**
+		 * Reads the values of a block.
+		 * @param block Decoded content of the block.
+		 * @param len Number of rows in the block.
+		 */
+		private void decode(ByteBuffer block, int len) {
+			int valueSize = ColumnarFormat.getValueSize(typeCode);
+			if (valueSize > 0 && block.remaining() < valueSize*len + 1) {
+				throw new BufferUnderflowException();
+			}
+			if (type == Double.class) {
+				block.asDoubleBuffer().get(doubles, 0, len);
+			} else if (type == Float.class) {
+				for (int i = 0; i < len; i++) {
+					doubles[i] = block.getFloat(4*i);
+				}
+			} else if (type == Long.class) {
+				block.asLongBuffer().get(longs, 0, len);
+			} else if (type == Integer.class) {
+				for (int i = 0; i < len; i++) {
+					longs[i] = block.getInt(4*i);
+				}
+			} else if (type == Short.class) {
+				for (int i = 0; i < len; i++) {
+					longs[i] = block.getShort(2*i);
+				}
+			} else if (type == Byte.class) {
+				for (int i = 0; i < len; i++) {
+					longs[i] = block.get(i);
+				}
+			} else {
+				for (int i = 0; i < len; i++) {
+					int length = block.getInt();
+					if (length < 0 || length > block.remaining()) {
+						throw new BufferUnderflowException();
+					}
+					strings[i] = new String(block.array(),
+						block.arrayOffset() + block.position(), length, UTF_8);
+					block.position(block.position() + length);
+				}
+			}
+			if (valueSize > 0) {
+				block.position(valueSize*len);
+			}
+
+			hasNulls = block.get() != 0;
+			if (hasNulls) {
+				block.get(nulls, 0, ColumnarFormat.getBitSetSize(len));
+			}
+		}
+
+		/**
+		 * Stores a value of the current block in the current row of a
+		 * table.
+		 * @param appender Object that adds rows to the table.
+		 * @param col Column index.
+		 * @param i Index of the row in the block.
+		 */
+		public void store(RowAppender appender, int col, int i) {
+			if (hasNulls && (nulls[i >> 3] & (1 << (i & 7))) != 0) {
+				appender.set(col, null);
+			} else if (doubles != null) {
+				appender.setDouble(col, doubles[i]);
+			} else if (longs != null) {
+				appender.setLong(col, longs[i]);
+			} else {
+				appender.set(col, strings[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,324 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.data.NumericDataSource;
+import de.erichseifert.gral.io.IOCapabilities;
+import de.erichseifert.gral.util.Messages;
+
+
+/**
+ * <p>Class that writes all values of a {@code DataSource} to a binary
+ * columnar file. The values of each column are stored as blocks of
+ * primitive values, which can be read again without parsing. Columns of
+ * the types {@code Double}, {@code Float}, {@code Long}, {@code Integer},
+ * {@code Short}, {@code Byte}, and {@code String} are supported. Optionally,
+ * each block is compressed with the deflate algorithm.</p>
+ * <p>{@code ColumnarDataWriter} instances should be obtained by the
+ * {@link DataWriterFactory} rather than being created manually:</p>
+ * <pre>
+ * DataWriterFactory factory = DataWriterFactory.getInstance();
+ * DataWriter writer = factory.get("application/x-gral-columns");
+ * writer.write(data, new FileOutputStream(filename));
+ * </pre>
+ * @see ColumnarDataReader
+ */
+public class ColumnarDataWriter extends AbstractDataWriter {
+	/** Key for specifying a {@link Boolean} value that defines whether the
+	blocks are compressed. */
+	public static final String COMPRESSION = "compression"; //$NON-NLS-1$
+
+	/** Character set of strings. */
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	static {
+		addCapabilities(new IOCapabilities(
+			"GRAL", //$NON-NLS-1$
+			Messages.getString("DataIO.columnarDescription"), //$NON-NLS-1$
+			"application/x-gral-columns", //$NON-NLS-1$
+			new String[] {"gral"} //$NON-NLS-1$
+		));
+	}
+
+	/**
+	 * Creates a new instance with the specified MIME type. By default,
+	 * blocks are not compressed.
+	 * @param mimeType MIME type of the output file.
+	 */
+	public ColumnarDataWriter(String mimeType) {
+		super(mimeType);
+		setDefault(COMPRESSION, false);
+	}
+
+	/**
+	 * Stores the specified data source.
+	 * @param data DataSource to be stored.
+	 * @param output OutputStream to be written to.
+	 * @throws IOException if writing the data failed
+	 */
+	public void write(DataSource data, OutputStream output) throws IOException {
+		Boolean compression = getSetting(COMPRESSION);
+		Class<? extends Comparable<?>>[] types = data.getColumnTypes();
+		int cols = types.length;
+		int rows = data.getRowCount();
+		int blockRows = ColumnarFormat.BLOCK_ROWS;
+
+		ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.HEADER_SIZE + cols)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		header.put(ColumnarFormat.MAGIC);
+		header.putShort(ColumnarFormat.VERSION);
+		header.putShort((short) 0);
+		header.putInt(cols);
+		header.putInt(rows);
+		header.putInt(blockRows);
+		int[] typeCodes = new int[cols];
+		for (int col = 0; col < cols; col++) {
+			typeCodes[col] = ColumnarFormat.getTypeCode(types[col]);
+			if (typeCodes[col] < 0) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Unsupported data type {0} in column {1,number,integer}.", //$NON-NLS-1$
+					types[col].getSimpleName(), col));
+			}
+			header.put((byte) typeCodes[col]);
+		}
+		output.write(header.array(), 0, header.position());
+
+		BlockEncoder encoder = new BlockEncoder(data, blockRows,
+			Boolean.TRUE.equals(compression));
+		try {
+			for (int fromRow = 0; fromRow < rows; fromRow += blockRows) {
+				int len = Math.min(blockRows, rows - fromRow);
+				for (int col = 0; col < cols; col++) {
+					encoder.encode(col, typeCodes[col], fromRow, len);
+					encoder.write(output);
+				}
+			}
+		} finally {
+			encoder.end();
+		}
+		output.flush();
+	}
+
+	/**
+	 * Class that stores the values of a column in blocks. The buffers are
+	 * reused for all blocks.
+	 */
+	private static final class BlockEncoder {
+		/** Data source containing the values. */
+		private final DataSource data;
+		/** Compressor, or {@code null} if blocks aren't compressed. */
+		private final Deflater deflater;
+		/** Numeric values of the current block. */
+		private final double[] values;
+		/** Rows of the current block that contain {@code null}. */
+		private final byte[] nulls;
+		/** Decides whether the current block contains {@code null}. */
+		private boolean hasNulls;
+		/** Content of the current block. */
+		private ByteBuffer block;
+		/** Compressed content of the current block. */
+		private byte[] compressed;
+
+		/**
+		 * Initializes a new encoder.
+		 * @param data Data source containing the values.
+		 * @param blockRows Maximal number of rows of a block.
+		 * @param compression Decides whether blocks are compressed.
+		 */
+		public BlockEncoder(DataSource data, int blockRows, boolean compression) {
+			this.data = data;
+			deflater = compression ? new Deflater(Deflater.BEST_SPEED) : null;
+			values = new double[blockRows];
+			nulls = new byte[ColumnarFormat.getBitSetSize(blockRows)];
+			block = ByteBuffer.allocate(8*blockRows + nulls.length + 1)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			compressed = new byte[0];
+		}
+
+		/**
+		 * Stores values of a column in the block.
+		 * @param col Column index.
+		 * @param typeCode Type code of the column.
+		 * @param fromRow Index of the first row.
+		 * @param len Number of rows.
+		 */
+		public void encode(int col, int typeCode, int fromRow, int len) {
+			block.clear();
+			Arrays.fill(nulls, 0, ColumnarFormat.getBitSetSize(len), (byte) 0);
+			hasNulls = false;
+
+			Class<? extends Comparable<?>> type = ColumnarFormat.getType(typeCode);
+			if (type == Double.class || type == Float.class) {
+				copyDoubles(col, fromRow, len);
+				if (type == Double.class) {
+					block.asDoubleBuffer().put(values, 0, len);
+					block.position(block.position() + 8*len);
+				} else {
+					for (int i = 0; i < len; i++) {
+						block.putFloat((float) values[i]);
+					}
+				}
+			} else if (type == String.class) {
+				for (int i = 0; i < len; i++) {
+					Comparable<?> value = get(col, fromRow, i);
+					byte[] bytes = value != null
+						? value.toString().getBytes(UTF_8) : new byte[0];
+					ensureRemaining(4 + bytes.length);
+					block.putInt(bytes.length);
+					block.put(bytes);
+				}
+			} else {
+				for (int i = 0; i < len; i++) {
+					Number value = (Number) get(col, fromRow, i);
+					long longValue = value != null ? value.longValue() : 0L;
+					if (type == Long.class) {
+						block.putLong(longValue);
+					} else if (type == Integer.class) {
+						block.putInt((int) longValue);
+					} else if (type == Short.class) {
+						block.putShort((short) longValue);
+					} else {
+						block.put((byte) longValue);
+					}
+				}
+			}
+
+			int bitSetSize = ColumnarFormat.getBitSetSize(len);
+			ensureRemaining(1 + bitSetSize);
+			block.put((byte) (hasNulls ? 1 : 0));
+			if (hasNulls) {
+				block.put(nulls, 0, bitSetSize);
+			}
+		}
+
+		/**
+		 * Copies numeric values of a column to {@link #values}. Primitive
+		 * access is used if the data source supports it.
+		 * @param col Column index.
+		 * @param fromRow Index of the first row.
+		 * @param len Number of rows.
+		 */
+		private void copyDoubles(int col, int fromRow, int len) {
+			if (data instanceof NumericDataSource) {
+				((NumericDataSource) data).copyColumn(col, fromRow, values, 0, len);
+				// Only empty cells have to be distinguished from NaN values
+				for (int i = 0; i < len; i++) {
+					if (Double.isNaN(values[i])) {
+						get(col, fromRow, i);
+					}
+				}
+				return;
+			}
+			for (int i = 0; i < len; i++) {
+				Number value = (Number) get(col, fromRow, i);
+				values[i] = value != null ? value.doubleValue() : Double.NaN;
+			}
+		}
+
+		/**
+		 * Returns a value of the data source and marks the row if the value
+		 * is {@code null}.
+		 * @param col Column index.
+		 * @param fromRow Index of the first row of the block.
+		 * @param i Index of the row in the block.
+		 * @return Value.
+		 */
+		private Comparable<?> get(int col, int fromRow, int i) {
+			Comparable<?> value = data.get(col, fromRow + i);
+			if (value == null) {
+				nulls[i >> 3] |= 1 << (i & 7);
+				hasNulls = true;
+			}
+			return value;
+		}
+
+		/**
+		 * Makes sure the block can store the specified number of additional
+		 * bytes.
+		 * @param size Number of bytes.
+		 */
+		private void ensureRemaining(int size) {
+			if (block.remaining() >= size) {
+				return;
+			}
+			int capacity = Math.max(block.position() + size, 2*block.capacity());
+			ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+			block.flip();
+			grown.put(block);
+			block = grown;
+		}
+
+		/**
+		 * Writes the current block. The block is compressed if compression
+		 * is enabled and the compressed content is smaller.
+		 * @param output Output stream.
+		 * @throws IOException if writing the block failed.
+		 */
+		public void write(OutputStream output) throws IOException {
+			byte[] content = block.array();
+			int rawLength = block.position();
+			int length = rawLength;
+			byte encoding = ColumnarFormat.ENCODING_RAW;
+			if (deflater != null) {
+				deflater.reset();
+				deflater.setInput(content, 0, rawLength);
+				deflater.finish();
+				if (compressed.length < rawLength) {
+					compressed = new byte[rawLength];
+				}
+				int compressedLength = deflater.deflate(compressed, 0, rawLength);
+				if (deflater.finished() && compressedLength < rawLength) {
+					content = compressed;
+					length = compressedLength;
+					encoding = ColumnarFormat.ENCODING_DEFLATE;
+				}
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.BLOCK_HEADER_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			header.put(encoding);
+			header.putInt(length);
+			header.putInt(rawLength);
+			output.write(header.array());
+			output.write(content, 0, length);
+		}
+
+		/**
+		 * Releases the resources of the compressor.
+		 */
+		public void end() {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+/**
+ * <p>Constants of the binary columnar file format that is read by
+ * {@link ColumnarDataReader} and written by {@link ColumnarDataWriter}.
+ * All numbers are stored in little-endian byte order.</p>
+ * <p>The file starts with a header which contains the magic bytes
+ * {@code GRAL}, the format version as {@code short}, a reserved
+ * {@code short}, the number of columns, rows, and rows per block as
+ * {@code int}, and a type code for each column as {@code byte}.</p>
+ * <p>The rows are stored in groups of blocks. Each group contains one block
+ * for every column. A block starts with the encoding as {@code byte}, the
+ * number of stored bytes and the number of bytes after decoding as
+ * {@code int}. The decoded content of a block contains the values of the
+ * column, followed by a {@code byte} that signals whether the block contains
+ * {@code null} values, and optionally a bit set of the rows containing
+ * {@code null}. Numbers are stored as primitive values. Strings are stored as
+ * their number of bytes followed by their UTF-8 bytes.</p>
+ */
+final class ColumnarFormat {
+	/** Bytes that identify files of this format. */
+	public static final byte[] MAGIC = {'G', 'R', 'A', 'L'};
+	/** Version of the format. */
+	public static final short VERSION = 1;
+	/** Number of bytes in the header before the column types. */
+	public static final int HEADER_SIZE = 20;
+	/** Number of bytes in the header of a block. */
+	public static final int BLOCK_HEADER_SIZE = 9;
+	/** Default number of rows in each block. */
+	public static final int BLOCK_ROWS = 65536;
+
+	/** Encoding of blocks that are stored without changes. */
+	public static final byte ENCODING_RAW = 0;
+	/** Encoding of blocks that are compressed with the deflate
+	algorithm. */
+	public static final byte ENCODING_DEFLATE = 1;
+
+	/** Column types that can be stored. The index of a type is its type
+	code. */
+	private static final Class<?>[] TYPES = {
+		null, Double.class, Float.class, Long.class, Integer.class,
+		Short.class, Byte.class, String.class
+	};
+	/** Number of bytes of a value for each type code, or {@code -1} for
+	values with variable length. */
+	private static final int[] VALUE_SIZES = {
+		0, 8, 4, 8, 4, 2, 1, -1
+	};
+
+	/**
+	 * Default constructor that prevents creation of class.
+	 */
+	private ColumnarFormat() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns the code that is stored for the specified column type.
+	 * @param type Column type.
+	 * @return Type code, or {@code -1} if the type cannot be stored.
+	 */
+	public static int getTypeCode(Class<?> type) {
+		for (int code = 1; code < TYPES.length; code++) {
+			if (TYPES[code] == type) {
+				return code;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the column type for the specified type code.
+	 * @param code Type code.
+	 * @return Column type, or {@code null} if the code is unknown.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Class<? extends Comparable<?>> getType(int code) {
+		if (code <= 0 || code >= TYPES.length) {
+			return null;
+		}
+		return (Class<? extends Comparable<?>>) TYPES[code];
+	}
+
+	/**
+	 * Returns the number of bytes of a value with the specified type code.
+	 * @param code Type code.
+	 * @return Number of bytes, or {@code -1} for values with variable length.
+	 */
+	public static int getValueSize(int code) {
+		return VALUE_SIZES[code];
+	}
+
+	/**
+	 * Returns the number of bytes of a bit set for the specified number of
+	 * rows.
+	 * @param rows Number of rows.
+	 * @return Number of bytes.
+	 */
+	public static int getBitSetSize(int rows) {
+		return (rows + 7)/8;
+	}
+}
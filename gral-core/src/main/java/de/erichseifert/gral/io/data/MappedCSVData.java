@@ -0,0 +1,657 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+import de.erichseifert.gral.data.AbstractDataSource;
+import de.erichseifert.gral.data.DataRangeEvent;
+
+/**
+ * <p>Read-only data source that reads the values of a CSV or TSV file on
+ * demand instead of importing them. The file is mapped into memory and
+ * the cells are parsed each time they are accessed, so files that are much
+ * larger than the available heap can be displayed.</p>
+ * <p>The start of every {@value #INDEX_INTERVAL}th row is stored in a sparse
+ * index which is built in a background thread. The number of rows grows
+ * while the file is indexed and registered listeners are notified of the
+ * added rows from the indexing thread. Optionally, the index is written to
+ * a file and is loaded from there the next time the same file is opened.</p>
+ * <p>The cells are separated and quoted like in {@link CSVReader}. Cells
+ * that are missing or that can't be parsed as the type of their column are
+ * returned as {@code null}. The file must be encoded in a character set
+ * that is compatible with ASCII, like UTF-8 or ISO-8859-1.</p>
+ * @see CSVReader#map(File, File, Class...)
+ */
+public class MappedCSVData extends AbstractDataSource implements Closeable {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = -3417706640452811745L;
+
+	/** Number of rows between two entries of the row index. */
+	public static final int INDEX_INTERVAL = 64;
+	/** Number of rows that are indexed before listeners are notified. */
+	private static final int NOTIFY_INTERVAL = 65536;
+	/** Number of bits that define the size of the mapped regions. */
+	private static final int CHUNK_BITS = 30;
+	/** Number that identifies index files. */
+	private static final int INDEX_MAGIC = 0x4752414C;
+	/** Version of the index file format. */
+	private static final int INDEX_VERSION = 1;
+
+	/** File that contains the values. */
+	private final File file;
+	/** File that stores the row index, or {@code null}. */
+	private final File indexFile;
+	/** Character that separates columns. */
+	private final byte separator;
+	/** Number of bits that define the size of the mapped regions. */
+	private final int chunkBits;
+	/** Types of the columns. */
+	private final Class<? extends Comparable<?>>[] types;
+
+	/** Methods that parse the text of a cell for each column. */
+	private transient Method[] parseMethods;
+	/** Character set of the file. */
+	private transient Charset charset;
+	/** Length of the file in bytes. */
+	private transient long length;
+	/** Mapped regions of the file. */
+	private transient MappedByteBuffer[] chunks;
+	/** Start positions of every {@value #INDEX_INTERVAL}th row. */
+	private transient volatile long[] offsets;
+	/** Number of rows that have been indexed. */
+	private transient volatile int rowCount;
+	/** Decides whether all rows of the file have been indexed. */
+	private transient volatile boolean indexComplete;
+	/** Decides whether indexing has been stopped. */
+	private transient volatile boolean closed;
+	/** Thread that builds the row index. */
+	private transient Thread indexer;
+	/** Reading position of each thread. */
+	private transient ThreadLocal<Cursor> cursors;
+
+	/**
+	 * Reading position in the file. Each thread uses its own position, so
+	 * consecutive rows can be accessed without looking up the index.
+	 */
+	private static final class Cursor {
+		/** Index of the current row, or {@code -1}. */
+		private int row;
+		/** Start position of the current row. */
+		private long rowStart;
+		/** Bytes of the current cell. */
+		private byte[] bytes;
+		/** Number of bytes of the current cell. */
+		private int byteCount;
+		/** Text of the current cell. */
+		private final CSVCell cell;
+
+		/**
+		 * Initializes a new cursor that doesn't point to any row.
+		 */
+		public Cursor() {
+			row = -1;
+			bytes = new byte[64];
+			cell = new CSVCell();
+		}
+
+		/**
+		 * Adds a byte to the current cell.
+		 * @param b Byte.
+		 */
+		public void append(byte b) {
+			if (byteCount == bytes.length) {
+				bytes = Arrays.copyOf(bytes, 2*bytes.length);
+			}
+			bytes[byteCount++] = b;
+		}
+	}
+
+	/**
+	 * Initializes a new instance that reads the specified file. The row
+	 * index is built in a background thread.
+	 * @param file File to be read.
+	 * @param separator Character that separates columns.
+	 * @param types Types of the columns.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	public MappedCSVData(File file, char separator,
+			Class<? extends Comparable<?>>... types) throws IOException {
+		this(file, null, separator, types);
+	}
+
+	/**
+	 * Initializes a new instance that reads the specified file. The row
+	 * index is loaded from the index file if it matches the file, otherwise
+	 * it is built in a background thread and written to the index file.
+	 * @param file File to be read.
+	 * @param indexFile File that stores the row index, or {@code null}
+	 *        if the index shouldn't be stored.
+	 * @param separator Character that separates columns.
+	 * @param types Types of the columns.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	public MappedCSVData(File file, File indexFile, char separator,
+			Class<? extends Comparable<?>>... types) throws IOException {
+		this(file, indexFile, separator, CHUNK_BITS, types);
+	}
+
+	/**
+	 * Initializes a new instance that maps the file in regions of the
+	 * specified size.
+	 * @param file File to be read.
+	 * @param indexFile File that stores the row index, or {@code null}
+	 *        if the index shouldn't be stored.
+	 * @param separator Character that separates columns.
+	 * @param chunkBits Number of bits that define the size of the mapped
+	 *        regions.
+	 * @param types Types of the columns.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	MappedCSVData(File file, File indexFile, char separator, int chunkBits,
+			Class<? extends Comparable<?>>... types) throws IOException {
+		super(types);
+		if (separator >= 0x80 || separator == '"' || separator == '\n' || separator == '\r') {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Invalid separator character: {0}", separator)); //$NON-NLS-1$
+		}
+		this.file = file;
+		this.indexFile = indexFile;
+		this.separator = (byte) separator;
+		this.chunkBits = chunkBits;
+		this.types = Arrays.copyOf(types, types.length);
+		open();
+	}
+
+	/**
+	 * Maps the file and starts building the row index.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	private void open() throws IOException {
+		parseMethods = new Method[types.length];
+		for (int col = 0; col < types.length; col++) {
+			parseMethods[col] = CSVCell.getParseMethod(types[col]);
+			if (parseMethods[col] == null) {
+				throw new IllegalArgumentException(MessageFormat.format(
+					"Could not find method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
+					types[col].getSimpleName(), col));
+			}
+		}
+		charset = Charset.defaultCharset();
+		cursors = new ThreadLocal<Cursor>() {
+			@Override
+			protected Cursor initialValue() {
+				return new Cursor();
+			}
+		};
+
+		// The mapped regions stay valid after the channel has been closed
+		RandomAccessFile input = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			FileChannel channel = input.getChannel();
+			length = channel.size();
+			long chunkSize = 1L << chunkBits;
+			chunks = new MappedByteBuffer[(int) ((length + chunkSize - 1L) >>> chunkBits)];
+			for (int i = 0; i < chunks.length; i++) {
+				long position = i*chunkSize;
+				chunks[i] = channel.map(MapMode.READ_ONLY, position,
+					Math.min(chunkSize, length - position));
+			}
+		} finally {
+			input.close();
+		}
+
+		offsets = new long[16];
+		if (indexFile != null && readIndex()) {
+			return;
+		}
+		indexer = new Thread(new Runnable() {
+			public void run() {
+				buildIndex();
+			}
+		}, "MappedCSVData-" + file.getName()); //$NON-NLS-1$
+		indexer.setDaemon(true);
+		indexer.start();
+	}
+
+	/**
+	 * Finds the start of each row in the file and stores every
+	 * {@value #INDEX_INTERVAL}th position in the index.
+	 */
+	private void buildIndex() {
+		long[] index = offsets;
+		int rows = 0;
+		boolean rowStarted = false;
+		boolean quoted = false;
+		boolean carriageReturn = false;
+		scan:
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			MappedByteBuffer chunk = chunks[chunkIndex];
+			long chunkStart = (long) chunkIndex << chunkBits;
+			int size = chunk.limit();
+			for (int i = 0; i < size; i++) {
+				byte b = chunk.get(i);
+				if (!rowStarted) {
+					if (carriageReturn) {
+						carriageReturn = false;
+						if (b == '\n') {
+							continue;
+						}
+					}
+					if (rows % INDEX_INTERVAL == 0) {
+						int entry = rows/INDEX_INTERVAL;
+						if (entry == index.length) {
+							index = Arrays.copyOf(index, 2*index.length);
+							offsets = index;
+						}
+						index[entry] = chunkStart + i;
+					}
+					rowStarted = true;
+				}
+				if (quoted) {
+					// Escaped quotes end and restart the quoted section
+					if (b == '"') {
+						quoted = false;
+					}
+				} else if (b == '"') {
+					quoted = true;
+				} else if (b == '\n' || b == '\r') {
+					rows++;
+					rowStarted = false;
+					carriageReturn = b == '\r';
+					if (rows - rowCount >= NOTIFY_INTERVAL) {
+						if (closed) {
+							return;
+						}
+						publish(rows);
+					}
+					if (rows == Integer.MAX_VALUE) {
+						break scan;
+					}
+				}
+			}
+		}
+		// Add the last row if there was no trailing line break
+		if (rowStarted) {
+			rows++;
+		}
+		publish(rows);
+		indexComplete = true;
+
+		if (indexFile != null && !closed) {
+			try {
+				writeIndex();
+			} catch (IOException e) {
+				// The index is built again the next time the file is opened
+			}
+		}
+	}
+
+	/**
+	 * Makes the specified number of indexed rows accessible and notifies
+	 * all listeners of the added rows.
+	 * @param rows Number of indexed rows.
+	 */
+	private void publish(int rows) {
+		int firstRow = rowCount;
+		if (rows == firstRow) {
+			return;
+		}
+		rowCount = rows;
+		notifyDataChanged(new DataRangeEvent(this, DataRangeEvent.Type.ADDED,
+			firstRow, rows - firstRow));
+	}
+
+	/**
+	 * Loads the row index from the index file.
+	 * @return {@code true} if the index matches the file, {@code false}
+	 *         otherwise.
+	 * @throws IOException if the index file cannot be read.
+	 */
+	private boolean readIndex() throws IOException {
+		if (!indexFile.isFile()) {
+			return false;
+		}
+		DataInputStream input = new DataInputStream(new BufferedInputStream(
+			new FileInputStream(indexFile)));
+		try {
+			if (input.readInt() != INDEX_MAGIC ||
+					input.readInt() != INDEX_VERSION ||
+					input.readLong() != length ||
+					input.readLong() != file.lastModified() ||
+					input.readInt() != INDEX_INTERVAL) {
+				return false;
+			}
+			int rows = input.readInt();
+			long[] index = new long[Math.max((rows + INDEX_INTERVAL - 1)/INDEX_INTERVAL, 1)];
+			for (int entry = 0; entry < index.length; entry++) {
+				index[entry] = input.readLong();
+			}
+			offsets = index;
+			rowCount = rows;
+			indexComplete = true;
+			return true;
+		} catch (EOFException e) {
+			return false;
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Stores the complete row index in the index file.
+	 * @throws IOException if the index file cannot be written.
+	 */
+	private void writeIndex() throws IOException {
+		long[] index = offsets;
+		int rows = rowCount;
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+			new FileOutputStream(indexFile)));
+		try {
+			output.writeInt(INDEX_MAGIC);
+			output.writeInt(INDEX_VERSION);
+			output.writeLong(length);
+			output.writeLong(file.lastModified());
+			output.writeInt(INDEX_INTERVAL);
+			output.writeInt(rows);
+			int entries = Math.max((rows + INDEX_INTERVAL - 1)/INDEX_INTERVAL, 1);
+			for (int entry = 0; entry < entries; entry++) {
+				output.writeLong(index[entry]);
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Returns whether all rows of the file have been indexed.
+	 * @return {@code true} if the index is complete, {@code false} otherwise.
+	 */
+	public boolean isIndexComplete() {
+		return indexComplete;
+	}
+
+	/**
+	 * Waits until all rows of the file have been indexed or until indexing
+	 * has been stopped.
+	 * @throws InterruptedException if the current thread is interrupted
+	 *         while waiting.
+	 */
+	public void waitForIndex() throws InterruptedException {
+		Thread thread = indexer;
+		if (thread != null) {
+			thread.join();
+		}
+	}
+
+	/**
+	 * Stops building the row index. The rows that have been indexed so far
+	 * remain accessible.
+	 */
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * Returns the file that contains the values.
+	 * @return File.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public Comparable<?> get(int col, int row) {
+		Cursor cursor = cursors.get();
+		if (row >= rowCount || !readCell(cursor, col, row)) {
+			return null;
+		}
+		return parse(cursor.cell, col);
+	}
+
+	@Override
+	public double getDouble(int col, int row) {
+		Cursor cursor = cursors.get();
+		if (row >= rowCount || !readCell(cursor, col, row)) {
+			return Double.NaN;
+		}
+		CSVCell cell = cursor.cell;
+		Class<? extends Comparable<?>> type = types[col];
+		int start = cell.trimmedStart();
+		int end = cell.trimmedEnd(start);
+		if (type == Double.class && cell.parseDouble(start, end)) {
+			return cell.getDouble();
+		} else if (CSVCell.isIntegerType(type) && cell.parseLong(start, end, type)) {
+			return cell.getLong();
+		}
+		return toDouble(parse(cell, col));
+	}
+
+	/**
+	 * Converts the text of a cell to the type of the specified column.
+	 * @param cell Cell.
+	 * @param col Index of the column.
+	 * @return Value of the cell, or {@code null} if the cell is empty or
+	 *         cannot be parsed.
+	 */
+	private Comparable<?> parse(CSVCell cell, int col) {
+		Class<? extends Comparable<?>> type = types[col];
+		int start = cell.trimmedStart();
+		int end = cell.trimmedEnd(start);
+		if (cell.length() == 0 && Number.class.isAssignableFrom(type)) {
+			return null;
+		} else if (type == Double.class && cell.parseDouble(start, end)) {
+			return cell.getDouble();
+		} else if (CSVCell.isIntegerType(type) && cell.parseLong(start, end, type)) {
+			return CSVCell.valueOf(cell.getLong(), type);
+		}
+		try {
+			return (Comparable<?>) parseMethods[col].invoke(null, cell.toString(start, end));
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(MessageFormat.format(
+				"Could not access method for parsing data type {0} in column {1,number,integer}.", //$NON-NLS-1$
+				type.getSimpleName(), col));
+		} catch (InvocationTargetException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the text of the specified cell into the cell of the cursor.
+	 * @param cursor Reading position of the current thread.
+	 * @param col Index of the column.
+	 * @param row Index of the row.
+	 * @return {@code true} if the row contains the cell, {@code false}
+	 *         otherwise.
+	 */
+	private boolean readCell(Cursor cursor, int col, int row) {
+		long pos = seek(cursor, row);
+
+		// Skip the preceding cells
+		boolean quoted = false;
+		for (int c = 0; c < col; pos++) {
+			if (pos >= length) {
+				return false;
+			}
+			byte b = byteAt(pos);
+			if (quoted) {
+				if (b == '"') {
+					quoted = false;
+				}
+			} else if (b == '"') {
+				quoted = true;
+			} else if (b == separator) {
+				c++;
+			} else if (b == '\n' || b == '\r') {
+				return false;
+			}
+		}
+
+		// Collect the bytes of the cell without quotes
+		cursor.byteCount = 0;
+		quoted = false;
+		boolean quotePending = false;
+		boolean ascii = true;
+		for (; pos < length; pos++) {
+			byte b = byteAt(pos);
+			if (quoted) {
+				if (quotePending) {
+					quotePending = false;
+					if (b == '"') {
+						// Two quotes are an escaped quote character
+						cursor.append(b);
+						continue;
+					}
+					quoted = false;
+				} else {
+					if (b == '"') {
+						quotePending = true;
+					} else {
+						cursor.append(b);
+						ascii &= b >= 0;
+					}
+					continue;
+				}
+			}
+			if (b == separator || b == '\n' || b == '\r') {
+				break;
+			} else if (b == '"') {
+				quoted = true;
+			} else {
+				cursor.append(b);
+				ascii &= b >= 0;
+			}
+		}
+
+		CSVCell cell = cursor.cell;
+		cell.clear();
+		if (ascii) {
+			for (int i = 0; i < cursor.byteCount; i++) {
+				cell.append((char) cursor.bytes[i]);
+			}
+		} else {
+			String text = new String(cursor.bytes, 0, cursor.byteCount, charset);
+			for (int i = 0; i < text.length(); i++) {
+				cell.append(text.charAt(i));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the cursor to the start of the specified row. Rows are looked
+	 * up in the index unless the cursor is already positioned before the
+	 * row in the same section of the index.
+	 * @param cursor Reading position of the current thread.
+	 * @param row Index of the row.
+	 * @return Start position of the row.
+	 */
+	private long seek(Cursor cursor, int row) {
+		int entry = row/INDEX_INTERVAL;
+		if (cursor.row < 0 || cursor.row > row || cursor.row/INDEX_INTERVAL != entry) {
+			cursor.row = entry*INDEX_INTERVAL;
+			cursor.rowStart = offsets[entry];
+		}
+		while (cursor.row < row) {
+			cursor.rowStart = skipRow(cursor.rowStart);
+			cursor.row++;
+		}
+		return cursor.rowStart;
+	}
+
+	/**
+	 * Returns the start position of the row that follows the row at the
+	 * specified position.
+	 * @param pos Start position of a row.
+	 * @return Start position of the next row.
+	 */
+	private long skipRow(long pos) {
+		boolean quoted = false;
+		while (pos < length) {
+			byte b = byteAt(pos++);
+			if (quoted) {
+				if (b == '"') {
+					quoted = false;
+				}
+			} else if (b == '"') {
+				quoted = true;
+			} else if (b == '\n') {
+				break;
+			} else if (b == '\r') {
+				if (pos < length && byteAt(pos) == '\n') {
+					pos++;
+				}
+				break;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Returns the byte at the specified position of the file.
+	 * @param pos Position in the file.
+	 * @return Byte value.
+	 */
+	private byte byteAt(long pos) {
+		return chunks[(int) (pos >>> chunkBits)].get((int) (pos & ((1L << chunkBits) - 1L)));
+	}
+
+	/**
+	 * Custom deserialization method.
+	 * @param in Input stream.
+	 * @throws ClassNotFoundException if a serialized class doesn't exist anymore.
+	 * @throws IOException if there is an error while reading data from the
+	 *         input stream.
+	 */
+	private void readObject(ObjectInputStream in)
+			throws ClassNotFoundException, IOException {
+		// Normal deserialization
+		in.defaultReadObject();
+
+		// Handle transient fields
+		open();
+	}
+}
@@ -42,9 +42,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import de.erichseifert.gral.data.Column;
+import de.erichseifert.gral.data.AbstractDataSource;
 import de.erichseifert.gral.data.DataChangeEvent;
-import de.erichseifert.gral.data.DataListener;
+import de.erichseifert.gral.data.DataRangeEvent;
+import de.erichseifert.gral.data.DataRangeListener;
 import de.erichseifert.gral.data.DataSource;
 import de.erichseifert.gral.data.statistics.Statistics;
 import de.erichseifert.gral.graphics.Container;
@@ -68,7 +69,7 @@ import de.erichseifert.gral.util.SerializationUtils;
  * and settings.
  */
 public abstract class AbstractPlot extends DrawableContainer
-		implements Plot, DataListener {
+		implements Plot, DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = -6609155385940228771L;
 
@@ -216,9 +217,45 @@ public abstract class AbstractPlot extends DrawableContainer
 
 	@Override
 	public void layout() {
+		List<Rectangle2D> boundsOld = getComponentBounds();
 		super.layout();
 		layoutAxes();
 		layoutLegend();
+		if (!getComponentBounds().equals(boundsOld)) {
+			invalidateLayers();
+		}
+	}
+
+	/**
+	 * Returns the bounds of plot area, axes, and legend.
+	 * @return List of bounds.
+	 */
+	private List<Rectangle2D> getComponentBounds() {
+		List<Rectangle2D> bounds = new LinkedList<Rectangle2D>();
+		if (plotArea != null) {
+			bounds.add(plotArea.getBounds());
+		}
+		if (axisDrawables != null) {
+			for (Drawable axisDrawable : axisDrawables.values()) {
+				if (axisDrawable != null) {
+					bounds.add(axisDrawable.getBounds());
+				}
+			}
+		}
+		if (legend != null) {
+			bounds.add(legend.getBounds());
+		}
+		return bounds;
+	}
+
+	/**
+	 * Causes all layers of the plot area to be drawn again.
+	 * @see PlotArea#invalidateLayers()
+	 */
+	protected void invalidateLayers() {
+		if (plotArea != null) {
+			plotArea.invalidateLayers();
+		}
 	}
 
 	/**
@@ -260,6 +297,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		} else {
 			axes.put(name, axis);
 		}
+		invalidateLayers();
 	}
 
 	/**
@@ -270,6 +308,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		axes.remove(name);
 		axisRenderers.remove(name);
 		axisDrawables.remove(name);
+		invalidateLayers();
 	}
 
 	/**
@@ -347,6 +386,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		}
 		setAxisComponent(axisName, comp);
 		layout();
+		invalidateLayers();
 	}
 
 	/**
@@ -438,6 +478,7 @@ public abstract class AbstractPlot extends DrawableContainer
 				legend.add(source);
 			}
 		}
+		invalidateLayers();
 	}
 
 	/**
@@ -519,6 +560,7 @@ public abstract class AbstractPlot extends DrawableContainer
 	@Override
 	public void setLegendVisible(boolean legendVisible) {
 		this.legendVisible = legendVisible;
+		invalidateLayers();
 	}
 
 	@Override
@@ -533,6 +575,7 @@ public abstract class AbstractPlot extends DrawableContainer
 			legendContainer.remove(legend);
 			legendContainer.add(legend, legendLocation);
 		}
+		invalidateLayers();
 	}
 
 	@Override
@@ -544,6 +587,7 @@ public abstract class AbstractPlot extends DrawableContainer
 	public void setLegendDistance(double distance) {
 		legendDistance = distance;
 		refreshLegendLayout();
+		invalidateLayers();
 	}
 
 	/**
@@ -582,6 +626,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		}
 		source.addDataListener(this);
 		invalidateAxisExtrema();
+		invalidateLayers();
 	}
 
 	/**
@@ -617,6 +662,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		}
 		boolean existed = data.remove(source);
 		invalidateAxisExtrema();
+		invalidateLayers();
 		return existed;
 	}
 
@@ -633,6 +679,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		}
 		data.clear();
 		invalidateAxisExtrema();
+		invalidateLayers();
 	}
 
 	/**
@@ -692,6 +739,7 @@ public abstract class AbstractPlot extends DrawableContainer
 		}
 		columnToAxisMappingByDataSource.put(source, columnToAxisMapping);
 		invalidateAxisExtrema();
+		invalidateLayers();
 	}
 
 	/**
@@ -770,10 +818,12 @@ public abstract class AbstractPlot extends DrawableContainer
 		if (visible) {
 			if (dataVisible.add(source)) {
 				invalidateAxisExtrema();
+				invalidateLayers();
 			}
 		} else {
 			if (dataVisible.remove(source)) {
 				invalidateAxisExtrema();
+				invalidateLayers();
 			}
 		}
 	}
@@ -814,6 +864,17 @@ public abstract class AbstractPlot extends DrawableContainer
 		dataChanged(source, events);
 	}
 
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		dataChanged(source, new DataChangeEvent[0]);
+	}
+
 	/**
 	 * Method that is invoked when data has been added, updated, or removed.
 	 * @param source Data source that has been changed.
@@ -822,6 +883,10 @@ public abstract class AbstractPlot extends DrawableContainer
 	 */
 	protected void dataChanged(DataSource source, DataChangeEvent... events) {
 		invalidateAxisExtrema();
+		if (plotArea != null) {
+			plotArea.invalidateLayer(source);
+			plotArea.invalidateLayer(PlotArea.LAYER_LEGEND);
+		}
 		if (getLegend() != null) {
 			getLegend().refresh();
 		}
@@ -849,15 +914,16 @@ public abstract class AbstractPlot extends DrawableContainer
 					Integer colIndex = entry.getKey();
 					String axisName = entry.getValue();
 
-					Column<?> col = dataSource.getColumn(colIndex);
+					double colMin = getStatistics(dataSource, colIndex, Statistics.MIN);
+					double colMax = getStatistics(dataSource, colIndex, Statistics.MAX);
 					Double min = axisMin.get(axisName);
 					Double max = axisMax.get(axisName);
 					if (min == null || max == null) {
-						min = col.getStatistics(Statistics.MIN);
-						max = col.getStatistics(Statistics.MAX);
+						min = colMin;
+						max = colMax;
 					} else {
-						min = Math.min(min, col.getStatistics(Statistics.MIN));
-						max = Math.max(max, col.getStatistics(Statistics.MAX));
+						min = Math.min(min, colMin);
+						max = Math.max(max, colMax);
 					}
 					axisMin.put(axisName, min);
 					axisMax.put(axisName, max);
@@ -866,6 +932,24 @@ public abstract class AbstractPlot extends DrawableContainer
 		}
 	}
 
+	/**
+	 * Returns the specified statistical information on the values of a
+	 * column. Data sources derived from {@code AbstractDataSource} keep
+	 * their column statistics up to date, so the column values don't have
+	 * to be copied; for other data sources the statistics are calculated
+	 * from the column.
+	 * @param data Data source.
+	 * @param col Index of the column.
+	 * @param key Key of the statistical information.
+	 * @return Statistical information on the column values.
+	 */
+	protected static double getStatistics(DataSource data, int col, String key) {
+		if (data instanceof AbstractDataSource) {
+			return ((AbstractDataSource) data).getStatistics(col).get(key);
+		}
+		return data.getColumn(col).getStatistics(key);
+	}
+
 	/**
 	 * Custom deserialization method.
 	 * @param in Input stream.
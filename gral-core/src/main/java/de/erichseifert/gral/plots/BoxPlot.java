@@ -890,10 +890,10 @@ public class BoxPlot extends XYPlot {
 				maxColumnIndex = pointRenderer.getTopBarColumn();
 			}
 
-			min = Math.min(min, data.getColumn(minColumnIndex)
-					.getStatistics(Statistics.MIN));
-			max = Math.max(max, data.getColumn(maxColumnIndex)
-					.getStatistics(Statistics.MAX));
+			min = Math.min(min,
+					getStatistics(data, minColumnIndex, Statistics.MIN));
+			max = Math.max(max,
+					getStatistics(data, maxColumnIndex, Statistics.MAX));
 		}
 		double spacing = (isXAxis) ? 0.5 : 0.05*(max - min);
 		axis.setRange(min - spacing, max + spacing);
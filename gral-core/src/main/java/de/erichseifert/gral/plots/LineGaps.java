@@ -0,0 +1,443 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.erichseifert.gral.plots.lines.StrokedLine;
+import de.erichseifert.gral.util.GeometryUtils;
+
+/**
+ * <p>Class that cuts gaps around data points into a line before the line is
+ * stroked. Each segment of the line is intersected with the enlarged
+ * shapes of the points near it, and only the parts of the segment outside
+ * of these shapes are kept. This avoids the subtraction of {@code Area}
+ * objects, which becomes very slow for lines with many points.</p>
+ * <p>The ends of the line pieces at the gaps are cut off straight, so
+ * a {@code BasicStroke} is changed to use butt caps.</p>
+ */
+final class LineGaps {
+	/** Maximum distance between curves and the line segments used to
+	approximate them. */
+	private static final double FLATNESS = 0.1;
+
+	/** Positions of the data points. */
+	private final PointBuffer points;
+	/** Gap region of each data point, or {@code null}. */
+	private final Region[] regions;
+	/** Indexes of the data points with a gap region sorted by the left
+	edge of the region. */
+	private final int[] sorted;
+	/** Left edges of the gap regions in sorted order. */
+	private final double[] lefts;
+	/** Maximum width of a gap region. */
+	private final double maxWidth;
+
+	/** Start parameters of the parts of the current segment that are
+	inside gaps. */
+	private double[] intervalStarts;
+	/** End parameters of the parts of the current segment that are inside
+	gaps. */
+	private double[] intervalEnds;
+	/** Number of parts of the current segment that are inside gaps. */
+	private int intervalCount;
+	/** Parameters at which the current segment crosses a region outline. */
+	private double[] crossings;
+
+	/** Resulting line pieces. */
+	private final Path2D pieces;
+	/** Decides whether the last piece ends at the current position. */
+	private boolean connected;
+
+	/**
+	 * Initializes a new instance with the gap regions of the specified
+	 * points.
+	 * @param points Data points.
+	 * @param punchShapes Shapes of the data points.
+	 * @param gap Gap between the line and point shapes.
+	 * @param roundedGaps {@code true} if the gap shapes are rounded.
+	 */
+	private LineGaps(PointBuffer points, List<Shape> punchShapes, double gap,
+			boolean roundedGaps) {
+		this.points = points;
+		int gapJoin = roundedGaps ? BasicStroke.JOIN_ROUND : BasicStroke.JOIN_MITER;
+
+		// The enlarged shape is calculated once for each distinct point shape
+		Map<Shape, Region> regionsByShape = new IdentityHashMap<Shape, Region>();
+		regions = new Region[points.size()];
+		Integer[] indexes = new Integer[points.size()];
+		int count = 0;
+		double width = 0.0;
+		for (int i = 0; i < points.size(); i++) {
+			Shape punchShape = punchShapes.get(i);
+			if (punchShape == null) {
+				continue;
+			}
+			Region region = regionsByShape.get(punchShape);
+			if (region == null) {
+				region = new Region(
+					GeometryUtils.grow(punchShape, gap, gapJoin, 10f));
+				regionsByShape.put(punchShape, region);
+			}
+			if (region.isEmpty()) {
+				continue;
+			}
+			regions[i] = region;
+			indexes[count++] = i;
+			width = Math.max(width, region.maxX - region.minX);
+		}
+		maxWidth = width;
+
+		indexes = Arrays.copyOf(indexes, count);
+		Arrays.sort(indexes, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return Double.compare(getLeft(i1), getLeft(i2));
+			}
+		});
+		sorted = new int[count];
+		lefts = new double[count];
+		for (int i = 0; i < count; i++) {
+			sorted[i] = indexes[i];
+			lefts[i] = getLeft(sorted[i]);
+		}
+
+		intervalStarts = new double[8];
+		intervalEnds = new double[8];
+		crossings = new double[16];
+		pieces = new Path2D.Double(Path2D.WIND_NON_ZERO);
+	}
+
+	/**
+	 * Returns the specified line with gaps around the specified points.
+	 * @param line Line to be punched.
+	 * @param points Data points on the line.
+	 * @param punchShapes Shapes of the data points.
+	 * @param gap Gap between the line and point shapes.
+	 * @param roundedGaps {@code true} if the gap shapes are rounded.
+	 * @return Line with gaps.
+	 */
+	public static StrokedLine punch(StrokedLine line, PointBuffer points,
+			List<Shape> punchShapes, double gap, boolean roundedGaps) {
+		LineGaps gaps = new LineGaps(points, punchShapes, gap, roundedGaps);
+		Shape pieces = gaps.cut(line.getLine());
+
+		Stroke stroke = line.getStroke();
+		if (stroke instanceof BasicStroke) {
+			BasicStroke basicStroke = (BasicStroke) stroke;
+			if (basicStroke.getEndCap() != BasicStroke.CAP_BUTT) {
+				stroke = new BasicStroke(basicStroke.getLineWidth(),
+					BasicStroke.CAP_BUTT, basicStroke.getLineJoin(),
+					basicStroke.getMiterLimit(), basicStroke.getDashArray(),
+					basicStroke.getDashPhase());
+			}
+		}
+		return new StrokedLine(pieces, stroke);
+	}
+
+	/**
+	 * Returns the left edge of the gap region of a data point.
+	 * @param index Index of the data point.
+	 * @return Left edge of the gap region.
+	 */
+	private double getLeft(int index) {
+		return points.getX(index) + regions[index].minX;
+	}
+
+	/**
+	 * Returns the parts of the specified line that are outside of all gap
+	 * regions.
+	 * @param line Line.
+	 * @return Line pieces.
+	 */
+	private Shape cut(Shape line) {
+		PathIterator iterator = line.getPathIterator(null, FLATNESS);
+		double[] coords = new double[6];
+		double startX = 0.0, startY = 0.0;
+		double x = 0.0, y = 0.0;
+		while (!iterator.isDone()) {
+			int type = iterator.currentSegment(coords);
+			if (type == PathIterator.SEG_MOVETO) {
+				startX = coords[0];
+				startY = coords[1];
+				x = startX;
+				y = startY;
+				connected = false;
+			} else {
+				double x1 = (type == PathIterator.SEG_CLOSE) ? startX : coords[0];
+				double y1 = (type == PathIterator.SEG_CLOSE) ? startY : coords[1];
+				addSegment(x, y, x1, y1);
+				x = x1;
+				y = y1;
+			}
+			iterator.next();
+		}
+		return pieces;
+	}
+
+	/**
+	 * Adds the parts of a segment that are outside of all gap regions to
+	 * the line pieces.
+	 * @param x0 Horizontal position of the start point.
+	 * @param y0 Vertical position of the start point.
+	 * @param x1 Horizontal position of the end point.
+	 * @param y1 Vertical position of the end point.
+	 */
+	private void addSegment(double x0, double y0, double x1, double y1) {
+		intervalCount = 0;
+
+		// Find the regions that can overlap the segment
+		double segmentMinX = Math.min(x0, x1);
+		double segmentMaxX = Math.max(x0, x1);
+		double segmentMinY = Math.min(y0, y1);
+		double segmentMaxY = Math.max(y0, y1);
+		int first = Arrays.binarySearch(lefts, segmentMinX - maxWidth);
+		if (first < 0) {
+			first = -first - 1;
+		}
+		while (first > 0 && lefts[first - 1] >= segmentMinX - maxWidth) {
+			first--;
+		}
+		for (int s = first; s < sorted.length && lefts[s] <= segmentMaxX; s++) {
+			int index = sorted[s];
+			Region region = regions[index];
+			double px = points.getX(index);
+			double py = points.getY(index);
+			if (px + region.maxX < segmentMinX || py + region.minY > segmentMaxY
+					|| py + region.maxY < segmentMinY) {
+				continue;
+			}
+			addIntervals(region, px, py, x0, y0, x1, y1);
+		}
+
+		// Merge overlapping parts inside of gaps
+		sortIntervals();
+
+		double dx = x1 - x0;
+		double dy = y1 - y0;
+		double t = 0.0;
+		for (int i = 0; i < intervalCount; i++) {
+			if (intervalStarts[i] > t) {
+				addPiece(x0 + dx*t, y0 + dy*t,
+					x0 + dx*intervalStarts[i], y0 + dy*intervalStarts[i], t == 0.0);
+			}
+			connected = false;
+			t = Math.max(t, intervalEnds[i]);
+		}
+		if (t < 1.0) {
+			addPiece(x0 + dx*t, y0 + dy*t, x1, y1, t == 0.0);
+			connected = true;
+		} else {
+			connected = false;
+		}
+	}
+
+	/**
+	 * Adds a line piece.
+	 * @param x0 Horizontal position of the start point.
+	 * @param y0 Vertical position of the start point.
+	 * @param x1 Horizontal position of the end point.
+	 * @param y1 Vertical position of the end point.
+	 * @param continued {@code true} if the piece starts at the start point
+	 *        of the segment.
+	 */
+	private void addPiece(double x0, double y0, double x1, double y1,
+			boolean continued) {
+		if (!continued || !connected) {
+			pieces.moveTo(x0, y0);
+		}
+		pieces.lineTo(x1, y1);
+	}
+
+	/**
+	 * Adds the parts of a segment that are inside of a gap region.
+	 * @param region Gap region.
+	 * @param px Horizontal position of the region.
+	 * @param py Vertical position of the region.
+	 * @param x0 Horizontal position of the start point.
+	 * @param y0 Vertical position of the start point.
+	 * @param x1 Horizontal position of the end point.
+	 * @param y1 Vertical position of the end point.
+	 */
+	private void addIntervals(Region region, double px, double py,
+			double x0, double y0, double x1, double y1) {
+		double dx = x1 - x0;
+		double dy = y1 - y0;
+
+		// Find the crossings of the segment and the region outline
+		int crossingCount = 0;
+		crossings[crossingCount++] = 0.0;
+		double[] edges = region.edges;
+		for (int e = 0; e < edges.length; e += 4) {
+			double ax = edges[e] + px;
+			double ay = edges[e + 1] + py;
+			double ex = edges[e + 2] + px - ax;
+			double ey = edges[e + 3] + py - ay;
+			double denominator = dx*ey - dy*ex;
+			if (denominator == 0.0) {
+				continue;
+			}
+			double wx = ax - x0;
+			double wy = ay - y0;
+			double t = (wx*ey - wy*ex)/denominator;
+			double u = (wx*dy - wy*dx)/denominator;
+			if (t > 0.0 && t < 1.0 && u >= 0.0 && u <= 1.0) {
+				if (crossingCount + 1 >= crossings.length) {
+					crossings = Arrays.copyOf(crossings, 2*crossings.length);
+				}
+				crossings[crossingCount++] = t;
+			}
+		}
+		crossings[crossingCount++] = 1.0;
+		Arrays.sort(crossings, 1, crossingCount - 1);
+
+		// The parts between the crossings are either inside or outside
+		for (int c = 1; c < crossingCount; c++) {
+			double t0 = crossings[c - 1];
+			double t1 = crossings[c];
+			if (t1 <= t0) {
+				continue;
+			}
+			double t = (t0 + t1)/2.0;
+			if (region.area.contains(x0 + dx*t - px, y0 + dy*t - py)) {
+				addInterval(t0, t1);
+			}
+		}
+	}
+
+	/**
+	 * Adds a part of the current segment that is inside of a gap region.
+	 * @param start Start parameter of the part.
+	 * @param end End parameter of the part.
+	 */
+	private void addInterval(double start, double end) {
+		if (intervalCount > 0 && intervalEnds[intervalCount - 1] == start) {
+			intervalEnds[intervalCount - 1] = end;
+			return;
+		}
+		if (intervalCount == intervalStarts.length) {
+			intervalStarts = Arrays.copyOf(intervalStarts, 2*intervalCount);
+			intervalEnds = Arrays.copyOf(intervalEnds, 2*intervalCount);
+		}
+		intervalStarts[intervalCount] = start;
+		intervalEnds[intervalCount] = end;
+		intervalCount++;
+	}
+
+	/**
+	 * Sorts the parts of the current segment that are inside of gap regions
+	 * by their start parameters.
+	 */
+	private void sortIntervals() {
+		for (int i = 1; i < intervalCount; i++) {
+			double start = intervalStarts[i];
+			double end = intervalEnds[i];
+			int j = i - 1;
+			while (j >= 0 && intervalStarts[j] > start) {
+				intervalStarts[j + 1] = intervalStarts[j];
+				intervalEnds[j + 1] = intervalEnds[j];
+				j--;
+			}
+			intervalStarts[j + 1] = start;
+			intervalEnds[j + 1] = end;
+		}
+	}
+
+	/**
+	 * Gap region around the shape of a data point.
+	 */
+	private static final class Region {
+		/** Area of the region relative to the data point. */
+		private final Area area;
+		/** Start and end points of the outline edges. */
+		private final double[] edges;
+		/** Left edge of the region. */
+		private final double minX;
+		/** Top edge of the region. */
+		private final double minY;
+		/** Right edge of the region. */
+		private final double maxX;
+		/** Bottom edge of the region. */
+		private final double maxY;
+
+		/**
+		 * Initializes a new region with the specified area.
+		 * @param area Area of the region relative to the data point.
+		 */
+		public Region(Area area) {
+			this.area = area;
+			Rectangle2D bounds = area.getBounds2D();
+			minX = bounds.getMinX();
+			minY = bounds.getMinY();
+			maxX = bounds.getMaxX();
+			maxY = bounds.getMaxY();
+
+			double[] outline = new double[64];
+			int length = 0;
+			double[] coords = new double[6];
+			double startX = 0.0, startY = 0.0;
+			double x = 0.0, y = 0.0;
+			PathIterator iterator = area.getPathIterator(null, FLATNESS);
+			while (!iterator.isDone()) {
+				int type = iterator.currentSegment(coords);
+				if (type == PathIterator.SEG_MOVETO) {
+					startX = coords[0];
+					startY = coords[1];
+					x = startX;
+					y = startY;
+				} else {
+					double x1 = (type == PathIterator.SEG_CLOSE) ? startX : coords[0];
+					double y1 = (type == PathIterator.SEG_CLOSE) ? startY : coords[1];
+					if (length + 4 > outline.length) {
+						outline = Arrays.copyOf(outline, 2*outline.length);
+					}
+					outline[length++] = x;
+					outline[length++] = y;
+					outline[length++] = x1;
+					outline[length++] = y1;
+					x = x1;
+					y = y1;
+				}
+				iterator.next();
+			}
+			edges = Arrays.copyOf(outline, length);
+		}
+
+		/**
+		 * Returns whether the region is empty.
+		 * @return {@code true} if the region doesn't contain any points.
+		 */
+		public boolean isEmpty() {
+			return area.isEmpty();
+		}
+	}
+}
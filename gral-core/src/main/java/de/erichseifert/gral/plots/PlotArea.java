@@ -26,13 +26,18 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Paint;
 import java.awt.Stroke;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import de.erichseifert.gral.graphics.AbstractDrawable;
+import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.graphics.LayerCache;
 import de.erichseifert.gral.util.GraphicsUtils;
 import de.erichseifert.gral.graphics.Insets2D;
 import de.erichseifert.gral.util.SerializationUtils;
@@ -47,6 +52,13 @@ public abstract class PlotArea extends AbstractDrawable {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = 2745982325709470005L;
 
+	/** Key of the layer that contains background, grid, and border. */
+	protected static final String LAYER_BACKGROUND = "background"; //$NON-NLS-1$
+	/** Key of the layer that contains the axes. */
+	protected static final String LAYER_AXES = "axes"; //$NON-NLS-1$
+	/** Key of the layer that contains the legend. */
+	protected static final String LAYER_LEGEND = "legend"; //$NON-NLS-1$
+
 	/** Default font used for sub-components and the calculation of relative
 	sizes. */
 	private Font baseFont;
@@ -60,6 +72,16 @@ public abstract class PlotArea extends AbstractDrawable {
 	/** Offset to clip plot graphics in pixels, specified relative to the
 	outline of the plot area. */
 	private Insets2D clippingOffset;
+	/** Decides whether the layers of the plot area are stored as images
+	between frames. */
+	private boolean layerCacheEnabled;
+	/** Images of the layers that have been drawn. */
+	private transient LayerCache layers;
+	/** Executor used to draw layers concurrently. */
+	private transient ExecutorService layerExecutor;
+	/** Images that are used to draw layers concurrently if the layer
+	cache is disabled. */
+	private transient LayerCache tiles;
 
 	/**
 	 * Initializes a new instance with default background color and border.
@@ -105,6 +127,103 @@ public abstract class PlotArea extends AbstractDrawable {
 	 */
 	protected abstract void drawPlot(DrawingContext context);
 
+	/**
+	 * Draws a layer of the plot area using the specified drawing context.
+	 * If the layer cache is enabled the contents are stored as an image
+	 * that is reused until the layer is invalidated. Otherwise, the
+	 * contents are drawn directly.
+	 * @param context Environment used for drawing.
+	 * @param key Object that identifies the layer.
+	 * @param bounds Area that is covered by the layer.
+	 * @param content Drawable that draws the contents of the layer.
+	 */
+	protected void drawLayer(DrawingContext context, Object key,
+			Rectangle2D bounds, Drawable content) {
+		LayerCache cache = getLayerCache();
+		if (cache == null) {
+			content.draw(context);
+		} else {
+			cache.draw(context, key, bounds, content);
+		}
+	}
+
+	/**
+	 * Draws several layers of the plot area in the specified order using
+	 * the specified drawing context. If an executor has been set, the
+	 * contents of the layers are drawn concurrently into separate images
+	 * that are combined by the calling thread afterwards.
+	 * @param context Environment used for drawing.
+	 * @param keys Objects that identify the layers.
+	 * @param bounds Area that is covered by the layers.
+	 * @param contents Drawables that draw the contents of the layers.
+	 * @see #setLayerExecutor(ExecutorService)
+	 */
+	protected void drawLayers(DrawingContext context, List<?> keys,
+			Rectangle2D bounds, List<? extends Drawable> contents) {
+		LayerCache cache = getLayerCache();
+		ExecutorService executor = getLayerExecutor();
+		if (cache == null && executor != null && keys.size() > 1) {
+			// The images are only used for the current frame
+			synchronized (this) {
+				if (tiles == null) {
+					tiles = new LayerCache();
+				}
+				cache = tiles;
+			}
+			cache.invalidateAll();
+		}
+		if (cache == null) {
+			for (Drawable content : contents) {
+				content.draw(context);
+			}
+		} else {
+			cache.draw(context, keys, bounds, contents, executor);
+		}
+	}
+
+	/**
+	 * Returns the images of the layers and creates them if necessary.
+	 * @return Layer images, or {@code null} if the layer cache is disabled.
+	 */
+	private synchronized LayerCache getLayerCache() {
+		if (!isLayerCacheEnabled()) {
+			return null;
+		}
+		if (layers == null) {
+			layers = new LayerCache();
+		}
+		return layers;
+	}
+
+	/**
+	 * Causes the layer with the specified key to be drawn again.
+	 * @param key Object that identifies the layer, e.g. a data source.
+	 */
+	public void invalidateLayer(Object key) {
+		LayerCache cache;
+		synchronized (this) {
+			cache = layers;
+		}
+		if (cache != null) {
+			cache.invalidate(key);
+		}
+	}
+
+	/**
+	 * Causes all layers to be drawn again. This has to be called when
+	 * settings of renderers have been changed and the layer cache is
+	 * enabled.
+	 */
+	public void invalidateLayers() {
+		LayerCache cache;
+		synchronized (this) {
+			cache = layers;
+		}
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+
 	/**
 	 * Custom deserialization method.
 	 * @param in Input stream.
@@ -147,6 +266,7 @@ public abstract class PlotArea extends AbstractDrawable {
 	 */
 	public void setBaseFont(Font baseFont) {
 		this.baseFont = baseFont;
+		invalidateLayers();
 	}
 
 	/**
@@ -164,6 +284,7 @@ public abstract class PlotArea extends AbstractDrawable {
 	 */
 	public void setBackground(Paint background) {
 		this.background = background;
+		invalidateLayers();
 	}
 
 	/**
@@ -180,6 +301,7 @@ public abstract class PlotArea extends AbstractDrawable {
 	 */
 	public void setBorderStroke(Stroke stroke) {
 		this.borderStroke = stroke;
+		invalidateLayers();
 	}
 
 	/**
@@ -196,6 +318,7 @@ public abstract class PlotArea extends AbstractDrawable {
 	 */
 	public void setBorderColor(Paint color) {
 		this.borderColor = color;
+		invalidateLayers();
 	}
 
 	/**
@@ -220,5 +343,58 @@ public abstract class PlotArea extends AbstractDrawable {
 	 */
 	public void setClippingArea(Insets2D offset) {
 		this.clippingOffset = offset;
+		invalidateLayers();
+	}
+
+	/**
+	 * Returns whether the layers of the plot area, e.g. grid, data series,
+	 * axes, and legend, are stored as images between frames.
+	 * @return {@code true} if layers are stored, {@code false} otherwise.
+	 */
+	public boolean isLayerCacheEnabled() {
+		return layerCacheEnabled;
+	}
+
+	/**
+	 * Sets whether the layers of the plot area, e.g. grid, data series,
+	 * axes, and legend, should be stored as images between frames. Stored
+	 * layers are drawn again when data, axis ranges, or the layout of the
+	 * plot changes. After settings of renderers have been changed,
+	 * {@link #invalidateLayers()} must be called.
+	 * Layers are only stored when drawing to bitmaps.
+	 * @param enabled {@code true} if layers should be stored, {@code false}
+	 *        otherwise.
+	 */
+	public synchronized void setLayerCacheEnabled(boolean enabled) {
+		this.layerCacheEnabled = enabled;
+		if (!enabled) {
+			layers = null;
+		}
+	}
+
+	/**
+	 * Returns the executor that is used to draw layers concurrently.
+	 * @return Executor, or {@code null} if layers are drawn by the
+	 *         calling thread.
+	 */
+	public ExecutorService getLayerExecutor() {
+		return layerExecutor;
+	}
+
+	/**
+	 * Sets the executor that will be used to draw layers concurrently,
+	 * e.g. the data series of a plot with many series. Each layer is drawn
+	 * into a separate image, and the images are combined in the correct
+	 * order by the thread that draws the plot area. Renderers that are
+	 * shared between layers must be thread-safe.
+	 * The executor isn't shut down by the plot area.
+	 * @param executor Executor, or {@code null} if layers should be drawn
+	 *        by the calling thread.
+	 */
+	public synchronized void setLayerExecutor(ExecutorService executor) {
+		this.layerExecutor = executor;
+		if (executor == null) {
+			tiles = null;
+		}
 	}
 }
@@ -0,0 +1,227 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots;
+
+import java.text.MessageFormat;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.data.Row;
+import de.erichseifert.gral.plots.axes.Axis;
+import de.erichseifert.gral.plots.axes.AxisRenderer;
+import de.erichseifert.gral.plots.points.PointData;
+import de.erichseifert.gral.util.PointND;
+
+/**
+ * <p>List of data points whose positions and rows are stored in primitive
+ * arrays. Renderers can read the positions with {@link #getX(int)} and
+ * {@link #getY(int)} without creating any objects. The {@code DataPoint}
+ * objects of the list are only created when they are requested and they
+ * are kept until the buffer is cleared.</p>
+ * <p>A buffer can be reused for several data sources and frames: clearing
+ * it keeps the arrays, so filling it again doesn't allocate memory once
+ * the arrays are large enough.</p>
+ */
+public class PointBuffer extends AbstractList<DataPoint> implements RandomAccess {
+	/** Initial number of points that can be stored. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** Data source that contains the rows of the points. */
+	private DataSource source;
+	/** Index of the column that contains the values of the points. */
+	private int col;
+	/** Axes that were used to project the points. */
+	private List<Axis> axes;
+	/** Renderers of the axes that were used to project the points. */
+	private List<? extends AxisRenderer> axisRenderers;
+	/** Horizontal positions of the points. */
+	private double[] x;
+	/** Vertical positions of the points. */
+	private double[] y;
+	/** Row indexes of the points. */
+	private int[] rows;
+	/** Data point objects that have been created. */
+	private DataPoint[] points;
+	/** Number of points. */
+	private int size;
+	/** Whether data point objects have been created since the last
+	clear. */
+	private boolean materialized;
+
+	/**
+	 * Initializes a new empty buffer.
+	 */
+	public PointBuffer() {
+		x = new double[INITIAL_CAPACITY];
+		y = new double[INITIAL_CAPACITY];
+		rows = new int[INITIAL_CAPACITY];
+		points = new DataPoint[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns a buffer with the points of the specified list. If the list
+	 * is a buffer itself, it is returned directly. Otherwise, the positions
+	 * are copied into a new buffer which returns the original data point
+	 * objects.
+	 * @param points List of data points.
+	 * @return Buffer with the points of the list.
+	 */
+	public static PointBuffer of(List<DataPoint> points) {
+		if (points instanceof PointBuffer) {
+			return (PointBuffer) points;
+		}
+		PointBuffer buffer = new PointBuffer();
+		for (DataPoint point : points) {
+			if (point == null) {
+				continue;
+			}
+			int index = buffer.size;
+			buffer.add(point.data != null ? point.data.index : 0,
+				point.position.get(PointND.X), point.position.get(PointND.Y));
+			buffer.points[index] = point;
+			buffer.materialized = true;
+		}
+		return buffer;
+	}
+
+	/**
+	 * Removes all points and sets the information that is needed to create
+	 * data point objects for the points that will be added.
+	 * @param source Data source that contains the rows of the points.
+	 * @param col Index of the column that contains the values of the points.
+	 * @param axes Axes that are used to project the points.
+	 * @param axisRenderers Renderers of the axes that are used to project
+	 *        the points.
+	 */
+	public void reset(DataSource source, int col, List<Axis> axes,
+			List<? extends AxisRenderer> axisRenderers) {
+		clear();
+		this.source = source;
+		this.col = col;
+		this.axes = axes;
+		this.axisRenderers = axisRenderers;
+	}
+
+	/**
+	 * Adds a point to the end of the buffer.
+	 * @param row Index of the row of the point.
+	 * @param posX Horizontal position.
+	 * @param posY Vertical position.
+	 */
+	public void add(int row, double posX, double posY) {
+		if (size == x.length) {
+			int capacity = 2*x.length;
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			rows = Arrays.copyOf(rows, capacity);
+			points = Arrays.copyOf(points, capacity);
+		}
+		x[size] = posX;
+		y[size] = posY;
+		rows[size] = row;
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Returns the horizontal position of the specified point.
+	 * @param index Index of the point.
+	 * @return Horizontal position.
+	 */
+	public double getX(int index) {
+		checkIndex(index);
+		return x[index];
+	}
+
+	/**
+	 * Returns the vertical position of the specified point.
+	 * @param index Index of the point.
+	 * @return Vertical position.
+	 */
+	public double getY(int index) {
+		checkIndex(index);
+		return y[index];
+	}
+
+	/**
+	 * Returns the index of the row of the specified point.
+	 * @param index Index of the point.
+	 * @return Row index.
+	 */
+	public int getRow(int index) {
+		checkIndex(index);
+		return rows[index];
+	}
+
+	/**
+	 * Returns the data point object of the specified point. The object is
+	 * created when it is requested for the first time.
+	 * @param index Index of the point.
+	 * @return Data point.
+	 */
+	@Override
+	public DataPoint get(int index) {
+		checkIndex(index);
+		DataPoint point = points[index];
+		if (point == null) {
+			PointData data = new PointData(axes, axisRenderers,
+				new Row(source, rows[index]), col);
+			point = new DataPoint(data,
+				new PointND<Double>(x[index], y[index]));
+			points[index] = point;
+			materialized = true;
+		}
+		return point;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all points. The arrays are kept to be reused.
+	 */
+	@Override
+	public void clear() {
+		if (materialized) {
+			Arrays.fill(points, 0, size, null);
+			materialized = false;
+		}
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Throws an exception if the specified index is out of range.
+	 * @param index Index of a point.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(MessageFormat.format(
+				"Index {0,number,integer} is out of range.", index)); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots;
+
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.erichseifert.gral.plots.XYPlot.XYPlotArea2D;
+import de.erichseifert.gral.plots.lines.StrokedLine;
+
+/**
+ * Class that stores the shapes of lines and areas from which the shapes of
+ * data points have been subtracted. A stored shape is returned as long as
+ * the geometry of the line or area, the positions and shapes of the
+ * points, and the gap settings are the same as when it was calculated, so
+ * the expensive subtraction is only performed when the plot changes.
+ */
+final class PunchedShapeCache {
+	/** Maximum number of punched shapes that are stored. */
+	private static final int MAX_ENTRIES = 32;
+
+	/** Stored punched shapes for each key. */
+	private final Map<Object, CacheEntry> entries;
+
+	/**
+	 * Creates an empty cache.
+	 */
+	@SuppressWarnings("serial")
+	public PunchedShapeCache() {
+		entries = new LinkedHashMap<Object, CacheEntry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Returns the specified shape from which the shapes of the specified
+	 * points are subtracted. If the same shape has been punched with the
+	 * same points and settings before, the stored result is returned.
+	 * @param key Object that identifies the line or area, e.g. its data
+	 *        source and renderer.
+	 * @param shape Shape to be punched.
+	 * @param points Data points on the shape.
+	 * @param punchShapes Shapes of the points for each point renderer.
+	 * @param gap Gap between shape and point shapes.
+	 * @param roundedGaps {@code true} if the shape gaps are rounded.
+	 * @return Punched shape.
+	 */
+	public Shape get(Object key, Shape shape, PointBuffer points,
+			List<List<Shape>> punchShapes, double gap, boolean roundedGaps) {
+		CacheEntry entry = new CacheEntry(shape, points, punchShapes, gap, roundedGaps);
+		synchronized (entries) {
+			CacheEntry cached = entries.get(key);
+			if (cached != null && cached.equals(entry)) {
+				return cached.punched;
+			}
+		}
+
+		Shape punched = shape;
+		for (List<Shape> rendererPunchShapes : punchShapes) {
+			punched = XYPlotArea2D.punch(
+				punched, points, rendererPunchShapes, gap, roundedGaps);
+		}
+		entry.punched = punched;
+
+		synchronized (entries) {
+			entries.put(key, entry);
+		}
+		return punched;
+	}
+
+	/**
+	 * Returns the segment types and coordinates of a shape.
+	 * @param shape Shape.
+	 * @return Array that contains the type followed by six coordinates for
+	 *         each segment of the shape outline.
+	 */
+	private static double[] getPath(Shape shape) {
+		double[] path = new double[7*64];
+		int length = 0;
+		double[] coords = new double[6];
+		PathIterator iterator = shape.getPathIterator(null);
+		while (!iterator.isDone()) {
+			if (length + 7 > path.length) {
+				path = Arrays.copyOf(path, 2*path.length);
+			}
+			Arrays.fill(coords, 0.0);
+			path[length++] = iterator.currentSegment(coords);
+			System.arraycopy(coords, 0, path, length, coords.length);
+			length += coords.length;
+			iterator.next();
+		}
+		return Arrays.copyOf(path, length);
+	}
+
+	/**
+	 * Returns whether two lists contain the same shapes.
+	 * @param shapes1 First list of shapes.
+	 * @param shapes2 Second list of shapes.
+	 * @return {@code true} if the shapes are the same or equal,
+	 *         {@code false} otherwise.
+	 */
+	private static boolean equalShapes(List<List<Shape>> shapes1,
+			List<List<Shape>> shapes2) {
+		if (shapes1.size() != shapes2.size()) {
+			return false;
+		}
+		for (int i = 0; i < shapes1.size(); i++) {
+			List<Shape> rendererShapes1 = shapes1.get(i);
+			List<Shape> rendererShapes2 = shapes2.get(i);
+			if (rendererShapes1.size() != rendererShapes2.size()) {
+				return false;
+			}
+			for (int j = 0; j < rendererShapes1.size(); j++) {
+				Shape shape1 = rendererShapes1.get(j);
+				Shape shape2 = rendererShapes2.get(j);
+				if (shape1 != shape2 && (shape1 == null || !shape1.equals(shape2))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Class that stores the input and the result of a punch operation.
+	 */
+	private static final class CacheEntry {
+		/** Segments of the shape that was punched, or of the line if the
+		shape is a stroked line. */
+		private final double[] path;
+		/** Stroke of the line, or {@code null} if the shape isn't a stroked
+		line. */
+		private final Stroke stroke;
+		/** Positions of the data points. */
+		private final double[] positions;
+		/** Shapes of the data points for each point renderer. */
+		private final List<List<Shape>> punchShapes;
+		/** Gap between shape and point shapes. */
+		private final double gap;
+		/** Decides whether the shape gaps are rounded. */
+		private final boolean roundedGaps;
+		/** Result of the punch operation. */
+		private Shape punched;
+
+		/**
+		 * Initializes a new entry with the input of a punch operation.
+		 * @param shape Shape to be punched.
+		 * @param points Data points on the shape.
+		 * @param punchShapes Shapes of the points for each point renderer.
+		 * @param gap Gap between shape and point shapes.
+		 * @param roundedGaps {@code true} if the shape gaps are rounded.
+		 */
+		public CacheEntry(Shape shape, PointBuffer points,
+				List<List<Shape>> punchShapes, double gap, boolean roundedGaps) {
+			if (shape instanceof StrokedLine) {
+				StrokedLine line = (StrokedLine) shape;
+				path = getPath(line.getLine());
+				stroke = line.getStroke();
+			} else {
+				path = getPath(shape);
+				stroke = null;
+			}
+			positions = new double[2*points.size()];
+			for (int i = 0; i < points.size(); i++) {
+				positions[2*i] = points.getX(i);
+				positions[2*i + 1] = points.getY(i);
+			}
+			this.punchShapes = punchShapes;
+			this.gap = gap;
+			this.roundedGaps = roundedGaps;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheEntry)) {
+				return false;
+			}
+			CacheEntry entry = (CacheEntry) obj;
+			return Double.compare(gap, entry.gap) == 0
+				&& roundedGaps == entry.roundedGaps
+				&& Arrays.equals(positions, entry.positions)
+				&& (stroke == null ? entry.stroke == null : stroke.equals(entry.stroke))
+				&& Arrays.equals(path, entry.path)
+				&& equalShapes(punchShapes, entry.punchShapes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(positions);
+		}
+	}
+}
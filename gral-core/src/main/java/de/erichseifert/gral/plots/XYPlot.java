@@ -21,6 +21,7 @@
  */
 package de.erichseifert.gral.plots;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Paint;
@@ -29,6 +30,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
@@ -37,13 +39,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
+import de.erichseifert.gral.data.AggregationPyramid;
+import de.erichseifert.gral.data.DataChangeEvent;
+import de.erichseifert.gral.data.DataRangeEvent;
 import de.erichseifert.gral.data.DataSource;
 import de.erichseifert.gral.data.DummyData;
+import de.erichseifert.gral.data.NumericDataSource;
 import de.erichseifert.gral.data.Row;
+import de.erichseifert.gral.graphics.AbstractDrawable;
 import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
 import de.erichseifert.gral.graphics.Insets2D;
@@ -59,7 +66,10 @@ import de.erichseifert.gral.plots.axes.LinearRenderer2D;
 import de.erichseifert.gral.plots.axes.Tick;
 import de.erichseifert.gral.plots.axes.Tick.TickType;
 import de.erichseifert.gral.plots.legends.SeriesLegend;
+import de.erichseifert.gral.plots.lines.DefaultLineRenderer2D;
 import de.erichseifert.gral.plots.lines.LineRenderer;
+import de.erichseifert.gral.plots.lines.StrokedLine;
+import de.erichseifert.gral.plots.points.BulkPointRenderer;
 import de.erichseifert.gral.plots.points.DefaultPointRenderer2D;
 import de.erichseifert.gral.plots.points.PointData;
 import de.erichseifert.gral.plots.points.PointRenderer;
@@ -102,6 +112,10 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 	/** Mapping from data source to area renderers. */
 	private final Map<DataSource, List<AreaRenderer>> areaRenderersByDataSource;
 
+	/** Aggregated values of data sources that have been reduced for
+	drawing. */
+	private transient Map<DataSource, AggregationPyramid> pyramidsByDataSource;
+
 	/** Cache for the {@code Navigator} implementation. */
 	private transient XYPlotNavigator navigator;
 	/** A flag that shows whether the navigator has been properly
@@ -188,6 +202,8 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 	public static class XYPlotArea2D extends PlotArea {
 		/** Version id for serialization. */
 		private static final long serialVersionUID = -3673157774425536428L;
+		/** Number of rows whose values are projected onto the axes at once. */
+		private static final int PROJECTION_BLOCK_SIZE = 1024;
 
 		/** x-y plot this plot area is associated to. */
 		private final XYPlot plot;
@@ -206,6 +222,13 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		/** Paint to fill the grid lines at minor ticks. */
 		private Paint minorGridColor;
 
+		/** Buffer for the points of a data source that is reused for each
+		frame. */
+		private transient PointBuffer pointBuffer;
+		/** Lines and areas from which the shapes of points have been
+		subtracted. */
+		private transient PunchedShapeCache punchedShapes;
+
 		/**
 		 * Creates a new instance with default settings and initializes it with
 		 * a plot serving as data provider.
@@ -229,12 +252,25 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 * @param context Environment used for drawing
 		 */
 		public void draw(DrawingContext context) {
-			drawBackground(context);
-			drawGrid(context);
-			drawBorder(context);
+			Rectangle2D bounds = plot.getBounds();
+			drawLayer(context, LAYER_BACKGROUND, bounds, new AbstractDrawable() {
+				public void draw(DrawingContext context) {
+					drawBackground(context);
+					drawGrid(context);
+					drawBorder(context);
+				}
+			});
 			drawPlot(context);
-			plot.drawAxes(context);
-			plot.drawLegend(context);
+			drawLayer(context, LAYER_AXES, bounds, new AbstractDrawable() {
+				public void draw(DrawingContext context) {
+					plot.drawAxes(context);
+				}
+			});
+			drawLayer(context, LAYER_LEGEND, bounds, new AbstractDrawable() {
+				public void draw(DrawingContext context) {
+					plot.drawLegend(context);
+				}
+			});
 		}
 
 		/**
@@ -326,20 +362,73 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 
 		@Override
 		protected void drawPlot(DrawingContext context) {
+			List<DataSource> visibleData = plot.getVisibleData();
+			List<Drawable> series = new ArrayList<Drawable>(visibleData.size());
+			for (final DataSource s : visibleData) {
+				series.add(new AbstractDrawable() {
+					public void draw(DrawingContext context) {
+						drawSeries(context, s);
+					}
+				});
+			}
+			drawLayers(context, visibleData, getSeriesBounds(), series);
+		}
+
+		/**
+		 * Returns the area that can be covered by the data series. This is
+		 * the clipping area of the plot area, or the bounds of the whole plot
+		 * if clipping is disabled.
+		 * @return Area that can be covered by the data series.
+		 */
+		private Rectangle2D getSeriesBounds() {
+			Insets2D clipOffset = getClippingOffset();
+			if (clipOffset == null) {
+				return plot.getBounds();
+			}
+			double fontSize = getBaseFont().getSize2D();
+			return new Rectangle2D.Double(
+				getX() + clipOffset.getLeft()*fontSize,
+				getY() + clipOffset.getTop()*fontSize,
+				getWidth() - clipOffset.getHorizontal()*fontSize,
+				getHeight() - clipOffset.getVertical()*fontSize
+			);
+		}
+
+		/**
+		 * Draws the areas, lines, and points of a data series using the
+		 * specified drawing context.
+		 * @param context Environment used for drawing.
+		 * @param s Data source of the series.
+		 */
+		private void drawSeries(DrawingContext context, DataSource s) {
+			// Skip empty data source
+			if (s.getColumnCount() == 0) {
+				return;
+			}
+
+			int colX = 0;
+			if (colX < 0 || colX >= s.getColumnCount() || !s.isColumnNumeric(colX)) {
+				return;
+			}
+			int colY = 1;
+			if (colY < 0 || colY >= s.getColumnCount() || !s.isColumnNumeric(colY)) {
+				return;
+			}
+
+			String[] axisNames = plot.getMapping(s);
+			Axis axisX = plot.getAxis(axisNames[0]);
+			Axis axisY = plot.getAxis(axisNames[1]);
+			if (!axisX.isValid() || !axisY.isValid()) {
+				return;
+			}
+
 			Graphics2D graphics = context.getGraphics();
 
 			Shape clipBoundsOld = graphics.getClip();
 			Insets2D clipOffset = getClippingOffset();
 			if (clipOffset != null) {
-				final double fontSize = getBaseFont().getSize2D();
-
 				// Perform clipping
-				Shape clipBounds = new Rectangle2D.Double(
-					getX() + clipOffset.getLeft()*fontSize,
-					getY() + clipOffset.getTop()*fontSize,
-					getWidth() - clipOffset.getHorizontal()*fontSize,
-					getHeight() - clipOffset.getVertical()*fontSize
-				);
+				Shape clipBounds = getSeriesBounds();
 				// Take care of old clipping region. This is used when getting
 				// scrolled in a JScrollPane for example.
 				if (clipBoundsOld != null) {
@@ -354,117 +443,157 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 			graphics.translate(getX(), getY());
 			AffineTransform txOffset = graphics.getTransform();
 
+			// Reuse the point buffer of the last frame unless another thread
+			// is drawing at the same time
+			PointBuffer points;
+			synchronized (this) {
+				points = pointBuffer;
+				pointBuffer = null;
+			}
+			if (points == null) {
+				points = new PointBuffer();
+			}
 
-			// Paint points and lines
-			for (DataSource s : plot.getVisibleData()) {
-				// Skip empty data source
-				if (s.getColumnCount() == 0) {
-					continue;
-				}
-
-				int colX = 0;
-				if (colX < 0 || colX >= s.getColumnCount() || !s.isColumnNumeric(colX)) {
-					continue;
-				}
-				int colY = 1;
-				if (colY < 0 || colY >= s.getColumnCount() || !s.isColumnNumeric(colY)) {
-					continue;
+			// Paint areas, lines, and points
+			AxisRenderer axisXRenderer = plot.getAxisRenderer(axisNames[0]);
+			AxisRenderer axisYRenderer = plot.getAxisRenderer(axisNames[1]);
+
+			NumericDataSource numericData = (s instanceof NumericDataSource)
+				? (NumericDataSource) s : null;
+			List<Axis> pointAxes = Arrays.asList(axisX, axisY);
+			List<AxisRenderer> pointAxisRenderers =
+				Arrays.asList(axisXRenderer, axisYRenderer);
+
+			int rowStart = 0;
+			int rowEnd = s.getRowCount();
+			int[] rows = null;
+			if (numericData != null && axisXRenderer != null
+					&& isClippedHorizontally(clipOffset)
+					&& numericData.isColumnSorted(colX)) {
+				// Only rows with visible x values have to be processed.
+				// One row on each side is kept to connect lines and areas
+				// to the points outside the plot area.
+				double axisMin = axisX.getMin().doubleValue();
+				double axisMax = axisX.getMax().doubleValue();
+				int first = getRowIndex(numericData, colX,
+					Math.min(axisMin, axisMax), false);
+				int last = getRowIndex(numericData, colX,
+					Math.max(axisMin, axisMax), true);
+				rowStart = Math.max(first - 1, 0);
+				rowEnd = Math.min(last + 1, rowEnd);
+
+				// Series that are only drawn with straight lines and have
+				// far more rows than pixels are reduced to the first,
+				// lowest, highest and last row of each pixel column
+				int maxBuckets = (int) Math.ceil(getWidth());
+				if (maxBuckets > 0 && rowEnd - rowStart > 4*maxBuckets
+						&& axisXRenderer instanceof LinearRenderer2D
+						&& isReducible(s)) {
+					double pixelWidth = Math.abs(axisMax - axisMin)/getWidth();
+					AggregationPyramid pyramid =
+						plot.getAggregationPyramid(numericData, colY);
+					rows = pyramid.getRows(rowStart, rowEnd, maxBuckets,
+						colX, pixelWidth);
 				}
+			}
 
-				String[] axisNames = plot.getMapping(s);
-				Axis axisX = plot.getAxis(axisNames[0]);
-				Axis axisY = plot.getAxis(axisNames[1]);
-				if (!axisX.isValid() || !axisY.isValid()) {
-					continue;
-				}
-				AxisRenderer axisXRenderer = plot.getAxisRenderer(axisNames[0]);
-				AxisRenderer axisYRenderer = plot.getAxisRenderer(axisNames[1]);
-
-				List<DataPoint> points = new LinkedList<DataPoint>();
-				for (int i = 0; i < s.getRowCount(); i++) {
-					Row row = new Row(s, i);
-					Number valueX = (Number) row.get(colX);
-					Number valueY = (Number) row.get(colY);
-
-					PointND<Double> axisPosX = (axisXRenderer != null)
-						? axisXRenderer.getPosition(axisX, valueX, true, false)
-						: new PointND<Double>(0.0, 0.0);
-					PointND<Double> axisPosY = (axisYRenderer != null)
-						? axisYRenderer.getPosition(axisY, valueY, true, false)
-						: new PointND<Double>(0.0, 0.0);
-					if (axisPosX == null || axisPosY == null) {
-						continue;
+			points.reset(s, colY, pointAxes, pointAxisRenderers);
+			int rowCount = (rows != null) ? rows.length : rowEnd - rowStart;
+			// Data point objects are only created if a renderer
+			// requests them
+			if (numericData != null) {
+				addPoints(points, numericData, colX, colY, rows, rowStart,
+					rowCount, axisX, axisY, axisXRenderer, axisYRenderer);
+			} else {
+				for (int n = 0; n < rowCount; n++) {
+					int i = (rows != null) ? rows[n] : rowStart + n;
+					Number valueX = (Number) s.get(colX, i);
+					Number valueY = (Number) s.get(colY, i);
+
+					double posX = 0.0;
+					if (axisXRenderer != null) {
+						PointND<Double> axisPosX = axisXRenderer.getPosition(
+							axisX, valueX, true, false);
+						if (axisPosX == null) {
+							continue;
+						}
+						posX = axisPosX.get(PointND.X);
 					}
-
-					PointND<Double> pos = new PointND<Double>(
-						axisPosX.get(PointND.X), axisPosY.get(PointND.Y));
-
-					PointData pointData = new PointData(
-						Arrays.asList(axisX, axisY),
-						Arrays.asList(axisXRenderer, axisYRenderer),
-						row, colY);
-
-					DataPoint dataPoint = new DataPoint(pointData, pos);
-					points.add(dataPoint);
-				}
-
-				List<PointRenderer> pointRenderers = new ArrayList<PointRenderer>(plot.getPointRenderers(s));
-				Collections.reverse(pointRenderers);
-
-				List<AreaRenderer> areaRenderers = new ArrayList<AreaRenderer>(plot.getAreaRenderers(s));
-				Collections.reverse(areaRenderers);
-				for (AreaRenderer areaRenderer : areaRenderers) {
-					Shape area = areaRenderer.getAreaShape(points);
-					Shape punchedArea = area;
-					for (PointRenderer pointRenderer : pointRenderers) {
-						List<Shape> punchShapes = new ArrayList<Shape>(points.size());
-						for (DataPoint point : points) {
-							Shape punchShape = pointRenderer.getPointShape(point.data);
-							punchShapes.add(punchShape);
+					double posY = 0.0;
+					if (axisYRenderer != null) {
+						PointND<Double> axisPosY = axisYRenderer.getPosition(
+							axisY, valueY, true, false);
+						if (axisPosY == null) {
+							continue;
 						}
-						punchedArea = punch(punchedArea, points, punchShapes, areaRenderer.getGap(), areaRenderer.isGapRounded());
+						posY = axisPosY.get(PointND.Y);
 					}
-					Drawable drawable = areaRenderer.getArea(points, punchedArea);
-					drawable.draw(context);
+
+					points.add(i, posX, posY);
 				}
+			}
 
-				List<LineRenderer> lineRenderers = new ArrayList<LineRenderer>(plot.getLineRenderers(s));
-				Collections.reverse(lineRenderers);
-				for (LineRenderer lineRenderer : lineRenderers) {
-					Shape line = lineRenderer.getLineShape(points);
-					Shape punchedLine = line;
-					for (PointRenderer pointRenderer : pointRenderers) {
-						List<Shape> punchShapes = new ArrayList<Shape>(points.size());
-						for (DataPoint point : points) {
-							Shape punchShape = pointRenderer.getPointShape(point.data);
-							punchShapes.add(punchShape);
+			List<PointRenderer> pointRenderers = new ArrayList<PointRenderer>(plot.getPointRenderers(s));
+			Collections.reverse(pointRenderers);
+
+			List<AreaRenderer> areaRenderers = new ArrayList<AreaRenderer>(plot.getAreaRenderers(s));
+			Collections.reverse(areaRenderers);
+			for (AreaRenderer areaRenderer : areaRenderers) {
+				Shape area = areaRenderer.getAreaShape(points);
+				Shape punchedArea = getPunchedShape(s, areaRenderer, area,
+					points, pointRenderers, areaRenderer.getGap(),
+					areaRenderer.isGapRounded());
+				Drawable drawable = areaRenderer.getArea(points, punchedArea);
+				drawable.draw(context);
+			}
+
+			List<LineRenderer> lineRenderers = new ArrayList<LineRenderer>(plot.getLineRenderers(s));
+			Collections.reverse(lineRenderers);
+			for (LineRenderer lineRenderer : lineRenderers) {
+				Shape line = lineRenderer.getLineShape(points);
+				Shape punchedLine = getPunchedShape(s, lineRenderer, line,
+					points, pointRenderers, lineRenderer.getGap(),
+					lineRenderer.isGapRounded());
+				Drawable drawable = lineRenderer.getLine(points, punchedLine);
+				drawable.draw(context);
+			}
+			if (!plot.getPointRenderers(s).isEmpty()) {
+				// Renderers that draw all points at once don't need any
+				// data point objects unless they display values
+				List<PointRenderer> singlePointRenderers = new ArrayList<PointRenderer>();
+				List<PointRenderer> valuePointRenderers = new ArrayList<PointRenderer>();
+				for (PointRenderer pointRenderer : plot.getPointRenderers(s)) {
+					if (pointRenderer instanceof BulkPointRenderer) {
+						Drawable pointsDrawable =
+							((BulkPointRenderer) pointRenderer).getPoints(points);
+						pointsDrawable.draw(context);
+						if (pointRenderer.isValueVisible()) {
+							valuePointRenderers.add(pointRenderer);
 						}
-						punchedLine = punch(punchedLine, points, punchShapes, lineRenderer.getGap(), lineRenderer.isGapRounded());
+					} else {
+						singlePointRenderers.add(pointRenderer);
+						valuePointRenderers.add(pointRenderer);
 					}
-					Drawable drawable = lineRenderer.getLine(points, punchedLine);
-					drawable.draw(context);
 				}
-				if (!plot.getPointRenderers(s).isEmpty()) {
-					// Draw graphics
-					for (DataPoint point : points) {
-						PointND<Double> pos = point.position;
-						double pointX = pos.get(PointND.X);
-						double pointY = pos.get(PointND.Y);
-						graphics.translate(pointX, pointY);
-						for (PointRenderer pointRenderer : plot.getPointRenderers(s)) {
+				// Draw graphics
+				if (!singlePointRenderers.isEmpty()) {
+					for (int i = 0; i < points.size(); i++) {
+						DataPoint point = points.get(i);
+						graphics.translate(points.getX(i), points.getY(i));
+						for (PointRenderer pointRenderer : singlePointRenderers) {
 							Shape pointShape = pointRenderer.getPointShape(point.data);
 							Drawable pointDrawable = pointRenderer.getPoint(point.data, pointShape);
 							pointDrawable.draw(context);
 						}
 						graphics.setTransform(txOffset);
 					}
-					// Draw labels
-					for (DataPoint point : points) {
-						PointND<Double> pos = point.position;
-						double pointX = pos.get(PointND.X);
-						double pointY = pos.get(PointND.Y);
-						graphics.translate(pointX, pointY);
-						for (PointRenderer pointRenderer : plot.getPointRenderers(s)) {
+				}
+				// Draw labels
+				if (!valuePointRenderers.isEmpty()) {
+					for (int i = 0; i < points.size(); i++) {
+						DataPoint point = points.get(i);
+						graphics.translate(points.getX(i), points.getY(i));
+						for (PointRenderer pointRenderer : valuePointRenderers) {
 							Shape pointShape = pointRenderer.getPointShape(point.data);
 							Drawable labelDrawable = pointRenderer.getValue(point.data, pointShape);
 							labelDrawable.draw(context);
@@ -474,6 +603,11 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 				}
 			}
 
+			points.reset(null, 0, null, null);
+			synchronized (this) {
+				pointBuffer = points;
+			}
+
 			// Reset transformation (offset)
 			graphics.setTransform(txOrig);
 
@@ -483,6 +617,134 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 			}
 		}
 
+		/**
+		 * Returns whether the rows of the specified data series can be
+		 * reduced to a few rows per pixel column without changing its
+		 * appearance. This is only the case if the series is drawn with
+		 * straight lines that connect neighbouring points, but without
+		 * point markers or areas.
+		 * @param s Data series.
+		 * @return {@code true} if the rows of the series can be reduced.
+		 */
+		private boolean isReducible(DataSource s) {
+			List<LineRenderer> lineRenderers = plot.getLineRenderers(s);
+			if (lineRenderers.isEmpty() || !plot.getPointRenderers(s).isEmpty()
+					|| !plot.getAreaRenderers(s).isEmpty()) {
+				return false;
+			}
+			for (LineRenderer lineRenderer : lineRenderers) {
+				if (!(lineRenderer instanceof DefaultLineRenderer2D)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns whether points outside the horizontal range of the plot
+		 * area are hidden by clipping.
+		 * @param clipOffset Clipping offset, or {@code null} if clipping is
+		 *        turned off.
+		 * @return {@code true} if clipping hides points that are left or
+		 *         right of the plot area.
+		 */
+		private static boolean isClippedHorizontally(Insets2D clipOffset) {
+			return clipOffset != null
+				&& clipOffset.getLeft() >= 0.0 && clipOffset.getRight() >= 0.0;
+		}
+
+		/**
+		 * Finds a row in a sorted column using binary search.
+		 * @param data Data source.
+		 * @param col Index of a column with values in ascending order.
+		 * @param value Value to search for.
+		 * @param after {@code true} to find the first row with a larger
+		 *        value, {@code false} to find the first row with a value
+		 *        that is larger or equal.
+		 * @return Row index, or the number of rows if there is no such row.
+		 */
+		private static int getRowIndex(NumericDataSource data, int col,
+				double value, boolean after) {
+			int low = 0;
+			int high = data.getRowCount();
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				double midValue = data.getDouble(col, mid);
+				if (midValue < value || (after && midValue == value)) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Projects the values of the specified rows onto the axes and adds
+		 * the resulting positions to a point buffer. The values are
+		 * projected in blocks of rows, and rows with gaps are skipped
+		 * before any objects are created.
+		 * @param points Buffer that receives the points.
+		 * @param data Data source.
+		 * @param colX Index of the column with x values.
+		 * @param colY Index of the column with y values.
+		 * @param rows Indexes of the rows to be added, or {@code null} to
+		 *        add consecutive rows.
+		 * @param rowStart Index of the first row if {@code rows} is
+		 *        {@code null}.
+		 * @param rowCount Number of rows.
+		 * @param axisX Axis for x values.
+		 * @param axisY Axis for y values.
+		 * @param axisXRenderer Renderer for x values, or {@code null}.
+		 * @param axisYRenderer Renderer for y values, or {@code null}.
+		 */
+		private static void addPoints(PointBuffer points,
+				NumericDataSource data, int colX, int colY, int[] rows,
+				int rowStart, int rowCount, Axis axisX, Axis axisY,
+				AxisRenderer axisXRenderer, AxisRenderer axisYRenderer) {
+			int blockSize = Math.min(rowCount, PROJECTION_BLOCK_SIZE);
+			int[] blockRows = new int[blockSize];
+			double[] valuesX = new double[blockSize];
+			double[] valuesY = new double[blockSize];
+			double[] positionsX = new double[blockSize];
+			double[] positionsY = new double[blockSize];
+			double[] unused = new double[blockSize];
+
+			int n = 0;
+			while (n < rowCount) {
+				int count = 0;
+				for (; n < rowCount && count < blockSize; n++) {
+					int i = (rows != null) ? rows[n] : rowStart + n;
+					double x = data.getDouble(colX, i);
+					double y = data.getDouble(colY, i);
+					if ((axisXRenderer != null && Double.isNaN(x)) ||
+							(axisYRenderer != null && Double.isNaN(y))) {
+						continue;
+					}
+					blockRows[count] = i;
+					valuesX[count] = x;
+					valuesY[count] = y;
+					count++;
+				}
+
+				if (axisXRenderer != null) {
+					axisXRenderer.project(axisX, valuesX, count, positionsX, unused);
+				}
+				if (axisYRenderer != null) {
+					axisYRenderer.project(axisY, valuesY, count, unused, positionsY);
+				}
+
+				for (int j = 0; j < count; j++) {
+					double posX = (axisXRenderer != null) ? positionsX[j] : 0.0;
+					double posY = (axisYRenderer != null) ? positionsY[j] : 0.0;
+					if (Double.isNaN(posX) || Double.isNaN(posY)) {
+						continue;
+					}
+					points.add(blockRows[j], posX, posY);
+				}
+			}
+		}
+
 		/**
 		 * Returns the shape from which the shapes of the specified points are subtracted.
 		 * @param shape Shape to be modified.
@@ -493,20 +755,85 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 * @return Punched shape.
 		 */
 		protected static Shape punch(Shape shape, List<DataPoint> dataPoints, List<Shape> punchShapes, double gap, boolean roundedGaps) {
-			if (!MathUtils.isCalculatable(gap) || gap == 0.0) {
+			if (!MathUtils.isCalculatable(gap) || gap <= 1e-10) {
 				return shape;
 			}
 
-			// Subtract shapes of data points from the line to yield gaps.
-			Area punched = new Area(shape);
-			for (int pointIndex = 0; pointIndex < dataPoints.size(); pointIndex++) {
-				DataPoint p = dataPoints.get(pointIndex);
-				punched = GeometryUtils.punch(punched, gap, roundedGaps,
-						p.position.getPoint2D(), punchShapes.get(pointIndex));
+			// Lines are cut before they are stroked
+			if (shape instanceof StrokedLine) {
+				return LineGaps.punch((StrokedLine) shape,
+					PointBuffer.of(dataPoints), punchShapes, gap, roundedGaps);
+			}
+
+			// Collect the gaps around all data points in one path, so
+			// only a single subtraction is necessary. The enlarged shape
+			// is calculated once for each distinct point shape.
+			int gapJoin = roundedGaps ? BasicStroke.JOIN_ROUND : BasicStroke.JOIN_MITER;
+			PointBuffer points = PointBuffer.of(dataPoints);
+			Map<Shape, Area> gapShapes = new IdentityHashMap<Shape, Area>();
+			Path2D gaps = new Path2D.Double(Path2D.WIND_NON_ZERO);
+			AffineTransform tx = new AffineTransform();
+			for (int pointIndex = 0; pointIndex < points.size(); pointIndex++) {
+				Shape punchShape = punchShapes.get(pointIndex);
+				if (punchShape == null) {
+					continue;
+				}
+				Area gapShape = gapShapes.get(punchShape);
+				if (gapShape == null) {
+					gapShape = GeometryUtils.grow(punchShape, gap, gapJoin, 10f);
+					gapShapes.put(punchShape, gapShape);
+				}
+				tx.setToTranslation(points.getX(pointIndex), points.getY(pointIndex));
+				gaps.append(gapShape.getPathIterator(tx), false);
 			}
+
+			// Subtract shapes of data points from the shape to yield gaps.
+			Area punched = new Area(shape);
+			punched.subtract(new Area(gaps));
 			return punched;
 		}
 
+		/**
+		 * Returns the shape of a line or area from which the shapes of the
+		 * specified points are subtracted. The result is stored and reused
+		 * as long as the shapes, positions, and settings stay the same.
+		 * @param source Data source of the line or area.
+		 * @param renderer Renderer of the line or area.
+		 * @param shape Shape to be punched.
+		 * @param points Data points on the shape.
+		 * @param pointRenderers Renderers whose point shapes are subtracted.
+		 * @param gap Gap between shape and point shapes.
+		 * @param roundedGaps {@code true} if the shape gaps are rounded.
+		 * @return Punched shape.
+		 */
+		private Shape getPunchedShape(DataSource source, Object renderer,
+				Shape shape, PointBuffer points, List<PointRenderer> pointRenderers,
+				double gap, boolean roundedGaps) {
+			if (shape == null || pointRenderers.isEmpty() ||
+					!MathUtils.isCalculatable(gap) || gap == 0.0) {
+				return shape;
+			}
+			List<List<Shape>> punchShapes = new ArrayList<List<Shape>>(pointRenderers.size());
+			for (PointRenderer pointRenderer : pointRenderers) {
+				List<Shape> rendererPunchShapes = new ArrayList<Shape>(points.size());
+				for (DataPoint point : points) {
+					Shape punchShape = pointRenderer.getPointShape(point.data);
+					rendererPunchShapes.add(punchShape);
+				}
+				punchShapes.add(rendererPunchShapes);
+			}
+
+			PunchedShapeCache cache;
+			synchronized (this) {
+				if (punchedShapes == null) {
+					punchedShapes = new PunchedShapeCache();
+				}
+				cache = punchedShapes;
+			}
+			return cache.get(Arrays.asList(source, renderer), shape, points,
+				punchShapes, gap, roundedGaps);
+		}
+
 		/**
 		 * Returns whether horizontal grid lines at major ticks along the
 		 * x-axis are drawn.
@@ -525,6 +852,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 */
 		public void setMajorGridX(boolean gridMajorX) {
 			this.majorGridX = gridMajorX;
+			invalidateLayers();
 		}
 
 		/**
@@ -545,6 +873,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 */
 		public void setMajorGridY(boolean gridMajorY) {
 			this.majorGridY = gridMajorY;
+			invalidateLayers();
 		}
 
 		/**
@@ -564,6 +893,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 */
 		public void setMajorGridColor(Color color) {
 			this.majorGridColor = color;
+			invalidateLayers();
 		}
 
 		/**
@@ -584,6 +914,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 */
 		public void setMinorGridX(boolean gridMinorX) {
 			this.minorGridX = gridMinorX;
+			invalidateLayers();
 		}
 
 		/**
@@ -604,6 +935,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 */
 		public void setMinorGridY(boolean gridMinorY) {
 			this.minorGridY = gridMinorY;
+			invalidateLayers();
 		}
 
 		/**
@@ -623,6 +955,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		 */
 		public void setMinorGridColor(Color color) {
 			this.minorGridColor = color;
+			invalidateLayers();
 		}
 	}
 
@@ -906,6 +1239,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 			pointRenderersByDataSource.put(s, pointRenderers);
 		}
 		pointRenderers.add(pointRenderer);
+		invalidateLayers();
 	}
 
 	/**
@@ -918,6 +1252,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		if (pointRenderers != null) {
 			pointRenderers.remove(pointRenderer);
 		}
+		invalidateLayers();
 	}
 
 	/**
@@ -927,6 +1262,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 	 */
 	public void setPointRenderers(DataSource s, List<PointRenderer> pointRenderers) {
 		this.pointRenderersByDataSource.put(s, pointRenderers);
+		invalidateLayers();
 	}
 
 	/**
@@ -973,6 +1309,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 	 */
 	public void setLineRenderers(DataSource s, List<LineRenderer> lineRenderers) {
 		lineRenderersByDataSource.put(s, lineRenderers);
+		invalidateLayers();
 	}
 
 	/**
@@ -1020,6 +1357,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 	 */
 	public void setAreaRenderers(DataSource s, List<AreaRenderer> areaRenderers) {
 		areaRenderersByDataSource.put(s, areaRenderers);
+		invalidateLayers();
 	}
 
 	/**
@@ -1079,6 +1417,91 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 		setAreaRenderers(source, areaRendererDefault);
 	}
 
+	@Override
+	public boolean remove(DataSource source) {
+		invalidatePyramid(source);
+		return super.remove(source);
+	}
+
+	@Override
+	public void clear() {
+		synchronized (this) {
+			if (pyramidsByDataSource != null) {
+				pyramidsByDataSource.clear();
+			}
+		}
+		super.clear();
+	}
+
+	/**
+	 * Returns the pyramid of aggregated values for the specified column of
+	 * a data source. The pyramid is created when it is requested for the
+	 * first time and it is updated with the changes of the data source.
+	 * @param source Data source.
+	 * @param col Index of the column whose values are aggregated.
+	 * @return Pyramid of aggregated values.
+	 */
+	private synchronized AggregationPyramid getAggregationPyramid(
+			NumericDataSource source, int col) {
+		if (pyramidsByDataSource == null) {
+			pyramidsByDataSource = new HashMap<DataSource, AggregationPyramid>();
+		}
+		AggregationPyramid pyramid = pyramidsByDataSource.get(source);
+		if (pyramid == null || pyramid.getColumn() != col) {
+			pyramid = new AggregationPyramid(source, col);
+			pyramidsByDataSource.put(source, pyramid);
+		}
+		return pyramid;
+	}
+
+	@Override
+	public void dataAdded(DataSource source, DataChangeEvent... events) {
+		invalidatePyramid(source);
+		super.dataAdded(source, events);
+	}
+
+	@Override
+	public void dataUpdated(DataSource source, DataChangeEvent... events) {
+		invalidatePyramid(source);
+		super.dataUpdated(source, events);
+	}
+
+	@Override
+	public void dataRemoved(DataSource source, DataChangeEvent... events) {
+		invalidatePyramid(source);
+		super.dataRemoved(source, events);
+	}
+
+	/**
+	 * Discards the pyramid of aggregated values for the specified data
+	 * source. Data sources that only report changes of single values don't
+	 * describe the changed range reliably, so the pyramid is created again
+	 * when it is requested next.
+	 * @param source Data source that has been changed.
+	 */
+	private void invalidatePyramid(DataSource source) {
+		synchronized (this) {
+			if (pyramidsByDataSource != null) {
+				pyramidsByDataSource.remove(source);
+			}
+		}
+	}
+
+	@Override
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		AggregationPyramid pyramid = null;
+		synchronized (this) {
+			if (pyramidsByDataSource != null) {
+				pyramid = pyramidsByDataSource.get(source);
+			}
+		}
+		// Aggregates have to be updated before the plot is refreshed
+		if (pyramid != null) {
+			pyramid.dataChanged(source, event);
+		}
+		super.dataChanged(source, event);
+	}
+
 	/**
 	 * Returns a navigator instance that can control the current object.
 	 * @return A navigator instance.
@@ -1107,6 +1530,7 @@ public class XYPlot extends AbstractPlot implements Navigable, AxisListener {
 	 */
 	public void rangeChanged(Axis axis, Number min, Number max) {
 		layoutAxes();
+		invalidateLayers();
 	}
 
 	/**
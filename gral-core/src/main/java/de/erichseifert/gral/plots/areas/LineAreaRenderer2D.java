@@ -26,13 +26,13 @@ import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.geom.Path2D;
-import java.awt.geom.Point2D;
 import java.util.List;
 
 import de.erichseifert.gral.graphics.AbstractDrawable;
 import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
 import de.erichseifert.gral.plots.DataPoint;
+import de.erichseifert.gral.plots.PointBuffer;
 import de.erichseifert.gral.plots.axes.Axis;
 import de.erichseifert.gral.plots.axes.AxisRenderer;
 import de.erichseifert.gral.util.GraphicsUtils;
@@ -106,10 +106,10 @@ public class LineAreaRenderer2D extends AbstractAreaRenderer {
 		Path2D shape = new Path2D.Double();
 		double x = 0.0;
 		double y = 0.0;
-		for (DataPoint p : points) {
-			Point2D pos = p.position.getPoint2D();
-			x = pos.getX();
-			y = pos.getY();
+		PointBuffer buffer = PointBuffer.of(points);
+		for (int i = 0; i < buffer.size(); i++) {
+			x = buffer.getX(i);
+			y = buffer.getY(i);
 			shape.moveTo(x, y);
 			shape.lineTo(x, posYOrigin);
 		}
@@ -39,6 +39,7 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.text.Format;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -612,25 +613,10 @@ public abstract class AbstractAxisRenderer2D implements AxisRenderer, Serializab
 		if (Double.isNaN(positionOnShapePath)) {
 			return null;
 		}
-
-		// TODO Check if this is a valid way to allow infinite values
-		if (positionOnShapePath == Double.NEGATIVE_INFINITY) {
-			positionOnShapePath = 0.0;
-		} else if (positionOnShapePath == Double.POSITIVE_INFINITY) {
-			positionOnShapePath = 1.0;
-		}
+		positionOnShapePath = getLimitedPosition(positionOnShapePath);
 
 		// Determine shape segment
-		int segmentIndex;
-		if (relativePositionOnShapePath <= 0.0) {
-				segmentIndex = 0;
-		} else if (relativePositionOnShapePath >= 1.0) {
-				segmentIndex = shapeLines.length - 1;
-		} else {
-			// Determine to which segment the value belongs using a binary search
-			segmentIndex = MathUtils.binarySearchFloor(shapeSegmentLengthsAccumulated, positionOnShapePath);
-		}
-
+		int segmentIndex = getSegmentIndex(relativePositionOnShapePath, positionOnShapePath);
 		if (segmentIndex < 0 || segmentIndex >= shapeLines.length) {
 			return null;
 		}
@@ -645,6 +631,121 @@ public abstract class AbstractAxisRenderer2D implements AxisRenderer, Serializab
 		return new PointND<Double>(x, y);
 	}
 
+	/**
+	 * Converts a number of world coordinate values to view coordinates at
+	 * once. The result for each value is the same as the position returned
+	 * by {@link #getPosition(Axis, Number, boolean, boolean)} with
+	 * extrapolation and without forced linear interpolation, but no objects
+	 * are created. Values without a position on the axis result in NaN
+	 * coordinates. The output arrays must not be the array of values.
+	 * @param axis Axis
+	 * @param values World coordinate values to convert
+	 * @param n Number of values to convert
+	 * @param outX Array that receives the x coordinates of the positions
+	 * @param outY Array that receives the y coordinates of the positions
+	 */
+	public void project(Axis axis, double[] values, int n, double[] outX,
+			double[] outY) {
+		if (shapeLines == null || shapeLines.length == 0) {
+			Arrays.fill(outX, 0, n, Double.NaN);
+			Arrays.fill(outY, 0, n, Double.NaN);
+			return;
+		}
+
+		// Determine absolute positions of the values on the shape path
+		worldToView(axis, values, n, outX);
+
+		if (shapeLines.length == 1) {
+			// Straight axes are an affine transformation of the positions
+			Line2D segment = shapeLines[0];
+			double x1 = segment.getX1();
+			double y1 = segment.getY1();
+			double dx = (segment.getX2() - x1)/shapeSegmentLengths[0];
+			double dy = (segment.getY2() - y1)/shapeSegmentLengths[0];
+			for (int i = 0; i < n; i++) {
+				double positionOnShapePath = getLimitedPosition(outX[i]);
+				outX[i] = x1 + dx*positionOnShapePath;
+				outY[i] = y1 + dy*positionOnShapePath;
+			}
+			return;
+		}
+
+		double min = axis.getMin().doubleValue();
+		double range = axis.getRange();
+		for (int i = 0; i < n; i++) {
+			double relativePositionOnShapePath = (values[i] - min)/range;
+			double positionOnShapePath = getLimitedPosition(outX[i]);
+
+			// Determine shape segment
+			int segmentIndex = getSegmentIndex(relativePositionOnShapePath, positionOnShapePath);
+			if (Double.isNaN(positionOnShapePath) ||
+					segmentIndex < 0 || segmentIndex >= shapeLines.length) {
+				outX[i] = Double.NaN;
+				outY[i] = Double.NaN;
+				continue;
+			}
+
+			Line2D segment = shapeLines[segmentIndex];
+			double relLen = (positionOnShapePath -
+				shapeSegmentLengthsAccumulated[segmentIndex]) /
+				shapeSegmentLengths[segmentIndex];
+			outX[i] = segment.getX1() + (segment.getX2() - segment.getX1())*relLen;
+			outY[i] = segment.getY1() + (segment.getY2() - segment.getY1())*relLen;
+		}
+	}
+
+	/**
+	 * Converts a number of world coordinate values to view coordinate values
+	 * with extrapolation. The default implementation calls
+	 * {@link #worldToView(Axis, Number, boolean)} for each value; subclasses
+	 * should override it to avoid boxing the values.
+	 * @param axis Axis
+	 * @param values World coordinate values to convert
+	 * @param n Number of values to convert
+	 * @param views Array that receives the view coordinate values
+	 */
+	protected void worldToView(Axis axis, double[] values, int n,
+			double[] views) {
+		for (int i = 0; i < n; i++) {
+			views[i] = worldToView(axis, values[i], true);
+		}
+	}
+
+	/**
+	 * Maps infinite positions on the shape path to the ends of the shape
+	 * path.
+	 * @param positionOnShapePath Absolute position on the shape path.
+	 * @return Finite position, or NaN.
+	 */
+	private static double getLimitedPosition(double positionOnShapePath) {
+		// TODO Check if this is a valid way to allow infinite values
+		if (positionOnShapePath == Double.NEGATIVE_INFINITY) {
+			return 0.0;
+		} else if (positionOnShapePath == Double.POSITIVE_INFINITY) {
+			return 1.0;
+		}
+		return positionOnShapePath;
+	}
+
+	/**
+	 * Returns the index of the shape segment that contains the specified
+	 * position. Positions before the start or after the end of the shape
+	 * path belong to the first or the last segment, respectively.
+	 * @param relativePositionOnShapePath Relative position on the shape path.
+	 * @param positionOnShapePath Absolute position on the shape path.
+	 * @return Index of the shape segment.
+	 */
+	private int getSegmentIndex(double relativePositionOnShapePath,
+			double positionOnShapePath) {
+		if (relativePositionOnShapePath <= 0.0) {
+			return 0;
+		} else if (relativePositionOnShapePath >= 1.0) {
+			return shapeLines.length - 1;
+		}
+		// Determine to which segment the value belongs using a binary search
+		return MathUtils.binarySearchFloor(shapeSegmentLengthsAccumulated, positionOnShapePath);
+	}
+
 	/**
 	 * Calculates important aspects of the specified shape.
 	 * @param shape Shape to be evaluated.
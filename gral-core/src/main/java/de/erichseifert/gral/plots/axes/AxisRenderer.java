@@ -94,6 +94,21 @@ public interface AxisRenderer {
 	 */
 	PointND<Double> getPosition(Axis axis, Number value, boolean extrapolate, boolean forceLinear);
 
+	/**
+	 * Converts a number of world coordinate values to view coordinates at
+	 * once. The result for each value is the same as the position returned
+	 * by {@link #getPosition(Axis, Number, boolean, boolean)} with
+	 * extrapolation and without forced linear interpolation, but no objects
+	 * are created. Values without a position on the axis result in NaN
+	 * coordinates. The output arrays must not be the array of values.
+	 * @param axis Axis
+	 * @param values World coordinate values to convert
+	 * @param n Number of values to convert
+	 * @param outX Array that receives the x coordinates of the positions
+	 * @param outY Array that receives the y coordinates of the positions
+	 */
+	void project(Axis axis, double[] values, int n, double[] outX, double[] outY);
+
 	/**
 	 * Returns the normal vector at the position of the specified value.
 	 * The vector is normalized.
@@ -27,7 +27,8 @@ import java.util.LinkedList;
 import java.util.List;
 
 import de.erichseifert.gral.data.DataChangeEvent;
-import de.erichseifert.gral.data.DataListener;
+import de.erichseifert.gral.data.DataRangeEvent;
+import de.erichseifert.gral.data.DataRangeListener;
 import de.erichseifert.gral.data.DataSource;
 import de.erichseifert.gral.data.Row;
 
@@ -36,7 +37,7 @@ import de.erichseifert.gral.data.Row;
  * series that are added to the legend.
  */
 public abstract class ValueLegend extends AbstractLegend
-		implements DataListener {
+		implements DataRangeListener {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = -4274009997506638823L;
 
@@ -129,6 +130,17 @@ public abstract class ValueLegend extends AbstractLegend
 		dataChanged(source, events);
 	}
 
+	/**
+	 * Method that is invoked when a range of data has been changed.
+	 * This method is invoked by objects that provide support for
+	 * {@code DataListener}s and should not be called manually.
+	 * @param source Data source that has been changed.
+	 * @param event Event object describing the changed range.
+	 */
+	public void dataChanged(DataSource source, DataRangeEvent event) {
+		invalidate();
+	}
+
 	/**
 	 * Method that is invoked when data has been added, updated, or removed.
 	 * This method is invoked by objects that provide support for
@@ -68,7 +68,9 @@ public abstract class AbstractLineRenderer2D implements LineRenderer, Serializab
 	}
 
 	/**
-	 * Returns the stroked shape of the specified line.
+	 * Returns the stroked shape of the specified line. The outline is
+	 * calculated when it is used for the first time, and the line can be
+	 * retrieved from the returned {@link StrokedLine} to cut gaps into it.
 	 * @param line Shape of the line.
 	 * @return Stroked shape.
 	 */
@@ -77,8 +79,7 @@ public abstract class AbstractLineRenderer2D implements LineRenderer, Serializab
 			return null;
 		}
 		Stroke stroke = getStroke();
-		Shape lineShape = stroke.createStrokedShape(line);
-		return lineShape;
+		return new StrokedLine(line, stroke);
 	}
 
 	/**
@@ -0,0 +1,229 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.lines;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.util.List;
+
+import de.erichseifert.gral.plots.DataPoint;
+import de.erichseifert.gral.plots.PointBuffer;
+
+
+/**
+ * <p>Class that connects two dimensional data points with a straight line
+ * and reduces the number of line segments for dense data.</p>
+ * <p>Consecutive points whose horizontal positions fall into the same
+ * column are replaced by the first, the lowest, the highest, and the last
+ * point of the column. If the column width is not larger than a pixel, the
+ * rendered line looks the same as the line through all points, but it has
+ * at most four vertices per column. This is known as M4 aggregation.</p>
+ * <p>Functionality includes:</p>
+ * <ul>
+ *   <li>Setting and getting the width of the columns</li>
+ * </ul>
+ */
+public class DecimatingLineRenderer2D extends DefaultLineRenderer2D {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = -3151683428093580916L;
+
+	/** Width of the columns in which points are aggregated. */
+	private double columnWidth;
+
+	/**
+	 * Points that fall into the same column.
+	 */
+	private static final class Column {
+		/** Index of the column. */
+		private long index;
+		/** Number of points in the column. */
+		private int count;
+		/** Horizontal position of the first point. */
+		private double firstX;
+		/** Vertical position of the first point. */
+		private double firstY;
+		/** Horizontal position of the point with the smallest vertical
+		position. */
+		private double minX;
+		/** Smallest vertical position. */
+		private double minY;
+		/** Number of the point with the smallest vertical position. */
+		private int minPoint;
+		/** Horizontal position of the point with the largest vertical
+		position. */
+		private double maxX;
+		/** Largest vertical position. */
+		private double maxY;
+		/** Number of the point with the largest vertical position. */
+		private int maxPoint;
+		/** Horizontal position of the last point. */
+		private double lastX;
+		/** Vertical position of the last point. */
+		private double lastY;
+
+		/**
+		 * Adds a point to the column.
+		 * @param x Horizontal position.
+		 * @param y Vertical position.
+		 */
+		public void add(double x, double y) {
+			if (count == 0) {
+				firstX = x;
+				firstY = y;
+				minX = x;
+				minY = y;
+				maxX = x;
+				maxY = y;
+			} else if (y < minY) {
+				minX = x;
+				minY = y;
+				minPoint = count;
+			} else if (y > maxY) {
+				maxX = x;
+				maxY = y;
+				maxPoint = count;
+			}
+			lastX = x;
+			lastY = y;
+			count++;
+		}
+
+		/**
+		 * Appends the vertices of the column to the specified path and
+		 * empties the column.
+		 * @param path Path to which the vertices will be appended.
+		 */
+		public void appendTo(Path2D path) {
+			lineTo(path, firstX, firstY);
+			int last = count - 1;
+			// Extrema are appended in the order in which they occurred
+			if (minPoint <= maxPoint) {
+				appendInner(path, minPoint, minX, minY, last);
+				appendInner(path, maxPoint, maxX, maxY, last);
+			} else {
+				appendInner(path, maxPoint, maxX, maxY, last);
+				appendInner(path, minPoint, minX, minY, last);
+			}
+			if (last > 0) {
+				lineTo(path, lastX, lastY);
+			}
+			count = 0;
+			minPoint = 0;
+			maxPoint = 0;
+		}
+
+		/**
+		 * Appends a point that isn't the first or last point of the column.
+		 * @param path Path to which the point will be appended.
+		 * @param point Number of the point in the column.
+		 * @param x Horizontal position.
+		 * @param y Vertical position.
+		 * @param last Number of the last point in the column.
+		 */
+		private static void appendInner(Path2D path, int point, double x,
+				double y, int last) {
+			if (point > 0 && point < last) {
+				lineTo(path, x, y);
+			}
+		}
+
+		/**
+		 * Appends a vertex to the path, or starts the path.
+		 * @param path Path.
+		 * @param x Horizontal position.
+		 * @param y Vertical position.
+		 */
+		private static void lineTo(Path2D path, double x, double y) {
+			if (path.getCurrentPoint() == null) {
+				path.moveTo(x, y);
+			} else {
+				path.lineTo(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Initializes a new {@code DecimatingLineRenderer2D} instance with a
+	 * column width of one unit, which corresponds to a pixel on screen.
+	 */
+	public DecimatingLineRenderer2D() {
+		columnWidth = 1.0;
+	}
+
+	/**
+	 * Returns the geometric shape for this line.
+	 * @param points Points used for creating the line.
+	 * @return Geometric shape for this line.
+	 */
+	@Override
+	public Shape getLineShape(List<DataPoint> points) {
+		double columnWidth = getColumnWidth();
+		if (!(columnWidth > 0.0) || Double.isInfinite(columnWidth)) {
+			return super.getLineShape(points);
+		}
+		return stroke(getDecimatedPath(points, columnWidth));
+	}
+
+	/**
+	 * Returns the path through the first, lowest, highest and last point of
+	 * each column.
+	 * @param points Points used for creating the line.
+	 * @param columnWidth Width of the columns.
+	 * @return Path of the line.
+	 */
+	protected Path2D getDecimatedPath(List<DataPoint> points, double columnWidth) {
+		Path2D path = new Path2D.Double();
+		Column column = new Column();
+		PointBuffer buffer = PointBuffer.of(points);
+		for (int i = 0; i < buffer.size(); i++) {
+			double x = buffer.getX(i);
+			double y = buffer.getY(i);
+			long index = (long) Math.floor(x/columnWidth);
+			if (column.count > 0 && index != column.index) {
+				column.appendTo(path);
+			}
+			column.index = index;
+			column.add(x, y);
+		}
+		if (column.count > 0) {
+			column.appendTo(path);
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the width of the columns in which points are aggregated.
+	 * @return Column width.
+	 */
+	public double getColumnWidth() {
+		return columnWidth;
+	}
+
+	/**
+	 * Sets the width of the columns in which points are aggregated.
+	 * Values that aren't positive turn off the aggregation.
+	 * @param columnWidth Column width.
+	 */
+	public void setColumnWidth(double columnWidth) {
+		this.columnWidth = columnWidth;
+	}
+}
@@ -24,13 +24,13 @@ package de.erichseifert.gral.plots.lines;
 import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.geom.Path2D;
-import java.awt.geom.Point2D;
 import java.util.List;
 
 import de.erichseifert.gral.graphics.AbstractDrawable;
 import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
 import de.erichseifert.gral.plots.DataPoint;
+import de.erichseifert.gral.plots.PointBuffer;
 import de.erichseifert.gral.util.GraphicsUtils;
 
 
@@ -85,12 +85,12 @@ public class DefaultLineRenderer2D extends AbstractLineRenderer2D {
 		// Construct shape
 		Path2D shape = new Path2D.Double(
 			Path2D.WIND_NON_ZERO, INITIAL_LINE_CAPACITY);
-		for (DataPoint point : points) {
-			Point2D pos = point.position.getPoint2D();
-			if (shape.getCurrentPoint() == null) {
-				shape.moveTo(pos.getX(), pos.getY());
+		PointBuffer buffer = PointBuffer.of(points);
+		for (int i = 0; i < buffer.size(); i++) {
+			if (i == 0) {
+				shape.moveTo(buffer.getX(i), buffer.getY(i));
 			} else {
-				shape.lineTo(pos.getX(), pos.getY());
+				shape.lineTo(buffer.getX(i), buffer.getY(i));
 			}
 		}
 		return stroke(shape);
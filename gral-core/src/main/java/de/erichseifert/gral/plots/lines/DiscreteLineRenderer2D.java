@@ -24,13 +24,13 @@ package de.erichseifert.gral.plots.lines;
 import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.geom.Path2D;
-import java.awt.geom.Point2D;
 import java.util.List;
 
 import de.erichseifert.gral.graphics.AbstractDrawable;
 import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
 import de.erichseifert.gral.plots.DataPoint;
+import de.erichseifert.gral.plots.PointBuffer;
 import de.erichseifert.gral.util.GraphicsUtils;
 import de.erichseifert.gral.graphics.Orientation;
 
@@ -93,24 +93,25 @@ public class DiscreteLineRenderer2D extends AbstractLineRenderer2D {
 
 		// Construct shape
 		Path2D shape = new Path2D.Double();
-		for (DataPoint point : points) {
-			Point2D pos = point.position.getPoint2D();
-			if (shape.getCurrentPoint() == null) {
-				shape.moveTo(pos.getX(), pos.getY());
+		PointBuffer buffer = PointBuffer.of(points);
+		for (int i = 0; i < buffer.size(); i++) {
+			double x = buffer.getX(i);
+			double y = buffer.getY(i);
+			if (i == 0) {
+				shape.moveTo(x, y);
 			} else {
-				Point2D posPrev = shape.getCurrentPoint();
+				double xPrev = buffer.getX(i - 1);
+				double yPrev = buffer.getY(i - 1);
 				if (dir == Orientation.HORIZONTAL) {
-					double ascendingX = posPrev.getX() +
-						(pos.getX() - posPrev.getX()) * ascendingPoint;
-					shape.lineTo(ascendingX,  posPrev.getY());
-					shape.lineTo(ascendingX,  pos.getY());
+					double ascendingX = xPrev + (x - xPrev) * ascendingPoint;
+					shape.lineTo(ascendingX,  yPrev);
+					shape.lineTo(ascendingX,  y);
 				} else {
-					double ascendingY = posPrev.getY() +
-						(pos.getY() - posPrev.getY()) * ascendingPoint;
-					shape.lineTo(posPrev.getX(), ascendingY);
-					shape.lineTo(pos.getX(), ascendingY);
+					double ascendingY = yPrev + (y - yPrev) * ascendingPoint;
+					shape.lineTo(xPrev, ascendingY);
+					shape.lineTo(x, ascendingY);
 				}
-				shape.lineTo(pos.getX(), pos.getY());
+				shape.lineTo(x, y);
 			}
 		}
 
@@ -0,0 +1,122 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.lines;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Shape of a line that is drawn with a stroke. The outline of the stroke is
+ * only calculated when it is needed, and the line itself stays available,
+ * so that gaps can be cut into the line before it is stroked.
+ */
+public class StrokedLine implements Shape {
+	/** Shape of the line. */
+	private final Shape line;
+	/** Stroke used to draw the line. */
+	private final Stroke stroke;
+	/** Outline of the stroked line. */
+	private Shape strokedShape;
+
+	/**
+	 * Initializes a new instance with a line and a stroke.
+	 * @param line Shape of the line.
+	 * @param stroke Stroke used to draw the line.
+	 */
+	public StrokedLine(Shape line, Stroke stroke) {
+		this.line = line;
+		this.stroke = stroke;
+	}
+
+	/**
+	 * Returns the shape of the line before it is stroked.
+	 * @return Shape of the line.
+	 */
+	public Shape getLine() {
+		return line;
+	}
+
+	/**
+	 * Returns the stroke used to draw the line.
+	 * @return Stroke of the line.
+	 */
+	public Stroke getStroke() {
+		return stroke;
+	}
+
+	/**
+	 * Returns the outline of the stroked line and calculates it if
+	 * necessary.
+	 * @return Outline of the stroked line.
+	 */
+	private synchronized Shape getStrokedShape() {
+		if (strokedShape == null) {
+			strokedShape = stroke.createStrokedShape(line);
+		}
+		return strokedShape;
+	}
+
+	public Rectangle getBounds() {
+		return getStrokedShape().getBounds();
+	}
+
+	public Rectangle2D getBounds2D() {
+		return getStrokedShape().getBounds2D();
+	}
+
+	public boolean contains(double x, double y) {
+		return getStrokedShape().contains(x, y);
+	}
+
+	public boolean contains(Point2D p) {
+		return getStrokedShape().contains(p);
+	}
+
+	public boolean intersects(double x, double y, double w, double h) {
+		return getStrokedShape().intersects(x, y, w, h);
+	}
+
+	public boolean intersects(Rectangle2D r) {
+		return getStrokedShape().intersects(r);
+	}
+
+	public boolean contains(double x, double y, double w, double h) {
+		return getStrokedShape().contains(x, y, w, h);
+	}
+
+	public boolean contains(Rectangle2D r) {
+		return getStrokedShape().contains(r);
+	}
+
+	public PathIterator getPathIterator(AffineTransform at) {
+		return getStrokedShape().getPathIterator(at);
+	}
+
+	public PathIterator getPathIterator(AffineTransform at, double flatness) {
+		return getStrokedShape().getPathIterator(at, flatness);
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.points;
+
+import java.util.List;
+
+import de.erichseifert.gral.graphics.Drawable;
+import de.erichseifert.gral.plots.DataPoint;
+
+/**
+ * Interface for point renderers that draw all points of a data series at
+ * once instead of creating a {@code Drawable} for each point.
+ */
+public interface BulkPointRenderer extends PointRenderer {
+	/**
+	 * Returns the graphical representation to be drawn for all specified
+	 * data points. The positions of the points are relative to the current
+	 * user space of the drawing context.
+	 * @param points Points to be drawn.
+	 * @return Component that can be used to draw the points.
+	 */
+	Drawable getPoints(List<DataPoint> points);
+}
@@ -55,6 +55,12 @@ public class DefaultPointRenderer2D extends AbstractPointRenderer {
 	/** Version id for serialization. */
 	private static final long serialVersionUID = -895832597380598383L;
 
+	/** Decides whether point shapes are copied from cached images when
+	drawing to bitmaps. */
+	private boolean stampCacheEnabled;
+	/** Cache of rasterized point shapes. */
+	private transient PointStampCache stampCache;
+
 	/**
 	 * Returns the graphical representation to be drawn for the specified data
 	 * value.
@@ -78,8 +84,15 @@ public class DefaultPointRenderer2D extends AbstractPointRenderer {
 				ColorMapper colors = getColor();
 				Paint paint = colors.get(data.index);
 
-				GraphicsUtils.fillPaintedShape(
-					context.getGraphics(), shape, paint, null);
+				Graphics2D graphics = context.getGraphics();
+				if (isStampCacheEnabled() && paint != null
+						&& shape == getShape()
+						&& context.getTarget() == DrawingContext.Target.BITMAP
+						&& PointStampCache.isApplicable(graphics)) {
+					getStampCache().fill(graphics, shape, paint);
+				} else {
+					GraphicsUtils.fillPaintedShape(graphics, shape, paint, null);
+				}
 
 				if (renderer.isErrorVisible()) {
 					int colErrorTop = renderer.getErrorColumnTop();
@@ -256,4 +269,45 @@ public class DefaultPointRenderer2D extends AbstractPointRenderer {
 		};
 		return drawable;
 	}
+
+	/**
+	 * Returns whether point shapes are copied from cached images when
+	 * drawing to bitmaps. Each distinct combination of shape, paint, and
+	 * anti-aliasing setting is then only rendered once, and the position of
+	 * points is rounded to a quarter of a pixel.
+	 * @return {@code true} if the stamp cache is used, {@code false}
+	 *         otherwise.
+	 */
+	public boolean isStampCacheEnabled() {
+		return stampCacheEnabled;
+	}
+
+	/**
+	 * Sets whether point shapes are copied from cached images when drawing
+	 * to bitmaps. Each distinct combination of shape, paint, and
+	 * anti-aliasing setting is then only rendered once, and the position of
+	 * points is rounded to a quarter of a pixel.
+	 * @param stampCacheEnabled {@code true} if the stamp cache should be
+	 *        used, {@code false} otherwise.
+	 */
+	public void setStampCacheEnabled(boolean stampCacheEnabled) {
+		this.stampCacheEnabled = stampCacheEnabled;
+		if (!stampCacheEnabled) {
+			synchronized (this) {
+				stampCache = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the cache of rasterized point shapes and creates it if
+	 * necessary.
+	 * @return Cache of rasterized point shapes.
+	 */
+	private synchronized PointStampCache getStampCache() {
+		if (stampCache == null) {
+			stampCache = new PointStampCache();
+		}
+		return stampCache;
+	}
 }
@@ -0,0 +1,286 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.points;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
+
+import de.erichseifert.gral.graphics.AbstractDrawable;
+import de.erichseifert.gral.graphics.Drawable;
+import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.plots.DataPoint;
+import de.erichseifert.gral.plots.PointBuffer;
+import de.erichseifert.gral.plots.colors.ContinuousColorMapper;
+import de.erichseifert.gral.plots.colors.HeatMap;
+import de.erichseifert.gral.util.MathUtils;
+
+/**
+ * <p>Class that displays large numbers of points as a density image.
+ * When drawing to a bitmap, the points of a data series are counted for
+ * each pixel, and the counts are mapped to colors with a continuous color
+ * mapper. The result is drawn as a single image, so no shapes have to be
+ * filled for the points.</p>
+ * <p>For other targets, or if the graphics transformation contains a
+ * rotation or shear, each point is drawn with its shape like in
+ * {@link DefaultPointRenderer2D}.</p>
+ */
+public class DensityPointRenderer2D extends DefaultPointRenderer2D
+		implements BulkPointRenderer {
+	/** Version id for serialization. */
+	private static final long serialVersionUID = 2470598341063925581L;
+
+	/** Number of different colors used to display densities. */
+	private static final int COLOR_LEVELS = 256;
+	/** Maximum number of pixels of a density image. */
+	private static final int MAX_PIXELS = 4096*4096;
+	/** Transformation that maps user space to device space directly. */
+	private static final AffineTransform IDENTITY = new AffineTransform();
+
+	/** Color mapping that converts relative densities between 0.0 and 1.0
+	to colors. */
+	private ContinuousColorMapper densityColor;
+	/** Decides whether densities are scaled logarithmically. */
+	private boolean densityLogarithmic;
+
+	/**
+	 * Initializes a new instance with default settings.
+	 */
+	public DensityPointRenderer2D() {
+		densityColor = new HeatMap();
+		densityLogarithmic = true;
+	}
+
+	/**
+	 * Returns the graphical representation to be drawn for all specified
+	 * data points.
+	 * @param points Points to be drawn.
+	 * @return Component that can be used to draw the points.
+	 */
+	public Drawable getPoints(final List<DataPoint> points) {
+		Drawable drawable = new AbstractDrawable() {
+			/** Version id for serialization. */
+			private static final long serialVersionUID = -1318062426418296370L;
+
+			public void draw(DrawingContext context) {
+				PointBuffer buffer = PointBuffer.of(points);
+				if (context.getTarget() != DrawingContext.Target.BITMAP ||
+						!drawDensity(context.getGraphics(), buffer)) {
+					drawShapes(context, buffer);
+				}
+			}
+		};
+		return drawable;
+	}
+
+	/**
+	 * Draws the density image of the specified points.
+	 * @param graphics Graphics to be painted into.
+	 * @param points Points to be drawn.
+	 * @return {@code true} if the image was drawn, {@code false} if the
+	 *         points have to be drawn with their shapes instead.
+	 */
+	protected boolean drawDensity(Graphics2D graphics, PointBuffer points) {
+		AffineTransform txOrig = graphics.getTransform();
+		if ((txOrig.getType() & ~(AffineTransform.TYPE_TRANSLATION |
+				AffineTransform.TYPE_MASK_SCALE)) != 0) {
+			return false;
+		}
+		double scaleX = txOrig.getScaleX();
+		double scaleY = txOrig.getScaleY();
+		double translateX = txOrig.getTranslateX();
+		double translateY = txOrig.getTranslateY();
+
+		// Determine the pixels that are covered by the image
+		Rectangle bounds;
+		Shape clip = graphics.getClip();
+		if (clip != null) {
+			bounds = txOrig.createTransformedShape(clip).getBounds();
+		} else {
+			bounds = getDeviceBounds(points, txOrig);
+		}
+		if (bounds == null || (long) bounds.width*bounds.height > MAX_PIXELS) {
+			return false;
+		}
+		if (bounds.isEmpty()) {
+			return true;
+		}
+
+		// Count the points of each pixel
+		BufferedImage image = new BufferedImage(
+			bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels =
+			((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int maxCount = 0;
+		for (int i = 0; i < points.size(); i++) {
+			double x = points.getX(i)*scaleX + translateX - bounds.x;
+			double y = points.getY(i)*scaleY + translateY - bounds.y;
+			if (!(x >= 0.0 && x < bounds.width && y >= 0.0 && y < bounds.height)) {
+				continue;
+			}
+			int pixel = ((int) y)*bounds.width + (int) x;
+			int count = ++pixels[pixel];
+			if (count > maxCount) {
+				maxCount = count;
+			}
+		}
+		if (maxCount == 0) {
+			return true;
+		}
+
+		// Replace the counts with colors
+		int[] colors = getColorLevels();
+		boolean logarithmic = isDensityLogarithmic();
+		double levelScale = logarithmic
+			? (COLOR_LEVELS - 1)/Math.log1p(maxCount)
+			: (double) (COLOR_LEVELS - 1)/maxCount;
+		for (int pixel = 0; pixel < pixels.length; pixel++) {
+			int count = pixels[pixel];
+			if (count == 0) {
+				continue;
+			}
+			double level = logarithmic ? Math.log1p(count) : count;
+			pixels[pixel] = colors[(int) Math.round(level*levelScale)];
+		}
+
+		graphics.setTransform(IDENTITY);
+		graphics.drawImage(image, bounds.x, bounds.y, null);
+		graphics.setTransform(txOrig);
+		return true;
+	}
+
+	/**
+	 * Draws the shape of each specified point.
+	 * @param context Environment used for drawing.
+	 * @param points Points to be drawn.
+	 */
+	protected void drawShapes(DrawingContext context, PointBuffer points) {
+		Graphics2D graphics = context.getGraphics();
+		AffineTransform txOrig = graphics.getTransform();
+		for (int i = 0; i < points.size(); i++) {
+			PointData data = points.get(i).data;
+			graphics.translate(points.getX(i), points.getY(i));
+			Drawable point = getPoint(data, getPointShape(data));
+			point.draw(context);
+			graphics.setTransform(txOrig);
+		}
+	}
+
+	/**
+	 * Returns the ARGB values of the colors that are used for the
+	 * different density levels.
+	 * @return Color values from the lowest to the highest density.
+	 */
+	private int[] getColorLevels() {
+		ContinuousColorMapper mapper = getDensityColor();
+		int[] colors = new int[COLOR_LEVELS];
+		for (int level = 0; level < COLOR_LEVELS; level++) {
+			Paint paint = mapper.get((double) level/(COLOR_LEVELS - 1));
+			if (paint instanceof Color) {
+				colors[level] = ((Color) paint).getRGB();
+			}
+		}
+		return colors;
+	}
+
+	/**
+	 * Returns the pixels in device space that contain the specified points.
+	 * @param points Points.
+	 * @param tx Transformation from user space to device space.
+	 * @return Bounds of the points in device space, or {@code null} if the
+	 *         bounds are too large for a density image.
+	 */
+	private static Rectangle getDeviceBounds(PointBuffer points,
+			AffineTransform tx) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < points.size(); i++) {
+			double x = points.getX(i)*tx.getScaleX() + tx.getTranslateX();
+			double y = points.getY(i)*tx.getScaleY() + tx.getTranslateY();
+			if (!MathUtils.isCalculatable(x) || !MathUtils.isCalculatable(y)) {
+				continue;
+			}
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		if (minX > maxX || minY > maxY) {
+			return new Rectangle();
+		}
+		if ((maxX - minX + 1.0)*(maxY - minY + 1.0) > MAX_PIXELS) {
+			return null;
+		}
+		int left = (int) Math.floor(minX);
+		int top = (int) Math.floor(minY);
+		return new Rectangle(left, top,
+			(int) Math.floor(maxX) - left + 1,
+			(int) Math.floor(maxY) - top + 1);
+	}
+
+	/**
+	 * Returns the color mapping that converts relative densities between
+	 * 0.0 and 1.0 to colors.
+	 * @return Color mapping for densities.
+	 */
+	public ContinuousColorMapper getDensityColor() {
+		return densityColor;
+	}
+
+	/**
+	 * Sets the color mapping that converts relative densities between 0.0
+	 * and 1.0 to colors.
+	 * @param color Color mapping for densities.
+	 */
+	public void setDensityColor(ContinuousColorMapper color) {
+		this.densityColor = color;
+	}
+
+	/**
+	 * Returns whether densities are scaled logarithmically before they are
+	 * mapped to colors.
+	 * @return {@code true} if densities are scaled logarithmically,
+	 *         {@code false} if they are scaled linearly.
+	 */
+	public boolean isDensityLogarithmic() {
+		return densityLogarithmic;
+	}
+
+	/**
+	 * Sets whether densities are scaled logarithmically before they are
+	 * mapped to colors.
+	 * @param logarithmic {@code true} if densities should be scaled
+	 *        logarithmically, {@code false} if they should be scaled
+	 *        linearly.
+	 */
+	public void setDensityLogarithmic(boolean logarithmic) {
+		this.densityLogarithmic = logarithmic;
+	}
+}
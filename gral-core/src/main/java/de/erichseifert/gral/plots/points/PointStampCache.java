@@ -0,0 +1,204 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.points;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.erichseifert.gral.util.GraphicsUtils;
+
+/**
+ * Class that stores rasterized images of point shapes. Each distinct
+ * combination of shape, paint, and anti-aliasing setting is rendered once
+ * for each sub-pixel offset and can then be copied to any position of a
+ * bitmap. This is much faster than filling the shape again for every
+ * point.
+ */
+final class PointStampCache {
+	/** Number of sub-pixel offsets that are distinguished per pixel in each
+	direction. */
+	static final int SUBPIXELS = 4;
+	/** Maximum number of shape and paint combinations that are stored. */
+	private static final int MAX_ENTRIES = 64;
+
+	/** Transformation that maps user space to device space directly. */
+	private static final AffineTransform IDENTITY = new AffineTransform();
+
+	/** Stored stamps for each combination of shape, paint, and
+	anti-aliasing setting. */
+	private final Map<Key, BufferedImage[]> stamps;
+
+	/**
+	 * Creates an empty cache.
+	 */
+	@SuppressWarnings("serial")
+	public PointStampCache() {
+		stamps = new LinkedHashMap<Key, BufferedImage[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Key, BufferedImage[]> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Returns whether stamps can be used to draw with the specified
+	 * graphics object. This is the case if the current transformation is a
+	 * translation and the shapes are composited normally.
+	 * @param graphics Graphics object to be painted into.
+	 * @return {@code true} if stamps can be drawn, {@code false} otherwise.
+	 */
+	public static boolean isApplicable(Graphics2D graphics) {
+		AffineTransform tx = graphics.getTransform();
+		if ((tx.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0) {
+			return false;
+		}
+		Composite composite = graphics.getComposite();
+		if (!(composite instanceof AlphaComposite)) {
+			return false;
+		}
+		AlphaComposite alphaComposite = (AlphaComposite) composite;
+		return alphaComposite.getRule() == AlphaComposite.SRC_OVER;
+	}
+
+	/**
+	 * Fills the specified shape at the origin of the current user space.
+	 * The result is the same as with
+	 * {@link GraphicsUtils#fillPaintedShape(Graphics2D, Shape, Paint, Rectangle2D)},
+	 * except that the position is rounded to a fraction of a pixel.
+	 * The graphics object must be applicable.
+	 * @param graphics Graphics object to be painted into.
+	 * @param shape Shape to be filled.
+	 * @param paint Paint to be used.
+	 * @see #isApplicable(Graphics2D)
+	 */
+	public void fill(Graphics2D graphics, Shape shape, Paint paint) {
+		AffineTransform txOrig = graphics.getTransform();
+		double x = txOrig.getTranslateX();
+		double y = txOrig.getTranslateY();
+		int pixelX = (int) Math.floor(x);
+		int pixelY = (int) Math.floor(y);
+		int subpixelX = (int) Math.round((x - pixelX)*SUBPIXELS);
+		int subpixelY = (int) Math.round((y - pixelY)*SUBPIXELS);
+		if (subpixelX == SUBPIXELS) {
+			pixelX++;
+			subpixelX = 0;
+		}
+		if (subpixelY == SUBPIXELS) {
+			pixelY++;
+			subpixelY = 0;
+		}
+
+		Object antialiasing =
+			graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		Key key = new Key(shape, paint, antialiasing);
+		BufferedImage[] shapeStamps;
+		synchronized (stamps) {
+			shapeStamps = stamps.get(key);
+			if (shapeStamps == null) {
+				shapeStamps = new BufferedImage[SUBPIXELS*SUBPIXELS];
+				stamps.put(key, shapeStamps);
+			}
+		}
+
+		Rectangle2D bounds = shape.getBounds2D();
+		double offsetX = (double) subpixelX/SUBPIXELS;
+		double offsetY = (double) subpixelY/SUBPIXELS;
+		int left = (int) Math.floor(bounds.getMinX() + offsetX) - 1;
+		int top = (int) Math.floor(bounds.getMinY() + offsetY) - 1;
+
+		int stampIndex = subpixelY*SUBPIXELS + subpixelX;
+		BufferedImage stamp = shapeStamps[stampIndex];
+		if (stamp == null) {
+			int width = (int) Math.ceil(bounds.getMaxX() + offsetX) - left + 1;
+			int height = (int) Math.ceil(bounds.getMaxY() + offsetY) - top + 1;
+			stamp = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D stampGraphics = stamp.createGraphics();
+			stampGraphics.setRenderingHints(graphics.getRenderingHints());
+			stampGraphics.translate(offsetX - left, offsetY - top);
+			GraphicsUtils.fillPaintedShape(stampGraphics, shape, paint, null);
+			stampGraphics.dispose();
+			shapeStamps[stampIndex] = stamp;
+		}
+
+		graphics.setTransform(IDENTITY);
+		graphics.drawImage(stamp, pixelX + left, pixelY + top, null);
+		graphics.setTransform(txOrig);
+	}
+
+	/**
+	 * Key that identifies the stamps of a shape.
+	 */
+	private static final class Key {
+		/** Shape of the stamps. */
+		private final Shape shape;
+		/** Paint used to fill the shape. */
+		private final Paint paint;
+		/** Anti-aliasing setting used to fill the shape. */
+		private final Object antialiasing;
+
+		/**
+		 * Initializes a new key.
+		 * @param shape Shape of the stamps.
+		 * @param paint Paint used to fill the shape.
+		 * @param antialiasing Anti-aliasing setting used to fill the shape.
+		 */
+		public Key(Shape shape, Paint paint, Object antialiasing) {
+			this.shape = shape;
+			this.paint = paint;
+			this.antialiasing = antialiasing;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) obj;
+			return shape == key.shape && paint.equals(key.paint)
+				&& (antialiasing == null
+					? key.antialiasing == null
+					: antialiasing.equals(key.antialiasing));
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(shape);
+			hash = 31*hash + paint.hashCode();
+			if (antialiasing != null) {
+				hash = 31*hash + antialiasing.hashCode();
+			}
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.util;
+
+import java.text.MessageFormat;
+
+/**
+ * <p>Class that calculates discrete Fourier transforms of a fixed size with
+ * the radix-2 Cooley-Tukey algorithm. The size has to be a power of two.
+ * The sine and cosine values are calculated once when an instance is
+ * created, so an instance should be reused for several transforms of the
+ * same size.</p>
+ * <p>Values are passed as separate arrays for the real and imaginary parts
+ * and they are transformed in place.</p>
+ */
+public class FastFourierTransform {
+	/** Number of values that are transformed. */
+	private final int size;
+	/** Cosine values of the twiddle factors. */
+	private final double[] cos;
+	/** Sine values of the twiddle factors. */
+	private final double[] sin;
+
+	/**
+	 * Initializes a new instance for transforms of the specified size.
+	 * @param size Number of values, which has to be a power of two.
+	 */
+	public FastFourierTransform(int size) {
+		if (size <= 0 || (size & (size - 1)) != 0) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Size must be a power of two, got {0,number,integer}.", size)); //$NON-NLS-1$
+		}
+		this.size = size;
+		cos = new double[size/2];
+		sin = new double[size/2];
+		for (int i = 0; i < cos.length; i++) {
+			double angle = 2.0*Math.PI*i/size;
+			cos[i] = Math.cos(angle);
+			sin[i] = Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Returns the smallest power of two that is greater than or equal to
+	 * the specified number.
+	 * @param n Number.
+	 * @return Power of two.
+	 */
+	public static int getSize(int n) {
+		if (n <= 1) {
+			return 1;
+		}
+		return Integer.highestOneBit(n - 1) << 1;
+	}
+
+	/**
+	 * Returns the number of values that are transformed.
+	 * @return Number of values.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Calculates the discrete Fourier transform of the specified values.
+	 * @param real Real parts.
+	 * @param imag Imaginary parts.
+	 */
+	public void transform(double[] real, double[] imag) {
+		transform(real, imag, false);
+	}
+
+	/**
+	 * Calculates the inverse discrete Fourier transform of the specified
+	 * values. The result is scaled, so the inverse transform of a transform
+	 * returns the original values.
+	 * @param real Real parts.
+	 * @param imag Imaginary parts.
+	 */
+	public void inverse(double[] real, double[] imag) {
+		transform(real, imag, true);
+		double scale = 1.0/size;
+		for (int i = 0; i < size; i++) {
+			real[i] *= scale;
+			imag[i] *= scale;
+		}
+	}
+
+	/**
+	 * Transforms the specified values in place.
+	 * @param real Real parts.
+	 * @param imag Imaginary parts.
+	 * @param inverse {@code true} if the inverse transform should be
+	 *        calculated.
+	 */
+	private void transform(double[] real, double[] imag, boolean inverse) {
+		if (real.length < size || imag.length < size) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Arrays must contain at least {0,number,integer} values.", size)); //$NON-NLS-1$
+		}
+		// Reorder the values by bit-reversed indexes
+		for (int i = 1, j = 0; i < size; i++) {
+			int bit = size >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				double tmp = real[i];
+				real[i] = real[j];
+				real[j] = tmp;
+				tmp = imag[i];
+				imag[i] = imag[j];
+				imag[j] = tmp;
+			}
+		}
+		// Combine transforms of increasing lengths
+		double sign = inverse ? 1.0 : -1.0;
+		for (int length = 2; length <= size; length <<= 1) {
+			int half = length >> 1;
+			int step = size/length;
+			for (int start = 0; start < size; start += length) {
+				for (int k = 0; k < half; k++) {
+					double wReal = cos[k*step];
+					double wImag = sign*sin[k*step];
+					int a = start + k;
+					int b = a + half;
+					double tReal = real[b]*wReal - imag[b]*wImag;
+					double tImag = real[b]*wImag + imag[b]*wReal;
+					real[b] = real[a] - tReal;
+					imag[b] = imag[a] - tImag;
+					real[a] += tReal;
+					imag[a] += tImag;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.util;
+
+import java.text.MessageFormat;
+
+/**
+ * <p>Class that calculates a quantile of a sliding window of values. Values
+ * are added at the end of the window and removed from its beginning. Each
+ * operation takes {@code O(log n)} time for a window of {@code n} values,
+ * so the window doesn't have to be copied and sorted for each value.</p>
+ *
+ * <p>The values are stored in two indexed heaps: the lower heap contains
+ * the smallest values up to the rank of the quantile, the upper heap
+ * contains all larger values. Quantiles are interpolated like in
+ * {@link MathUtils#quantile(java.util.List, double)}. If the window
+ * contains values that can't be used for calculations, the quantile is
+ * {@code NaN}.</p>
+ */
+public class SlidingQuantile {
+	/** Heap index of values that are not stored in a heap. */
+	private static final int NONE = 0;
+	/** Heap index of the lower heap. */
+	private static final int LOWER = 1;
+	/** Heap index of the upper heap. */
+	private static final int UPPER = 2;
+
+	/** Quantile that is calculated. */
+	private final double quantile;
+	/** Values of the window in a circular buffer. */
+	private final double[] values;
+	/** Heap that stores each value of the buffer. */
+	private final int[] heapOf;
+	/** Position of each value of the buffer in its heap. */
+	private final int[] positions;
+	/** Max-heap of the buffer indexes of the smaller values. */
+	private final int[] lower;
+	/** Min-heap of the buffer indexes of the larger values. */
+	private final int[] upper;
+	/** Index of the oldest value in the buffer. */
+	private int head;
+	/** Number of values in the window. */
+	private int size;
+	/** Number of values in the lower heap. */
+	private int lowerSize;
+	/** Number of values in the upper heap. */
+	private int upperSize;
+	/** Number of values that can't be used for calculations. */
+	private int invalidCount;
+
+	/**
+	 * Initializes a new instance with the specified maximal number of
+	 * values and quantile.
+	 * @param capacity Maximal number of values in the window.
+	 * @param quantile Quantile between {@code 0.0} and {@code 1.0}.
+	 */
+	public SlidingQuantile(int capacity, double quantile) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Invalid capacity: {0,number,integer}", capacity)); //$NON-NLS-1$
+		}
+		if (!(quantile >= 0.0 && quantile <= 1.0)) {
+			throw new IllegalArgumentException(MessageFormat.format(
+				"Invalid quantile: {0}", quantile)); //$NON-NLS-1$
+		}
+		this.quantile = quantile;
+		values = new double[capacity];
+		heapOf = new int[capacity];
+		positions = new int[capacity];
+		lower = new int[capacity];
+		upper = new int[capacity];
+	}
+
+	/**
+	 * Returns the quantile that is calculated.
+	 * @return Quantile between {@code 0.0} and {@code 1.0}.
+	 */
+	public double getQuantile() {
+		return quantile;
+	}
+
+	/**
+	 * Returns the maximal number of values in the window.
+	 * @return Maximal number of values.
+	 */
+	public int getCapacity() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the number of values in the window.
+	 * @return Number of values.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all values from the window.
+	 */
+	public void clear() {
+		head = 0;
+		size = 0;
+		lowerSize = 0;
+		upperSize = 0;
+		invalidCount = 0;
+	}
+
+	/**
+	 * Adds a value to the end of the window. If the window is full, the
+	 * oldest value is removed first.
+	 * @param value Value to be added.
+	 */
+	public void add(double value) {
+		if (size == values.length) {
+			remove();
+		}
+		int index = (head + size) % values.length;
+		size++;
+		values[index] = value;
+		if (!MathUtils.isCalculatable(value)) {
+			heapOf[index] = NONE;
+			invalidCount++;
+			return;
+		}
+		if ((lowerSize == 0 || value > values[lower[0]])
+				&& upperSize > 0 && value >= values[upper[0]]) {
+			push(UPPER, index);
+		} else {
+			push(LOWER, index);
+		}
+		rebalance();
+	}
+
+	/**
+	 * Removes the oldest value from the window.
+	 * @return The removed value.
+	 * @throws IllegalStateException if the window is empty.
+	 */
+	public double remove() {
+		if (size == 0) {
+			throw new IllegalStateException("The window is empty."); //$NON-NLS-1$
+		}
+		int index = head;
+		head = (head + 1) % values.length;
+		size--;
+		if (heapOf[index] == NONE) {
+			invalidCount--;
+		} else {
+			removeAt(heapOf[index], positions[index]);
+			rebalance();
+		}
+		return values[index];
+	}
+
+	/**
+	 * Returns the quantile of the values in the window, or {@code NaN} if
+	 * the window is empty or contains values that can't be used for
+	 * calculations.
+	 * @return Quantile of the window.
+	 */
+	public double get() {
+		int count = lowerSize + upperSize;
+		if (count == 0 || invalidCount > 0) {
+			return Double.NaN;
+		}
+		double x = (count - 1)*quantile;
+		double xFrac = x - Math.floor(x);
+		double value = values[lower[0]];
+		if (xFrac == 0.0 || upperSize == 0) {
+			return value;
+		}
+		return value + (values[upper[0]] - value)*xFrac;
+	}
+
+	/**
+	 * Moves values between the heaps until the largest value of the lower
+	 * heap has the rank of the quantile.
+	 */
+	private void rebalance() {
+		int count = lowerSize + upperSize;
+		if (count == 0) {
+			return;
+		}
+		int target = (int) Math.floor((count - 1)*quantile) + 1;
+		while (lowerSize > target) {
+			int index = lower[0];
+			removeAt(LOWER, 0);
+			push(UPPER, index);
+		}
+		while (lowerSize < target) {
+			int index = upper[0];
+			removeAt(UPPER, 0);
+			push(LOWER, index);
+		}
+	}
+
+	/**
+	 * Adds a buffer index to the specified heap.
+	 * @param heap Heap index.
+	 * @param index Buffer index.
+	 */
+	private void push(int heap, int index) {
+		int pos;
+		if (heap == LOWER) {
+			pos = lowerSize++;
+		} else {
+			pos = upperSize++;
+		}
+		set(heap, pos, index);
+		siftUp(heap, pos);
+	}
+
+	/**
+	 * Removes the element at the specified position from a heap.
+	 * @param heap Heap index.
+	 * @param pos Position in the heap.
+	 */
+	private void removeAt(int heap, int pos) {
+		int[] elements = (heap == LOWER) ? lower : upper;
+		int last;
+		if (heap == LOWER) {
+			last = --lowerSize;
+		} else {
+			last = --upperSize;
+		}
+		if (pos == last) {
+			return;
+		}
+		set(heap, pos, elements[last]);
+		siftDown(heap, pos);
+		siftUp(heap, pos);
+	}
+
+	/**
+	 * Moves an element towards the top of a heap until the heap order is
+	 * restored.
+	 * @param heap Heap index.
+	 * @param pos Position of the element.
+	 */
+	private void siftUp(int heap, int pos) {
+		int[] elements = (heap == LOWER) ? lower : upper;
+		int index = elements[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (!isBefore(heap, index, elements[parent])) {
+				break;
+			}
+			set(heap, pos, elements[parent]);
+			pos = parent;
+		}
+		set(heap, pos, index);
+	}
+
+	/**
+	 * Moves an element towards the bottom of a heap until the heap order is
+	 * restored.
+	 * @param heap Heap index.
+	 * @param pos Position of the element.
+	 */
+	private void siftDown(int heap, int pos) {
+		int[] elements = (heap == LOWER) ? lower : upper;
+		int heapSize = (heap == LOWER) ? lowerSize : upperSize;
+		int index = elements[pos];
+		while (true) {
+			int child = 2*pos + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && isBefore(heap, elements[child + 1], elements[child])) {
+				child++;
+			}
+			if (!isBefore(heap, elements[child], index)) {
+				break;
+			}
+			set(heap, pos, elements[child]);
+			pos = child;
+		}
+		set(heap, pos, index);
+	}
+
+	/**
+	 * Returns whether the first value has to be closer to the top of the
+	 * specified heap than the second value.
+	 * @param heap Heap index.
+	 * @param index1 Buffer index of the first value.
+	 * @param index2 Buffer index of the second value.
+	 * @return {@code true} if the first value belongs above the second one.
+	 */
+	private boolean isBefore(int heap, int index1, int index2) {
+		if (heap == LOWER) {
+			return values[index1] > values[index2];
+		}
+		return values[index1] < values[index2];
+	}
+
+	/**
+	 * Stores a buffer index at the specified position of a heap.
+	 * @param heap Heap index.
+	 * @param pos Position in the heap.
+	 * @param index Buffer index.
+	 */
+	private void set(int heap, int pos, int index) {
+		if (heap == LOWER) {
+			lower[pos] = index;
+		} else {
+			upper[pos] = index;
+		}
+		heapOf[index] = heap;
+		positions[index] = pos;
+	}
+}
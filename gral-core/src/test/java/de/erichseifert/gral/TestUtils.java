@@ -38,6 +38,9 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.List;
 
+import org.junit.Assert;
+
+import de.erichseifert.gral.data.filters.Filter2D;
 import de.erichseifert.gral.util.GeometryUtils;
 import de.erichseifert.gral.util.GeometryUtils.PathSegment;
 
@@ -191,6 +194,22 @@ public class TestUtils {
 		return true;
 	}
 
+	/**
+	 * Fails if a filter that has been updated incrementally doesn't contain
+	 * the same values as a filter that has been created from the same data.
+	 * @param expected Filter that has been created from the data.
+	 * @param actual Filter that has been updated incrementally.
+	 */
+	public static void assertFiltered(Filter2D expected, Filter2D actual) {
+		Assert.assertEquals(expected.getRowCount(), actual.getRowCount());
+		for (int row = 0; row < expected.getRowCount(); row++) {
+			for (int col = 0; col < expected.getColumnCount(); col++) {
+				Assert.assertEquals(expected.getMode() + " row " + row,
+					expected.getDouble(col, row), actual.getDouble(col, row), DELTA);
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T> T serializeAndDeserialize(T original)
 			throws IOException, ClassNotFoundException {
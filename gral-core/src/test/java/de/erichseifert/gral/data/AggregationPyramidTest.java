@@ -0,0 +1,234 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AggregationPyramidTest {
+	private static final double DELTA = 1e-9;
+
+	private DataTable table;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		table = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < 1000; row++) {
+			table.add((double) row, value(row));
+		}
+	}
+
+	private static double value(int row) {
+		return Math.sin(row*0.1) + (row*row % 17)/17.0;
+	}
+
+	private static void assertConsistent(NumericDataSource table, AggregationPyramid pyramid) {
+		for (int level = 0; level < pyramid.getLevelCount(); level++) {
+			int bucketSize = pyramid.getBucketSize(level);
+			int bucketCount = pyramid.getBucketCount(level);
+			assertEquals(0, pyramid.getFirstRow(level, 0));
+			assertTrue(pyramid.getFirstRow(level, bucketCount - 1) < table.getRowCount());
+			assertTrue(table.getRowCount() - pyramid.getFirstRow(level, bucketCount - 1) <= bucketSize);
+			for (int bucket = 0; bucket < bucketCount; bucket++) {
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+				double sum = 0.0;
+				int count = 0;
+				int start = pyramid.getFirstRow(level, bucket);
+				int end = (bucket + 1 < bucketCount) ?
+					pyramid.getFirstRow(level, bucket + 1) : table.getRowCount();
+				assertTrue(end - start <= bucketSize);
+				for (int row = start; row < end; row++) {
+					double v = table.getDouble(1, row);
+					if (Double.isNaN(v)) {
+						continue;
+					}
+					min = Math.min(min, v);
+					max = Math.max(max, v);
+					sum += v;
+					count++;
+				}
+				assertEquals(count, pyramid.getCount(level, bucket));
+				if (count > 0) {
+					assertEquals(min, pyramid.getMin(level, bucket), DELTA);
+					assertEquals(max, pyramid.getMax(level, bucket), DELTA);
+					assertEquals(sum/count, pyramid.getMean(level, bucket), DELTA);
+				}
+			}
+		}
+		assertEquals(1, pyramid.getBucketCount(pyramid.getLevelCount() - 1));
+	}
+
+	@Test
+	public void testCreate() {
+		AggregationPyramid pyramid = new AggregationPyramid(table, 1);
+		assertEquals(table, pyramid.getSource());
+		assertEquals(1, pyramid.getColumn());
+		assertEquals(AggregationPyramid.BASE_BUCKET_SIZE, pyramid.getBucketSize(0));
+		assertEquals(2*AggregationPyramid.BASE_BUCKET_SIZE, pyramid.getBucketSize(1));
+		assertConsistent(table, pyramid);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalUpdate() {
+		AggregationPyramid pyramid = new AggregationPyramid(table, 1);
+		table.addDataListener(pyramid);
+		assertConsistent(table, pyramid);
+
+		for (int row = 1000; row < 1100; row++) {
+			table.add((double) row, value(row));
+		}
+		assertConsistent(table, pyramid);
+
+		table.set(1, 500, 100.0);
+		table.set(1, 501, Double.NaN);
+		assertConsistent(table, pyramid);
+		assertEquals(100.0, pyramid.getMax(pyramid.getLevelCount() - 1, 0), DELTA);
+
+		table.remove(0);
+		assertConsistent(table, pyramid);
+		table.clear();
+		table.add(0.0, 1.0);
+		assertConsistent(table, pyramid);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSlidingWindow() {
+		final int[] rowsRead = new int[1];
+		RingBufferDataTable window = new RingBufferDataTable(500, Double.class, Double.class) {
+			/** Version id for serialization. */
+			private static final long serialVersionUID = -2906402541170347461L;
+
+			@Override
+			public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+				rowsRead[0] += len;
+				super.copyColumn(col, fromRow, dst, off, len);
+			}
+		};
+		for (int row = 0; row < 500; row++) {
+			window.add((double) row, value(row));
+		}
+		AggregationPyramid pyramid = new AggregationPyramid(window, 1);
+		window.addDataListener(pyramid);
+		assertConsistent(window, pyramid);
+
+		for (int row = 500; row < 700; row++) {
+			rowsRead[0] = 0;
+			window.add((double) row, value(row));
+			// Only the first bucket and the new row are aggregated again
+			assertTrue(rowsRead[0] <= AggregationPyramid.BASE_BUCKET_SIZE + 1);
+		}
+		assertConsistent(window, pyramid);
+
+		int[] rows = pyramid.getRows(0, window.getRowCount(), 10);
+		assertEquals(0, rows[0]);
+		assertEquals(window.getRowCount() - 1, rows[rows.length - 1]);
+
+		// The pyramid is rebuilt after more rows have been discarded than
+		// it contains
+		for (int row = 700; row < 1300; row++) {
+			window.add((double) row, value(row));
+		}
+		assertConsistent(window, pyramid);
+	}
+
+	@Test
+	public void testGetRows() {
+		AggregationPyramid pyramid = new AggregationPyramid(table, 1);
+
+		// Small ranges aren't reduced
+		int[] rows = pyramid.getRows(100, 120, 10);
+		assertEquals(20, rows.length);
+		assertEquals(100, rows[0]);
+
+		rows = pyramid.getRows(0, 1000, 10);
+		assertTrue(rows.length <= 4*10);
+		for (int i = 1; i < rows.length; i++) {
+			assertTrue(rows[i] > rows[i - 1]);
+		}
+		assertEquals(0, rows[0]);
+		assertEquals(999, rows[rows.length - 1]);
+
+		// Extrema are contained in the reduced rows
+		int minRow = 0;
+		int maxRow = 0;
+		for (int row = 0; row < table.getRowCount(); row++) {
+			if (table.getDouble(1, row) < table.getDouble(1, minRow)) {
+				minRow = row;
+			}
+			if (table.getDouble(1, row) > table.getDouble(1, maxRow)) {
+				maxRow = row;
+			}
+		}
+		boolean minFound = false;
+		boolean maxFound = false;
+		for (int row : rows) {
+			minFound |= row == minRow;
+			maxFound |= row == maxRow;
+		}
+		assertTrue(minFound);
+		assertTrue(maxFound);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testGetRowsSpan() {
+		// Dense x values followed by sparse x values
+		DataTable table = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < 900; row++) {
+			table.add(row*0.01, value(row));
+		}
+		for (int row = 900; row < 1000; row++) {
+			table.add(9.0 + (row - 900)*10.0, value(row));
+		}
+		AggregationPyramid pyramid = new AggregationPyramid(table, 1);
+
+		int[] rows = pyramid.getRows(0, 1000, 10, 0, 1.0);
+		for (int i = 1; i < rows.length; i++) {
+			assertTrue(rows[i] > rows[i - 1]);
+			// Reduced buckets don't span more than the maximal span
+			assertTrue(table.getDouble(0, rows[i]) - table.getDouble(0, rows[i - 1]) <= 10.0);
+		}
+		assertEquals(0, rows[0]);
+		// Sparse rows aren't reduced
+		assertEquals(100 + 1, rows.length - Arrays.binarySearch(rows, 899));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(900 + i, rows[rows.length - 100 + i]);
+		}
+		// Dense rows are reduced
+		assertTrue(rows.length < 200);
+	}
+
+	@Test
+	public void testEmpty() {
+		AggregationPyramid pyramid = new AggregationPyramid(new DataTable(Double.class, Double.class), 1);
+		assertEquals(0, pyramid.getRows(0, 10, 10).length);
+	}
+}
@@ -0,0 +1,586 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.comparators.Ascending;
+import de.erichseifert.gral.data.comparators.Descending;
+import de.erichseifert.gral.data.statistics.Statistics;
+
+public class ColumnarDataTableTest {
+	private static final double DELTA = TestUtils.DELTA;
+
+	private static class MockDataListener implements DataListener {
+		private DataChangeEvent[] added;
+		private DataChangeEvent[] updated;
+		private DataChangeEvent[] removed;
+		private int notifications;
+
+		public void dataAdded(DataSource source, DataChangeEvent... events) {
+			added = events;
+			notifications++;
+		}
+
+		public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			updated = events;
+			notifications++;
+		}
+
+		public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			removed = events;
+			notifications++;
+		}
+	}
+
+	private static class MockDataRangeListener implements DataRangeListener {
+		private List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		private int cellNotifications;
+
+		public void dataChanged(DataSource source, DataRangeEvent event) {
+			events.add(event);
+		}
+
+		public void dataAdded(DataSource source, DataChangeEvent... events) {
+			cellNotifications++;
+		}
+
+		public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			cellNotifications++;
+		}
+
+		public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			cellNotifications++;
+		}
+	}
+
+	private ColumnarDataTable table;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		table = new ColumnarDataTable(Integer.class, Double.class, String.class);
+		table.add(1, 1.0, "a"); // 0
+		table.add(2, 3.0, "b"); // 1
+		table.add(3, 2.0, "c"); // 2
+		table.add(4, 6.0, "d"); // 3
+		table.add(5, 4.0, "e"); // 4
+		table.add(6, 8.0, "f"); // 5
+		table.add(7, 9.0, "g"); // 6
+		table.add(8, 11.0, "h"); // 7
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCreate() {
+		ColumnarDataTable table1 = new ColumnarDataTable(Integer.class, Double.class, Long.class, Float.class);
+		assertEquals(4, table1.getColumnCount());
+		assertEquals(0, table1.getRowCount());
+		Class<? extends Comparable<?>>[] types1 = table1.getColumnTypes();
+		assertEquals(Integer.class, types1[0]);
+		assertEquals(Double.class, types1[1]);
+		assertEquals(Long.class, types1[2]);
+		assertEquals(Float.class, types1[3]);
+
+		ColumnarDataTable table2 = new ColumnarDataTable(3, Double.class);
+		assertEquals(3, table2.getColumnCount());
+		assertEquals(0, table2.getRowCount());
+
+		ColumnarDataTable table3 = new ColumnarDataTable(table);
+		assertArrayEquals(table.getColumnTypes(), table3.getColumnTypes());
+		assertEquals(table.getRowCount(), table3.getRowCount());
+		for (int row = 0; row < table.getRowCount(); row++) {
+			for (int col = 0; col < table.getColumnCount(); col++) {
+				assertEquals(table.get(col, row), table3.get(col, row));
+			}
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testGetReturnsValuesOfColumnType() {
+		ColumnarDataTable table = new ColumnarDataTable(
+			Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class);
+		table.add((byte) 1, (short) 2, 3, 4L, 5f, 6.0);
+
+		assertEquals((byte) 1, table.get(0, 0));
+		assertEquals((short) 2, table.get(1, 0));
+		assertEquals(3, table.get(2, 0));
+		assertEquals(4L, table.get(3, 0));
+		assertEquals(5f, table.get(4, 0));
+		assertEquals(6.0, table.get(5, 0));
+	}
+
+	@Test
+	public void testAdd() {
+		int sizeBefore = table.getRowCount();
+		for (int i = 0; i < 100; i++) {
+			table.add(i, (double) i, null);
+		}
+		int rowIndex = table.add(-1, -1.0, "z");
+		assertEquals(sizeBefore + 101, table.getRowCount());
+		assertEquals(table.getRowCount() - 1, rowIndex);
+		assertEquals(-1, table.get(0, rowIndex));
+		assertEquals("z", table.get(2, rowIndex));
+
+		// Wrong number of columns
+		try {
+			table.add(1);
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// Wrong type of columns
+		try {
+			table.add(1.0, 1.0, "a");
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testAddAll() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.addAll(Arrays.asList(
+			Arrays.asList(9, 12.0, "i"),
+			Arrays.asList(10, 13.0, null)
+		));
+		assertEquals(10, table.getRowCount());
+		assertEquals(13.0, table.get(1, 9));
+		assertNull(table.get(2, 9));
+		assertEquals(1, listener.notifications);
+		assertEquals(6, listener.added.length);
+
+		try {
+			table.addAll(Arrays.asList(
+				Arrays.asList(11, 14.0, "k"),
+				Arrays.asList(12, 15.0, 1.0)
+			));
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+		assertEquals(10, table.getRowCount());
+	}
+
+	@Test
+	public void testAddColumns() {
+		ColumnarDataTable table = new ColumnarDataTable(Double.class, Double.class);
+		table.add(null, null);
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.addColumns(new double[] {1.0, 2.0, 3.0}, new double[] {4.0, 5.0, 6.0});
+		assertEquals(4, table.getRowCount());
+		assertNull(table.get(0, 0));
+		assertEquals(2.0, table.get(0, 2));
+		assertEquals(6.0, table.get(1, 3));
+		assertEquals(1, listener.notifications);
+		assertEquals(6, listener.added.length);
+
+		try {
+			this.table.addColumns(new double[] {1.0}, new double[] {2.0}, new double[] {3.0});
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testAddAllTable() {
+		ColumnarDataTable other = new ColumnarDataTable(Integer.class, Double.class, String.class);
+		other.add(1, 1.0, "b");
+		other.add(2, null, "c");
+		other.add(null, 3.0, null);
+		ColumnarDataTable table = new ColumnarDataTable(Integer.class, Double.class, String.class);
+		table.add(0, 0.0, "a");
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.addAll(other);
+		assertEquals(4, table.getRowCount());
+		assertEquals(1, listener.notifications);
+		assertEquals(0, table.get(0, 0));
+		assertEquals(1, table.get(0, 1));
+		assertEquals(2.0, table.getDouble(0, 2), DELTA);
+		assertNull(table.get(1, 2));
+		assertEquals("c", table.get(2, 2));
+		assertNull(table.get(0, 3));
+		assertEquals(3.0, table.get(1, 3));
+		assertNull(table.get(2, 3));
+
+		try {
+			table.addAll(new ColumnarDataTable(Integer.class, Double.class));
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testAppender() {
+		ColumnarDataTable table = new ColumnarDataTable(Integer.class, Double.class, String.class);
+		table.add(0, 0.0, "a");
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		ColumnarDataTable.RowAppender appender = table.createAppender();
+		for (int i = 1; i <= 100; i++) {
+			appender.setLong(0, i);
+			if (i % 10 == 0) {
+				appender.set(1, null);
+			} else {
+				appender.setDouble(1, i*0.5);
+			}
+			appender.set(2, "x");
+			appender.endRow();
+		}
+		// Completed rows are only visible after flushing
+		assertEquals(1, table.getRowCount());
+		assertEquals(0, listener.notifications);
+
+		appender.flush();
+		assertEquals(101, table.getRowCount());
+		assertEquals(1, listener.notifications);
+		assertEquals(7, table.get(0, 7));
+		assertEquals(3.5, table.get(1, 7));
+		assertNull(table.get(1, 10));
+		assertEquals("x", table.get(2, 100));
+
+		try {
+			appender.setDouble(0, 1.0);
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			appender.set(2, 1.0);
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testAppenderFloatPrecision() {
+		ColumnarDataTable table = new ColumnarDataTable(Float.class);
+		ColumnarDataTable.RowAppender appender = table.createAppender();
+		appender.setDouble(0, 0.1);
+		appender.endRow();
+		appender.flush();
+
+		assertEquals(0.1f, table.get(0, 0));
+		assertEquals((double) 0.1f, table.getDouble(0, 0), 0.0);
+	}
+
+	@Test
+	public void testBatch() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.beginBatch();
+		for (int i = 0; i < 10; i++) {
+			table.add(i, (double) i, "x");
+		}
+		table.endBatch();
+		assertEquals(1, listener.notifications);
+		assertEquals(30, listener.added.length);
+	}
+
+	@Test
+	public void testGetDouble() {
+		assertEquals(1.0, table.getDouble(0, 0), DELTA);
+		assertEquals(6.0, table.getDouble(1, 3), DELTA);
+		assertTrue(Double.isNaN(table.getDouble(2, 0)));
+		assertTrue(Double.isNaN(table.getDouble(0, table.getRowCount())));
+	}
+
+	@Test
+	public void testCopyColumn() {
+		double[] values = new double[4];
+		table.copyColumn(1, 2, values, 1, 3);
+		assertArrayEquals(new double[] {0.0, 2.0, 6.0, 4.0}, values, DELTA);
+
+		try {
+			table.copyColumn(1, table.getRowCount() - 1, values, 0, 2);
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testGetLong() {
+		assertEquals(5L, table.getLong(0, 4));
+		assertEquals(11L, table.getLong(1, 7));
+		assertEquals(0L, table.getLong(2, 0));
+	}
+
+	@Test
+	public void testNullValues() {
+		int row = table.add(null, null, null);
+		assertNull(table.get(0, row));
+		assertNull(table.get(1, row));
+		assertNull(table.get(2, row));
+		assertTrue(Double.isNaN(table.getDouble(0, row)));
+		assertTrue(Double.isNaN(table.getDouble(1, row)));
+
+		table.remove(0);
+		assertNull(table.get(0, row - 1));
+		assertEquals(8, table.get(0, row - 2));
+
+		table.set(0, row - 1, 42);
+		assertEquals(42, table.get(0, row - 1));
+	}
+
+	@Test
+	public void testSet() {
+		int sizeBefore = table.getRowCount();
+
+		table.set(1, 2, -1.0);
+		assertEquals(sizeBefore, table.getRowCount());
+		assertEquals(-1.0, table.get(1, 2));
+
+		// Illegal column index
+		try {
+			table.set(3, 0, 1);
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+
+		// Wrong type
+		try {
+			table.set(0, 0, "x");
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testRemove() {
+		int sizeBefore = table.getRowCount();
+		table.remove(0);
+		assertEquals(sizeBefore - 1, table.getRowCount());
+		assertEquals(2, table.get(0, 0));
+		assertEquals("b", table.get(2, 0));
+
+		// Invalid (negative) index
+		try {
+			table.remove(-1);
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+		// Invalid (positive) index
+		try {
+			table.remove(table.getRowCount());
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testRemoveLast() {
+		int sizeBefore = table.getRowCount();
+		table.removeLast();
+		assertEquals(sizeBefore - 1, table.getRowCount());
+		assertEquals(7, table.get(0, table.getRowCount() - 1));
+	}
+
+	@Test
+	public void testGetColumn() {
+		Column<?> column = table.getColumn(1);
+		assertEquals(Double.class, column.getType());
+		assertEquals(table.getRowCount(), column.size());
+		assertEquals(6.0, column.get(3));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSort() {
+		ColumnarDataTable table = new ColumnarDataTable(Integer.class, Long.class, Double.class);
+		int[] original = {
+				9,	1,	3,
+				4,	4,	2,
+				4,	2,	1,
+				8,	1,	9,
+				8,	1,	7,
+				6,	2,	4,
+				4,	6,	5,
+				3,	3,	5
+		};
+		int i = 0;
+		while (i < original.length) {
+			table.add(original[i++], (long) original[i++], (double) original[i++]);
+		}
+
+		table.sort(new Ascending(1), new Descending(0), new Ascending(2));
+
+		int[] expected = {
+				9,	1,	3,
+				8,	1,	7,
+				8,	1,	9,
+				6,	2,	4,
+				4,	2,	1,
+				3,	3,	5,
+				4,	4,	2,
+				4,	6,	5
+		};
+		i = 0;
+		while (i < expected.length) {
+			assertEquals(expected[i], table.getLong(i%3, i/3));
+			i++;
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEventsSort() {
+		ColumnarDataTable table = new ColumnarDataTable(Double.class, Double.class);
+		for (int row = 0; row < 10; row++) {
+			table.add((double) row, (double) (row*3 % 10));
+		}
+		assertTrue(table.isColumnSorted(0));
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.sort(new Ascending(1));
+		assertEquals(1, listener.notifications);
+		assertNotNull(listener.updated);
+		assertEquals(20, listener.updated.length);
+		// Indexes that depend on the order of the rows are updated
+		assertFalse(table.isColumnSorted(0));
+		assertTrue(table.isColumnSorted(1));
+	}
+
+	@Test
+	public void testClear() {
+		table.clear();
+		assertEquals(0, table.getRowCount());
+		assertNull(table.get(2, 0));
+	}
+
+	@Test
+	public void testEventsAdd() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		int row = table.add(56, 78.0, "x");
+		assertNotNull(listener.added);
+		assertNull(listener.updated);
+		assertNull(listener.removed);
+
+		assertEquals(3, listener.added.length);
+		assertEquals(0, listener.added[0].getCol());
+		assertEquals(row, listener.added[0].getRow());
+		assertNull(listener.added[0].getOld());
+		assertEquals(56, listener.added[0].getNew());
+	}
+
+	@Test
+	public void testEventsUpdate() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		Comparable<?> valueOld = table.set(1, 3, 42.0);
+		assertNull(listener.added);
+		assertNotNull(listener.updated);
+		assertNull(listener.removed);
+
+		assertEquals(6.0, valueOld);
+		assertEquals(1, listener.updated.length);
+		assertEquals(6.0, listener.updated[0].getOld());
+		assertEquals(42.0, listener.updated[0].getNew());
+	}
+
+	@Test
+	public void testEventsRemove() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.remove(1);
+		assertNull(listener.added);
+		assertNull(listener.updated);
+		assertNotNull(listener.removed);
+
+		assertEquals(3, listener.removed.length);
+		assertEquals(1, listener.removed[0].getRow());
+		assertEquals(2, listener.removed[0].getOld());
+		assertEquals("b", listener.removed[2].getOld());
+	}
+
+	@Test
+	public void testRangeEventsAdd() {
+		MockDataRangeListener listener = new MockDataRangeListener();
+		table.addDataListener(listener);
+		Statistics stats = table.getStatistics(1);
+		double sum = stats.get(Statistics.SUM);
+
+		int rows = table.getRowCount();
+		int row = table.add(9, 10.0, "i");
+		assertEquals(rows, row);
+		assertEquals(0, listener.cellNotifications);
+		assertEquals(1, listener.events.size());
+		DataRangeEvent event = listener.events.get(0);
+		assertEquals(DataRangeEvent.Type.ADDED, event.getType());
+		assertEquals(row, event.getFirstRow());
+		assertEquals(1, event.getRowCount());
+		assertEquals(sum + 10.0, stats.get(Statistics.SUM), DELTA);
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		DataSource original = table;
+		DataSource deserialized = TestUtils.serializeAndDeserialize(original);
+
+		assertArrayEquals(original.getColumnTypes(), deserialized.getColumnTypes());
+		assertEquals(original.getColumnCount(), deserialized.getColumnCount());
+		assertEquals(original.getRowCount(), deserialized.getRowCount());
+
+		for (int row = 0; row < original.getRowCount(); row++) {
+			for (int col = 0; col < original.getColumnCount(); col++) {
+				assertEquals(
+					String.format("Wrong data at col=%d, row=%d.", col, row),
+					original.get(col, row), deserialized.get(col, row));
+			}
+		}
+
+		String[] stats = { Statistics.N, Statistics.SUM, Statistics.MEAN, Statistics.VARIANCE };
+		for (String stat : stats) {
+			assertEquals(
+				original.getStatistics().get(stat),
+				deserialized.getStatistics().get(stat),
+				DELTA);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DataRangeEventTest {
+	private DataTable table;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		table = new DataTable(Integer.class, Integer.class, Integer.class);
+	}
+
+	@Test
+	public void testCreate() {
+		DataRangeEvent event = new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 2, 3);
+		assertEquals(table, event.getSource());
+		assertEquals(DataRangeEvent.Type.ADDED, event.getType());
+		assertEquals(2, event.getFirstRow());
+		assertEquals(3, event.getRowCount());
+		assertEquals(5, event.getEndRow());
+		assertEquals(DataRangeEvent.allColumns(3), event.getColumns());
+		assertTrue(event.isColumnChanged(2));
+		assertFalse(event.isColumnChanged(3));
+		assertFalse(event.isColumnChanged(-1));
+	}
+
+	@Test
+	public void testColumnsAreCopied() {
+		BitSet columns = new BitSet();
+		columns.set(1);
+		DataRangeEvent event = new DataRangeEvent(table, DataRangeEvent.Type.UPDATED, 0, 1, columns);
+		columns.set(0);
+		event.getColumns().set(2);
+		assertFalse(event.isColumnChanged(0));
+		assertTrue(event.isColumnChanged(1));
+		assertFalse(event.isColumnChanged(2));
+	}
+
+	@Test
+	public void testOf() {
+		DataRangeEvent event = DataRangeEvent.of(table, DataRangeEvent.Type.UPDATED,
+			new DataChangeEvent(table, 2, 4, 1, 2),
+			new DataChangeEvent(table, 0, 1, 3, 4));
+		assertEquals(1, event.getFirstRow());
+		assertEquals(4, event.getRowCount());
+		assertTrue(event.isColumnChanged(0));
+		assertFalse(event.isColumnChanged(1));
+		assertTrue(event.isColumnChanged(2));
+
+		DataRangeEvent empty = DataRangeEvent.of(table, DataRangeEvent.Type.REMOVED);
+		assertEquals(0, empty.getRowCount());
+		assertTrue(empty.getColumns().isEmpty());
+	}
+
+	@Test
+	public void testMergeAdded() {
+		DataRangeEvent first = new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 0, 2);
+		DataRangeEvent merged = first.merge(
+			new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 2, 3));
+		assertEquals(0, merged.getFirstRow());
+		assertEquals(5, merged.getRowCount());
+
+		assertNull(first.merge(new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 3, 1)));
+		assertNull(first.merge(new DataRangeEvent(table, DataRangeEvent.Type.REMOVED, 2, 1)));
+	}
+
+	@Test
+	public void testMergeRemoved() {
+		DataRangeEvent first = new DataRangeEvent(table, DataRangeEvent.Type.REMOVED, 4, 1);
+		// Removing the same index again
+		DataRangeEvent merged = first.merge(
+			new DataRangeEvent(table, DataRangeEvent.Type.REMOVED, 4, 2));
+		assertEquals(4, merged.getFirstRow());
+		assertEquals(3, merged.getRowCount());
+		// Removing the preceding rows
+		merged = first.merge(
+			new DataRangeEvent(table, DataRangeEvent.Type.REMOVED, 2, 2));
+		assertEquals(2, merged.getFirstRow());
+		assertEquals(3, merged.getRowCount());
+
+		assertNull(first.merge(new DataRangeEvent(table, DataRangeEvent.Type.REMOVED, 0, 1)));
+	}
+
+	@Test
+	public void testMergeUpdated() {
+		BitSet columns = new BitSet();
+		columns.set(0);
+		DataRangeEvent first = new DataRangeEvent(table, DataRangeEvent.Type.UPDATED, 5, 1, columns);
+		columns.clear();
+		columns.set(2);
+		DataRangeEvent merged = first.merge(
+			new DataRangeEvent(table, DataRangeEvent.Type.UPDATED, 1, 1, columns));
+		assertEquals(1, merged.getFirstRow());
+		assertEquals(5, merged.getRowCount());
+		assertTrue(merged.isColumnChanged(0));
+		assertFalse(merged.isColumnChanged(1));
+		assertTrue(merged.isColumnChanged(2));
+	}
+
+	@Test
+	public void testShifted() {
+		DataRangeEvent event = DataRangeEvent.shifted(table, 2, 3, 2);
+		assertEquals(DataRangeEvent.Type.SHIFTED, event.getType());
+		assertEquals(2, event.getRemovedRowCount());
+		assertEquals(3, event.getFirstRow());
+		assertEquals(2, event.getRowCount());
+
+		event = DataRangeEvent.shifted(table, 0, 3, 2);
+		assertEquals(DataRangeEvent.Type.ADDED, event.getType());
+		assertEquals(0, event.getRemovedRowCount());
+
+		event = DataRangeEvent.shifted(table, 2, 3, 0);
+		assertEquals(DataRangeEvent.Type.REMOVED, event.getType());
+		assertEquals(0, event.getFirstRow());
+		assertEquals(2, event.getRowCount());
+	}
+
+	@Test
+	public void testMergeShifted() {
+		// Five rows, two removed from the beginning, two appended
+		DataRangeEvent first = DataRangeEvent.shifted(table, 2, 3, 2);
+		DataRangeEvent merged = first.merge(DataRangeEvent.shifted(table, 1, 4, 1));
+		assertEquals(DataRangeEvent.Type.SHIFTED, merged.getType());
+		assertEquals(3, merged.getRemovedRowCount());
+		assertEquals(2, merged.getFirstRow());
+		assertEquals(3, merged.getRowCount());
+
+		merged = first.merge(new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 5, 1));
+		assertEquals(DataRangeEvent.Type.SHIFTED, merged.getType());
+		assertEquals(2, merged.getRemovedRowCount());
+		assertEquals(3, merged.getFirstRow());
+		assertEquals(3, merged.getRowCount());
+
+		merged = new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 3, 2).merge(
+			DataRangeEvent.shifted(table, 1, 4, 1));
+		assertEquals(DataRangeEvent.Type.SHIFTED, merged.getType());
+		assertEquals(1, merged.getRemovedRowCount());
+		assertEquals(2, merged.getFirstRow());
+		assertEquals(3, merged.getRowCount());
+
+		// Rows that have been added by the first change are removed
+		assertNull(first.merge(DataRangeEvent.shifted(table, 4, 1, 1)));
+		assertNull(first.merge(new DataRangeEvent(table, DataRangeEvent.Type.UPDATED, 0, 1)));
+		assertNull(first.merge(new DataRangeEvent(table, DataRangeEvent.Type.ADDED, 2, 1)));
+	}
+}
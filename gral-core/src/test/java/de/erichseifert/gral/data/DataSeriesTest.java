@@ -21,9 +21,11 @@
  */
 package de.erichseifert.gral.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -102,6 +104,27 @@ public class DataSeriesTest {
 		assertNull(series.get(series.getColumnCount(), series.getRowCount()));
 	}
 
+	@Test
+	public void testGetDouble() {
+		DataSeries series = new DataSeries(table, 2, 1);
+
+		for (int row = 0; row < series.getRowCount(); row++) {
+			assertEquals(table.getDouble(2, row), series.getDouble(0, row), 0.0);
+			assertEquals(table.getDouble(1, row), series.getDouble(1, row), 0.0);
+		}
+
+		// Invalid index
+		assertTrue(Double.isNaN(series.getDouble(series.getColumnCount(), 0)));
+	}
+
+	@Test
+	public void testCopyColumn() {
+		DataSeries series = new DataSeries(table, 2, 1);
+		double[] values = new double[3];
+		series.copyColumn(0, 1, values, 0, values.length);
+		assertArrayEquals(new double[] {2.0, 6.0, 2.0}, values, 0.0);
+	}
+
 	@Test
 	public void testGetColumnCount() {
 		DataSeries series = new DataSeries(table, 2, 1);
@@ -24,13 +24,18 @@ package de.erichseifert.gral.data;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -47,17 +52,42 @@ public class DataTableTest {
 		private DataChangeEvent[] added;
 		private DataChangeEvent[] updated;
 		private DataChangeEvent[] removed;
+		private int notifications;
 
 		public void dataAdded(DataSource source, DataChangeEvent... events) {
 			added = events;
+			notifications++;
 		}
 
 		public void dataUpdated(DataSource source, DataChangeEvent... events) {
 			updated = events;
+			notifications++;
 		}
 
 		public void dataRemoved(DataSource source, DataChangeEvent... events) {
 			removed = events;
+			notifications++;
+		}
+	}
+
+	private static class MockDataRangeListener implements DataRangeListener {
+		private List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		private int cellNotifications;
+
+		public void dataChanged(DataSource source, DataRangeEvent event) {
+			events.add(event);
+		}
+
+		public void dataAdded(DataSource source, DataChangeEvent... events) {
+			cellNotifications++;
+		}
+
+		public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			cellNotifications++;
+		}
+
+		public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			cellNotifications++;
 		}
 	}
 
@@ -77,6 +107,37 @@ public class DataTableTest {
 		table.add(8, 11); // 7
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testColumnSorted() {
+		DataTable data = new DataTable(Double.class, Double.class);
+		data.add(1.0, 3.0);
+		data.add(2.0, 2.0);
+		data.add(2.0, 1.0);
+		assertTrue(data.isColumnSorted(0));
+		assertFalse(data.isColumnSorted(1));
+
+		// Appending keeps the order
+		data.add(5.0, 0.0);
+		assertTrue(data.isColumnSorted(0));
+		data.add(4.0, 0.0);
+		assertFalse(data.isColumnSorted(0));
+		// Removing the value sorts the column again
+		data.removeLast();
+		assertTrue(data.isColumnSorted(0));
+
+		data.set(0, 1, 3.0);
+		assertFalse(data.isColumnSorted(0));
+		data.set(0, 1, Double.NaN);
+		assertFalse(data.isColumnSorted(0));
+		data.remove(1);
+		assertTrue(data.isColumnSorted(0));
+
+		data.set(1, 0, -1.0);
+		data.set(1, 1, -1.0);
+		assertTrue(data.isColumnSorted(1));
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void testCreate() {
@@ -123,6 +184,20 @@ public class DataTableTest {
 		assertThat(table.getRecord(1), CoreMatchers.<Comparable<?>>hasItems(firstColumn.get(someRowIndex), secondColumn.get(someRowIndex)));
 	}
 
+	@Test
+	public void testGetDouble() {
+		assertEquals(1.0, table.getDouble(0, 0), DELTA);
+		assertEquals(6.0, table.getDouble(1, 3), DELTA);
+		assertTrue(Double.isNaN(table.getDouble(0, table.getRowCount())));
+	}
+
+	@Test
+	public void testCopyColumn() {
+		double[] values = new double[4];
+		table.copyColumn(1, 2, values, 1, 3);
+		assertArrayEquals(new double[] {0.0, 2.0, 6.0, 4.0}, values, DELTA);
+	}
+
 	@Test
 	public void testAdd() {
 		int sizeBefore = table.getRowCount();
@@ -147,6 +222,97 @@ public class DataTableTest {
 		}
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testAddAll() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		int sizeBefore = table.getRowCount();
+		table.addAll(Arrays.asList(
+			Arrays.asList(9, 12),
+			Arrays.asList(10, 13),
+			Arrays.asList(11, null)
+		));
+		assertEquals(sizeBefore + 3, table.getRowCount());
+		assertEquals(10, table.get(0, sizeBefore + 1));
+		assertNull(table.get(1, sizeBefore + 2));
+		assertEquals(1, listener.notifications);
+		assertEquals(6, listener.added.length);
+		assertEquals(sizeBefore + 2, listener.added[5].getRow());
+
+		// Wrong type of columns, no row is added
+		try {
+			table.addAll(Arrays.asList(
+				Arrays.asList(12, 14),
+				Arrays.asList(1.0, 1.0)
+			));
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+		assertEquals(sizeBefore + 3, table.getRowCount());
+	}
+
+	@Test
+	public void testAddColumns() {
+		DataTable table = new DataTable(Double.class, Double.class);
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.addColumns(new double[] {1.0, 2.0, 3.0}, new double[] {4.0, 5.0, 6.0});
+		assertEquals(3, table.getRowCount());
+		assertEquals(2.0, table.get(0, 1));
+		assertEquals(6.0, table.get(1, 2));
+		assertEquals(1, listener.notifications);
+		assertEquals(15.0, table.getStatistics(1).get(Statistics.SUM), DELTA);
+
+		// Different lengths
+		try {
+			table.addColumns(new double[] {1.0, 2.0}, new double[] {4.0});
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// Columns that don't accept double values
+		try {
+			this.table.addColumns(new double[] {1.0}, new double[] {4.0});
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testBatch() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.beginBatch();
+		table.add(9, 12);
+		table.beginBatch();
+		table.add(10, 13);
+		table.endBatch();
+		table.add(11, 14);
+		assertEquals(0, listener.notifications);
+		// Statistics are up to date during the batch
+		assertEquals(14.0, table.getStatistics(1).get(Statistics.MAX), DELTA);
+		table.set(1, 0, 2);
+		table.remove(0);
+		table.remove(0);
+		table.endBatch();
+
+		// One notification for each run of changes of the same kind
+		assertEquals(3, listener.notifications);
+		assertEquals(6, listener.added.length);
+		assertEquals(1, listener.updated.length);
+		assertEquals(4, listener.removed.length);
+
+		try {
+			table.endBatch();
+			fail("Expected IllegalStateException exception.");
+		} catch (IllegalStateException e) {
+		}
+	}
+
 	@Test
 	public void testAddCollectionReturnsInsertedPosition() {
 		DataTable table = new DataTable();
@@ -271,6 +437,26 @@ public class DataTableTest {
 		}
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEventsSort() {
+		DataTable table = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < 10; row++) {
+			table.add((double) row, (double) (row*3 % 10));
+		}
+		assertTrue(table.isColumnSorted(0));
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.sort(new Ascending(1));
+		assertEquals(1, listener.notifications);
+		assertNotNull(listener.updated);
+		assertEquals(20, listener.updated.length);
+		// Indexes that depend on the order of the rows are updated
+		assertFalse(table.isColumnSorted(0));
+		assertTrue(table.isColumnSorted(1));
+	}
+
 	@Test
 	public void testClear() {
 		table.clear();
@@ -371,6 +557,108 @@ public class DataTableTest {
 		assertEquals(cols * rows, listener.removed.length);
 	}
 
+	@Test
+	public void testRangeEventsClear() {
+		MockDataRangeListener listener = new MockDataRangeListener();
+		table.addDataListener(listener);
+
+		int rows = table.getRowCount();
+		table.clear();
+		assertEquals(0, listener.cellNotifications);
+		assertEquals(1, listener.events.size());
+		DataRangeEvent event = listener.events.get(0);
+		assertEquals(DataRangeEvent.Type.REMOVED, event.getType());
+		assertEquals(0, event.getFirstRow());
+		assertEquals(rows, event.getRowCount());
+		assertTrue(event.isColumnChanged(0));
+		assertTrue(event.isColumnChanged(1));
+	}
+
+	@Test
+	public void testRangeEventsAdd() {
+		MockDataRangeListener listener = new MockDataRangeListener();
+		table.addDataListener(listener);
+		Statistics stats = table.getStatistics(1);
+		double sum = stats.get(Statistics.SUM);
+
+		int rows = table.getRowCount();
+		int row = table.add(9, 10);
+		assertEquals(rows, row);
+		assertEquals(0, listener.cellNotifications);
+		assertEquals(1, listener.events.size());
+		DataRangeEvent event = listener.events.get(0);
+		assertEquals(DataRangeEvent.Type.ADDED, event.getType());
+		assertEquals(row, event.getFirstRow());
+		assertEquals(1, event.getRowCount());
+		assertEquals(sum + 10.0, stats.get(Statistics.SUM), DELTA);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRangeEventsAddAll() {
+		MockDataListener cellListener = new MockDataListener();
+		MockDataRangeListener listener = new MockDataRangeListener();
+		table.addDataListener(cellListener);
+		table.addDataListener(listener);
+
+		int rows = table.getRowCount();
+		table.addAll(Arrays.asList(Arrays.asList(9, 10), Arrays.asList(11, 12)));
+		assertEquals(1, listener.events.size());
+		DataRangeEvent event = listener.events.get(0);
+		assertEquals(DataRangeEvent.Type.ADDED, event.getType());
+		assertEquals(rows, event.getFirstRow());
+		assertEquals(2, event.getRowCount());
+		assertEquals(0, listener.cellNotifications);
+
+		// Listeners without range support receive events for each value
+		assertEquals(4, cellListener.added.length);
+		assertEquals(0, cellListener.added[2].getCol());
+		assertEquals(rows + 1, cellListener.added[2].getRow());
+		assertNull(cellListener.added[2].getOld());
+		assertEquals(11, cellListener.added[2].getNew());
+	}
+
+	@Test
+	public void testRangeEventsBatch() {
+		MockDataRangeListener listener = new MockDataRangeListener();
+		table.addDataListener(listener);
+
+		int rows = table.getRowCount();
+		table.beginBatch();
+		table.add(9, 10);
+		table.add(11, 12);
+		table.set(1, 0, 13);
+		table.set(0, 3, 14);
+		table.endBatch();
+
+		assertEquals(2, listener.events.size());
+		DataRangeEvent added = listener.events.get(0);
+		assertEquals(DataRangeEvent.Type.ADDED, added.getType());
+		assertEquals(rows, added.getFirstRow());
+		assertEquals(2, added.getRowCount());
+		DataRangeEvent updated = listener.events.get(1);
+		assertEquals(DataRangeEvent.Type.UPDATED, updated.getType());
+		assertEquals(0, updated.getFirstRow());
+		assertEquals(4, updated.getRowCount());
+		assertTrue(updated.isColumnChanged(0));
+		assertTrue(updated.isColumnChanged(1));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRangeEventsStatistics() {
+		table.addDataListener(new MockDataRangeListener());
+		Statistics stats = table.getStatistics(0);
+		assertEquals(8.0, stats.get(Statistics.N), DELTA);
+
+		table.addAll(Arrays.asList(Arrays.asList(9, 10), Arrays.asList(11, 12)));
+		assertEquals(10.0, stats.get(Statistics.N), DELTA);
+		assertEquals(56.0, stats.get(Statistics.SUM), DELTA);
+
+		table.clear();
+		assertEquals(0.0, stats.get(Statistics.N), DELTA);
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		DataSource original = table;
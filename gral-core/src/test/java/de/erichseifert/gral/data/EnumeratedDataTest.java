@@ -65,6 +65,19 @@ public class EnumeratedDataTest {
 		assertEquals( 3.0, ((Number) withParams.get(0, 2)).doubleValue(), DELTA);
 	}
 
+	@Test
+	public void testGetDouble() {
+		EnumeratedData data = new EnumeratedData(table, -1, 2.0);
+		assertEquals(-1.0, data.getDouble(0, 0), DELTA);
+		assertEquals( 3.0, data.getDouble(0, 2), DELTA);
+		assertEquals( 3.0, data.getDouble(1, 0), DELTA);
+		assertEquals( 2.0, data.getDouble(2, 2), DELTA);
+
+		double[] values = new double[3];
+		data.copyColumn(0, 0, values, 0, values.length);
+		assertArrayEquals(new double[] {-1.0, 1.0, 3.0}, values, DELTA);
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		DataSource original = new EnumeratedData(table);
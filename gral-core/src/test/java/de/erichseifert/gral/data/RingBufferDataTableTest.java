@@ -0,0 +1,453 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.comparators.Ascending;
+import de.erichseifert.gral.data.statistics.Statistics;
+
+public class RingBufferDataTableTest {
+	private static final double DELTA = TestUtils.DELTA;
+
+	private static class MockDataListener implements DataListener {
+		private DataChangeEvent[] added;
+		private DataChangeEvent[] updated;
+		private DataChangeEvent[] removed;
+		private int notifications;
+
+		public void dataAdded(DataSource source, DataChangeEvent... events) {
+			added = events;
+			notifications++;
+		}
+
+		public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			updated = events;
+			notifications++;
+		}
+
+		public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			removed = events;
+			notifications++;
+		}
+	}
+
+	private RingBufferDataTable table;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		table = new RingBufferDataTable(5, Integer.class, Double.class, String.class);
+		// The first two rows are discarded
+		table.add(1, 1.0, "a");
+		table.add(2, 3.0, "b");
+		table.add(3, 2.0, "c"); // 0
+		table.add(4, 6.0, "d"); // 1
+		table.add(5, 4.0, "e"); // 2
+		table.add(6, 8.0, "f"); // 3
+		table.add(7, 9.0, "g"); // 4
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCreate() {
+		assertEquals(5, table.getCapacity());
+		assertEquals(3, table.getColumnCount());
+		assertEquals(5, table.getRowCount());
+		assertArrayEquals(new Class<?>[] {Integer.class, Double.class, String.class},
+			table.getColumnTypes());
+
+		try {
+			new RingBufferDataTable(0, Double.class);
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testAdd() {
+		int row = table.add(8, 11.0, "h");
+		assertEquals(4, row);
+		assertEquals(5, table.getRowCount());
+		assertEquals(4, table.get(0, 0));
+		assertEquals(8, table.get(0, 4));
+		assertEquals("h", table.get(2, 4));
+
+		// Wrong number of columns
+		try {
+			table.add(1, 1.0);
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+
+		// Wrong column type
+		try {
+			table.add(1.0, 1.0, "a");
+			fail("Expected IllegalArgumentException exception.");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testAddAll() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.addAll(Arrays.asList(
+			Arrays.asList(8, 11.0, "h"),
+			Arrays.asList(9, 12.0, null)
+		));
+		assertEquals(5, table.getRowCount());
+		assertEquals(5, table.get(0, 0));
+		assertNull(table.get(2, 4));
+		// All rows have moved
+		assertEquals(1, listener.notifications);
+		assertNull(listener.removed);
+		assertNull(listener.added);
+		assertEquals(15, listener.updated.length);
+
+		// More rows than the capacity
+		List<List<? extends Comparable<?>>> rows = new ArrayList<List<? extends Comparable<?>>>();
+		for (int i = 0; i < 7; i++) {
+			rows.add(Arrays.asList(i, (double) i, "x"));
+		}
+		table.addAll(rows);
+		assertEquals(5, table.getRowCount());
+		assertEquals(2, table.get(0, 0));
+		assertEquals(6, table.get(0, 4));
+		assertEquals(2, listener.notifications);
+		assertEquals(15, listener.updated.length);
+	}
+
+	@Test
+	public void testAddColumns() {
+		RingBufferDataTable table = new RingBufferDataTable(3, Double.class, Double.class);
+		table.add(0.0, 0.0);
+		table.add(1.0, 1.0);
+		table.addColumns(new double[] {2.0, 3.0}, new double[] {4.0, 5.0});
+		assertEquals(3, table.getRowCount());
+		assertEquals(1.0, table.get(0, 0));
+		assertEquals(5.0, table.get(1, 2));
+		assertEquals(10.0, table.getStatistics(1).get(Statistics.SUM), DELTA);
+
+		// More rows than the capacity, the rows wrap around
+		table.addColumns(new double[] {6.0, 7.0, 8.0, 9.0}, new double[] {10.0, 11.0, 12.0, 13.0});
+		assertEquals(3, table.getRowCount());
+		assertEquals(7.0, table.get(0, 0));
+		assertEquals(9.0, table.get(0, 2));
+		assertEquals(13.0, table.getDouble(1, 2), DELTA);
+		assertEquals(36.0, table.getStatistics(1).get(Statistics.SUM), DELTA);
+	}
+
+	@Test
+	public void testGet() {
+		Object[] expected = {
+			3, 2.0, "c",
+			4, 6.0, "d",
+			5, 4.0, "e",
+			6, 8.0, "f",
+			7, 9.0, "g"
+		};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], table.get(i%3, i/3));
+		}
+		assertNull(table.get(0, -1));
+		assertNull(table.get(0, table.getRowCount()));
+	}
+
+	@Test
+	public void testGetDouble() {
+		assertEquals(2.0, table.getDouble(1, 0), DELTA);
+		assertEquals(9.0, table.getDouble(1, 4), DELTA);
+		assertEquals(5L, table.getLong(0, 2));
+		assertTrue(Double.isNaN(table.getDouble(2, 0)));
+		assertTrue(Double.isNaN(table.getDouble(0, table.getRowCount())));
+	}
+
+	@Test
+	public void testCopyColumn() {
+		// Rows are stored across the end of the buffer
+		double[] values = new double[6];
+		table.copyColumn(1, 0, values, 1, 5);
+		assertArrayEquals(new double[] {0.0, 2.0, 6.0, 4.0, 8.0, 9.0}, values, DELTA);
+
+		try {
+			table.copyColumn(1, 1, values, 0, 5);
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testSet() {
+		Comparable<?> old = table.set(1, 4, 42.0);
+		assertEquals(9.0, old);
+		assertEquals(42.0, table.get(1, 4));
+
+		try {
+			table.set(1, 5, 1.0);
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testRemove() {
+		// First row
+		table.remove(0);
+		assertEquals(4, table.getRowCount());
+		assertEquals(4, table.get(0, 0));
+		// Last row
+		table.removeLast();
+		assertEquals(3, table.getRowCount());
+		assertEquals(6, table.get(0, 2));
+		// Row in between
+		table.remove(1);
+		assertEquals(2, table.getRowCount());
+		assertEquals(4, table.get(0, 0));
+		assertEquals(6, table.get(0, 1));
+		assertEquals("f", table.get(2, 1));
+
+		// Adding still works after removal
+		table.add(8, 11.0, "h");
+		table.add(9, 12.0, "i");
+		table.add(10, 13.0, "j");
+		table.add(11, 14.0, "k");
+		assertEquals(5, table.getRowCount());
+		assertEquals(6, table.get(0, 0));
+		assertEquals(11, table.get(0, 4));
+
+		try {
+			table.remove(5);
+			fail("Expected IndexOutOfBoundsException exception.");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testClear() {
+		table.clear();
+		assertEquals(0, table.getRowCount());
+		assertNull(table.get(2, 0));
+
+		table.add(1, 1.0, "a");
+		assertEquals(1, table.getRowCount());
+		assertEquals("a", table.get(2, 0));
+	}
+
+	@Test
+	public void testSort() {
+		table.sort(new Ascending(1));
+		double[] expected = {2.0, 4.0, 6.0, 8.0, 9.0};
+		for (int row = 0; row < expected.length; row++) {
+			assertEquals(expected[row], table.getDouble(1, row), DELTA);
+		}
+		assertEquals("e", table.get(2, 1));
+	}
+
+	@Test
+	public void testStatistics() {
+		Statistics stats = table.getStatistics(1);
+		assertEquals(5.0, stats.get(Statistics.N), DELTA);
+		assertEquals(2.0, stats.get(Statistics.MIN), DELTA);
+
+		// Discard the minimum
+		table.add(8, 11.0, "h");
+		table.add(9, 5.0, "i");
+		assertEquals(5.0, stats.get(Statistics.N), DELTA);
+		assertEquals(37.0, stats.get(Statistics.SUM), DELTA);
+		assertEquals(4.0, stats.get(Statistics.MIN), DELTA);
+		assertEquals(11.0, stats.get(Statistics.MAX), DELTA);
+	}
+
+	@Test
+	public void testEventsAdd() {
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		int row = table.add(56, 78.0, "x");
+		assertNull(listener.added);
+		assertNotNull(listener.updated);
+		assertNull(listener.removed);
+		assertEquals(1, listener.notifications);
+
+		assertEquals(15, listener.updated.length);
+		assertEquals(0, listener.updated[0].getCol());
+		assertEquals(0, listener.updated[0].getRow());
+		assertEquals(4, listener.updated[0].getNew());
+		assertEquals(row, listener.updated[12].getRow());
+		assertEquals(56, listener.updated[12].getNew());
+	}
+
+	@Test
+	public void testEventsRange() {
+		final List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		final List<Integer> rowCounts = new ArrayList<Integer>();
+		DataRangeListener listener = new DataRangeListener() {
+			public void dataChanged(DataSource source, DataRangeEvent event) {
+				events.add(event);
+				rowCounts.add(source.getRowCount());
+			}
+			public void dataAdded(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			}
+		};
+		table.addDataListener(listener);
+
+		// The discarded row and the new row are reported at once
+		table.add(56, 78.0, "x");
+		assertEquals(1, events.size());
+		assertEquals(DataRangeEvent.Type.SHIFTED, events.get(0).getType());
+		assertEquals(1, events.get(0).getRemovedRowCount());
+		assertEquals(4, events.get(0).getFirstRow());
+		assertEquals(1, events.get(0).getRowCount());
+		assertEquals(5, (int) rowCounts.get(0));
+
+		// The table becomes full
+		events.clear();
+		RingBufferDataTable table = new RingBufferDataTable(3, Double.class);
+		table.add(0.0);
+		table.add(1.0);
+		table.addDataListener(listener);
+		table.addColumns(new double[] {2.0, 3.0});
+		assertEquals(1, events.size());
+		assertEquals(DataRangeEvent.Type.SHIFTED, events.get(0).getType());
+		assertEquals(1, events.get(0).getRemovedRowCount());
+		assertEquals(1, events.get(0).getFirstRow());
+		assertEquals(2, events.get(0).getRowCount());
+		assertEquals(1.0, table.get(0, 0));
+		assertEquals(3.0, table.get(0, 2));
+	}
+
+	@Test
+	public void testEventsRangeBatch() {
+		final List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		table.addDataListener(new DataRangeListener() {
+			public void dataChanged(DataSource source, DataRangeEvent event) {
+				events.add(event);
+			}
+			public void dataAdded(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			}
+		});
+
+		// The shifted rows are reported once for the whole batch
+		table.beginBatch();
+		for (int i = 0; i < 3; i++) {
+			table.add(i, (double) i, "x");
+		}
+		table.endBatch();
+		assertEquals(1, events.size());
+		assertEquals(DataRangeEvent.Type.SHIFTED, events.get(0).getType());
+		assertEquals(3, events.get(0).getRemovedRowCount());
+		assertEquals(2, events.get(0).getFirstRow());
+		assertEquals(3, events.get(0).getRowCount());
+		assertEquals(6, table.get(0, 0));
+	}
+
+	@Test
+	public void testStatisticsSlidingWindow() {
+		RingBufferDataTable table = new RingBufferDataTable(10, Double.class, Double.class);
+		Statistics statsRising = table.getStatistics(0);
+		Statistics statsWave = table.getStatistics(1);
+		Statistics stats = table.getStatistics();
+		for (int i = 0; i < 100; i++) {
+			double wave = (i*7)%11 - 5.0;
+			table.add((double) i, wave);
+
+			// The statistics don't have to search the data values
+			Statistics expectedRising = new Statistics(table.getColumn(0));
+			Statistics expectedWave = new Statistics(table.getColumn(1));
+			assertEquals(expectedRising.get(Statistics.MIN), statsRising.get(Statistics.MIN), DELTA);
+			assertEquals(expectedRising.get(Statistics.MAX), statsRising.get(Statistics.MAX), DELTA);
+			assertEquals(expectedRising.get(Statistics.SUM), statsRising.get(Statistics.SUM), DELTA);
+			assertEquals(expectedWave.get(Statistics.MIN), statsWave.get(Statistics.MIN), DELTA);
+			assertEquals(expectedWave.get(Statistics.MAX), statsWave.get(Statistics.MAX), DELTA);
+			assertEquals(expectedWave.get(Statistics.MEAN), statsWave.get(Statistics.MEAN), DELTA);
+			assertEquals(Math.min(expectedRising.get(Statistics.MIN), expectedWave.get(Statistics.MIN)),
+				stats.get(Statistics.MIN), DELTA);
+			assertEquals(Math.max(expectedRising.get(Statistics.MAX), expectedWave.get(Statistics.MAX)),
+				stats.get(Statistics.MAX), DELTA);
+
+			if (i == 50) {
+				// Values that have been changed are tracked as well
+				table.set(1, 3, 42.0);
+				assertEquals(42.0, statsWave.get(Statistics.MAX), DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void testEventsAddNotFull() {
+		table.clear();
+		MockDataListener listener = new MockDataListener();
+		table.addDataListener(listener);
+
+		table.add(56, 78.0, "x");
+		assertNotNull(listener.added);
+		assertNull(listener.removed);
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		RingBufferDataTable original = table;
+		RingBufferDataTable deserialized = TestUtils.serializeAndDeserialize(original);
+
+		assertArrayEquals(original.getColumnTypes(), deserialized.getColumnTypes());
+		assertEquals(original.getColumnCount(), deserialized.getColumnCount());
+		assertEquals(original.getRowCount(), deserialized.getRowCount());
+		assertEquals(original.getCapacity(), deserialized.getCapacity());
+
+		for (int row = 0; row < original.getRowCount(); row++) {
+			for (int col = 0; col < original.getColumnCount(); col++) {
+				assertEquals(
+					String.format("Wrong data at col=%d, row=%d.", col, row),
+					original.get(col, row), deserialized.get(col, row));
+			}
+		}
+
+		// Deserialized table keeps discarding the oldest rows
+		deserialized.add(8, 11.0, "h");
+		assertEquals(4, deserialized.get(0, 0));
+	}
+}
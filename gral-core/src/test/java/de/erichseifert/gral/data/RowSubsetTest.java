@@ -23,9 +23,13 @@ package de.erichseifert.gral.data;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -44,16 +48,41 @@ public class RowSubsetTest {
 			super(original);
 		}
 
+		private int tested;
+
 		@Override
 		public boolean accept(Row row) {
+			tested++;
 			Comparable<?> cell = row.get(0);
 			return (cell instanceof Number) &&
 				(((Number) cell).doubleValue() % 2.0) == 0.0;
 		}
+
+		@Override
+		protected boolean isIndexDependent() {
+			return false;
+		}
+	}
+
+	private static final class IndexRowSubset extends RowSubset {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = 4387340405935046212L;
+
+		public IndexRowSubset(DataSource original) {
+			super(original);
+		}
+
+		private int tested;
+
+		@Override
+		public boolean accept(Row row) {
+			tested++;
+			return row.getIndex() % 2 == 0;
+		}
 	}
 
 	private DataTable table;
-	private RowSubset data;
+	private MockRowSubset data;
 
 	@Before
 	@SuppressWarnings("unchecked")
@@ -90,6 +119,16 @@ public class RowSubsetTest {
 		assertEquals(11, data.get(1, 3));
 	}
 
+	@Test
+	public void testGetDouble() {
+		assertEquals( 4.0, data.getDouble(0, 1), DELTA);
+		assertEquals(11.0, data.getDouble(1, 3), DELTA);
+
+		double[] values = new double[4];
+		data.copyColumn(1, 0, values, 0, values.length);
+		assertArrayEquals(new double[] {3.0, 6.0, 8.0, 11.0}, values, DELTA);
+	}
+
 	@Test
 	public void testGetInt() {
 		assertEquals(table.getRecord(1), data.getRecord(0));
@@ -130,6 +169,161 @@ public class RowSubsetTest {
 		assertTrue(data.getRowCount() < sizeBefore);
 	}
 
+	@Test
+	public void testIncrementalUpdate() {
+		data.tested = 0;
+		table.add(10, 12);
+		table.add(11, 13);
+		assertEquals(2, data.tested);
+		assertEquals(5, data.getRowCount());
+		assertEquals(12, data.get(1, 4));
+
+		table.set(1, 2, 7);
+		assertEquals(3, data.tested);
+
+		// Removing a row shifts the following indexes
+		table.remove(0);
+		assertEquals(3, data.tested);
+		assertEquals(5, data.getRowCount());
+		assertEquals(table.getRecord(0), data.getRecord(0));
+		assertEquals(table.getRecord(7), data.getRecord(4));
+
+		table.remove(2);
+		assertEquals(4, data.getRowCount());
+		assertEquals(8, data.get(0, 2));
+		assertEquals(12, data.get(1, 3));
+	}
+
+	@Test
+	public void testIndexDependent() {
+		RowSubset even = new IndexRowSubset(table);
+		assertEquals(4, even.getRowCount());
+		assertEquals(1, even.get(0, 0));
+
+		table.remove(0);
+		assertEquals(4, even.getRowCount());
+		assertEquals(2, even.get(0, 0));
+		assertEquals(8, even.get(0, 3));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIndexDependentAppend() {
+		IndexRowSubset even = new IndexRowSubset(table);
+		even.tested = 0;
+
+		// Appended rows don't change the indexes of the other rows
+		table.add(9, 13);
+		table.add(10, 15);
+		assertEquals(2, even.tested);
+		assertEquals(5, even.getRowCount());
+		assertEquals(9, even.get(0, 4));
+
+		table.addAll(Arrays.asList(Arrays.asList(11, 17), Arrays.asList(12, 19)));
+		assertEquals(4, even.tested);
+		assertEquals(6, even.getRowCount());
+		assertEquals(11, even.get(0, 5));
+
+		// Removing the last row doesn't require any test
+		table.removeLast();
+		assertEquals(4, even.tested);
+		assertEquals(6, even.getRowCount());
+
+		// Removing a row at the beginning shifts the indexes
+		table.remove(0);
+		assertEquals(4 + table.getRowCount(), even.tested);
+		assertEquals(5, even.getRowCount());
+		assertEquals(2, even.get(0, 0));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSlidingWindow() {
+		RingBufferDataTable window = new RingBufferDataTable(100, Integer.class);
+		for (int i = 0; i < 100; i++) {
+			window.add(i);
+		}
+		MockRowSubset even = new MockRowSubset(window);
+		assertEquals(50, even.getRowCount());
+		final List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		even.addDataListener(new DataRangeListener() {
+			public void dataChanged(DataSource source, DataRangeEvent event) {
+				events.add(event);
+			}
+			public void dataAdded(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			}
+		});
+
+		for (int i = 100; i < 110; i++) {
+			even.tested = 0;
+			events.clear();
+			window.add(i);
+			// Only the added row is tested, the discarded row is dropped
+			assertEquals(1, even.tested);
+			assertEquals(50, even.getRowCount());
+			// Listeners are notified once if the subset has changed
+			if (i%2 == 0) {
+				assertEquals(1, events.size());
+				assertEquals(DataRangeEvent.Type.SHIFTED, events.get(0).getType());
+				assertEquals(1, events.get(0).getRemovedRowCount());
+				assertEquals(49, events.get(0).getFirstRow());
+			} else {
+				assertTrue(events.isEmpty());
+			}
+		}
+		assertEquals(10, even.get(0, 0));
+		assertEquals(108, even.get(0, 49));
+	}
+
+	@Test
+	public void testRangeEvents() {
+		final List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		data.addDataListener(new DataRangeListener() {
+			public void dataChanged(DataSource source, DataRangeEvent event) {
+				events.add(event);
+			}
+			public void dataAdded(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			}
+		});
+
+		// Accepted row
+		table.add(10, 0);
+		assertEquals(1, events.size());
+		assertEquals(DataRangeEvent.Type.ADDED, events.get(0).getType());
+		assertEquals(4, events.get(0).getFirstRow());
+		assertEquals(1, events.get(0).getRowCount());
+
+		// Rows that are not part of the subset
+		table.add(11, 0);
+		table.remove(0);
+		assertEquals(1, events.size());
+
+		// Updated value of an accepted row
+		table.set(1, 2, 42);
+		assertEquals(2, events.size());
+		assertEquals(DataRangeEvent.Type.UPDATED, events.get(1).getType());
+		assertEquals(1, events.get(1).getFirstRow());
+		assertEquals(1, events.get(1).getRowCount());
+		assertFalse(events.get(1).isColumnChanged(0));
+		assertTrue(events.get(1).isColumnChanged(1));
+
+		// Updated value that removes a row from the subset
+		table.set(0, 0, 3);
+		assertEquals(3, events.size());
+		assertEquals(DataRangeEvent.Type.REMOVED, events.get(2).getType());
+		assertEquals(0, events.get(2).getFirstRow());
+		assertEquals(1, events.get(2).getRowCount());
+		assertEquals(4, data.getRowCount());
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		DataSource original = data;
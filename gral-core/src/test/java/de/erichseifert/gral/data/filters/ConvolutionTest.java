@@ -21,18 +21,26 @@
  */
 package de.erichseifert.gral.data.filters;
 
+import static de.erichseifert.gral.TestUtils.assertFiltered;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.DataChangeEvent;
+import de.erichseifert.gral.data.DataRangeEvent;
+import de.erichseifert.gral.data.DataRangeListener;
+import de.erichseifert.gral.data.DataSource;
 import de.erichseifert.gral.data.DataTable;
+import de.erichseifert.gral.data.RingBufferDataTable;
 import de.erichseifert.gral.data.statistics.Statistics;
 
 public class ConvolutionTest {
@@ -41,6 +49,23 @@ public class ConvolutionTest {
 	private static DataTable table;
 	private static Kernel kernel;
 
+	private static final class CountingConvolution extends Convolution {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = 2150587322456412342L;
+
+		private int filtered;
+
+		public CountingConvolution(DataSource original, Kernel kernel, Mode mode, int... cols) {
+			super(original, kernel, mode, cols);
+		}
+
+		@Override
+		protected void filter(int fromRow, int toRow) {
+			filtered += toRow - fromRow;
+			super.filter(fromRow, toRow);
+		}
+	}
+
 	@BeforeClass
 	@SuppressWarnings("unchecked")
 	public static void setUpBeforeClass() {
@@ -165,6 +190,150 @@ public class ConvolutionTest {
 		assertEquals( 3.0, ((Number) filter.get(1, 7)).doubleValue(), DELTA);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncremental() {
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			DataTable data = new DataTable(Double.class, Double.class);
+			for (int row = 0; row < 10; row++) {
+				data.add((double) (row*row % 7), (double) row);
+			}
+			Filter2D filter = new Convolution(data, kernel, mode, 0);
+
+			data.add(3.0, 10.0);
+			assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+			data.set(0, 4, 9.0);
+			assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+			data.set(1, 5, 2.0);
+			assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+			data.remove(0);
+			assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+			data.remove(5);
+			assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+			data.removeLast();
+			assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalLag() {
+		// The window of a backward difference doesn't contain the current row
+		Kernel lag = new Kernel(2, new double[] {-1.0, 1.0});
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			DataTable data = new DataTable(Double.class);
+			for (int row = 0; row < 5; row++) {
+				data.add((double) (row*row));
+			}
+			Filter2D filter = new Convolution(data, lag, mode, 0);
+
+			data.add(25.0);
+			assertFiltered(new Convolution(data, lag, mode, 0), filter);
+			data.set(0, 2, 9.0);
+			assertFiltered(new Convolution(data, lag, mode, 0), filter);
+			data.remove(3);
+			assertFiltered(new Convolution(data, lag, mode, 0), filter);
+			data.remove(0);
+			assertFiltered(new Convolution(data, lag, mode, 0), filter);
+		}
+
+		DataTable data = new DataTable(Double.class);
+		for (int row = 0; row < 5; row++) {
+			data.add((double) (row*row));
+		}
+		Filter2D filter = new Convolution(data, lag, Filter2D.Mode.REPEAT, 0);
+		data.add(25.0);
+		assertEquals(7.0, filter.getDouble(0, 5), DELTA);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalEvents() {
+		DataTable data = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < 10; row++) {
+			data.add((double) row, (double) row);
+		}
+		Filter2D filter = new Convolution(data, kernel, Filter2D.Mode.ZERO, 0);
+		final List<DataRangeEvent> events = new ArrayList<DataRangeEvent>();
+		filter.addDataListener(new DataRangeListener() {
+			public void dataChanged(DataSource source, DataRangeEvent event) {
+				events.add(event);
+			}
+			public void dataAdded(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataUpdated(DataSource source, DataChangeEvent... events) {
+			}
+			public void dataRemoved(DataSource source, DataChangeEvent... events) {
+			}
+		});
+
+		data.add(10.0, 10.0);
+		assertEquals(2, events.size());
+		assertEquals(DataRangeEvent.Type.ADDED, events.get(0).getType());
+		assertEquals(10, events.get(0).getFirstRow());
+		assertEquals(1, events.get(0).getRowCount());
+		// Only the row before the new row has changed
+		assertEquals(DataRangeEvent.Type.UPDATED, events.get(1).getType());
+		assertEquals(9, events.get(1).getFirstRow());
+		assertEquals(1, events.get(1).getRowCount());
+		assertEquals(27.0, filter.getDouble(0, 9), DELTA);
+		assertEquals(19.0, filter.getDouble(0, 10), DELTA);
+
+		// Unfiltered columns don't cause filtering
+		events.clear();
+		data.set(1, 3, 42.0);
+		assertEquals(1, events.size());
+		assertEquals(3, events.get(0).getFirstRow());
+		assertEquals(1, events.get(0).getRowCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalSlidingWindow() {
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			RingBufferDataTable data = new RingBufferDataTable(100, Double.class);
+			for (int row = 0; row < 100; row++) {
+				data.add((double) (row % 7));
+			}
+			CountingConvolution filter = new CountingConvolution(data, kernel, mode, 0);
+			for (int row = 100; row < 150; row++) {
+				filter.filtered = 0;
+				data.add((double) (row % 7));
+				// Only the rows next to the discarded and the added row are
+				// filtered again
+				assertTrue(mode + " row " + row, filter.filtered <= 2*kernel.size());
+				assertFiltered(new Convolution(data, kernel, mode, 0), filter);
+			}
+		}
+	}
+
+	@Test
+	public void testTransformed() {
+		Kernel largeKernel = Kernel.getBinomial(Convolution.FFT_KERNEL_SIZE + 1).normalize();
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			DataTable data = new DataTable(Double.class, Double.class);
+			for (int row = 0; row < 500; row++) {
+				data.add(Math.sin(row/10.0) + (row % 7), (double) row);
+			}
+			data.set(0, 250, Double.NaN);
+			Convolution filter = new Convolution(data, largeKernel, mode, 0, 1);
+
+			double[] transformed = new double[2*filter.getRowCount()];
+			for (int row = 0; row < filter.getRowCount(); row++) {
+				transformed[2*row] = filter.getDouble(0, row);
+				transformed[2*row + 1] = filter.getDouble(1, row);
+			}
+			filter.filterDirect(0, filter.getRowCount());
+			for (int row = 0; row < filter.getRowCount(); row++) {
+				assertEquals(mode + " row " + row,
+					filter.getDouble(0, row), transformed[2*row], 1e-9);
+				assertEquals(mode + " row " + row,
+					filter.getDouble(1, row), transformed[2*row + 1], 1e-9);
+			}
+			assertTrue(Double.isNaN(filter.getDouble(0, 250)));
+		}
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		Convolution original = new Convolution(table, kernel, Filter2D.Mode.ZERO, 0, 1);
@@ -31,6 +31,7 @@ import org.junit.runners.Suite;
 	KernelTest.class,
 	ConvolutionTest.class,
 	MedianTest.class,
+	QuantileTest.class,
 	ResizeTest.class,
 	AccumulationTest.class
 })
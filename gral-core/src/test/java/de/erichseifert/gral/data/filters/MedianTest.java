@@ -21,6 +21,7 @@
  */
 package de.erichseifert.gral.data.filters;
 
+import static de.erichseifert.gral.TestUtils.assertFiltered;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
@@ -88,6 +89,60 @@ public class MedianTest {
 		assertEquals(0, filter.getOffset());
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncremental() {
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			DataTable data = new DataTable(Double.class, Double.class);
+			for (int row = 0; row < 10; row++) {
+				data.add((double) (row*row % 7), (double) row);
+			}
+			Filter2D filter = new Median(data, 3, 1, mode, 0);
+
+			data.add(3.0, 10.0);
+			assertFiltered(new Median(data, 3, 1, mode, 0), filter);
+			data.set(0, 4, 9.0);
+			assertFiltered(new Median(data, 3, 1, mode, 0), filter);
+			data.set(1, 5, 2.0);
+			assertFiltered(new Median(data, 3, 1, mode, 0), filter);
+			data.remove(0);
+			assertFiltered(new Median(data, 3, 1, mode, 0), filter);
+			data.remove(5);
+			assertFiltered(new Median(data, 3, 1, mode, 0), filter);
+			data.removeLast();
+			assertFiltered(new Median(data, 3, 1, mode, 0), filter);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalOffsetOutsideWindow() {
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			DataTable data = new DataTable(Double.class);
+			for (int row = 0; row < 5; row++) {
+				data.add((double) (row*row));
+			}
+			Filter2D filter = new Median(data, 2, 3, mode, 0);
+
+			data.add(25.0);
+			assertFiltered(new Median(data, 2, 3, mode, 0), filter);
+			data.set(0, 2, 9.0);
+			assertFiltered(new Median(data, 2, 3, mode, 0), filter);
+			data.remove(3);
+			assertFiltered(new Median(data, 2, 3, mode, 0), filter);
+			data.remove(0);
+			assertFiltered(new Median(data, 2, 3, mode, 0), filter);
+		}
+
+		DataTable data = new DataTable(Double.class);
+		for (int row = 0; row < 5; row++) {
+			data.add((double) (row*row));
+		}
+		Filter2D filter = new Median(data, 2, 3, Filter2D.Mode.REPEAT, 0);
+		data.add(25.0);
+		assertEquals(12.5, filter.getDouble(0, 5), DELTA);
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		Filter2D original = new Median(table, 3, 1, Filter2D.Mode.REPEAT, 0);
@@ -0,0 +1,122 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data.filters;
+
+import static de.erichseifert.gral.TestUtils.assertFiltered;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.DataTable;
+import de.erichseifert.gral.util.MathUtils;
+
+public class QuantileTest {
+	private static final double DELTA = TestUtils.DELTA;
+
+	private static DataTable createTable() {
+		DataTable table = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < 12; row++) {
+			table.add((double) (row*row % 11), (double) row);
+		}
+		return table;
+	}
+
+	@Test
+	public void testCreate() {
+		DataTable table = createTable();
+		Quantile filter = new Quantile(table, 4, 2, 0.25, Filter2D.Mode.REPEAT, 0);
+		assertEquals(table.getColumnCount(), filter.getColumnCount());
+		assertEquals(table.getRowCount(), filter.getRowCount());
+		assertEquals(4, filter.getWindowSize());
+		assertEquals(2, filter.getOffset());
+		assertEquals(0.25, filter.getQuantile(), DELTA);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidQuantile() {
+		new Quantile(createTable(), 4, 2, -0.5, Filter2D.Mode.REPEAT, 0);
+	}
+
+	@Test
+	public void testValues() {
+		DataTable table = createTable();
+		double[] quantiles = {0.0, 0.3, 0.5, 1.0};
+		for (double quantile : quantiles) {
+			Quantile filter = new Quantile(table, 5, 2, quantile, Filter2D.Mode.REPEAT, 0);
+			// Windows that are completely inside the data
+			for (int row = 4; row < table.getRowCount() - 3; row++) {
+				List<Double> window = new ArrayList<Double>();
+				for (int i = row - 1; i <= row + 3; i++) {
+					window.add(table.getDouble(0, i));
+				}
+				Collections.sort(window);
+				assertEquals(MathUtils.quantile(window, quantile),
+					filter.getDouble(0, row), DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void testMedian() {
+		DataTable table = createTable();
+		Median median = new Median(table, 3, 1, Filter2D.Mode.OMIT, 0);
+		Quantile quantile = new Quantile(table, 3, 1, 0.5, Filter2D.Mode.OMIT, 0);
+		for (int row = 0; row < table.getRowCount(); row++) {
+			assertEquals(quantile.getDouble(0, row), median.getDouble(0, row), DELTA);
+		}
+		// Odd windows contain the middle value
+		assertEquals(5.0, median.getDouble(0, 2), DELTA);
+	}
+
+	@Test
+	public void testSetQuantile() {
+		DataTable table = createTable();
+		Quantile filter = new Quantile(table, 3, 1, 0.0, Filter2D.Mode.OMIT, 0);
+		double min = filter.getDouble(0, 5);
+		filter.setQuantile(1.0);
+		double max = filter.getDouble(0, 5);
+		assertEquals(3.0, min, DELTA);
+		assertEquals(5.0, max, DELTA);
+	}
+
+	@Test
+	public void testIncremental() {
+		for (Filter2D.Mode mode : Filter2D.Mode.values()) {
+			DataTable data = createTable();
+			Filter2D filter = new Quantile(data, 4, 1, 0.75, mode, 0);
+
+			data.add(3.0, 12.0);
+			assertFiltered(new Quantile(data, 4, 1, 0.75, mode, 0), filter);
+			data.set(0, 4, 9.0);
+			assertFiltered(new Quantile(data, 4, 1, 0.75, mode, 0), filter);
+			data.remove(0);
+			assertFiltered(new Quantile(data, 4, 1, 0.75, mode, 0), filter);
+			data.removeLast();
+			assertFiltered(new Quantile(data, 4, 1, 0.75, mode, 0), filter);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.data.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.erichseifert.gral.data.DataSeries;
+import de.erichseifert.gral.data.DataTable;
+
+public class RunningStatisticsTest {
+	private static final double DELTA = 1e-10;
+	private static final String[] KEYS = {
+		Statistics.N, Statistics.SUM, Statistics.SUM2, Statistics.SUM3,
+		Statistics.SUM4, Statistics.MIN, Statistics.MAX, Statistics.MEAN,
+		Statistics.SUM_OF_DIFF_SQUARES, Statistics.SUM_OF_DIFF_CUBICS,
+		Statistics.SUM_OF_DIFF_QUADS, Statistics.VARIANCE,
+		Statistics.POPULATION_VARIANCE, Statistics.SKEWNESS,
+		Statistics.KURTOSIS, Statistics.QUARTILE_1, Statistics.MEDIAN,
+		Statistics.QUARTILE_3
+	};
+
+	private DataTable table;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		table = new DataTable(Integer.class, Double.class);
+		table.add(0, 1.0); // 0
+		table.add(1, 3.0); // 1
+		table.add(2, 2.0); // 2
+		table.add(2, 2.5); // 3
+		table.add(5, 4.0); // 4
+		table.add(1, 2.0); // 5
+		table.add(2, 9.0); // 6
+		table.add(4, 1.0); // 7
+	}
+
+	private static void assertStatistics(Iterable<? extends Comparable<?>> expectedData, Statistics actual) {
+		Statistics expected = new Statistics(expectedData);
+		for (String key : KEYS) {
+			assertEquals(key, expected.get(key), actual.get(key), DELTA);
+		}
+	}
+
+	@Test
+	public void testAdd() {
+		Statistics stats = table.getStatistics();
+		Statistics colStats = table.getStatistics(1);
+		assertStatistics(table, stats);
+
+		table.add(-3, 12.0);
+		table.add(7, null);
+		assertStatistics(table, stats);
+		assertStatistics(table.getColumn(1), colStats);
+		assertEquals(12.0, colStats.get(Statistics.MAX), DELTA);
+	}
+
+	@Test
+	public void testRemove() {
+		Statistics stats = table.getStatistics();
+		Statistics colStats = table.getStatistics(0);
+		assertStatistics(table.getColumn(0), colStats);
+
+		// Removal of values that aren't extrema
+		table.remove(1);
+		assertStatistics(table, stats);
+		assertStatistics(table.getColumn(0), colStats);
+
+		// Removal of extrema
+		table.remove(3);
+		table.remove(0);
+		assertStatistics(table, stats);
+		assertStatistics(table.getColumn(0), colStats);
+		assertEquals(1.0, colStats.get(Statistics.MIN), DELTA);
+		assertEquals(4.0, colStats.get(Statistics.MAX), DELTA);
+	}
+
+	@Test
+	public void testSet() {
+		Statistics stats = table.getStatistics();
+		Statistics colStats = table.getStatistics(1);
+		assertStatistics(table.getColumn(1), colStats);
+
+		table.set(1, 6, 3.5);
+		table.set(1, 2, -1.0);
+		assertStatistics(table, stats);
+		assertStatistics(table.getColumn(1), colStats);
+		assertEquals(-1.0, colStats.get(Statistics.MIN), DELTA);
+		assertEquals( 4.0, colStats.get(Statistics.MAX), DELTA);
+	}
+
+	@Test
+	public void testClear() {
+		Statistics stats = table.getStatistics();
+		Statistics colStats = table.getStatistics(1);
+		assertStatistics(table, stats);
+		assertStatistics(table.getColumn(1), colStats);
+
+		table.clear();
+		assertEquals(0.0, stats.get(Statistics.N), DELTA);
+		assertEquals(0.0, colStats.get(Statistics.N), DELTA);
+		assertEquals(Double.NaN, colStats.get(Statistics.MIN), DELTA);
+
+		table.add(3, 4.0);
+		assertStatistics(table, stats);
+		assertStatistics(table.getColumn(1), colStats);
+	}
+
+	@Test
+	public void testDerivedDataSource() {
+		DataSeries series = new DataSeries(table, 1);
+		Statistics stats = series.getStatistics();
+		assertStatistics(series, stats);
+
+		table.add(8, 20.0);
+		table.remove(0);
+		assertStatistics(series, stats);
+		assertEquals(20.0, series.getStatistics(0).get(Statistics.MAX), DELTA);
+	}
+
+	@Test
+	public void testManyUpdates() {
+		Statistics stats = table.getStatistics(1);
+		for (int i = 0; i < 1000; i++) {
+			table.add(i, Math.sin(i));
+			table.remove(0);
+		}
+		assertStatistics(table.getColumn(1), stats);
+	}
+}
@@ -28,6 +28,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	HistogramTest.class,
 	StatisticsTest.class,
+	RunningStatisticsTest.class,
 	AbstractHistogram2DTest.class
 })
 public class StatisticsTests {
@@ -32,6 +32,7 @@ import org.junit.runners.Suite;
 	LayoutTests.class,
 	// Tests for classes
 	DrawingContextTest.class,
+	LayerCacheTest.class,
 	DrawableTest.class,
 	ContainerTest.class,
 	LabelTest.class,
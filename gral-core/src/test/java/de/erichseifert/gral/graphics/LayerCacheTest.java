@@ -0,0 +1,169 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.graphics;
+
+import static de.erichseifert.gral.TestUtils.assertNotEmpty;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.graphics.DrawingContext.Quality;
+import de.erichseifert.gral.graphics.DrawingContext.Target;
+
+public class LayerCacheTest {
+	private static final Rectangle2D BOUNDS = new Rectangle2D.Double(0.0, 0.0, 40.0, 30.0);
+
+	private LayerCache cache;
+	private CountingDrawable content;
+
+	private static class CountingDrawable extends AbstractDrawable {
+		private int drawCount;
+
+		public void draw(DrawingContext context) {
+			Graphics2D graphics = context.getGraphics();
+			graphics.setColor(Color.RED);
+			graphics.fill(new Ellipse2D.Double(5.3, 4.7, 20.0, 15.0));
+			drawCount++;
+		}
+	}
+
+	@Before
+	public void setUp() {
+		cache = new LayerCache();
+		content = new CountingDrawable();
+	}
+
+	private BufferedImage draw(double x, double y, Target target) {
+		BufferedImage image = TestUtils.createTestImage();
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+			RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.translate(x, y);
+		cache.draw(new DrawingContext(graphics, Quality.NORMAL, target),
+			"layer", BOUNDS, content);
+		graphics.dispose();
+		return image;
+	}
+
+	@Test
+	public void testIsApplicable() {
+		Graphics2D graphics = TestUtils.createTestImage().createGraphics();
+		assertTrue(LayerCache.isApplicable(new DrawingContext(graphics)));
+		assertFalse(LayerCache.isApplicable(
+			new DrawingContext(graphics, Quality.NORMAL, Target.VECTOR)));
+		graphics.scale(2.0, 2.0);
+		assertFalse(LayerCache.isApplicable(new DrawingContext(graphics)));
+	}
+
+	@Test
+	public void testDraw() {
+		BufferedImage drawn = draw(0.0, 0.0, Target.VECTOR);
+		assertEquals(1, content.drawCount);
+
+		BufferedImage cached = draw(0.0, 0.0, Target.BITMAP);
+		BufferedImage cachedAgain = draw(0.0, 0.0, Target.BITMAP);
+		assertEquals(2, content.drawCount);
+		assertNotEmpty(cached);
+		TestUtils.assertEquals(drawn, cached);
+		TestUtils.assertEquals(drawn, cachedAgain);
+	}
+
+	@Test
+	public void testTranslation() {
+		draw(0.0, 0.0, Target.BITMAP);
+		// Whole pixel offsets reuse the image
+		BufferedImage moved = draw(3.0, 2.0, Target.BITMAP);
+		assertEquals(1, content.drawCount);
+		TestUtils.assertEquals(draw(3.0, 2.0, Target.VECTOR), moved);
+
+		// Sub-pixel offsets require the contents to be drawn again
+		BufferedImage shifted = draw(0.5, 0.0, Target.BITMAP);
+		assertEquals(3, content.drawCount);
+		TestUtils.assertEquals(draw(0.5, 0.0, Target.VECTOR), shifted);
+	}
+
+	@Test
+	public void testInvalidate() {
+		draw(0.0, 0.0, Target.BITMAP);
+		cache.invalidate("other");
+		draw(0.0, 0.0, Target.BITMAP);
+		assertEquals(1, content.drawCount);
+
+		cache.invalidate("layer");
+		draw(0.0, 0.0, Target.BITMAP);
+		assertEquals(2, content.drawCount);
+
+		cache.invalidateAll();
+		BufferedImage redrawn = draw(0.0, 0.0, Target.BITMAP);
+		assertEquals(3, content.drawCount);
+		TestUtils.assertEquals(draw(0.0, 0.0, Target.VECTOR), redrawn);
+
+		cache.clear();
+		draw(0.0, 0.0, Target.BITMAP);
+		assertEquals(5, content.drawCount);
+	}
+
+	@Test
+	public void testDrawConcurrently() {
+		List<String> keys = new ArrayList<String>();
+		List<CountingDrawable> contents = new ArrayList<CountingDrawable>();
+		for (int i = 0; i < 8; i++) {
+			keys.add("layer" + i);
+			contents.add(new CountingDrawable());
+		}
+		BufferedImage drawn = TestUtils.createTestImage();
+		Graphics2D graphics = drawn.createGraphics();
+		cache.draw(new DrawingContext(graphics, Quality.NORMAL, Target.VECTOR),
+			keys, BOUNDS, contents, null);
+		graphics.dispose();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			BufferedImage concurrent = TestUtils.createTestImage();
+			graphics = concurrent.createGraphics();
+			cache.draw(new DrawingContext(graphics), keys, BOUNDS, contents, executor);
+			cache.draw(new DrawingContext(graphics), keys, BOUNDS, contents, executor);
+			graphics.dispose();
+			for (CountingDrawable content : contents) {
+				assertEquals(2, content.drawCount);
+			}
+			TestUtils.assertEquals(drawn, concurrent);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
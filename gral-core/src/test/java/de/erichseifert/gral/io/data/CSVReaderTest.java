@@ -23,12 +23,16 @@ package de.erichseifert.gral.io.data;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 
@@ -265,4 +269,111 @@ public class CSVReaderTest {
 		assertEquals(-21.0, data.get(2, 1));
 		assertEquals(-22.0, data.get(2, 2));
 	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testNumberParsing() throws IOException {
+		String[] numbers = {
+			"0", "-0.0", "1.", ".5", "+2.25", "3.14159265358979", "1e10",
+			"-1.5E-7", "123456789012345678", "0.1", "0.30000000000000004",
+			"1e300", "4.9e-324", "NaN", "-Infinity", "12d", "0x1p3"
+		};
+		StringBuilder content = new StringBuilder();
+		for (String number : numbers) {
+			content.append(number).append("\n");
+		}
+		DataReader reader = DataReaderFactory.getInstance().get("text/csv");
+		DataSource data = reader.read(
+			new ByteArrayInputStream(content.toString().getBytes()), Double.class);
+
+		assertEquals(numbers.length, data.getRowCount());
+		for (int row = 0; row < numbers.length; row++) {
+			assertEquals(numbers[row], Double.valueOf(numbers[row]), data.get(0, row));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIntegerRange() throws IOException {
+		InputStream input = new ByteArrayInputStream((
+			"127,-2147483648,9223372036854775807\r\n"
+		).getBytes());
+		DataReader reader = DataReaderFactory.getInstance().get("text/csv");
+		DataSource data = reader.read(input, Byte.class, Integer.class, Long.class);
+		assertEquals((byte) 127, data.get(0, 0));
+		assertEquals(Integer.MIN_VALUE, data.get(1, 0));
+		assertEquals(Long.MAX_VALUE, data.get(2, 0));
+
+		input = new ByteArrayInputStream("128\r\n".getBytes());
+		try {
+			reader.read(input, Byte.class);
+			fail("Expected IOException");
+		} catch (IOException e) {
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testLargeInput() throws IOException {
+		// Quoted cells and line breaks cross the boundaries of the
+		// internal buffers
+		StringBuilder content = new StringBuilder();
+		int rows = 20000;
+		for (int row = 0; row < rows; row++) {
+			content.append(row).append(",\"").append(row*0.5).append("\",\"a \"\"")
+				.append(row).append("\"\"\"\r\n");
+		}
+		DataReader reader = DataReaderFactory.getInstance().get("text/csv");
+		DataSource data = reader.read(
+			new ByteArrayInputStream(content.toString().getBytes()),
+			Integer.class, Double.class, String.class);
+
+		assertEquals(rows, data.getRowCount());
+		for (int row = 0; row < rows; row++) {
+			assertEquals(row, data.get(0, row));
+			assertEquals(row*0.5, data.get(1, row));
+			assertEquals("a \"" + row + "\"", data.get(2, row));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testParallel() throws IOException {
+		// Quoted line breaks must not be used to split the input
+		StringBuilder content = new StringBuilder();
+		int rows = 300000;
+		for (int row = 0; row < rows; row++) {
+			content.append(row).append(",\"").append(row*0.5).append("\",\"a\r\n")
+				.append(row % 10).append("\"").append(row % 2 == 0 ? "\r\n" : "\n");
+		}
+		byte[] bytes = content.toString().getBytes();
+		DataReader reader = DataReaderFactory.getInstance().get("text/csv");
+		DataSource expected = reader.read(new ByteArrayInputStream(bytes),
+			Integer.class, Double.class, String.class);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			reader.setSetting(CSVReader.EXECUTOR, executor);
+			DataSource data = reader.read(new ByteArrayInputStream(bytes),
+				Integer.class, Double.class, String.class);
+
+			assertEquals(rows, data.getRowCount());
+			for (int row = 0; row < rows; row++) {
+				assertEquals(row, data.get(0, row));
+				assertEquals(row*0.5, data.get(1, row));
+				assertEquals(expected.get(2, row), data.get(2, row));
+			}
+
+			content.append("foo,1.0,bar\r\n");
+			try {
+				reader.read(new ByteArrayInputStream(content.toString().getBytes()),
+					Integer.class, Double.class, String.class);
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains("line " + NumberFormat.getIntegerInstance().format(rows + 1)));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
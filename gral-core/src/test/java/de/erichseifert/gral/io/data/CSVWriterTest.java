@@ -26,6 +26,11 @@ import static org.junit.Assert.assertEquals;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.util.Locale;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -86,4 +91,67 @@ public class CSVWriterTest {
 		);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testNumbers() throws IOException {
+		double[] values = {
+			0.0, -0.0, 1.0, -2.5, 0.1, 0.3, 1e-3, 0.00123, 123456.789,
+			9999999.0, 1e7, 1e-4, 1.0/3.0, Math.PI, Double.MIN_VALUE,
+			Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY
+		};
+		DataTable table = new DataTable(Double.class, Long.class, Float.class);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			long longValue = (i % 2 == 0 ? 1L : -1L) << (3*i);
+			table.add(values[i], longValue, (float) values[i]);
+			expected.append(Double.toString(values[i])).append(',')
+				.append(longValue).append(',').append((float) values[i]).append("\r\n");
+		}
+		table.add(null, Long.MIN_VALUE, null);
+		expected.append("null,").append(Long.MIN_VALUE).append(",null\r\n");
+
+		OutputStream output = new ByteArrayOutputStream();
+		DataWriter writer = DataWriterFactory.getInstance().get("text/csv");
+		writer.write(table, output);
+
+		assertEquals(expected.toString(), output.toString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testFormatsAndCharset() throws IOException {
+		DataTable table = new DataTable(Double.class, String.class);
+		table.add(1.5, "\u00e4\u00f6\u00fc");
+		table.add(2.25, "\u20ac");
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DataWriter writer = DataWriterFactory.getInstance().get("text/csv");
+		writer.setSetting(CSVWriter.CHARSET, Charset.forName("UTF-8"));
+		writer.setSetting(CSVWriter.COLUMN_FORMATS,
+			new Format[] {new DecimalFormat("0.000", DecimalFormatSymbols.getInstance(Locale.US))});
+		writer.write(table, output);
+
+		assertEquals(
+			"1.500,\u00e4\u00f6\u00fc\r\n" +
+			"2.250,\u20ac\r\n",
+			output.toString("UTF-8")
+		);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testLargeOutput() throws IOException {
+		// Output exceeds the size of the internal buffers
+		DataTable table = new DataTable(Double.class, Integer.class);
+		StringBuilder expected = new StringBuilder();
+		for (int row = 0; row < 20000; row++) {
+			table.add(row*0.1, row);
+			expected.append(Double.toString(row*0.1)).append(',').append(row).append("\r\n");
+		}
+		OutputStream output = new ByteArrayOutputStream();
+		DataWriter writer = DataWriterFactory.getInstance().get("text/csv");
+		writer.write(table, output);
+
+		assertEquals(expected.toString(), output.toString());
+	}
 }
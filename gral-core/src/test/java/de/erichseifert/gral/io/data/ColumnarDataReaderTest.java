@@ -0,0 +1,124 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.data.DataTable;
+
+public class ColumnarDataReaderTest {
+	private static DataTable data;
+
+	@BeforeClass
+	@SuppressWarnings("unchecked")
+	public static void setUpBeforeClass() {
+		data = new DataTable(Double.class, Float.class, Long.class,
+			Integer.class, Short.class, Byte.class, String.class);
+		// More rows than fit in a single block
+		for (int i = 0; i < 70000; i++) {
+			boolean empty = i % 7 == 0;
+			data.add(
+				empty ? null : i*0.5,
+				i % 3 == 0 ? Float.NaN : (float) i,
+				(long) i*1000000000L,
+				empty ? null : -i,
+				(short) i,
+				(byte) i,
+				empty ? null : i % 5 == 0 ? "" : "ä " + i
+			);
+		}
+	}
+
+	private static byte[] write(DataSource data, boolean compression) throws IOException {
+		DataWriter writer = DataWriterFactory.getInstance().get("application/x-gral-columns");
+		writer.setSetting(ColumnarDataWriter.COMPRESSION, compression);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writer.write(data, output);
+		return output.toByteArray();
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		for (boolean compression : new boolean[] {false, true}) {
+			byte[] bytes = write(data, compression);
+			DataReader reader = DataReaderFactory.getInstance().get("application/x-gral-columns");
+			DataSource read = reader.read(new ByteArrayInputStream(bytes));
+
+			assertTrue(Arrays.equals(data.getColumnTypes(), read.getColumnTypes()));
+			assertEquals(data.getRowCount(), read.getRowCount());
+			for (int row = 0; row < data.getRowCount(); row++) {
+				for (int col = 0; col < data.getColumnCount(); col++) {
+					assertEquals(data.get(col, row), read.get(col, row));
+				}
+			}
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEmpty() throws IOException {
+		DataSource read = DataReaderFactory.getInstance().get("application/x-gral-columns").read(
+			new ByteArrayInputStream(write(new DataTable(Double.class), true)));
+		assertEquals(1, read.getColumnCount());
+		assertEquals(0, read.getRowCount());
+		assertNull(read.get(0, 0));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testInvalidInput() throws IOException {
+		DataReader reader = DataReaderFactory.getInstance().get("application/x-gral-columns");
+		byte[] bytes = write(data, true);
+
+		try {
+			reader.read(new ByteArrayInputStream(bytes), Double.class);
+			fail("Expected IllegalArgumentException because the column types don't match.");
+		} catch (IllegalArgumentException e) {
+		}
+
+		byte[] invalid = bytes.clone();
+		invalid[0] = 'X';
+		try {
+			reader.read(new ByteArrayInputStream(invalid));
+			fail("Expected IOException");
+		} catch (IOException e) {
+		}
+
+		try {
+			reader.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length/2)));
+			fail("Expected IOException");
+		} catch (IOException e) {
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.erichseifert.gral.data.DataTable;
+
+public class ColumnarDataWriterTest {
+	private static DataTable data;
+
+	@BeforeClass
+	@SuppressWarnings("unchecked")
+	public static void setUpBeforeClass() {
+		data = new DataTable(Double.class, Integer.class);
+		for (int i = 0; i < 1000; i++) {
+			data.add(i % 10 == 0 ? null : 1.5, i % 4);
+		}
+	}
+
+	@Test
+	public void testWriter() throws IOException {
+		DataWriter writer = DataWriterFactory.getInstance().get("application/x-gral-columns");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		writer.write(data, output);
+
+		ByteBuffer bytes = ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals('G', bytes.get());
+		assertEquals('R', bytes.get());
+		assertEquals('A', bytes.get());
+		assertEquals('L', bytes.get());
+		assertEquals(1, bytes.getShort());
+		assertEquals(0, bytes.getShort());
+		assertEquals(2, bytes.getInt());
+		assertEquals(1000, bytes.getInt());
+		bytes.getInt();
+		assertEquals(1, bytes.get());
+		assertEquals(4, bytes.get());
+
+		// First block with double values and null flags
+		assertEquals(0, bytes.get());
+		int length = bytes.getInt();
+		assertEquals(length, bytes.getInt());
+		assertEquals(8*1000 + 1 + 125, length);
+		assertEquals(1.5, bytes.getDouble(bytes.position() + 8), 0.0);
+		assertEquals(1, bytes.get(bytes.position() + 8*1000));
+		assertEquals(1, bytes.get(bytes.position() + 8*1000 + 1));
+		bytes.position(bytes.position() + length);
+
+		// Second block with integer values without null flags
+		assertEquals(0, bytes.get());
+		length = bytes.getInt();
+		assertEquals(4*1000 + 1, length);
+		bytes.getInt();
+		assertEquals(3, bytes.getInt(bytes.position() + 4*3));
+		bytes.position(bytes.position() + length);
+		assertEquals(0, bytes.remaining());
+	}
+
+	@Test
+	public void testCompression() throws IOException {
+		DataWriter writer = DataWriterFactory.getInstance().get("application/x-gral-columns");
+		ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+		writer.write(data, uncompressed);
+
+		writer.setSetting(ColumnarDataWriter.COMPRESSION, true);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		writer.write(data, compressed);
+
+		assertTrue(compressed.size() < uncompressed.size()/4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	@SuppressWarnings("unchecked")
+	public void testUnsupportedType() throws IOException {
+		DataTable table = new DataTable(Boolean.class);
+		table.add(true);
+		DataWriter writer = DataWriterFactory.getInstance().get("application/x-gral-columns");
+		writer.write(table, new ByteArrayOutputStream());
+	}
+}
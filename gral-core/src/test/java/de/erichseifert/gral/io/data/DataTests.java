@@ -30,6 +30,9 @@ import org.junit.runners.Suite;
 	DataWriterFactoryTest.class,
 	CSVReaderTest.class,
 	CSVWriterTest.class,
+	ColumnarDataReaderTest.class,
+	ColumnarDataWriterTest.class,
+	MappedCSVDataTest.class,
 	ImageReaderTest.class,
 	ImageWriterTest.class
 })
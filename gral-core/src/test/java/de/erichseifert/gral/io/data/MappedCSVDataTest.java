@@ -0,0 +1,164 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.io.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.erichseifert.gral.data.DataSource;
+
+public class MappedCSVDataTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createFile(String content) throws IOException {
+		File file = folder.newFile();
+		OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(content.getBytes());
+		} finally {
+			output.close();
+		}
+		return file;
+	}
+
+	private static String createContent(int rows) {
+		StringBuilder content = new StringBuilder();
+		for (int row = 0; row < rows; row++) {
+			content.append(row).append(",\"").append(row*0.5).append("\",\"a \"\"")
+				.append(row).append("\"\"\"").append(row % 2 == 0 ? "\r\n" : "\n");
+		}
+		return content.toString();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRead() throws IOException, InterruptedException {
+		String content = createContent(1000);
+		CSVReader reader = (CSVReader) DataReaderFactory.getInstance().get("text/csv");
+		MappedCSVData data = reader.map(createFile(content),
+			Integer.class, Double.class, String.class);
+		data.waitForIndex();
+		DataSource expected = reader.read(new ByteArrayInputStream(content.getBytes()),
+			Integer.class, Double.class, String.class);
+
+		assertTrue(data.isIndexComplete());
+		assertEquals(expected.getRowCount(), data.getRowCount());
+		assertEquals(expected.getColumnCount(), data.getColumnCount());
+		// Access the rows backwards to skip the cached position
+		for (int row = data.getRowCount() - 1; row >= 0; row--) {
+			for (int col = 0; col < data.getColumnCount(); col++) {
+				assertEquals(expected.get(col, row), data.get(col, row));
+			}
+			assertEquals(row*0.5, data.getDouble(1, row), 0.0);
+		}
+		assertNull(data.get(0, data.getRowCount()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSeparator() throws IOException, InterruptedException {
+		CSVReader reader = (CSVReader) DataReaderFactory.getInstance().get(
+			"text/tab-separated-values");
+		MappedCSVData data = reader.map(createFile(
+			"0\t10.0\t20\r\n" +
+			"1\t11.0\t21\r\n" +
+			"2\t12.0\t22"),
+			Integer.class, Double.class, Long.class);
+		data.waitForIndex();
+
+		assertEquals(3, data.getRowCount());
+		assertEquals(2, data.get(0, 2));
+		assertEquals(11.0, data.get(1, 1));
+		assertEquals(22L, data.get(2, 2));
+		assertEquals(20.0, data.getDouble(2, 0), 0.0);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testInvalidCells() throws IOException, InterruptedException {
+		MappedCSVData data = new MappedCSVData(createFile(
+			"1,2.0\n" +
+			"\n" +
+			"3,foo\n" +
+			",4.0\n" +
+			"5\n"),
+			',', Integer.class, Double.class);
+		data.waitForIndex();
+
+		assertEquals(5, data.getRowCount());
+		assertEquals(1, data.get(0, 0));
+		assertNull(data.get(0, 1));
+		assertNull(data.get(1, 1));
+		assertNull(data.get(1, 2));
+		assertTrue(Double.isNaN(data.getDouble(1, 2)));
+		assertNull(data.get(0, 3));
+		assertEquals(4.0, data.get(1, 3));
+		assertNull(data.get(1, 4));
+		assertTrue(Double.isNaN(data.getDouble(1, 4)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testChunkBoundaries() throws IOException, InterruptedException {
+		// Rows and cells cross the boundaries of the mapped regions
+		MappedCSVData data = new MappedCSVData(createFile(createContent(500)),
+			null, ',', 4, Integer.class, Double.class, String.class);
+		data.waitForIndex();
+
+		assertEquals(500, data.getRowCount());
+		for (int row = 0; row < data.getRowCount(); row++) {
+			assertEquals(row, data.get(0, row));
+			assertEquals(row*0.5, data.get(1, row));
+			assertEquals("a \"" + row + "\"", data.get(2, row));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIndexFile() throws IOException, InterruptedException {
+		File file = createFile(createContent(1000));
+		File indexFile = new File(folder.getRoot(), "index");
+		MappedCSVData data = new MappedCSVData(file, indexFile, ',',
+			Integer.class, Double.class, String.class);
+		data.waitForIndex();
+		assertTrue(indexFile.isFile());
+
+		MappedCSVData loaded = new MappedCSVData(file, indexFile, ',',
+			Integer.class, Double.class, String.class);
+		assertTrue(loaded.isIndexComplete());
+		assertEquals(data.getRowCount(), loaded.getRowCount());
+		assertEquals(999, loaded.get(0, 999));
+		assertEquals("a \"500\"", loaded.get(2, 500));
+	}
+}
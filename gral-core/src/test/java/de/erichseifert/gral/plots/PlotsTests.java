@@ -45,6 +45,7 @@ import de.erichseifert.gral.plots.points.PointsTests;
 	PlotAreaTest.class,
 	PlotTest.class,
 	XYPlotTest.class,
+	PointBufferTest.class,
 	PiePlotTest.class,
 	BarPlotTest.class,
 	BoxPlotTest.class,
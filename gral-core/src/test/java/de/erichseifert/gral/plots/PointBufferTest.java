@@ -0,0 +1,127 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.DataTable;
+import de.erichseifert.gral.plots.axes.Axis;
+import de.erichseifert.gral.plots.axes.AxisRenderer;
+import de.erichseifert.gral.plots.axes.LinearRenderer2D;
+import de.erichseifert.gral.plots.points.PointData;
+import de.erichseifert.gral.util.PointND;
+
+public class PointBufferTest {
+	private static final double DELTA = TestUtils.DELTA;
+
+	private DataTable table;
+	private List<Axis> axes;
+	private List<AxisRenderer> axisRenderers;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		table = new DataTable(Double.class, Double.class);
+		for (int row = 0; row < 100; row++) {
+			table.add((double) row, (double) -row);
+		}
+		axes = Arrays.asList(new Axis(0.0, 100.0), new Axis(-100.0, 0.0));
+		axisRenderers = Arrays.<AxisRenderer>asList(new LinearRenderer2D(), new LinearRenderer2D());
+	}
+
+	@Test
+	public void testAdd() {
+		PointBuffer buffer = new PointBuffer();
+		buffer.reset(table, 1, axes, axisRenderers);
+		for (int row = 0; row < table.getRowCount(); row++) {
+			buffer.add(row, 2.0*row, 3.0*row);
+		}
+		assertEquals(100, buffer.size());
+		assertEquals(20.0, buffer.getX(10), DELTA);
+		assertEquals(30.0, buffer.getY(10), DELTA);
+		assertEquals(10, buffer.getRow(10));
+	}
+
+	@Test
+	public void testGet() {
+		PointBuffer buffer = new PointBuffer();
+		buffer.reset(table, 1, axes, axisRenderers);
+		buffer.add(5, 1.0, 2.0);
+		buffer.add(7, 3.0, 4.0);
+
+		DataPoint point = buffer.get(1);
+		assertEquals(3.0, point.position.get(PointND.X), DELTA);
+		assertEquals(4.0, point.position.get(PointND.Y), DELTA);
+		assertEquals(7, point.data.index);
+		assertEquals(1, point.data.col);
+		assertEquals(-7.0, point.data.row.get(1));
+		assertSame(axes.get(0), point.data.axes.get(0));
+		// Data points are created only once
+		assertSame(point, buffer.get(1));
+
+		try {
+			buffer.get(2);
+			fail("Expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testClear() {
+		PointBuffer buffer = new PointBuffer();
+		buffer.reset(table, 1, axes, axisRenderers);
+		buffer.add(0, 1.0, 2.0);
+		DataPoint point = buffer.get(0);
+		buffer.clear();
+		assertEquals(0, buffer.size());
+		buffer.add(1, 5.0, 6.0);
+		DataPoint pointNew = buffer.get(0);
+		assertEquals(1, pointNew.data.index);
+		assertEquals(5.0, pointNew.position.get(PointND.X), DELTA);
+		assertEquals(0, point.data.index);
+	}
+
+	@Test
+	public void testOf() {
+		PointBuffer buffer = new PointBuffer();
+		assertSame(buffer, PointBuffer.of(buffer));
+
+		PointData data = new PointData(axes, axisRenderers, null, 0);
+		DataPoint p1 = new DataPoint(data, new PointND<Double>(1.0, 2.0));
+		DataPoint p2 = new DataPoint(data, new PointND<Double>(3.0, 4.0));
+		PointBuffer copy = PointBuffer.of(Arrays.asList(p1, p2));
+		assertEquals(2, copy.size());
+		assertEquals(3.0, copy.getX(1), DELTA);
+		assertEquals(4.0, copy.getY(1), DELTA);
+		assertSame(p1, copy.get(0));
+		assertSame(p2, copy.get(1));
+	}
+}
@@ -30,19 +30,33 @@ import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static de.erichseifert.gral.TestUtils.assertNotEmpty;
 import static de.erichseifert.gral.TestUtils.createTestImage;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.Column;
+import de.erichseifert.gral.data.DataChangeEvent;
+import de.erichseifert.gral.data.DataListener;
 import de.erichseifert.gral.data.DataSource;
+import de.erichseifert.gral.data.DataTable;
 import de.erichseifert.gral.data.DummyData;
+import de.erichseifert.gral.data.NumericDataSource;
+import de.erichseifert.gral.data.Record;
+import de.erichseifert.gral.data.Row;
+import de.erichseifert.gral.data.statistics.Statistics;
+import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
 import de.erichseifert.gral.graphics.Location;
 import de.erichseifert.gral.plots.XYPlot.XYPlotArea2D;
@@ -52,7 +66,10 @@ import de.erichseifert.gral.plots.axes.Axis;
 import de.erichseifert.gral.plots.axes.AxisRenderer;
 import de.erichseifert.gral.plots.lines.DefaultLineRenderer2D;
 import de.erichseifert.gral.plots.lines.LineRenderer;
+import de.erichseifert.gral.plots.lines.SmoothLineRenderer2D;
+import de.erichseifert.gral.plots.lines.StrokedLine;
 import de.erichseifert.gral.plots.points.DefaultPointRenderer2D;
+import de.erichseifert.gral.plots.points.DensityPointRenderer2D;
 import de.erichseifert.gral.plots.points.PointData;
 import de.erichseifert.gral.plots.points.PointRenderer;
 import de.erichseifert.gral.util.PointND;
@@ -134,6 +151,396 @@ public class XYPlotTest {
 		}
 	}
 
+	private static class CountingPointRenderer extends DefaultPointRenderer2D {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = 6383536419287542171L;
+
+		private final List<Integer> rows = new LinkedList<Integer>();
+
+		@Override
+		public Drawable getPoint(PointData data, Shape shape) {
+			rows.add(data.row.getIndex());
+			return super.getPoint(data, shape);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testViewportCulling() {
+		DataTable sorted = new DataTable(Double.class, Double.class);
+		DataTable unsorted = new DataTable(Double.class, Double.class);
+		for (int i = 0; i < 1000; i++) {
+			sorted.add((double) i, (double) i);
+			unsorted.add((double) ((i*7) % 1000), (double) i);
+		}
+
+		CountingPointRenderer renderer = new CountingPointRenderer();
+		XYPlot plot = new XYPlot(sorted);
+		plot.setPointRenderers(sorted, renderer);
+		plot.getAxis(XYPlot.AXIS_X).setRange(100.0, 110.0);
+		BufferedImage image = createTestImage();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		// Visible rows and one row on each side
+		assertEquals(13, renderer.rows.size());
+		assertEquals(99, (int) renderer.rows.get(0));
+		assertEquals(111, (int) renderer.rows.get(12));
+
+		renderer = new CountingPointRenderer();
+		plot = new XYPlot(unsorted);
+		plot.setPointRenderers(unsorted, renderer);
+		plot.getAxis(XYPlot.AXIS_X).setRange(100.0, 110.0);
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertEquals(1000, renderer.rows.size());
+	}
+
+	private static class CountingDensityRenderer extends DensityPointRenderer2D {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = -2385360166318542113L;
+
+		private int seriesCount;
+		private int pointCount;
+
+		@Override
+		public Drawable getPoints(List<DataPoint> points) {
+			seriesCount++;
+			return super.getPoints(points);
+		}
+
+		@Override
+		public Drawable getPoint(PointData data, Shape shape) {
+			pointCount++;
+			return super.getPoint(data, shape);
+		}
+	}
+
+	@Test
+	public void testBulkPointRenderer() {
+		DataTable data = new DataTable(Double.class, Double.class);
+		for (int i = 0; i < 100; i++) {
+			data.add((double) i, (double) (i % 10));
+		}
+		CountingDensityRenderer renderer = new CountingDensityRenderer();
+		XYPlot plot = new XYPlot(data);
+		plot.setLegendVisible(false);
+		plot.setPointRenderers(data, renderer);
+		BufferedImage image = createTestImage();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertEquals(1, renderer.seriesCount);
+		assertEquals(0, renderer.pointCount);
+		assertNotEmpty(image);
+	}
+
+	private static class CountingLineRenderer extends DefaultLineRenderer2D {
+		/** Version id for serialization. */
+		private static final long serialVersionUID = -1427226420460815446L;
+
+		private int pointCount;
+		private int lineCount;
+
+		@Override
+		public Shape getLineShape(List<DataPoint> points) {
+			pointCount = points.size();
+			lineCount++;
+			return super.getLineShape(points);
+		}
+	}
+
+	/**
+	 * Numeric data source that isn't derived from {@code AbstractDataSource}
+	 * and only reports changes of single values.
+	 */
+	private static class CellEventData implements NumericDataSource {
+		private final DataTable data;
+		private final List<DataListener> listeners;
+
+		@SuppressWarnings("unchecked")
+		public CellEventData() {
+			data = new DataTable(Double.class, Double.class);
+			listeners = new LinkedList<DataListener>();
+		}
+
+		public void add(double x, double y) {
+			int row = data.add(x, y);
+			DataChangeEvent[] events = {
+				new DataChangeEvent(this, 0, row, null, x),
+				new DataChangeEvent(this, 1, row, null, y)
+			};
+			for (DataListener listener : listeners) {
+				listener.dataAdded(this, events);
+			}
+		}
+
+		public Column<?> getColumn(int col) {
+			return data.getColumn(col);
+		}
+
+		public Class<? extends Comparable<?>>[] getColumnTypes() {
+			return data.getColumnTypes();
+		}
+
+		public Row getRow(int row) {
+			return new Row(this, row);
+		}
+
+		public Comparable<?> get(int col, int row) {
+			return data.get(col, row);
+		}
+
+		public Statistics getStatistics() {
+			return data.getStatistics();
+		}
+
+		public DataSource getColumnStatistics(String key) {
+			return data.getColumnStatistics(key);
+		}
+
+		public DataSource getRowStatistics(String key) {
+			return data.getRowStatistics(key);
+		}
+
+		public int getRowCount() {
+			return data.getRowCount();
+		}
+
+		public String getName() {
+			return null;
+		}
+
+		public int getColumnCount() {
+			return data.getColumnCount();
+		}
+
+		public boolean isColumnNumeric(int columnIndex) {
+			return data.isColumnNumeric(columnIndex);
+		}
+
+		public void addDataListener(DataListener dataListener) {
+			listeners.add(dataListener);
+		}
+
+		public void removeDataListener(DataListener dataListener) {
+			listeners.remove(dataListener);
+		}
+
+		public Record getRecord(int row) {
+			return data.getRecord(row);
+		}
+
+		public Iterator<Comparable<?>> iterator() {
+			return data.iterator();
+		}
+
+		public double getDouble(int col, int row) {
+			return data.getDouble(col, row);
+		}
+
+		public void copyColumn(int col, int fromRow, double[] dst, int off, int len) {
+			data.copyColumn(col, fromRow, dst, off, len);
+		}
+
+		public boolean isColumnSorted(int col) {
+			return data.isColumnSorted(col);
+		}
+	}
+
+	@Test
+	public void testLayerCache() {
+		DataTable data1 = new DataTable(Double.class, Double.class);
+		DataTable data2 = new DataTable(Double.class, Double.class);
+		for (int i = 0; i < 10; i++) {
+			data1.add((double) i, (double) (i % 3));
+			data2.add((double) i, (double) (i % 4));
+		}
+		XYPlot plot = new XYPlot(data1, data2);
+		CountingLineRenderer renderer1 = new CountingLineRenderer();
+		CountingLineRenderer renderer2 = new CountingLineRenderer();
+		plot.setLineRenderers(data1, renderer1);
+		plot.setLineRenderers(data2, renderer2);
+		plot.getPlotArea().setLayerCacheEnabled(true);
+		assertTrue(plot.getPlotArea().isLayerCacheEnabled());
+		BufferedImage image = createTestImage();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertEquals(1, renderer1.lineCount);
+		assertEquals(1, renderer2.lineCount);
+
+		// Only the layer of the changed series is drawn again
+		data2.set(1, 0, 2.0);
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertEquals(1, renderer1.lineCount);
+		assertEquals(2, renderer2.lineCount);
+
+		// All layers are drawn again if an axis range changes
+		plot.getAxis(XYPlot.AXIS_X).setRange(-1.0, 12.0);
+		BufferedImage cached = createTestImage();
+		plot.draw(new DrawingContext((Graphics2D) cached.getGraphics()));
+		assertEquals(2, renderer1.lineCount);
+		assertEquals(3, renderer2.lineCount);
+
+		plot.getPlotArea().setLayerCacheEnabled(false);
+		BufferedImage drawn = createTestImage();
+		plot.draw(new DrawingContext((Graphics2D) drawn.getGraphics()));
+		assertEquals(3, renderer1.lineCount);
+		assertNotEmpty(cached);
+		TestUtils.assertEquals(drawn, cached);
+	}
+
+	@Test
+	public void testLayerExecutor() {
+		XYPlot plot = new XYPlot();
+		for (int s = 0; s < 6; s++) {
+			DataTable data = new DataTable(Double.class, Double.class);
+			for (int i = 0; i < 20; i++) {
+				data.add((double) i, (double) ((i*(s + 1)) % 7));
+			}
+			plot.add(data);
+			plot.setLineRenderers(data, new DefaultLineRenderer2D());
+		}
+		BufferedImage drawn = createTestImage();
+		plot.setBounds(0.0, 0.0, drawn.getWidth(), drawn.getHeight());
+		plot.draw(new DrawingContext((Graphics2D) drawn.getGraphics()));
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			plot.getPlotArea().setLayerExecutor(executor);
+			assertSame(executor, plot.getPlotArea().getLayerExecutor());
+			BufferedImage concurrent = createTestImage();
+			plot.draw(new DrawingContext((Graphics2D) concurrent.getGraphics()));
+			assertNotEmpty(concurrent);
+			TestUtils.assertEquals(drawn, concurrent);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testAggregation() {
+		DataTable data = new DataTable(Double.class, Double.class);
+		for (int i = 0; i < 100000; i++) {
+			data.add((double) i, Math.sin(i*0.01));
+		}
+		CountingLineRenderer renderer = new CountingLineRenderer();
+		XYPlot plot = new XYPlot(data);
+		plot.setPointRenderers(data, (PointRenderer) null);
+		plot.setLineRenderers(data, renderer);
+		BufferedImage image = createTestImage();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		double width = plot.getPlotArea().getWidth();
+		// Each bucket spans at most one pixel column, so a pixel column
+		// contains parts of at most two buckets
+		assertTrue(renderer.pointCount > 0);
+		assertTrue(renderer.pointCount <= 8*(Math.ceil(width) + 2));
+
+		// New rows are aggregated incrementally
+		data.add(100000.0, 2.0);
+		plot.getAxis(XYPlot.AXIS_X).setRange(0.0, 100000.0);
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertTrue(renderer.pointCount <= 8*(Math.ceil(width) + 2));
+		assertNotEmpty(image);
+	}
+
+	@Test
+	public void testAggregationCellEvents() {
+		CellEventData data = new CellEventData();
+		for (int i = 0; i < 100000; i++) {
+			data.add(i, Math.sin(i*0.01));
+		}
+		final int[] lastRow = new int[1];
+		CountingLineRenderer renderer = new CountingLineRenderer() {
+			/** Version id for serialization. */
+			private static final long serialVersionUID = 2766178236386541923L;
+
+			@Override
+			public Shape getLineShape(List<DataPoint> points) {
+				lastRow[0] = points.get(points.size() - 1).data.row.getIndex();
+				return super.getLineShape(points);
+			}
+		};
+		XYPlot plot = new XYPlot(data);
+		plot.setPointRenderers(data, (PointRenderer) null);
+		plot.setLineRenderers(data, renderer);
+		BufferedImage image = createTestImage();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		double width = plot.getPlotArea().getWidth();
+		assertTrue(renderer.pointCount <= 8*(Math.ceil(width) + 2));
+		assertEquals(99999, lastRow[0]);
+
+		// Rows that are only reported by events for single values are
+		// aggregated, too
+		for (int i = 100000; i < 110000; i++) {
+			data.add(i, Math.sin(i*0.01));
+		}
+		plot.getAxis(XYPlot.AXIS_X).setRange(0.0, 110000.0);
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertTrue(renderer.pointCount <= 8*(Math.ceil(width) + 2));
+		assertEquals(109999, lastRow[0]);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testAggregationUneven() {
+		// Dense rows followed by a few rows that are far apart
+		DataTable data = new DataTable(Double.class, Double.class);
+		for (int i = 0; i < 100000; i++) {
+			data.add(i*0.01, Math.sin(i*0.01));
+		}
+		for (int i = 1; i <= 20; i++) {
+			data.add(1000.0 + i*100.0, Math.sin(i));
+		}
+		final int[] sparseCount = new int[1];
+		CountingLineRenderer renderer = new CountingLineRenderer() {
+			/** Version id for serialization. */
+			private static final long serialVersionUID = -6135479342768815530L;
+
+			@Override
+			public Shape getLineShape(List<DataPoint> points) {
+				sparseCount[0] = 0;
+				for (DataPoint point : points) {
+					if (point.data.row.getIndex() >= 100000) {
+						sparseCount[0]++;
+					}
+				}
+				return super.getLineShape(points);
+			}
+		};
+		XYPlot plot = new XYPlot(data);
+		plot.setPointRenderers(data, (PointRenderer) null);
+		plot.setLineRenderers(data, renderer);
+		BufferedImage image = createTestImage();
+		plot.setBounds(0.0, 0.0, image.getWidth(), image.getHeight());
+		plot.getAxis(XYPlot.AXIS_X).setRange(0.0, 3100.0);
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		double width = plot.getPlotArea().getWidth();
+		// The sparse rows are further apart than a pixel column, so they
+		// are drawn unreduced
+		assertTrue(3100.0/width < 100.0);
+		assertEquals(20, sparseCount[0]);
+		assertTrue(renderer.pointCount <= 8*(Math.ceil(width) + 2) + 20);
+
+		// Curves depend on all neighbouring points, so they aren't reduced
+		final int[] pointCount = new int[1];
+		plot.setLineRenderers(data, new SmoothLineRenderer2D() {
+			/** Version id for serialization. */
+			private static final long serialVersionUID = 3209744316451337152L;
+
+			@Override
+			public Shape getLineShape(List<DataPoint> points) {
+				pointCount[0] = points.size();
+				return super.getLineShape(points);
+			}
+		});
+		plot.draw(new DrawingContext((Graphics2D) image.getGraphics()));
+		assertEquals(data.getRowCount(), pointCount[0]);
+	}
+
 	@Test
 	public void testGetPointRenderers() {
 		DataSource data = new DummyData(2, 1, 1.0);
@@ -231,6 +638,39 @@ public class XYPlotTest {
 		assertNotSame(line, punched);
 	}
 
+	@Test
+	public void testPunchStrokedLine() {
+		XYPlot plot = new XYPlot();
+		Shape line = new StrokedLine(new Line2D.Double(0.0, 0.0, 10.0, 0.0),
+			new BasicStroke(1f));
+		PointBuffer points = new PointBuffer();
+		points.reset(null, 0, null, null);
+		points.add(0, 2.0, 0.0);
+		points.add(1, 8.0, 0.0);
+
+		XYPlotArea2D plotArea = (XYPlotArea2D) plot.getPlotArea();
+		Shape punchShape = new Ellipse2D.Double(-1.0, -1.0, 2.0, 2.0);
+		List<Shape> punchShapes = Arrays.asList(punchShape, punchShape);
+		Shape punched = plotArea.punch(line, points, punchShapes, 0.5, false);
+		assertNotSame(line, punched);
+		assertFalse(punched.contains(2.0, 0.0));
+		assertFalse(punched.contains(8.0, 0.0));
+		assertFalse(punched.contains(3.25, 0.0));
+		assertTrue(punched.contains(5.0, 0.0));
+		assertTrue(punched.contains(0.25, 0.0));
+		assertTrue(punched.contains(9.75, 0.0));
+
+		PunchedShapeCache cache = new PunchedShapeCache();
+		List<List<Shape>> rendererShapes = Arrays.asList(punchShapes);
+		Shape cached = cache.get("line", line, points, rendererShapes, 0.5, false);
+		assertSame(cached, cache.get("line", line, points, rendererShapes, 0.5, false));
+		assertNotSame(cached, cache.get("line", line, points, rendererShapes, 1.0, false));
+		points.reset(null, 0, null, null);
+		points.add(0, 2.0, 0.0);
+		points.add(1, 7.0, 0.0);
+		assertNotSame(cached, cache.get("line", line, points, rendererShapes, 0.5, false));
+	}
+
 	@Test
 	public void testAddPointRenderer() {
 		DataSource data = new DummyData(2, 1, 1);
@@ -22,7 +22,9 @@
 package de.erichseifert.gral.plots.axes;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.awt.geom.Path2D;
 import java.io.IOException;
 import java.util.List;
 import java.util.Set;
@@ -31,6 +33,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.util.PointND;
 
 public class AbstractAxisRenderer2DTest {
 	private static final double DELTA = 1e-10;
@@ -58,6 +61,32 @@ public class AbstractAxisRenderer2DTest {
 		renderer = new MockAbstractAxisRenderer2D();
 	}
 
+	@Test
+	public void testProject() {
+		Path2D shape = new Path2D.Double();
+		shape.moveTo(0.0, 0.0);
+		shape.lineTo(3.0, 0.0);
+		shape.lineTo(3.0, 4.0);
+		renderer.setShape(shape);
+		Axis axis = new Axis(0.0, 7.0);
+		double[] values = {-1.0, 0.0, 2.0, 3.0, 5.0, 7.0, 8.0, Double.NaN};
+		double[] x = new double[values.length];
+		double[] y = new double[values.length];
+		renderer.project(axis, values, values.length, x, y);
+		for (int i = 0; i < values.length; i++) {
+			PointND<Double> pos = renderer.getPosition(axis, values[i], true, false);
+			if (pos == null) {
+				assertTrue(Double.isNaN(x[i]));
+				assertTrue(Double.isNaN(y[i]));
+			} else {
+				assertEquals(pos.get(PointND.X), x[i], DELTA);
+				assertEquals(pos.get(PointND.Y), y[i], DELTA);
+			}
+		}
+		assertEquals(3.0, x[4], DELTA);
+		assertEquals(2.0, y[4], DELTA);
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		AbstractAxisRenderer2D original = renderer;
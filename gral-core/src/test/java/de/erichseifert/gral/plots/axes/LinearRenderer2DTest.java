@@ -25,8 +25,10 @@ import static de.erichseifert.gral.TestUtils.assertNotEmpty;
 import static de.erichseifert.gral.TestUtils.createTestImage;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 
@@ -36,6 +38,7 @@ import org.junit.Test;
 import de.erichseifert.gral.TestUtils;
 import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.util.PointND;
 
 public class LinearRenderer2DTest {
 	private static final double DELTA = 1e-15;
@@ -111,6 +114,27 @@ public class LinearRenderer2DTest {
 		}
 	}
 
+	@Test
+	public void testProject() {
+		renderer.setShape(new Line2D.Double(1.0, 2.0, 4.0, 6.0));
+		double[] values = {-10.0, -5.0, 0.0, 3.0, 5.0, 10.0,
+			Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NaN};
+		double[] x = new double[values.length];
+		double[] y = new double[values.length];
+		renderer.project(axis, values, values.length, x, y);
+		for (int i = 0; i < values.length; i++) {
+			PointND<Double> pos = renderer.getPosition(axis, values[i], true, false);
+			if (pos == null) {
+				assertTrue(Double.isNaN(x[i]));
+				assertTrue(Double.isNaN(y[i]));
+			} else {
+				assertEquals(pos.get(PointND.X), x[i], 1e-12);
+				assertEquals(pos.get(PointND.Y), y[i], 1e-12);
+			}
+		}
+		assertTrue(Double.isNaN(x[values.length - 1]));
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		AxisRenderer original = renderer;
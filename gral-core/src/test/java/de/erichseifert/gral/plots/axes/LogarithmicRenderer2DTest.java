@@ -25,8 +25,10 @@ import static de.erichseifert.gral.TestUtils.assertNotEmpty;
 import static de.erichseifert.gral.TestUtils.createTestImage;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.List;
@@ -37,6 +39,7 @@ import org.junit.Test;
 import de.erichseifert.gral.TestUtils;
 import de.erichseifert.gral.graphics.Drawable;
 import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.util.PointND;
 
 public class LogarithmicRenderer2DTest {
 	private static final double DELTA = 1e-14;
@@ -121,6 +124,27 @@ public class LogarithmicRenderer2DTest {
 		assertEquals(36, ticks.size());  // 18 major ticks, 18 minor ticks
 	}
 
+	@Test
+	public void testProject() {
+		renderer.setShape(new Line2D.Double(0.0, 0.0, 0.0, 100.0));
+		Axis axis = new Axis(0.1, 1000.0);
+		double[] values = {0.0, 0.01, 0.1, 1.0, 10.0, 1000.0, 2000.0, -1.0};
+		double[] x = new double[values.length];
+		double[] y = new double[values.length];
+		renderer.project(axis, values, values.length, x, y);
+		for (int i = 0; i < values.length; i++) {
+			PointND<Double> pos = renderer.getPosition(axis, values[i], true, false);
+			if (pos == null) {
+				assertTrue(Double.isNaN(x[i]));
+				assertTrue(Double.isNaN(y[i]));
+			} else {
+				assertEquals(pos.get(PointND.X), x[i], 1e-12);
+				assertEquals(pos.get(PointND.Y), y[i], 1e-12);
+			}
+		}
+		assertEquals(50.0, y[4], 1e-12);
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		AxisRenderer original = renderer;
@@ -0,0 +1,154 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.lines;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.erichseifert.gral.TestUtils.assertNotEmpty;
+import static de.erichseifert.gral.TestUtils.createTestImage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.graphics.Drawable;
+import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.plots.DataPoint;
+import de.erichseifert.gral.plots.axes.Axis;
+import de.erichseifert.gral.plots.axes.AxisRenderer;
+import de.erichseifert.gral.plots.axes.LinearRenderer2D;
+import de.erichseifert.gral.plots.points.PointData;
+import de.erichseifert.gral.util.PointND;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DecimatingLineRendererTest {
+	private static final double DELTA = TestUtils.DELTA;
+
+	private PointData data;
+
+	@Before
+	public void setUp() {
+		Axis axisX = new Axis(-5.0, 5.0);
+		Axis axisY = new Axis(-5.0, 5.0);
+		AxisRenderer axisRendererX = new LinearRenderer2D();
+		AxisRenderer axisRendererY = new LinearRenderer2D();
+		data = new PointData(
+			Arrays.asList(axisX, axisY),
+			Arrays.asList(axisRendererX, axisRendererY),
+			null, 0);
+	}
+
+	private List<DataPoint> createPoints(int count, double width) {
+		List<DataPoint> points = new ArrayList<DataPoint>(count);
+		for (int i = 0; i < count; i++) {
+			double x = i*width/count;
+			double y = 50.0 + 40.0*Math.sin(i*0.37) + (i % 11);
+			points.add(new DataPoint(data, new PointND<Double>(x, y)));
+		}
+		return points;
+	}
+
+	private static int getVertexCount(Shape shape) {
+		int count = 0;
+		for (PathIterator i = shape.getPathIterator(null); !i.isDone(); i.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	@Test
+	public void testLine() {
+		LineRenderer r = new DecimatingLineRenderer2D();
+		List<DataPoint> points = createPoints(1000, 100.0);
+		Shape shape = r.getLineShape(points);
+		Drawable line = r.getLine(points, shape);
+		assertNotNull(line);
+
+		BufferedImage image = createTestImage();
+		DrawingContext context = new DrawingContext((Graphics2D) image.getGraphics());
+		line.draw(context);
+		assertNotEmpty(image);
+	}
+
+	@Test
+	public void testDecimation() {
+		DecimatingLineRenderer2D r = new DecimatingLineRenderer2D();
+		List<DataPoint> points = createPoints(100000, 200.0);
+		Path2D path = r.getDecimatedPath(points, r.getColumnWidth());
+		assertTrue(getVertexCount(path) <= 4*200);
+
+		// Extrema are kept
+		Path2D full = new Path2D.Double();
+		for (DataPoint point : points) {
+			if (full.getCurrentPoint() == null) {
+				full.moveTo(point.position.get(PointND.X), point.position.get(PointND.Y));
+			} else {
+				full.lineTo(point.position.get(PointND.X), point.position.get(PointND.Y));
+			}
+		}
+		Rectangle2D bounds = path.getBounds2D();
+		Rectangle2D boundsFull = full.getBounds2D();
+		assertEquals(boundsFull.getMinX(), bounds.getMinX(), DELTA);
+		assertEquals(boundsFull.getMaxX(), bounds.getMaxX(), DELTA);
+		assertEquals(boundsFull.getMinY(), bounds.getMinY(), DELTA);
+		assertEquals(boundsFull.getMaxY(), bounds.getMaxY(), DELTA);
+	}
+
+	@Test
+	public void testSparsePoints() {
+		DecimatingLineRenderer2D r = new DecimatingLineRenderer2D();
+		List<DataPoint> points = createPoints(50, 100.0);
+		// Every point has its own column
+		assertEquals(50, getVertexCount(r.getDecimatedPath(points, r.getColumnWidth())));
+	}
+
+	@Test
+	public void testColumnWidth() {
+		DecimatingLineRenderer2D r = new DecimatingLineRenderer2D();
+		assertEquals(1.0, r.getColumnWidth(), DELTA);
+		r.setColumnWidth(2.5);
+		assertEquals(2.5, r.getColumnWidth(), DELTA);
+
+		// Aggregation can be turned off
+		r.setColumnWidth(0.0);
+		List<DataPoint> points = createPoints(1000, 10.0);
+		assertNotNull(r.getLineShape(points));
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		DecimatingLineRenderer2D original = new DecimatingLineRenderer2D();
+		original.setColumnWidth(2.0);
+		DecimatingLineRenderer2D deserialized = TestUtils.serializeAndDeserialize(original);
+		assertEquals(original.getColumnWidth(), deserialized.getColumnWidth(), DELTA);
+	}
+}
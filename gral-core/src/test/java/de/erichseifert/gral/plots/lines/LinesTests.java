@@ -28,6 +28,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	AbstractLineRendererTest.class,
 	DefaultLineRendererTest.class,
+	DecimatingLineRendererTest.class,
 	DiscreteLineRendererTest.class,
 	SmoothLineRendererTest.class
 })
@@ -26,9 +26,12 @@ import static de.erichseifert.gral.TestUtils.assertNotEmpty;
 import static de.erichseifert.gral.TestUtils.assertNotEquals;
 import static de.erichseifert.gral.TestUtils.createTestImage;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -241,6 +244,44 @@ public class DefaultPointRenderer2DTest {
 		assertEmpty(image);
 	}
 
+	private static BufferedImage drawPoints(PointRenderer r, Object antialiasing) {
+		BufferedImage image = createTestImage();
+		Graphics2D graphics = (Graphics2D) image.getGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+		DrawingContext context = new DrawingContext(graphics);
+		AffineTransform txOld = graphics.getTransform();
+		for (int i = 0; i < 8; i++) {
+			graphics.translate(10.0 + 12.25*i, 20.0 + 7.5*i);
+			Drawable point = r.getPoint(data, r.getPointShape(data));
+			point.draw(context);
+			graphics.setTransform(txOld);
+		}
+		return image;
+	}
+
+	@Test
+	public void testStampCache() {
+		DefaultPointRenderer2D renderer = new DefaultPointRenderer2D();
+		renderer.setShape(new Ellipse2D.Double(-3.3, -2.1, 6.6, 4.2));
+		Object[] antialiasingValues = {
+			RenderingHints.VALUE_ANTIALIAS_OFF, RenderingHints.VALUE_ANTIALIAS_ON
+		};
+		for (Object antialiasing : antialiasingValues) {
+			renderer.setStampCacheEnabled(false);
+			BufferedImage filled = drawPoints(renderer, antialiasing);
+
+			renderer.setStampCacheEnabled(true);
+			assertTrue(renderer.isStampCacheEnabled());
+			BufferedImage stamped = drawPoints(renderer, antialiasing);
+			// Stamps are used again for the second image
+			BufferedImage stampedAgain = drawPoints(renderer, antialiasing);
+
+			assertNotEmpty(stamped);
+			TestUtils.assertEquals(filled, stamped);
+			TestUtils.assertEquals(stamped, stampedAgain);
+		}
+	}
+
 	@Test
 	public void testSerialization() throws IOException, ClassNotFoundException {
 		PointRenderer original = r;
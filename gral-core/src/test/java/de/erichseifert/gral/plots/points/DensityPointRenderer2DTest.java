@@ -0,0 +1,146 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.plots.points;
+
+import static de.erichseifert.gral.TestUtils.assertEmpty;
+import static de.erichseifert.gral.TestUtils.assertNotEmpty;
+import static de.erichseifert.gral.TestUtils.createTestImage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.erichseifert.gral.TestUtils;
+import de.erichseifert.gral.data.DataTable;
+import de.erichseifert.gral.graphics.Drawable;
+import de.erichseifert.gral.graphics.DrawingContext;
+import de.erichseifert.gral.plots.PointBuffer;
+import de.erichseifert.gral.plots.axes.Axis;
+import de.erichseifert.gral.plots.axes.AxisRenderer;
+import de.erichseifert.gral.plots.axes.LinearRenderer2D;
+import de.erichseifert.gral.plots.colors.LinearGradient;
+
+public class DensityPointRenderer2DTest {
+	private PointBuffer points;
+	private DensityPointRenderer2D r;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		DataTable table = new DataTable(Double.class, Double.class);
+		for (int i = 0; i < 6; i++) {
+			table.add((double) i, (double) i);
+		}
+		points = new PointBuffer();
+		points.reset(table, 1,
+			Arrays.asList(new Axis(0.0, 10.0), new Axis(0.0, 10.0)),
+			Arrays.asList(new LinearRenderer2D(), new LinearRenderer2D()));
+		// Three points in one pixel, one in another, two outside the image
+		points.add(0, 10.2, 5.5);
+		points.add(1, 10.7, 5.1);
+		points.add(2, 10.5, 5.9);
+		points.add(3, 20.5, 15.5);
+		points.add(4, -3.0, 5.0);
+		points.add(5, 10.0, 50.0);
+
+		r = new DensityPointRenderer2D();
+		r.setDensityColor(new LinearGradient(Color.BLUE, Color.RED));
+		r.setDensityLogarithmic(false);
+	}
+
+	private BufferedImage draw(DrawingContext.Target target) {
+		BufferedImage image = createTestImage();
+		Graphics2D graphics = (Graphics2D) image.getGraphics();
+		graphics.setClip(new Rectangle2D.Double(0.0, 0.0,
+			image.getWidth(), image.getHeight()));
+		DrawingContext context = new DrawingContext(graphics,
+			DrawingContext.Quality.NORMAL, target);
+		Drawable drawable = r.getPoints(points);
+		assertNotNull(drawable);
+		drawable.draw(context);
+		return image;
+	}
+
+	@Test
+	public void testDensity() {
+		BufferedImage image = draw(DrawingContext.Target.BITMAP);
+
+		assertEquals(Color.RED.getRGB(), image.getRGB(10, 5));
+		Color single = new Color(image.getRGB(20, 15), true);
+		assertEquals(255, single.getAlpha());
+		assertTrue(single.getBlue() > single.getRed());
+
+		int coloredPixels = 0;
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				if ((image.getRGB(x, y) >>> 24) != 0) {
+					coloredPixels++;
+				}
+			}
+		}
+		assertEquals(2, coloredPixels);
+	}
+
+	@Test
+	public void testLogarithmic() {
+		r.setDensityLogarithmic(true);
+		assertTrue(r.isDensityLogarithmic());
+		BufferedImage image = draw(DrawingContext.Target.BITMAP);
+
+		assertEquals(Color.RED.getRGB(), image.getRGB(10, 5));
+		// log(2)/log(4) = 0.5
+		Color single = new Color(image.getRGB(20, 15), true);
+		assertEquals(127.5, single.getRed(), 1.0);
+		assertEquals(127.5, single.getBlue(), 1.0);
+	}
+
+	@Test
+	public void testEmpty() {
+		points.clear();
+		assertEmpty(draw(DrawingContext.Target.BITMAP));
+	}
+
+	@Test
+	public void testVector() {
+		BufferedImage image = draw(DrawingContext.Target.VECTOR);
+		assertNotEmpty(image);
+		// Point shapes are larger than a pixel
+		assertTrue((image.getRGB(11, 6) >>> 24) != 0);
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		DensityPointRenderer2D original = r;
+		DensityPointRenderer2D deserialized = TestUtils.serializeAndDeserialize(original);
+		assertEquals(original.getDensityColor(), deserialized.getDensityColor());
+		assertEquals(original.isDensityLogarithmic(), deserialized.isDensityLogarithmic());
+	}
+}
@@ -28,6 +28,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	AbstractPointRendererTest.class,
 	DefaultPointRenderer2DTest.class,
+	DensityPointRenderer2DTest.class,
 	SizeablePointsRendererTest.class,
 	LabelPointsRendererTest.class
 })
@@ -0,0 +1,87 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FastFourierTransformTest {
+	private static final double DELTA = 1e-10;
+
+	@Test
+	public void testCreation() {
+		FastFourierTransform fft = new FastFourierTransform(16);
+		assertEquals(16, fft.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSize() {
+		new FastFourierTransform(12);
+	}
+
+	@Test
+	public void testGetSize() {
+		assertEquals(1, FastFourierTransform.getSize(0));
+		assertEquals(1, FastFourierTransform.getSize(1));
+		assertEquals(2, FastFourierTransform.getSize(2));
+		assertEquals(8, FastFourierTransform.getSize(5));
+		assertEquals(64, FastFourierTransform.getSize(64));
+	}
+
+	@Test
+	public void testTransform() {
+		int n = 32;
+		Random random = new Random(42L);
+		double[] real = new double[n];
+		double[] imag = new double[n];
+		for (int i = 0; i < n; i++) {
+			real[i] = random.nextDouble();
+			imag[i] = random.nextDouble();
+		}
+		double[] realOriginal = real.clone();
+		double[] imagOriginal = imag.clone();
+
+		FastFourierTransform fft = new FastFourierTransform(n);
+		fft.transform(real, imag);
+		// Compare with the definition of the discrete Fourier transform
+		for (int k = 0; k < n; k++) {
+			double sumReal = 0.0;
+			double sumImag = 0.0;
+			for (int i = 0; i < n; i++) {
+				double angle = -2.0*Math.PI*i*k/n;
+				sumReal += realOriginal[i]*Math.cos(angle) - imagOriginal[i]*Math.sin(angle);
+				sumImag += realOriginal[i]*Math.sin(angle) + imagOriginal[i]*Math.cos(angle);
+			}
+			assertEquals(sumReal, real[k], DELTA);
+			assertEquals(sumImag, imag[k], DELTA);
+		}
+
+		fft.inverse(real, imag);
+		for (int i = 0; i < n; i++) {
+			assertEquals(realOriginal[i], real[i], DELTA);
+			assertEquals(imagOriginal[i], imag[i], DELTA);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * GRAL: GRAphing Library for Java(R)
+ *
+ * (C) Copyright 2009-2016 Erich Seifert <dev[at]erichseifert.de>,
+ * Michael Seifert <mseifert[at]error-reports.org>
+ *
+ * This file is part of GRAL.
+ *
+ * GRAL is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * GRAL is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with GRAL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.erichseifert.gral.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import de.erichseifert.gral.TestUtils;
+import org.junit.Test;
+
+public class SlidingQuantileTest {
+	public static final double DELTA = TestUtils.DELTA;
+
+	@Test
+	public void testCreation() {
+		SlidingQuantile q = new SlidingQuantile(5, 0.25);
+		assertEquals(0, q.size());
+		assertEquals(5, q.getCapacity());
+		assertEquals(0.25, q.getQuantile(), DELTA);
+		assertTrue(Double.isNaN(q.get()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidQuantile() {
+		new SlidingQuantile(5, 1.5);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRemoveEmpty() {
+		new SlidingQuantile(5, 0.5).remove();
+	}
+
+	@Test
+	public void testMedian() {
+		SlidingQuantile q = new SlidingQuantile(3, 0.5);
+		q.add(3.0);
+		assertEquals(3.0, q.get(), DELTA);
+		q.add(1.0);
+		assertEquals(2.0, q.get(), DELTA);
+		q.add(2.0);
+		assertEquals(2.0, q.get(), DELTA);
+		q.add(5.0);
+		assertEquals(3, q.size());
+		assertEquals(2.0, q.get(), DELTA);
+		assertEquals(1.0, q.remove(), DELTA);
+		assertEquals(3.5, q.get(), DELTA);
+	}
+
+	@Test
+	public void testInvalidValues() {
+		SlidingQuantile q = new SlidingQuantile(2, 0.5);
+		q.add(1.0);
+		q.add(Double.NaN);
+		assertTrue(Double.isNaN(q.get()));
+		q.add(2.0);
+		assertTrue(Double.isNaN(q.get()));
+		q.add(4.0);
+		assertEquals(3.0, q.get(), DELTA);
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(42L);
+		double[] quantiles = {0.0, 0.1, 0.25, 0.5, 0.9, 1.0};
+		for (double quantile : quantiles) {
+			SlidingQuantile q = new SlidingQuantile(7, quantile);
+			LinkedList<Double> window = new LinkedList<Double>();
+			for (int i = 0; i < 200; i++) {
+				// Few distinct values to produce duplicates
+				double value = random.nextInt(10);
+				if (window.size() == 7) {
+					window.removeFirst();
+				}
+				window.add(value);
+				q.add(value);
+				if (i % 13 == 0) {
+					window.removeFirst();
+					q.remove();
+				}
+				assertEquals(window.size(), q.size());
+				List<Double> sorted = new ArrayList<Double>(window);
+				Collections.sort(sorted);
+				double expected = sorted.isEmpty() ? Double.NaN
+					: MathUtils.quantile(sorted, quantile);
+				assertEquals(expected, q.get(), 1e-10);
+			}
+		}
+	}
+}
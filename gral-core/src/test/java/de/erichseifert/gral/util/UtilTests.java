@@ -33,7 +33,9 @@ import org.junit.runners.Suite;
 	GraphicsUtilsTest.class,
 	SortedListTest.class,
 	WindowIteratorTest.class,
-	ConcatenationIteratorTest.class
+	ConcatenationIteratorTest.class,
+	SlidingQuantileTest.class,
+	FastFourierTransformTest.class
 })
 public class UtilTests {
 }